@@ -702,7 +702,8 @@ CREATE TABLE `develop_catalogue` (
   `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
   `catalogue_type` tinyint(1) DEFAULT '0' COMMENT '目录类型 0任务目录 1 项目目录',
   PRIMARY KEY (`id`),
-  KEY `index_catalogue_name` (`node_pid`,`node_name`)
+  KEY `index_catalogue_name` (`node_pid`,`node_name`),
+  KEY `index_tenant_id` (`tenant_id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=29 DEFAULT CHARSET=utf8 COLLATE=utf8_bin COMMENT='文件夹、目录表';
 
 -- ----------------------------
@@ -1441,6 +1442,11 @@ CREATE TABLE `schedule_fill_data_job` (
   `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
   `fill_data_info` mediumtext COLLATE utf8_bin COMMENT '补数据信息',
   `fill_generate_status` tinyint(2) NOT NULL DEFAULT '0' COMMENT '补数据生成状态：0默认值，按照原来的接口逻辑走。1 表示正在生成，2 完成生成补数据实例，3生成补数据失败',
+  `begin_time` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '每天补数据的开始时间HH:mm',
+  `end_time` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '每天补数据的结束时间HH:mm',
+  `node_address` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '生成补数据实例的节点',
+  `finish_day` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '已完成生成实例的最后一个业务日期yyyy-MM-dd',
+  `generate_job_num` int(11) NOT NULL DEFAULT '0' COMMENT '已生成的实例数',
   PRIMARY KEY (`id`),
   UNIQUE KEY `index_task_id` (`tenant_id`,`job_name`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_bin;
@@ -1496,9 +1502,59 @@ CREATE TABLE `schedule_job` (
   KEY `index_flow_job_id` (`flow_job_id`),
   KEY `index_gmt_modified` (`gmt_modified`),
   KEY `index_job_execute_order` (`job_execute_order`),
+  KEY `index_node_phase_order` (`node_address`,`phase_status`,`job_execute_order`),
   KEY `index_task_id` (`task_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_bin;
 
+-- ----------------------------
+-- Table structure for schedule_job_archive
+-- ----------------------------
+DROP TABLE IF EXISTS `schedule_job_archive`;
+CREATE TABLE `schedule_job_archive` (
+  `id` int(11) NOT NULL COMMENT 'schedule_job 中的id',
+  `tenant_id` int(11) NOT NULL COMMENT '租户id',
+  `job_id` varchar(64) COLLATE utf8_bin NOT NULL COMMENT '工作任务id',
+  `job_key` varchar(128) COLLATE utf8_bin NOT NULL DEFAULT '' COMMENT '工作任务key',
+  `job_name` varchar(256) COLLATE utf8_bin NOT NULL DEFAULT '' COMMENT '工作任务名称',
+  `task_id` int(11) NOT NULL COMMENT '任务id',
+  `gmt_create` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '新增时间',
+  `gmt_modified` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '修改时间',
+  `create_user_id` int(11) NOT NULL COMMENT '发起操作的用户',
+  `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
+  `type` tinyint(1) NOT NULL DEFAULT '2' COMMENT '0正常调度 1补数据 2临时运行',
+  `is_restart` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0：非重启任务, 1：重启任务',
+  `cyc_time` varchar(64) COLLATE utf8_bin NOT NULL COMMENT '调度时间 yyyyMMddHHmmss',
+  `dependency_type` tinyint(2) NOT NULL DEFAULT '0' COMMENT '依赖类型',
+  `flow_job_id` varchar(64) COLLATE utf8_bin NOT NULL DEFAULT '0' COMMENT '工作流实例id',
+  `period_type` tinyint(2) DEFAULT NULL COMMENT '周期类型',
+  `status` tinyint(1) NOT NULL DEFAULT '0' COMMENT '任务状态',
+  `task_type` tinyint(1) NOT NULL COMMENT '任务类型',
+  `fill_id` int(11) DEFAULT '0' COMMENT '补数据id，默认为0',
+  `exec_start_time` datetime DEFAULT NULL COMMENT '执行开始时间',
+  `exec_end_time` datetime DEFAULT NULL COMMENT '执行结束时间',
+  `exec_time` int(11) DEFAULT '0' COMMENT '执行时间',
+  `submit_time` datetime DEFAULT NULL COMMENT '提交时间',
+  `max_retry_num` int(10) NOT NULL DEFAULT '0' COMMENT '最大重试次数',
+  `retry_num` int(10) NOT NULL DEFAULT '0' COMMENT '执行时，重试的次数',
+  `node_address` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '节点地址',
+  `version_id` int(10) DEFAULT '0' COMMENT '任务运行时候版本号',
+  `next_cyc_time` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '下一次调度时间 yyyyMMddHHmmss',
+  `engine_job_id` varchar(256) COLLATE utf8_bin DEFAULT NULL COMMENT '离线任务计算引擎id',
+  `application_id` varchar(256) COLLATE utf8_bin DEFAULT NULL COMMENT '独立运行的任务需要记录额外的id',
+  `compute_type` tinyint(1) NOT NULL DEFAULT '1' COMMENT '计算类型STREAM(0), BATCH(1)',
+  `phase_status` tinyint(1) NOT NULL DEFAULT '0' COMMENT '运行状态',
+  `job_execute_order` bigint(20) NOT NULL DEFAULT '0' COMMENT '按照计算时间排序字段',
+  `fill_type` tinyint(2) NOT NULL DEFAULT '0' COMMENT '补数据实例类型',
+  `submit_user_name` varchar(64) COLLATE utf8_bin DEFAULT NULL COMMENT '提交用户名',
+  PRIMARY KEY (`id`,`cyc_time`),
+  KEY `index_job_id` (`job_id`),
+  KEY `index_job_key` (`job_key`),
+  KEY `index_task_id` (`task_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_bin COMMENT='已结束的历史实例，按调度日期分区'
+PARTITION BY RANGE COLUMNS(`cyc_time`) (
+  PARTITION `p_init` VALUES LESS THAN ('0')
+);
+
 -- ----------------------------
 -- Table structure for schedule_job_expand
 -- ----------------------------
@@ -1561,14 +1617,16 @@ CREATE TABLE `schedule_job_job` (
   `tenant_id` int(11) NOT NULL COMMENT '租户id',
   `job_key` varchar(256) COLLATE utf8_bin NOT NULL COMMENT 'batch 任务key',
   `parent_job_key` varchar(256) COLLATE utf8_bin DEFAULT NULL COMMENT '对应batch任务父节点的key',
+  `job_key_id` bigint(20) NOT NULL DEFAULT '0' COMMENT 'job_key的数值标识 CONV(LEFT(MD5(job_key), 15), 16, 10)',
+  `parent_job_key_id` bigint(20) NOT NULL DEFAULT '0' COMMENT 'parent_job_key的数值标识',
   `job_key_type` int(11) NOT NULL DEFAULT '2' COMMENT 'parentJobKey类型： RelyType 1. 自依赖实例key 2. 上游任务key 3. 上游任务的下一个周期key',
   `rule` int(11) DEFAULT NULL COMMENT 'parentJobKey类型： RelyType 1. 自依赖实例key 2. 上游任务key 3. 上游任务的下一个周期key',
   `gmt_modified` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '修改时间',
   `gmt_create` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '新增时间',
   `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
   PRIMARY KEY (`id`),
-  KEY `idx_job_jobKey` (`parent_job_key`(128)),
-  KEY `idx_job_parentJobKey` (`job_key`(255),`parent_job_key`(255))
+  KEY `idx_job_key_id` (`job_key_id`,`parent_job_key_id`),
+  KEY `idx_parent_job_key_id` (`parent_job_key_id`,`job_key_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_bin;
 
 -- ----------------------------
@@ -1670,6 +1728,45 @@ CREATE TABLE `schedule_task_task_shade` (
   UNIQUE KEY `index_batch_task_task` (`task_id`,`parent_task_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_bin;
 
+-- ----------------------------
+-- Table structure for stream_task_checkpoint_history
+-- ----------------------------
+DROP TABLE IF EXISTS `stream_task_checkpoint_history`;
+CREATE TABLE `stream_task_checkpoint_history` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `job_id` varchar(64) NOT NULL COMMENT '实例id',
+  `engine_job_id` varchar(256) DEFAULT NULL COMMENT 'flink job id',
+  `checkpoint_id` bigint(20) NOT NULL COMMENT 'checkpoint id',
+  `checkpoint_trigger` datetime(3) NOT NULL COMMENT 'checkpoint 触发时间',
+  `checkpoint_savepath` varchar(1024) DEFAULT NULL COMMENT 'checkpoint 存储路径',
+  `checkpoint_size` bigint(20) NOT NULL DEFAULT '0' COMMENT 'checkpoint 大小(字节)',
+  `checkpoint_duration` bigint(20) NOT NULL DEFAULT '0' COMMENT 'checkpoint 耗时(毫秒)',
+  `gmt_create` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '新增时间',
+  `gmt_modified` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '修改时间',
+  `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `index_job_trigger` (`job_id`,`checkpoint_trigger`,`checkpoint_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COMMENT='实时任务checkpoint历史';
+
+-- ----------------------------
+-- Table structure for stream_task_checkpoint_summary
+-- ----------------------------
+DROP TABLE IF EXISTS `stream_task_checkpoint_summary`;
+CREATE TABLE `stream_task_checkpoint_summary` (
+  `id` bigint(20) NOT NULL AUTO_INCREMENT,
+  `job_id` varchar(64) NOT NULL COMMENT '实例id',
+  `min_trigger` datetime(3) DEFAULT NULL COMMENT '最早的checkpoint触发时间',
+  `max_trigger` datetime(3) DEFAULT NULL COMMENT '最近的checkpoint触发时间',
+  `checkpoint_count` bigint(20) NOT NULL DEFAULT '0' COMMENT 'checkpoint个数',
+  `total_size` bigint(20) NOT NULL DEFAULT '0' COMMENT 'checkpoint总大小(字节)',
+  `compact_time` datetime DEFAULT NULL COMMENT '最近一次压缩时间',
+  `gmt_create` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '新增时间',
+  `gmt_modified` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '修改时间',
+  `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `index_job_id` (`job_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8 COMMENT='实时任务checkpoint汇总';
+
 -- ----------------------------
 -- Table structure for stream_metric_support
 -- ----------------------------
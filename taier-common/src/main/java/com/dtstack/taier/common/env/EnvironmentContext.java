@@ -211,6 +211,9 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${fillData.max.level.size:1000}")
     private Integer fillDataRootTaskMaxLevel;
 
+    @Value("${fillData.max.inflight.batch:4}")
+    private Integer fillDataMaxInflightBatch;
+
     @Value("${build.pool.core.pool.size:10}")
     private Integer graphBuildPoolCorePoolSize;
 
@@ -226,6 +229,69 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${job.graph.task.limit.size:50}")
     private Integer jobGraphTaskLimitSize;
 
+    @Value("${job.critical.path.enable:false}")
+    private Boolean jobCriticalPathEnable;
+
+    @Value("${job.critical.path.history.days:7}")
+    private Integer jobCriticalPathHistoryDays;
+
+    @Value("${job.critical.path.ewma.alpha:0.3}")
+    private Double jobCriticalPathEwmaAlpha;
+
+    @Value("${job.critical.path.default.exec.seconds:60}")
+    private Long jobCriticalPathDefaultExecSeconds;
+
+    @Value("${job.critical.path.priority.max.millis:99999}")
+    private Long jobCriticalPathPriorityMaxMillis;
+
+    @Value("${job.fair.share.enable:false}")
+    private Boolean jobFairShareEnable;
+
+    @Value("${job.fair.share.tenant.weights:}")
+    private String jobFairShareTenantWeights;
+
+    @Value("${job.fair.share.source.weights:NORMAL:4,RESTART:4,TEMP:2,FILL_DATA:1}")
+    private String jobFairShareSourceWeights;
+
+    @Value("${job.fair.share.tenant.max.concurrent:0}")
+    private Integer jobFairShareTenantMaxConcurrent;
+
+    @Value("${job.fair.share.source.max.concurrent:}")
+    private String jobFairShareSourceMaxConcurrent;
+
+    @Value("${job.archive.enable:false}")
+    private Boolean jobArchiveEnable;
+
+    @Value("${job.archive.hot.days:30}")
+    private Integer jobArchiveHotDays;
+
+    @Value("${job.archive.retain.days:365}")
+    private Integer jobArchiveRetainDays;
+
+    @Value("${job.archive.batch.size:1000}")
+    private Integer jobArchiveBatchSize;
+
+    @Value("${job.archive.interval:3600000}")
+    private Long jobArchiveInterval;
+
+    @Value("${job.failover.parallelism:4}")
+    private Integer jobFailoverParallelism;
+
+    @Value("${job.consistent.hash.enable:false}")
+    private Boolean jobConsistentHashEnable;
+
+    @Value("${job.consistent.hash.virtual.nodes:160}")
+    private Integer jobConsistentHashVirtualNodes;
+
+    @Value("${job.consistent.hash.rebalance.delay.minutes:10}")
+    private Integer jobConsistentHashRebalanceDelayMinutes;
+
+    /**
+     * 调度节点之间请求签名的密钥，为空时使用 zk 中生成的密钥
+     */
+    @Value("${node.auth.token:}")
+    private String nodeAuthToken;
+
     @Value("${select.limit:50}")
     private Integer selectLimit;
 
@@ -250,6 +316,36 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${logs.limit.num:10000}")
     private Integer logsLimitNum;
 
+    @Value("${datasource.metadata.cache.enable:true}")
+    private Boolean datasourceMetadataCacheEnable;
+
+    @Value("${datasource.metadata.cache.max.size:5000}")
+    private Long datasourceMetadataCacheMaxSize;
+
+    @Value("${datasource.metadata.cache.expire.seconds:600}")
+    private Long datasourceMetadataCacheExpireSeconds;
+
+    @Value("${datasource.metadata.refresh.seconds:60}")
+    private Long datasourceMetadataRefreshSeconds;
+
+    @Value("${datasource.metadata.negative.seconds:30}")
+    private Long datasourceMetadataNegativeSeconds;
+
+    @Value("${datasource.metadata.refresh.pool.size:4}")
+    private Integer datasourceMetadataRefreshPoolSize;
+
+    @Value("${checkpoint.history.sync.enable:true}")
+    private Boolean checkpointHistorySyncEnable;
+
+    @Value("${checkpoint.history.raw.days:3}")
+    private Integer checkpointHistoryRawDays;
+
+    @Value("${checkpoint.history.bucket.minutes:60}")
+    private Integer checkpointHistoryBucketMinutes;
+
+    @Value("${checkpoint.history.retain.days:180}")
+    private Integer checkpointHistoryRetainDays;
+
     @Override
     public void afterPropertiesSet() throws Exception {
         ClientCache.setUserDir(getDataSourcePluginPath());
@@ -510,6 +606,10 @@ public class EnvironmentContext implements InitializingBean {
         return fillDataRootTaskMaxLevel;
     }
 
+    public Integer getFillDataMaxInflightBatch() {
+        return fillDataMaxInflightBatch;
+    }
+
     public Integer getGraphBuildPoolCorePoolSize() {
         return graphBuildPoolCorePoolSize;
     }
@@ -530,6 +630,86 @@ public class EnvironmentContext implements InitializingBean {
         return jobGraphTaskLimitSize;
     }
 
+    public Boolean getJobCriticalPathEnable() {
+        return jobCriticalPathEnable;
+    }
+
+    public Integer getJobCriticalPathHistoryDays() {
+        return jobCriticalPathHistoryDays;
+    }
+
+    public Double getJobCriticalPathEwmaAlpha() {
+        return jobCriticalPathEwmaAlpha;
+    }
+
+    public Long getJobCriticalPathDefaultExecSeconds() {
+        return jobCriticalPathDefaultExecSeconds;
+    }
+
+    public Long getJobCriticalPathPriorityMaxMillis() {
+        return jobCriticalPathPriorityMaxMillis;
+    }
+
+    public Boolean getJobFairShareEnable() {
+        return jobFairShareEnable;
+    }
+
+    public String getJobFairShareTenantWeights() {
+        return jobFairShareTenantWeights;
+    }
+
+    public String getJobFairShareSourceWeights() {
+        return jobFairShareSourceWeights;
+    }
+
+    public Integer getJobFairShareTenantMaxConcurrent() {
+        return jobFairShareTenantMaxConcurrent;
+    }
+
+    public String getJobFairShareSourceMaxConcurrent() {
+        return jobFairShareSourceMaxConcurrent;
+    }
+
+    public Boolean getJobArchiveEnable() {
+        return jobArchiveEnable;
+    }
+
+    public Integer getJobArchiveHotDays() {
+        return jobArchiveHotDays;
+    }
+
+    public Integer getJobArchiveRetainDays() {
+        return jobArchiveRetainDays;
+    }
+
+    public Integer getJobArchiveBatchSize() {
+        return jobArchiveBatchSize;
+    }
+
+    public Long getJobArchiveInterval() {
+        return jobArchiveInterval;
+    }
+
+    public Integer getJobFailoverParallelism() {
+        return jobFailoverParallelism;
+    }
+
+    public Boolean getJobConsistentHashEnable() {
+        return jobConsistentHashEnable;
+    }
+
+    public Integer getJobConsistentHashVirtualNodes() {
+        return jobConsistentHashVirtualNodes;
+    }
+
+    public Integer getJobConsistentHashRebalanceDelayMinutes() {
+        return jobConsistentHashRebalanceDelayMinutes;
+    }
+
+    public String getNodeAuthToken() {
+        return nodeAuthToken;
+    }
+
     public String getCreateTableType() {
         return createTableType;
     }
@@ -569,4 +749,44 @@ public class EnvironmentContext implements InitializingBean {
     public int getStopLimit() {
         return stopLimit;
     }
+
+    public Boolean getDatasourceMetadataCacheEnable() {
+        return datasourceMetadataCacheEnable;
+    }
+
+    public Long getDatasourceMetadataCacheMaxSize() {
+        return datasourceMetadataCacheMaxSize;
+    }
+
+    public Long getDatasourceMetadataCacheExpireSeconds() {
+        return datasourceMetadataCacheExpireSeconds;
+    }
+
+    public Long getDatasourceMetadataRefreshSeconds() {
+        return datasourceMetadataRefreshSeconds;
+    }
+
+    public Long getDatasourceMetadataNegativeSeconds() {
+        return datasourceMetadataNegativeSeconds;
+    }
+
+    public Integer getDatasourceMetadataRefreshPoolSize() {
+        return datasourceMetadataRefreshPoolSize;
+    }
+
+    public Boolean getCheckpointHistorySyncEnable() {
+        return checkpointHistorySyncEnable;
+    }
+
+    public Integer getCheckpointHistoryRawDays() {
+        return checkpointHistoryRawDays;
+    }
+
+    public Integer getCheckpointHistoryBucketMinutes() {
+        return checkpointHistoryBucketMinutes;
+    }
+
+    public Integer getCheckpointHistoryRetainDays() {
+        return checkpointHistoryRetainDays;
+    }
 }
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.queue;
+
+/**
+ * 公平调度策略，元素按 租户 -> 来源 两级分类，见 {@link FairShareQueue}
+ *
+ * @author jiangbo
+ */
+public interface FairSharePolicy<E> {
+
+    /**
+     * 元素所属租户
+     */
+    String tenantOf(E e);
+
+    /**
+     * 元素来源，如周期调度、补数据、重跑
+     */
+    String sourceOf(E e);
+
+    /**
+     * 租户权重，权重越大出队机会越多，小于 1 时按 1 处理
+     */
+    int tenantWeight(String tenant);
+
+    /**
+     * 租户下某一来源的权重，小于 1 时按 1 处理
+     */
+    int sourceWeight(String source);
+
+    /**
+     * 租户同时出队未归还的元素上限，小于等于 0 不限制
+     */
+    int tenantMaxConcurrent(String tenant);
+
+    /**
+     * 租户下某一来源同时出队未归还的元素上限，小于等于 0 不限制
+     */
+    int sourceMaxConcurrent(String source);
+}
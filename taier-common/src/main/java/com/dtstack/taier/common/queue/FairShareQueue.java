@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.queue;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分级公平优先级队列
+ * <p>
+ * 元素按 租户 -> 来源 两级分类，每一级按 stride 调度：每个分类维护 pass 值，出队时选 pass 最小的分类，
+ * 并将其 pass 增加 STRIDE / 权重，权重越大被选中的次数越多；同一分类内仍按比较器取优先级最高的元素。
+ * 分类重新变为可出队时 pass 提升到当前虚拟时间，空闲期间不会积累额度。
+ * <p>
+ * 出队后未调用 {@link #release(Object)} 归还的元素计入分类并发数，达到上限的分类暂时不参与调度，
+ * 同一元素归还前重新入队并再次出队时按出队次数计数。入队、出队、删除均为 O(log n)
+ *
+ * @author jiangbo
+ */
+public class FairShareQueue<E> {
+
+    private static final long STRIDE = 1L << 20;
+
+    private static final String CLASS_SEPARATOR = "/";
+
+    private final Comparator<? super E> comparator;
+
+    private final FairSharePolicy<E> policy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Map<String, Tenant> tenants = new HashMap<>();
+
+    private final TreeSet<Tenant> readyTenants = new TreeSet<>();
+
+    /**
+     * 队列中的元素
+     */
+    private final Map<E, Item<E>> queued = new HashMap<>();
+
+    /**
+     * 已出队未归还的元素
+     */
+    private final Map<E, Taken> taken = new HashMap<>();
+
+    /**
+     * key 租户/来源
+     */
+    private final Map<String, WaitTimeHistogram> waitTimes = new ConcurrentHashMap<>();
+
+    private long sequence;
+
+    private long nodeSequence;
+
+    private long virtualPass;
+
+    public FairShareQueue(Comparator<? super E> comparator, FairSharePolicy<E> policy) {
+        this.comparator = comparator;
+        this.policy = policy;
+    }
+
+    /**
+     * 入队，已在队列中的元素忽略
+     */
+    public void put(E e) {
+        lock.lock();
+        try {
+            if (queued.containsKey(e)) {
+                return;
+            }
+            String tenantName = String.valueOf(policy.tenantOf(e));
+            String sourceName = String.valueOf(policy.sourceOf(e));
+            Tenant tenant = tenants.computeIfAbsent(tenantName, Tenant::new);
+            Source source = tenant.sources.computeIfAbsent(sourceName, name -> new Source(name, tenant));
+            Item<E> item = new Item<>(e, sequence++, System.currentTimeMillis(), source);
+            source.items.add(item);
+            queued.put(e, item);
+            refresh(source);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 阻塞直到有可出队的元素
+     */
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (readyTenants.isEmpty()) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return 没有可出队的元素时返回 null
+     */
+    public E poll() {
+        lock.lock();
+        try {
+            return readyTenants.isEmpty() ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 归还出队的元素，释放所属分类的一个并发数
+     *
+     * @return 元素是否处于出队未归还状态
+     */
+    public boolean release(E e) {
+        lock.lock();
+        try {
+            boolean released = releaseInner(e);
+            if (released && !readyTenants.isEmpty()) {
+                notEmpty.signal();
+            }
+            return released;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(E e) {
+        lock.lock();
+        try {
+            Item<E> item = queued.remove(e);
+            if (item == null) {
+                return false;
+            }
+            Source source = item.source;
+            if (!source.items.remove(item)) {
+                // 元素在队列中时排序字段被修改，按引用删除
+                source.items.removeIf(i -> i == item);
+            }
+            refresh(source);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(E e) {
+        lock.lock();
+        try {
+            return queued.containsKey(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queued.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return key 租户/来源，value 出队元素的排队时长
+     */
+    public Map<String, WaitTimeHistogram> getWaitTimes() {
+        return Collections.unmodifiableMap(waitTimes);
+    }
+
+    private E dequeue() {
+        Tenant tenant = readyTenants.pollFirst();
+        tenant.ready = false;
+        Source source = tenant.readySources.pollFirst();
+        source.ready = false;
+        Item<E> item = source.items.pollFirst();
+        queued.remove(item.e);
+
+        virtualPass = tenant.pass;
+        tenant.virtualPass = source.pass;
+        tenant.pass += STRIDE / Math.max(1, policy.tenantWeight(tenant.name));
+        source.pass += STRIDE / Math.max(1, policy.sourceWeight(source.name));
+        tenant.running++;
+        source.running++;
+        taken.computeIfAbsent(item.e, k -> new Taken(source)).count++;
+        refresh(source);
+
+        source.waitTime.record(System.currentTimeMillis() - item.enqueueTime);
+        return item.e;
+    }
+
+    private boolean releaseInner(E e) {
+        Taken taken = this.taken.get(e);
+        if (taken == null) {
+            return false;
+        }
+        if (--taken.count == 0) {
+            this.taken.remove(e);
+        }
+        Source source = taken.source;
+        source.running--;
+        source.tenant.running--;
+        refresh(source);
+        return true;
+    }
+
+    /**
+     * 来源的可出队状态变化后同步到租户
+     */
+    private void refresh(Source source) {
+        Tenant tenant = source.tenant;
+        boolean ready = !source.items.isEmpty() && underLimit(source.running, policy.sourceMaxConcurrent(source.name));
+        if (ready != source.ready) {
+            if (ready) {
+                source.pass = Math.max(source.pass, tenant.virtualPass);
+                tenant.readySources.add(source);
+            } else {
+                tenant.readySources.remove(source);
+            }
+            source.ready = ready;
+        }
+
+        ready = !tenant.readySources.isEmpty() && underLimit(tenant.running, policy.tenantMaxConcurrent(tenant.name));
+        if (ready != tenant.ready) {
+            if (ready) {
+                tenant.pass = Math.max(tenant.pass, virtualPass);
+                readyTenants.add(tenant);
+            } else {
+                readyTenants.remove(tenant);
+            }
+            tenant.ready = ready;
+        }
+    }
+
+    private static boolean underLimit(int running, int limit) {
+        return limit <= 0 || running < limit;
+    }
+
+    private int compareItem(Item<E> o1, Item<E> o2) {
+        int result = comparator.compare(o1.e, o2.e);
+        return result != 0 ? result : Long.compare(o1.sequence, o2.sequence);
+    }
+
+    /**
+     * 调度分类，pass 只在不处于可出队集合时修改
+     */
+    private abstract class Node<T extends Node<T>> implements Comparable<T> {
+
+        final String name;
+
+        final long id = nodeSequence++;
+
+        long pass;
+
+        int running;
+
+        boolean ready;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(T o) {
+            int result = Long.compare(pass, o.pass);
+            return result != 0 ? result : Long.compare(id, o.id);
+        }
+    }
+
+    private class Tenant extends Node<Tenant> {
+
+        final Map<String, Source> sources = new HashMap<>();
+
+        final TreeSet<Source> readySources = new TreeSet<>();
+
+        /**
+         * 租户内最近一次出队来源的 pass
+         */
+        long virtualPass;
+
+        Tenant(String name) {
+            super(name);
+        }
+    }
+
+    private class Source extends Node<Source> {
+
+        final Tenant tenant;
+
+        final TreeSet<Item<E>> items = new TreeSet<>(FairShareQueue.this::compareItem);
+
+        final WaitTimeHistogram waitTime;
+
+        Source(String name, Tenant tenant) {
+            super(name);
+            this.tenant = tenant;
+            this.waitTime = waitTimes.computeIfAbsent(tenant.name + CLASS_SEPARATOR + name, k -> new WaitTimeHistogram());
+        }
+    }
+
+    /**
+     * 出队未归还的记录，重新入队的元素可能来自其他分类，按首次出队的分类归还
+     */
+    private class Taken {
+
+        final Source source;
+
+        int count;
+
+        Taken(Source source) {
+            this.source = source;
+        }
+    }
+
+    private static class Item<E> {
+
+        final E e;
+
+        final long sequence;
+
+        final long enqueueTime;
+
+        final FairShareQueue<E>.Source source;
+
+        Item(E e, long sequence, long enqueueTime, FairShareQueue<E>.Source source) {
+            this.e = e;
+            this.sequence = sequence;
+            this.enqueueTime = enqueueTime;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.queue;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 排队时长直方图，桶按上界划分，单位毫秒
+ *
+ * @author jiangbo
+ */
+public class WaitTimeHistogram {
+
+    public static final long[] BOUNDS = {100L, 1000L, 5000L, 30000L, 60000L, 300000L, 1800000L, 3600000L};
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sum = new LongAdder();
+
+    public WaitTimeHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long millis) {
+        int index = 0;
+        while (index < BOUNDS.length && millis > BOUNDS[index]) {
+            index++;
+        }
+        buckets[index].increment();
+        count.increment();
+        sum.add(millis);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return 各桶计数，最后一个为超过最大上界的计数
+     */
+    public long[] getBuckets() {
+        long[] values = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            values[i] = buckets[i].sum();
+        }
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{count=").append(getCount()).append(", sum=").append(getSum());
+        long[] values = getBuckets();
+        for (int i = 0; i < values.length; i++) {
+            builder.append(", ").append(i < BOUNDS.length ? "le" + BOUNDS[i] : "inf").append('=').append(values[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.thread;
+
+import com.dtstack.taier.common.BlockCallerPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 有界的批次并行执行器
+ * <p>
+ * 调用方按批次读取数据后提交处理，排队的批次达到并行度时提交会阻塞，读取速度不会超过处理速度，内存中最多保留 2 倍并行度的批次；
+ * 批次由同一个线程提交，用完后调用 {@link #await()} 等待全部批次完成并关闭
+ *
+ * @author jiangbo
+ */
+public class BoundedBatchExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BoundedBatchExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+
+    private final List<Future<?>> futures = new ArrayList<>();
+
+    public BoundedBatchExecutor(String name, int parallelism) {
+        int threads = Math.max(1, parallelism);
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads), new RdosThreadFactory(name), new BlockCallerPolicy());
+    }
+
+    /**
+     * 提交一个批次，队列已满时阻塞
+     */
+    public void submit(Runnable batch) {
+        futures.add(executor.submit(batch));
+    }
+
+    /**
+     * 等待已提交的批次全部完成并关闭执行器
+     *
+     * @return 执行失败的批次数
+     */
+    public int await() throws InterruptedException {
+        int failed = 0;
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    LOGGER.error("batch execute error", e.getCause());
+                }
+            }
+        } finally {
+            futures.clear();
+            executor.shutdownNow();
+        }
+        return failed;
+    }
+}
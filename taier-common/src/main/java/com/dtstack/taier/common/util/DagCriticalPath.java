@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * 任务依赖图的关键路径计算
+ * <p>
+ * 按出度做逆拓扑序遍历，一次求出每个节点下游的最长加权路径，时间复杂度 O(V+E)
+ *
+ * @author jiangbo
+ */
+public class DagCriticalPath {
+
+    private DagCriticalPath() {
+    }
+
+    /**
+     * 获得每个节点下游的最长路径长度，不包含节点自身的权重，没有下游的节点为 0
+     * <p>
+     * 依赖存在环时，环上及其上游节点只统计环外的下游
+     *
+     * @param nodeSide 边，key 为上游节点，value 为下游节点
+     * @param weight   节点权重，如预估运行时长
+     * @return key 节点，value 下游最长路径长度
+     */
+    public static Map<Long, Long> downstreamLength(Map<Long, List<Long>> nodeSide, ToLongFunction<Long> weight) {
+        Map<Long, Integer> indexes = new HashMap<>(nodeSide.size() * 2);
+        int edgeCount = 0;
+        for (Map.Entry<Long, List<Long>> entry : nodeSide.entrySet()) {
+            indexOf(indexes, entry.getKey());
+            if (entry.getValue() != null) {
+                for (Long child : entry.getValue()) {
+                    indexOf(indexes, child);
+                    edgeCount++;
+                }
+            }
+        }
+
+        int nodeCount = indexes.size();
+        long[] taskKeys = new long[nodeCount];
+        long[] weights = new long[nodeCount];
+        for (Map.Entry<Long, Integer> entry : indexes.entrySet()) {
+            taskKeys[entry.getValue()] = entry.getKey();
+            weights[entry.getValue()] = weight.applyAsLong(entry.getKey());
+        }
+
+        // 以 CSR 形式保存反向邻接表，同时统计出度
+        int[] sources = new int[edgeCount];
+        int[] children = new int[edgeCount];
+        int[] outDegrees = new int[nodeCount];
+        int[] parentOffsets = new int[nodeCount + 1];
+        int edge = 0;
+        for (Map.Entry<Long, List<Long>> entry : nodeSide.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            int source = indexes.get(entry.getKey());
+            for (Long child : entry.getValue()) {
+                int target = indexes.get(child);
+                sources[edge] = source;
+                children[edge] = target;
+                outDegrees[source]++;
+                parentOffsets[target + 1]++;
+                edge++;
+            }
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            parentOffsets[i + 1] += parentOffsets[i];
+        }
+        int[] parentEdges = new int[edgeCount];
+        int[] parentCursor = new int[nodeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            parentEdges[parentOffsets[children[i]] + parentCursor[children[i]]++] = sources[i];
+        }
+
+        long[] downstream = new long[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            if (outDegrees[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            long length = weights[node] + downstream[node];
+            for (int e = parentOffsets[node]; e < parentOffsets[node + 1]; e++) {
+                int parent = parentEdges[e];
+                if (downstream[parent] < length) {
+                    downstream[parent] = length;
+                }
+                if (--outDegrees[parent] == 0) {
+                    queue[tail++] = parent;
+                }
+            }
+        }
+
+        Map<Long, Long> lengths = new HashMap<>(nodeCount * 2);
+        for (int i = 0; i < nodeCount; i++) {
+            lengths.put(taskKeys[i], downstream[i]);
+        }
+        return lengths;
+    }
+
+    private static void indexOf(Map<Long, Integer> indexes, Long taskKey) {
+        if (!indexes.containsKey(taskKey)) {
+            indexes.put(taskKey, indexes.size());
+        }
+    }
+}
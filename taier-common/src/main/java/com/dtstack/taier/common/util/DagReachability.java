@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 任务依赖图的可达性计算
+ * <p>
+ * 节点编号为连续的 int 后以数组保存邻接表，正向、反向各做一次广度遍历，时间和空间都是 O(V+E)，
+ * 不再枚举节点之间的所有路径
+ *
+ * @author jiangbo
+ */
+public class DagReachability {
+
+    private DagReachability() {
+    }
+
+    /**
+     * 获得位于两个目标节点之间的中间节点，即可以从某个目标节点到达、且可以到达某个目标节点的非目标节点
+     *
+     * @param targets  目标节点
+     * @param nodeSide 边，key 为上游节点，value 为下游节点
+     * @return 中间节点，不包含目标节点
+     */
+    public static Set<Long> intermediateNodes(Collection<Long> targets, Map<Long, List<Long>> nodeSide) {
+        Map<Long, Integer> indexes = new HashMap<>(nodeSide.size() * 2);
+        int edgeCount = 0;
+        for (Map.Entry<Long, List<Long>> entry : nodeSide.entrySet()) {
+            indexOf(indexes, entry.getKey());
+            if (entry.getValue() != null) {
+                for (Long child : entry.getValue()) {
+                    indexOf(indexes, child);
+                    edgeCount++;
+                }
+            }
+        }
+        for (Long target : targets) {
+            indexOf(indexes, target);
+        }
+
+        int nodeCount = indexes.size();
+        long[] taskKeys = new long[nodeCount];
+        for (Map.Entry<Long, Integer> entry : indexes.entrySet()) {
+            taskKeys[entry.getValue()] = entry.getKey();
+        }
+
+        // 以 CSR 形式保存正向、反向邻接表
+        int[] sources = new int[edgeCount];
+        int[] children = new int[edgeCount];
+        int edge = 0;
+        for (Map.Entry<Long, List<Long>> entry : nodeSide.entrySet()) {
+            if (entry.getValue() == null) {
+                continue;
+            }
+            int source = indexes.get(entry.getKey());
+            for (Long child : entry.getValue()) {
+                sources[edge] = source;
+                children[edge] = indexes.get(child);
+                edge++;
+            }
+        }
+        int[] childOffsets = new int[nodeCount + 1];
+        int[] parentOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++) {
+            childOffsets[sources[i] + 1]++;
+            parentOffsets[children[i] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+            parentOffsets[i + 1] += parentOffsets[i];
+        }
+        int[] childEdges = new int[edgeCount];
+        int[] parentEdges = new int[edgeCount];
+        int[] childCursor = new int[nodeCount];
+        int[] parentCursor = new int[nodeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            childEdges[childOffsets[sources[i]] + childCursor[sources[i]]++] = children[i];
+            parentEdges[parentOffsets[children[i]] + parentCursor[children[i]]++] = sources[i];
+        }
+
+        boolean[] target = new boolean[nodeCount];
+        int[] targetIndexes = new int[targets.size()];
+        int targetSize = 0;
+        for (Long taskKey : targets) {
+            int index = indexes.get(taskKey);
+            if (!target[index]) {
+                target[index] = true;
+                targetIndexes[targetSize++] = index;
+            }
+        }
+
+        boolean[] reachable = traverse(targetIndexes, targetSize, childOffsets, childEdges, nodeCount);
+        boolean[] coReachable = traverse(targetIndexes, targetSize, parentOffsets, parentEdges, nodeCount);
+
+        Set<Long> intermediates = new HashSet<>();
+        for (int i = 0; i < nodeCount; i++) {
+            if (!target[i] && reachable[i] && coReachable[i]) {
+                intermediates.add(taskKeys[i]);
+            }
+        }
+        return intermediates;
+    }
+
+    private static int indexOf(Map<Long, Integer> indexes, Long taskKey) {
+        Integer index = indexes.get(taskKey);
+        if (index == null) {
+            index = indexes.size();
+            indexes.put(taskKey, index);
+        }
+        return index;
+    }
+
+    /**
+     * 从目标节点出发沿边遍历，标记经过至少一条边可以到达的节点
+     */
+    private static boolean[] traverse(int[] starts, int startSize, int[] offsets, int[] edges, int nodeCount) {
+        boolean[] visited = new boolean[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < startSize; i++) {
+            int node = starts[i];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if (!visited[edges[e]]) {
+                    visited[edges[e]] = true;
+                    queue[tail++] = edges[e];
+                }
+            }
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if (!visited[edges[e]]) {
+                    visited[edges[e]] = true;
+                    queue[tail++] = edges[e];
+                }
+            }
+        }
+        return visited;
+    }
+}
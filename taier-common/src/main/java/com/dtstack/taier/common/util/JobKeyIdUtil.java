@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 实例 key 的数值标识
+ * <p>
+ * 实例关系中的父实例在生成边时可能还未生成，无法使用自增主键，这里由 jobKey 确定性地计算出 60 位的数值标识：
+ * 取 jobKey(UTF-8) 的 md5 前 15 个十六进制字符，与 SQL 中 CONV(LEFT(MD5(job_key), 15), 16, 10) 结果一致，
+ * 存量数据可以直接用 SQL 回填。不同 jobKey 可能得到相同的标识，按标识查询后仍需用 jobKey 过滤
+ *
+ * @author jiangbo
+ */
+public class JobKeyIdUtil {
+
+    private static final ThreadLocal<MessageDigest> MD5 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private JobKeyIdUtil() {
+    }
+
+    /**
+     * 计算实例 key 的数值标识
+     *
+     * @param jobKey 实例 key
+     * @return 数值标识，jobKey 为空时返回 0
+     */
+    public static long getJobKeyId(String jobKey) {
+        if (jobKey == null || jobKey.isEmpty()) {
+            return 0L;
+        }
+        byte[] digest = MD5.get().digest(jobKey.getBytes(StandardCharsets.UTF_8));
+        long value = 0L;
+        for (int i = 0; i < Long.BYTES; i++) {
+            value = (value << 8) | (digest[i] & 0xFF);
+        }
+        // 高 60 位即前 15 个十六进制字符
+        return value >>> 4;
+    }
+}
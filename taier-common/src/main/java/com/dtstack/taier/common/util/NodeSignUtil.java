@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.taier.common.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+/**
+ * 调度节点之间请求的签名
+ * <p>
+ * 请求方用节点共享的密钥对时间戳做 HmacSHA256 签名，放在请求头中；接收方用相同的密钥校验签名，
+ * 时间戳与当前时间的偏差超过上限时拒绝，不依赖请求来源的 ip
+ *
+ * @author jiangbo
+ */
+public class NodeSignUtil {
+
+    public static final String HEADER_TIMESTAMP = "X-Taier-Node-Timestamp";
+
+    public static final String HEADER_SIGN = "X-Taier-Node-Sign";
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private NodeSignUtil() {
+    }
+
+    /**
+     * 计算签名
+     *
+     * @param token     节点共享的密钥
+     * @param timestamp 毫秒时间戳
+     * @return 十六进制签名
+     */
+    public static String sign(String token, long timestamp) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(token.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            byte[] digest = mac.doFinal(String.valueOf(timestamp).getBytes(StandardCharsets.UTF_8));
+            char[] chars = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                chars[i * 2] = HEX[(digest[i] >> 4) & 0xF];
+                chars[i * 2 + 1] = HEX[digest[i] & 0xF];
+            }
+            return new String(chars);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 校验签名
+     *
+     * @param token         节点共享的密钥
+     * @param timestamp     请求头中的时间戳
+     * @param sign          请求头中的签名
+     * @param maxSkewMillis 时间戳允许的最大偏差
+     * @return 签名有效且时间戳未过期
+     */
+    public static boolean verify(String token, String timestamp, String sign, long maxSkewMillis) {
+        if (token == null || token.isEmpty() || timestamp == null || sign == null) {
+            return false;
+        }
+        long time;
+        try {
+            time = Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (Math.abs(System.currentTimeMillis() - time) > maxSkewMillis) {
+            return false;
+        }
+        return MessageDigest.isEqual(sign(token, time).getBytes(StandardCharsets.UTF_8), sign.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 预编译的参数模板
+ * <p>
+ * 任务内容中的 ${name}、@@{name} 占位符在编译时定位一次，替换时按计划时间求出参数值后一次拼接到预分配的缓冲区，
+ * 不再对每个参数做一遍全文 replace；相同内容的模板缓存复用
+ *
+ * @author jiangbo
+ */
+public class ParamTemplate {
+
+    public static final String VAR_PREFIX = "${";
+
+    public static final String COMPONENT_PREFIX = "@@{";
+
+    private static final char SUFFIX = '}';
+
+    /**
+     * 按字符数限制缓存的模板总大小
+     */
+    private static final long MAX_CACHED_CHARS = 16L * 1024 * 1024;
+
+    private static final Cache<String, ParamTemplate> TEMPLATES = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHED_CHARS)
+            .weigher((String text, ParamTemplate template) -> text.length())
+            .build();
+
+    private final String text;
+
+    /**
+     * 按出现位置排列，可能互相重叠(如 ${a${b}})，替换时跳过落在已替换区间内的占位符
+     */
+    private final Placeholder[] placeholders;
+
+    private ParamTemplate(String text, Placeholder[] placeholders) {
+        this.text = text;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * 获取模板，相同内容只编译一次
+     */
+    public static ParamTemplate of(String text) {
+        try {
+            return TEMPLATES.get(text, () -> compile(text));
+        } catch (ExecutionException e) {
+            return compile(text);
+        }
+    }
+
+    public static ParamTemplate compile(String text) {
+        List<Placeholder> placeholders = new ArrayList<>();
+        int index = 0;
+        int varIndex = text.indexOf(VAR_PREFIX);
+        int componentIndex = text.indexOf(COMPONENT_PREFIX);
+        while (index < text.length()) {
+            // 两种前缀各自记录下一个位置，整体只扫描一遍
+            if (varIndex >= 0 && varIndex < index) {
+                varIndex = text.indexOf(VAR_PREFIX, index);
+            }
+            if (componentIndex >= 0 && componentIndex < index) {
+                componentIndex = text.indexOf(COMPONENT_PREFIX, index);
+            }
+            boolean component = componentIndex >= 0 && (varIndex < 0 || componentIndex < varIndex);
+            int start = component ? componentIndex : varIndex;
+            if (start < 0) {
+                break;
+            }
+            int nameStart = start + (component ? COMPONENT_PREFIX.length() : VAR_PREFIX.length());
+            int end = text.indexOf(SUFFIX, nameStart);
+            if (end < 0) {
+                break;
+            }
+            placeholders.add(new Placeholder(start, end + 1, component, text.substring(nameStart, end)));
+            // 名称中可能包含其他占位符的开头，从名称起始位置继续查找
+            index = nameStart;
+        }
+        return new ParamTemplate(text, placeholders.toArray(new Placeholder[0]));
+    }
+
+    public boolean hasPlaceholder() {
+        return placeholders.length > 0;
+    }
+
+    /**
+     * 替换占位符，resolver 返回 null 时保留原文
+     */
+    public String render(Resolver resolver) {
+        if (placeholders.length == 0) {
+            return text;
+        }
+        String[] values = new String[placeholders.length];
+        int position = 0;
+        int length = text.length();
+        boolean replaced = false;
+        for (int i = 0; i < placeholders.length; i++) {
+            Placeholder placeholder = placeholders[i];
+            if (placeholder.start < position) {
+                continue;
+            }
+            String value = resolver.resolve(placeholder.component, placeholder.name);
+            if (value != null) {
+                values[i] = value;
+                length += value.length() - (placeholder.end - placeholder.start);
+                position = placeholder.end;
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+        position = 0;
+        for (int i = 0; i < placeholders.length; i++) {
+            if (values[i] != null) {
+                builder.append(text, position, placeholders[i].start).append(values[i]);
+                position = placeholders[i].end;
+            }
+        }
+        builder.append(text, position, text.length());
+        return builder.toString();
+    }
+
+    /**
+     * 占位符取值
+     */
+    @FunctionalInterface
+    public interface Resolver {
+
+        /**
+         * @param component 是否为组件参数 @@{name}
+         * @param name      参数名
+         * @return 参数值，null 表示不替换
+         */
+        String resolve(boolean component, String name);
+    }
+
+    private static class Placeholder {
+
+        private final int start;
+
+        private final int end;
+
+        private final boolean component;
+
+        private final String name;
+
+        private Placeholder(int start, int end, boolean component, String name) {
+            this.start = start;
+            this.end = end;
+            this.component = component;
+            this.name = name;
+        }
+    }
+}
@@ -22,7 +22,6 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
@@ -41,39 +40,25 @@ public class SqlFormatUtil {
     private String sql;
 
 
-    private static final String RETURN_REGEX = "\r";
-
-    private static final String NEWLINE_REGEX = "\n";
-
-    private static final String COMMENTS_REGEX = "--.*";
-
     public static final String EXTERNAL = "external";
 
     public static final String EXTERNAL_X = "external_x";
 
-    private static final String COMMENTS_REGEX_LIBRA = "\\/\\*\\*+.*\\*\\*+\\/";
-
-    private static final String COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS = "/\\*{1,2}\\*/";
+    private static final Pattern LIFECYCLE_PATTERN = Pattern.compile("(?i)lifecycle\\s+(?<lifecycle>[1-9]\\d*)");
 
-    private static final String COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS2 = "/\\*{1,2}[\\s\\S]*?\\*/";
-
-    private static final String LIFECYCLE_REGEX = "(?i)lifecycle\\s+(?<lifecycle>[1-9]\\d*)";
-
-    private static final String CATALOGUE_REGEX = "(?i)catalogue\\s+(?<catalogue>[1-9]\\d*)";
+    private static final Pattern CATALOGUE_PATTERN = Pattern.compile("(?i)catalogue\\s+(?<catalogue>[1-9]\\d*)");
 
     private static final String STORE_REGEX = "(?i)store\\s+(?<store>[a-Z]\\d*)";
 
     public static Pattern selectStarPattern = Pattern.compile("(?i)select\\s+\\*");
 
-    private static final String CREATE_REGEX = "(?i)create\\s+(external|temporary)*\\s*table\\s+[\\W\\w]+";
+    private static final Pattern CREATE_PATTERN = Pattern.compile("(?i)create\\s+(external|temporary)*\\s*table\\s+[\\W\\w]+");
 
-    private static final String DDL_REGEX = "(?i)(insert|create|drop|alter|truncate|set|update|delete)+\\s+[\\W\\w]+";
-
-    private static final String SQL_SPLIT_REGEX = "('[^']*?')|(\"[^\"]*?\")";
+    private static final Pattern DDL_PATTERN = Pattern.compile("(?i)(insert|create|drop|alter|truncate|set|update|delete)+\\s+[\\W\\w]+");
 
     public static final String SPLIT_CHAR = ";";
 
-    private static final String MULTIPLE_BLANKS = "(?i)\\s\\s+";
+    private static final Pattern MULTIPLE_BLANKS_PATTERN = Pattern.compile("(?i)\\s\\s+");
 
     private SqlFormatUtil() {
     }
@@ -82,14 +67,14 @@ public class SqlFormatUtil {
      * 是否为ddl语句
      */
     public static boolean isDDLSql(String sql) {
-        return sql.matches(DDL_REGEX);
+        return DDL_PATTERN.matcher(sql).matches();
     }
 
     /**
      * 是否为建表语句
      */
     public static boolean isCreateSql(String sql) {
-        return sql.matches(CREATE_REGEX);
+        return CREATE_PATTERN.matcher(sql).matches();
     }
 
 
@@ -101,29 +86,11 @@ public class SqlFormatUtil {
     }
 
 
+    /**
+     * 按引号、注释之外的分号切分sql
+     */
     public static List<String> splitSqlText(String sqlText) {
-        String sqlTemp = sqlText;
-        Pattern pattern = Pattern.compile(SQL_SPLIT_REGEX);
-        Matcher matcher = pattern.matcher(sqlTemp);
-        while (matcher.find()) {
-            String group = matcher.group();
-            sqlTemp = sqlTemp.replace(group, StringUtils.repeat(" ", group.length()));
-        }
-
-        List<Integer> posits = new ArrayList<>();
-        while (sqlTemp.contains(SPLIT_CHAR)) {
-            int pos = sqlTemp.indexOf(SPLIT_CHAR);
-            posits.add(pos);
-            sqlTemp = sqlTemp.substring(pos + 1);
-        }
-
-        List<String> sqls = new ArrayList<>();
-        for (Integer posit : posits) {
-            sqls.add(sqlText.substring(0, posit));
-            sqlText = sqlText.substring(posit + 1);
-        }
-
-        return sqls;
+        return SqlLexer.splitStatements(sqlText);
     }
 
     public static void checkSql(String sql) throws Exception {
@@ -177,7 +144,7 @@ public class SqlFormatUtil {
     }
 
     public SqlFormatUtil removeBlanks() {
-        sql = sql.replaceAll(MULTIPLE_BLANKS, " ");
+        sql = MULTIPLE_BLANKS_PATTERN.matcher(sql).replaceAll(" ");
         return this;
     }
 
@@ -189,7 +156,7 @@ public class SqlFormatUtil {
     }
 
     public SqlFormatUtil toOneLine() {
-        sql = sql.replaceAll(RETURN_REGEX, " ").replaceAll(NEWLINE_REGEX, " ");
+        sql = sql.replace('\r', ' ').replace('\n', ' ');
         return this;
     }
 
@@ -203,60 +170,20 @@ public class SqlFormatUtil {
 
 
     /**
-     * 去除注释 -- 开头的sql
+     * 去除 -- 与块注释，避免了" '的影响
      */
     public SqlFormatUtil removeComment() {
-        sql = removeCommentByQuotes(sql);
-        sql = sql.replaceAll(COMMENTS_REGEX_LIBRA, StringUtils.EMPTY);
-        sql = sql.replaceAll(COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS, StringUtils.EMPTY);
-        sql = sql.replaceAll(COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS2, StringUtils.EMPTY);
+        sql = SqlLexer.removeComments(sql);
         return this;
     }
 
-    /**
-     * 去除 --注释  避免了" '的影响
-     *
-     * @param osql
-     * @return
-     */
-    private static String removeCommentByQuotes(String osql) {
-        String[] sqls = osql.split("\n");
-        StringBuffer buffer = new StringBuffer();
-        //修复-- 注释在sql中间的情况
-        for (int j = 0; j < sqls.length; j++) {
-            String sqlLine = sqls[j];
-            Boolean flag = false;
-            char[] sqlindex = sqlLine.toCharArray();
-            for (int i = 0; sqlLine.length() > i; i++) {
-                if (!flag) {
-                    if (sqlindex[i] == '\"' || sqlindex[i] == '\'') {
-                        flag = true;
-                    } else {
-                        if (sqlindex[i] == '-' && i + 1 < sqlLine.length() && sqlindex[i + 1] == '-') {
-                            break;
-                        }
-                    }
-                    buffer.append(sqlindex[i]);
-                } else {
-                    if (sqlindex[i] == '\"' || sqlindex[i] == '\'') {
-                        flag = false;
-                    }
-                    buffer.append(sqlindex[i]);
-                }
-            }
-            buffer.append("\n");
-        }
-        return buffer.toString();
-
-    }
-
     public SqlFormatUtil removeCatalogue() {
-        sql = sql.replaceAll(CATALOGUE_REGEX, StringUtils.EMPTY);
+        sql = CATALOGUE_PATTERN.matcher(sql).replaceAll(StringUtils.EMPTY);
         return this;
     }
 
     public SqlFormatUtil removeLifecycle() {
-        sql = sql.replaceAll(LIFECYCLE_REGEX, StringUtils.EMPTY);
+        sql = LIFECYCLE_PATTERN.matcher(sql).replaceAll(StringUtils.EMPTY);
         return this;
     }
 
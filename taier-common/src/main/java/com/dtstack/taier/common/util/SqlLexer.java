@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 单遍 sql 词法扫描器，识别引号、注释与分号
+ * <p>
+ * 替代 SqlFormatUtil 中多次 replaceAll 的注释清理与按引号掩码后的分号切分，
+ * 整个脚本只扫描一次，不编译任何正则
+ *
+ * @author jiangbo
+ */
+public final class SqlLexer {
+
+    private SqlLexer() {
+    }
+
+    public enum TokenType {
+        /**
+         * 标识符、关键字、数字
+         */
+        WORD,
+        /**
+         * '...' "..." `...` 引号包裹的内容，包含引号本身
+         */
+        QUOTED,
+        /**
+         * -- 单行注释，不包含行尾换行符
+         */
+        LINE_COMMENT,
+        /**
+         * /* 开头的块注释
+         */
+        BLOCK_COMMENT,
+        WHITESPACE,
+        SEMICOLON,
+        /**
+         * 其他单个字符
+         */
+        SYMBOL
+    }
+
+    public static final class Token {
+
+        private final TokenType type;
+
+        private final int start;
+
+        private final int end;
+
+        Token(TokenType type, int start, int end) {
+            this.type = type;
+            this.start = start;
+            this.end = end;
+        }
+
+        public TokenType getType() {
+            return type;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public boolean isComment() {
+            return type == TokenType.LINE_COMMENT || type == TokenType.BLOCK_COMMENT;
+        }
+
+        public String text(String sql) {
+            return sql.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return type + "[" + start + "," + end + ")";
+        }
+    }
+
+    /**
+     * 将 sql 切分为 token 流
+     */
+    public static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        if (sql == null) {
+            return tokens;
+        }
+        Cursor cursor = new Cursor(sql);
+        while (cursor.next()) {
+            tokens.add(new Token(cursor.type, cursor.start, cursor.end));
+        }
+        return tokens;
+    }
+
+    /**
+     * 去除单行注释与块注释，引号内的内容保持不变
+     */
+    public static String removeComments(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return sql;
+        }
+        Cursor cursor = new Cursor(sql);
+        StringBuilder builder = null;
+        int copied = 0;
+        while (cursor.next()) {
+            if (cursor.type != TokenType.LINE_COMMENT && cursor.type != TokenType.BLOCK_COMMENT) {
+                continue;
+            }
+            if (builder == null) {
+                builder = new StringBuilder(sql.length());
+            }
+            builder.append(sql, copied, cursor.start);
+            copied = cursor.end;
+        }
+        if (builder == null) {
+            return sql;
+        }
+        builder.append(sql, copied, sql.length());
+        return builder.toString();
+    }
+
+    /**
+     * 按引号、注释之外的分号切分 sql，最后一个分号之后的内容会被丢弃，
+     * 与 SqlFormatUtil#splitSqlText 保持一致
+     */
+    public static List<String> splitStatements(String sql) {
+        List<String> sqlList = new ArrayList<>();
+        if (sql == null || sql.isEmpty()) {
+            return sqlList;
+        }
+        Cursor cursor = new Cursor(sql);
+        int statementStart = 0;
+        while (cursor.next()) {
+            if (cursor.type == TokenType.SEMICOLON) {
+                sqlList.add(sql.substring(statementStart, cursor.start));
+                statementStart = cursor.end;
+            }
+        }
+        return sqlList;
+    }
+
+    /**
+     * 返回 sql 的首个关键字(小写)，跳过开头的空白与注释；首个有效 token 不是单词时返回 null
+     */
+    public static String leadingKeyword(String sql) {
+        if (sql == null || sql.isEmpty()) {
+            return null;
+        }
+        Cursor cursor = new Cursor(sql);
+        while (cursor.next()) {
+            if (cursor.type == TokenType.WHITESPACE
+                    || cursor.type == TokenType.LINE_COMMENT
+                    || cursor.type == TokenType.BLOCK_COMMENT) {
+                continue;
+            }
+            if (cursor.type == TokenType.WORD) {
+                return sql.substring(cursor.start, cursor.end).toLowerCase(Locale.ENGLISH);
+            }
+            return null;
+        }
+        return null;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * 无回溯的扫描游标，每次 next 产出一个 token
+     */
+    private static final class Cursor {
+
+        private final String sql;
+
+        private final int length;
+
+        private int pos;
+
+        private TokenType type;
+
+        private int start;
+
+        private int end;
+
+        private Cursor(String sql) {
+            this.sql = sql;
+            this.length = sql.length();
+        }
+
+        private boolean next() {
+            if (pos >= length) {
+                return false;
+            }
+            start = pos;
+            char c = sql.charAt(pos);
+            int blockEnd;
+            if (c == '\'' || c == '"' || c == '`') {
+                type = TokenType.QUOTED;
+                pos = skipQuoted(pos, c);
+            } else if (c == '-' && pos + 1 < length && sql.charAt(pos + 1) == '-') {
+                type = TokenType.LINE_COMMENT;
+                int lineEnd = sql.indexOf('\n', pos + 2);
+                pos = lineEnd < 0 ? length : lineEnd;
+            } else if (c == '/' && pos + 1 < length && sql.charAt(pos + 1) == '*' && (blockEnd = sql.indexOf("*/", pos + 2)) >= 0) {
+                type = TokenType.BLOCK_COMMENT;
+                pos = blockEnd + 2;
+            } else if (Character.isWhitespace(c)) {
+                type = TokenType.WHITESPACE;
+                do {
+                    pos++;
+                } while (pos < length && Character.isWhitespace(sql.charAt(pos)));
+            } else if (isWordChar(c)) {
+                type = TokenType.WORD;
+                do {
+                    pos++;
+                } while (pos < length && isWordChar(sql.charAt(pos)));
+            } else if (c == ';') {
+                type = TokenType.SEMICOLON;
+                pos++;
+            } else {
+                type = TokenType.SYMBOL;
+                pos++;
+            }
+            end = pos;
+            return true;
+        }
+
+        /**
+         * 跳过引号内容，支持反斜杠转义；未闭合的引号一直延续到末尾
+         */
+        private int skipQuoted(int from, char quote) {
+            int i = from + 1;
+            while (i < length) {
+                char c = sql.charAt(i);
+                if (c == '\\' && quote != '`') {
+                    i += 2;
+                    continue;
+                }
+                if (c == quote) {
+                    return i + 1;
+                }
+                i++;
+            }
+            return length;
+        }
+    }
+}
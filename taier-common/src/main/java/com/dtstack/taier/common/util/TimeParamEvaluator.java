@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+/**
+ * 预编译的时间参数表达式，见 {@link TimeParamOperator#compileCustomizeTimeOperator(String)}
+ *
+ * @author jiangbo
+ */
+@FunctionalInterface
+public interface TimeParamEvaluator {
+
+    /**
+     * 按计划时间计算参数值
+     *
+     * @param cycTime 计划时间，格式 yyyyMMddHHmmss
+     * @return 参数值
+     */
+    String evaluate(String cycTime);
+}
@@ -1,6 +1,8 @@
 package com.dtstack.taier.common.util;
 
 import com.dtstack.taier.common.exception.DtCenterDefException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.joda.time.DateTime;
@@ -11,6 +13,7 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -43,6 +46,17 @@ public class TimeParamOperator {
     private static final Pattern FORMAT_PATTERN = Pattern.compile(
             "(?i)format\\s*\\(\\s*(?<format>[a-zA-Z\\:\\-]+)\\s*(?<operate>[\\+\\-]*)\\s*(?<number>[0-9]*)\\s*(?<unit>[a-zA-Z]+)\\s*,\\s*\\'(?<formatResult>[0-9a-zA-Z\\:\\-\\s\\/]+)\\'");
 
+    /**
+     * 表达式 -> 预编译结果，表达式来自任务参数，数量有限
+     */
+    private static final Cache<String, TimeParamEvaluator> CUSTOMIZE_EVALUATORS = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .build();
+
+    private static final Cache<String, TimeParamEvaluator> TRANSFORM_EVALUATORS = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .build();
+
     /**
      * 根据基准的时间转换出目标时间
      *
@@ -64,209 +78,258 @@ public class TimeParamOperator {
     }
 
     public static String dealTimeOperator(String command, String cycTime) {
-        //增加一种系统参数。格式：yyyy-MM-dd,-1 逗号左侧为format，右边为时间运算表达式
+        return compileTimeOperator(command).evaluate(cycTime);
+    }
+
+    public static String dealCustomizeTimeOperator(String command, String cycTime) {
+        return doCompileCustomize(command).evaluate(cycTime);
+    }
+
+    /**
+     * 预编译 {@link #transform(String, String)} 的表达式，结果与 transform 一致，相同表达式只解析一次
+     *
+     * @param command 时间表达式
+     * @return 按计划时间求值的函数
+     */
+    public static TimeParamEvaluator compileTransform(String command) {
+        if (command == null) {
+            return cycTime -> transform(null, cycTime);
+        }
+        try {
+            return TRANSFORM_EVALUATORS.get(command, () -> doCompileTransform(command));
+        } catch (ExecutionException e) {
+            return doCompileTransform(command);
+        }
+    }
+
+    /**
+     * 预编译 {@link #dealCustomizeTimeOperator(String, String)} 的表达式，结果与 dealCustomizeTimeOperator 一致，
+     * 相同表达式只解析一次；依赖当前时间的表达式每次求值时取当前时间
+     *
+     * @param command 时间表达式
+     * @return 按计划时间求值的函数
+     */
+    public static TimeParamEvaluator compileCustomizeTimeOperator(String command) {
+        if (command == null) {
+            return cycTime -> dealCustomizeTimeOperator(null, cycTime);
+        }
+        try {
+            return CUSTOMIZE_EVALUATORS.get(command, () -> doCompileCustomize(command));
+        } catch (ExecutionException e) {
+            return doCompileCustomize(command);
+        }
+    }
+
+    private static TimeParamEvaluator doCompileTransform(String originCommand) {
+        String command = originCommand.trim();
+        if (StringUtils.isBlank(command)) {
+            return cycTime -> "";
+        } else if (STD_FMT.equals(command)) {
+            return cycTime -> cycTime;
+        } else if (DAY_FMT.equals(command)) {
+            return cycTime -> StringUtils.substring(cycTime, 0, 8);
+        }
+        try {
+            return compileTimeOperator(command);
+        } catch (RuntimeException e) {
+            // 非法表达式在求值时抛出异常
+            return cycTime -> {
+                throw e;
+            };
+        }
+    }
+
+    /**
+     * 解析时间运算表达式，格式：yyyyMMdd-1 或 yyyy-MM-dd,-1(逗号左侧为format，右边为时间运算表达式)，非法时抛出异常
+     */
+    private static TimeParamEvaluator compileTimeOperator(String command) {
         String[] split = command.split(",");
-        String realCommand = null;
-        String realOperator = null;
-        String realOperatorNum = null;
-        if (split.length == 2){
+        String realCommand;
+        String realOperator;
+        String realOperatorNum;
+        if (split.length == 2) {
             realCommand = split[0];
             realOperator = split[1].substring(0, 1);
-            realOperatorNum = split[1].substring(1, split[1].length());
-        }else {
+            realOperatorNum = split[1].substring(1);
+        } else {
             Matcher matcher = pattern.matcher(command);
             if (!(matcher.find() && matcher.groupCount() == 3)) {
                 throw new DtCenterDefException("illegal command " + command);
             }
-            String timeFmtStr = matcher.group(1).trim();
-            realCommand = timeFmtStr;
-            String operatorStr = matcher.group(2).trim();
-            realOperator = operatorStr;
-            String operatorNumStr = matcher.group(3).trim();
-            realOperatorNum = operatorNumStr;
+            realCommand = matcher.group(1).trim();
+            realOperator = matcher.group(2).trim();
+            realOperatorNum = matcher.group(3).trim();
         }
 
         int operatorNum = MathUtil.getIntegerVal(realOperatorNum);
-
+        String format = realCommand;
         if ("-".equals(realOperator)) {
-            if (realCommand.length() == 10){
-                return minusDay(operatorNum, cycTime, realCommand);
-            } else if (realCommand.length() == 8) {
-                return minusDay(operatorNum, cycTime, realCommand);
-            } else if (realCommand.length() == 6) {
-                return minusMonth(operatorNum, cycTime, realCommand);
-            } else if (realCommand.length() == 4) {
-                return minusYear(operatorNum, cycTime, realCommand);
-            } else {
-                throw new DtCenterDefException("illegal command " + command);
+            if (format.length() == 10 || format.length() == 8) {
+                return cycTime -> minusDay(operatorNum, cycTime, format);
+            } else if (format.length() == 6) {
+                return cycTime -> minusMonth(operatorNum, cycTime, format);
+            } else if (format.length() == 4) {
+                return cycTime -> minusYear(operatorNum, cycTime, format);
             }
         } else if ("+".equals(realOperator)) {
-            if (realCommand.length() == 10){
-                return minusDay(operatorNum, cycTime, realCommand);
-            }else if (realCommand.length() == 8) {
-                return plusDay(operatorNum, cycTime, realCommand);
-            } else if (realCommand.length() == 6) {
-                return plusMonth(operatorNum, cycTime, realCommand);
-            } else if (realCommand.length() == 4) {
-                return plusYear(operatorNum, cycTime, realCommand);
-            } else {
-                throw new DtCenterDefException("illegal command " + command);
+            if (format.length() == 10) {
+                return cycTime -> minusDay(operatorNum, cycTime, format);
+            } else if (format.length() == 8) {
+                return cycTime -> plusDay(operatorNum, cycTime, format);
+            } else if (format.length() == 6) {
+                return cycTime -> plusMonth(operatorNum, cycTime, format);
+            } else if (format.length() == 4) {
+                return cycTime -> plusYear(operatorNum, cycTime, format);
             }
-        } else {
-            throw new DtCenterDefException("illegal command " + command);
         }
-
+        throw new DtCenterDefException("illegal command " + command);
     }
 
-    public static String dealCustomizeTimeOperator(String command, String cycTime) {
-        String result = "";
-        String split = null;
-        String timeFmtStr = "";
+    private static TimeParamEvaluator doCompileCustomize(String command) {
         if (command.startsWith("$[") && command.endsWith("]")) {  //需要计算的变量
-            String line = command.substring(2, command.indexOf("]")).trim();
-            if (line.startsWith("format")) {
-                return doFormatFunction(line, cycTime);
-            } else if (line.startsWith("add_months")) {
-                String params = line.substring(line.indexOf("(") + 1, line.indexOf(")"));
-                String[] paramsArrays = params.split(",");
-                timeFmtStr = paramsArrays[0].trim();
-                if (paramsArrays.length > 2) {
-                    //第三个参数为连接符
-                    split = paramsArrays[2].replaceAll("'","");
-                }
-                if (YEAR_FMT.equals(timeFmtStr)) {
-                    String year = StringUtils.deleteWhitespace(paramsArrays[1]);
-                    if (!year.contains("*")) {
-                        result = plusYear(MathUtil.getIntegerVal(year), cycTime, timeFmtStr);
-                    } else {
-                        int m = MathUtil.getIntegerVal(year.split("\\*")[0]);
-                        result = plusYear(m, cycTime, timeFmtStr);
-                    }
-                } else if (DAY_FMT.equals(timeFmtStr) || MONTH_FMT.equals(timeFmtStr)) {
-                    String months = StringUtils.deleteWhitespace(paramsArrays[1]);
-                    if (!months.contains("*")) {
-                        result = plusMonth(MathUtil.getIntegerVal(months), cycTime, timeFmtStr);
-                    } else {
-                        int m = MathUtil.getIntegerVal(months.split("\\*")[0]);
-                        int n = MathUtil.getIntegerVal(months.split("\\*")[1]);
-                        if (Math.abs(m) != 12 && Math.abs(n) != 12) {
-                            throw new DtCenterDefException("illegal command " + command);
-                        }
-                        result = plusMonth(m * n, cycTime, timeFmtStr);
-                    }
-                }
-            } else {  //没有函数
-                if (line.contains(",")) {
-                    String[] paramsArrays = line.split(",");
-                    line = paramsArrays[0];
-                    split = String.valueOf(paramsArrays[1]).replaceAll("'", "");
-                }
-                Matcher matcher = customizePattern.matcher(line);
-                if (matcher.find() && matcher.groupCount() == 3) {
-                    timeFmtStr = matcher.group(1).trim();
-                    String operatorStr = matcher.group(2).trim();
-                    String operatorNumStr = StringUtils.deleteWhitespace(matcher.group(3));
-                    if (DAY_FMT.equals(timeFmtStr)) {
-                        int days = 0;
-                        if (!operatorNumStr.contains("*")) {
-                            days = MathUtil.getIntegerVal(operatorNumStr);
-                        } else if (operatorNumStr.split("\\*").length == 2) {
-                            int m = Integer.parseInt(operatorNumStr.split("\\*")[0]);
-                            int n = Integer.parseInt(operatorNumStr.split("\\*")[1]);
-                            if (m != 7 && n != 7) {
-                                throw new DtCenterDefException("illegal command " + command);
-                            }
-                            days = m * n;
-                        }
-                        if ("-".equals(operatorStr)) {
-                            result = minusDay(days, cycTime, timeFmtStr);
-                        } else if ("+".equals(operatorStr)) {
-                            result = plusDay(days, cycTime, timeFmtStr);
-                        }
-                    } else if ("hh24miss".equals(timeFmtStr)) {
-                        int time;
-                        if (operatorNumStr.split("/").length == 2) {  //小时
-                            time = MathUtil.getIntegerVal(operatorNumStr.split("/")[0]);
-                            if ("-".equals(operatorStr)) {
-                                result = minusHour(time, cycTime, STD_FMT);
-                            }
-                            if ("+".equals(operatorStr)) {
-                                result = plusHour(time, cycTime, STD_FMT);
-                            }
-                        } else if (operatorNumStr.split("/").length == 3) {  //分钟
-                            time = MathUtil.getIntegerVal(operatorNumStr.split("/")[0]);
-                            if ("-".equals(operatorStr)) {
-                                result = minusMinute(time, cycTime, STD_FMT);
-                            }
-                            if ("+".equals(operatorStr)) {
-                                result = plusMinute(time, cycTime, STD_FMT);
-                            }
-                        }
-                    }
-                } else if (formattedPattern.matcher(line).matches()) {
-                    //时间格式化
-                    try {
-                        FastDateFormat cycDate = FastDateFormat.getInstance(STD_FMT, TimeZone.getTimeZone("GMT+8"));
-                        Date cycd = cycDate.parse(cycTime);
-                        if (line.contains("hh24")) {
-                            line = line.replaceAll("hh24", "HH");
-                        }
-                        result = FastDateFormat.getInstance(line, TimeZone.getTimeZone("GMT+8")).format(cycd);
-                    } catch (ParseException e) {
-                        e.printStackTrace();
-                    }
-                }
-            }
-            if (StringUtils.isBlank(result)) {
-                throw new DtCenterDefException("illegal command " + command);
-            }
-            if(StringUtils.isNotEmpty(split)&& StringUtils.isNotEmpty(result)){
-                if(StringUtils.isBlank(timeFmtStr)){
-                    timeFmtStr = line;
-                }
-                return convertResultWithSplit(result,timeFmtStr,split.trim());
+            try {
+                return compileBracket(command);
+            } catch (RuntimeException e) {
+                // 非法表达式在求值时抛出异常
+                return cycTime -> {
+                    throw e;
+                };
             }
-            return result;
         } else if (command.startsWith("${") && command.endsWith("}")) {
             // 特殊处理 ${bdp.system.currenttime}
             if (SYSTEM_CURRENTTIME.equals(command.substring(2, command.length() - 1).trim())) {
-                return new SimpleDateFormat(STD_FMT).format(new Date());
+                return cycTime -> new SimpleDateFormat(STD_FMT).format(new Date());
             }
-
             // 支持基于业务日期作为基准取值的格式 时间减一天，其余照原逻辑处理 不多做任何校验
-            String yesterdayCycTime = minusDay(1, cycTime, STD_FMT);
-            String normalCommand = command.replaceFirst("\\{", "[").replaceFirst("}", "]");
-            return dealCustomizeTimeOperator(normalCommand, yesterdayCycTime);
+            TimeParamEvaluator evaluator = doCompileCustomize(command.replaceFirst("\\{", "[").replaceFirst("}", "]"));
+            return cycTime -> evaluator.evaluate(minusDay(1, cycTime, STD_FMT));
         } else if (command.startsWith("$(") && command.endsWith(")")) {
             // 支持基于当前时间作为基准取值的格式，其余照原逻辑处理 不多做任何校验
-            String currentTime = new SimpleDateFormat(STD_FMT).format(new Date());
             String normalCommand = command.replaceFirst("\\(", "[");
-            normalCommand = normalCommand.substring(0, normalCommand.length() - 1) + "]";
-            return dealCustomizeTimeOperator(normalCommand, currentTime);
-        } else {
-            return command;  //直接返回
+            TimeParamEvaluator evaluator = doCompileCustomize(normalCommand.substring(0, normalCommand.length() - 1) + "]");
+            return cycTime -> evaluator.evaluate(new SimpleDateFormat(STD_FMT).format(new Date()));
         }
+        return cycTime -> command;  //直接返回
     }
 
     /**
-     * 处理 format 函数
-     * @param line
-     * @param cycTime
-     * @return
+     * 解析 $[...] 表达式，非法时抛出异常
      */
-    private static String doFormatFunction (String line, String cycTime) {
-        Matcher formattedMatch = FORMAT_PATTERN.matcher(line);
-        if (!formattedMatch.find()) {
-            throw new DtCenterDefException("illegal command " + line);
+    private static TimeParamEvaluator compileBracket(String command) {
+        String line = command.substring(2, command.indexOf("]")).trim();
+        if (line.startsWith("format")) {
+            Matcher formattedMatch = FORMAT_PATTERN.matcher(line);
+            if (!formattedMatch.find()) {
+                throw new DtCenterDefException("illegal command " + line);
+            }
+            Boolean operate = "+".equals(formattedMatch.group("operate"));
+            Integer number = StringUtils.isBlank(formattedMatch.group("number")) ? 0 : Integer.valueOf(formattedMatch.group("number"));
+            String unit = formattedMatch.group("unit");
+            String formatResult = formattedMatch.group("formatResult");
+            return cycTime -> doFormatFunctionCyctime(cycTime, operate, number, unit, formatResult);
+        }
+
+        TimeParamEvaluator evaluator;
+        String split = null;
+        String timeFmtStr = "";
+        if (line.startsWith("add_months")) {
+            String params = line.substring(line.indexOf("(") + 1, line.indexOf(")"));
+            String[] paramsArrays = params.split(",");
+            timeFmtStr = paramsArrays[0].trim();
+            if (paramsArrays.length > 2) {
+                //第三个参数为连接符
+                split = paramsArrays[2].replaceAll("'", "");
+            }
+            String format = timeFmtStr;
+            if (YEAR_FMT.equals(format)) {
+                String year = StringUtils.deleteWhitespace(paramsArrays[1]);
+                int years = MathUtil.getIntegerVal(year.contains("*") ? year.split("\\*")[0] : year);
+                evaluator = cycTime -> plusYear(years, cycTime, format);
+            } else if (DAY_FMT.equals(format) || MONTH_FMT.equals(format)) {
+                String monthStr = StringUtils.deleteWhitespace(paramsArrays[1]);
+                int months;
+                if (!monthStr.contains("*")) {
+                    months = MathUtil.getIntegerVal(monthStr);
+                } else {
+                    int m = MathUtil.getIntegerVal(monthStr.split("\\*")[0]);
+                    int n = MathUtil.getIntegerVal(monthStr.split("\\*")[1]);
+                    if (Math.abs(m) != 12 && Math.abs(n) != 12) {
+                        throw new DtCenterDefException("illegal command " + command);
+                    }
+                    months = m * n;
+                }
+                evaluator = cycTime -> plusMonth(months, cycTime, format);
+            } else {
+                throw new DtCenterDefException("illegal command " + command);
+            }
+        } else {  //没有函数
+            if (line.contains(",")) {
+                String[] paramsArrays = line.split(",");
+                line = paramsArrays[0];
+                split = String.valueOf(paramsArrays[1]).replaceAll("'", "");
+            }
+            Matcher matcher = customizePattern.matcher(line);
+            if (matcher.find() && matcher.groupCount() == 3) {
+                timeFmtStr = matcher.group(1).trim();
+                String operatorStr = matcher.group(2).trim();
+                String operatorNumStr = StringUtils.deleteWhitespace(matcher.group(3));
+                boolean minus = "-".equals(operatorStr);
+                if (DAY_FMT.equals(timeFmtStr)) {
+                    int days = 0;
+                    if (!operatorNumStr.contains("*")) {
+                        days = MathUtil.getIntegerVal(operatorNumStr);
+                    } else if (operatorNumStr.split("\\*").length == 2) {
+                        int m = Integer.parseInt(operatorNumStr.split("\\*")[0]);
+                        int n = Integer.parseInt(operatorNumStr.split("\\*")[1]);
+                        if (m != 7 && n != 7) {
+                            throw new DtCenterDefException("illegal command " + command);
+                        }
+                        days = m * n;
+                    }
+                    int finalDays = days;
+                    String format = timeFmtStr;
+                    evaluator = minus ? cycTime -> minusDay(finalDays, cycTime, format) : cycTime -> plusDay(finalDays, cycTime, format);
+                } else {
+                    String[] parts = operatorNumStr.split("/");
+                    if (parts.length != 2 && parts.length != 3) {
+                        throw new DtCenterDefException("illegal command " + command);
+                    }
+                    int time = MathUtil.getIntegerVal(parts[0]);
+                    if (parts.length == 2) {  //小时
+                        evaluator = minus ? cycTime -> minusHour(time, cycTime, STD_FMT) : cycTime -> plusHour(time, cycTime, STD_FMT);
+                    } else {  //分钟
+                        evaluator = minus ? cycTime -> minusMinute(time, cycTime, STD_FMT) : cycTime -> plusMinute(time, cycTime, STD_FMT);
+                    }
+                }
+            } else if (formattedPattern.matcher(line).matches()) {
+                //时间格式化
+                if (line.contains("hh24")) {
+                    line = line.replaceAll("hh24", "HH");
+                }
+                FastDateFormat cycDate = FastDateFormat.getInstance(STD_FMT, TimeZone.getTimeZone("GMT+8"));
+                FastDateFormat targetFormat = FastDateFormat.getInstance(line, TimeZone.getTimeZone("GMT+8"));
+                evaluator = cycTime -> {
+                    try {
+                        return targetFormat.format(cycDate.parse(cycTime));
+                    } catch (ParseException e) {
+                        return "";
+                    }
+                };
+            } else {
+                throw new DtCenterDefException("illegal command " + command);
+            }
         }
 
-        // 获取需要处理的属性
-        String format = formattedMatch.group("format");
-        Boolean operate = "+".equals(formattedMatch.group("operate"));
-        Integer number = StringUtils.isBlank(formattedMatch.group("number")) ? 0 : Integer.valueOf(formattedMatch.group("number"));
-        String unit = formattedMatch.group("unit");
-        String formatResult = formattedMatch.group("formatResult");
-        return doFormatFunctionCyctime(cycTime, operate, number, unit, formatResult);
+        String finalSplit = StringUtils.isNotEmpty(split) ? split.trim() : null;
+        String finalFmtStr = StringUtils.isBlank(timeFmtStr) ? line : timeFmtStr;
+        TimeParamEvaluator base = evaluator;
+        return cycTime -> {
+            String result = base.evaluate(cycTime);
+            if (StringUtils.isBlank(result)) {
+                throw new DtCenterDefException("illegal command " + command);
+            }
+            return finalSplit == null ? result : convertResultWithSplit(result, finalFmtStr, finalSplit);
+        };
     }
 
     /**
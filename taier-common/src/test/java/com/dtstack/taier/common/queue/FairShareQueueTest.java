@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FairShareQueueTest {
+
+    @Test
+    public void testPriorityInClass() {
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), new Policy());
+        long[] priorities = {5, 3, 9, 1, 7, 3};
+        for (int i = 0; i < priorities.length; i++) {
+            queue.put(new Job("t1", "NORMAL", i, priorities[i]));
+        }
+        Assert.assertEquals(priorities.length, queue.size());
+        long last = Long.MIN_VALUE;
+        Job job;
+        while ((job = queue.poll()) != null) {
+            Assert.assertTrue(job.priority >= last);
+            last = job.priority;
+        }
+        Assert.assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testTenantWeight() {
+        Policy policy = new Policy();
+        policy.tenantWeights.put("t1", 3);
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), policy);
+        for (int i = 0; i < 1000; i++) {
+            queue.put(new Job("t1", "FILL_DATA", i, i));
+        }
+        // 后入队且优先级更低的租户不会被饿死
+        for (int i = 0; i < 1000; i++) {
+            queue.put(new Job("t2", "NORMAL", 1000 + i, 10000 + i));
+        }
+        Map<String, Integer> counts = countTenants(queue, 400);
+        Assert.assertEquals(300, counts.get("t1").intValue());
+        Assert.assertEquals(100, counts.get("t2").intValue());
+    }
+
+    @Test
+    public void testSourceWeight() {
+        Policy policy = new Policy();
+        policy.sourceWeights.put("NORMAL", 4);
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), policy);
+        for (int i = 0; i < 500; i++) {
+            queue.put(new Job("t1", "FILL_DATA", i, i));
+            queue.put(new Job("t1", "NORMAL", 500 + i, 1000 + i));
+        }
+        int normal = 0;
+        for (int i = 0; i < 100; i++) {
+            if ("NORMAL".equals(queue.poll().source)) {
+                normal++;
+            }
+        }
+        Assert.assertEquals(80, normal);
+    }
+
+    @Test
+    public void testIdleTenantNoCredit() {
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), new Policy());
+        for (int i = 0; i < 100; i++) {
+            queue.put(new Job("t1", "NORMAL", i, i));
+        }
+        for (int i = 0; i < 50; i++) {
+            Assert.assertEquals("t1", queue.poll().tenant);
+        }
+        // 空闲期间不积累额度，新租户与已有租户交替出队
+        for (int i = 0; i < 50; i++) {
+            queue.put(new Job("t2", "NORMAL", 100 + i, i));
+        }
+        Map<String, Integer> counts = countTenants(queue, 20);
+        Assert.assertEquals(10, counts.get("t1").intValue());
+        Assert.assertEquals(10, counts.get("t2").intValue());
+    }
+
+    @Test
+    public void testMaxConcurrent() {
+        Policy policy = new Policy();
+        policy.sourceMaxConcurrent.put("FILL_DATA", 1);
+        policy.tenantMaxConcurrent = 3;
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), policy);
+        for (int i = 0; i < 10; i++) {
+            queue.put(new Job("t1", "FILL_DATA", i, i));
+        }
+        queue.put(new Job("t1", "NORMAL", 10, 100));
+        queue.put(new Job("t2", "NORMAL", 11, 100));
+
+        List<Job> jobs = new ArrayList<>();
+        Job job;
+        while ((job = queue.poll()) != null) {
+            jobs.add(job);
+        }
+        // t1 补数据同时只能出队一个
+        Assert.assertEquals(3, jobs.size());
+        Assert.assertEquals(9, queue.size());
+
+        Job fill = jobs.stream().filter(j -> "FILL_DATA".equals(j.source)).findFirst().get();
+        Assert.assertTrue(queue.release(fill));
+        Assert.assertFalse(queue.release(fill));
+        Job next = queue.poll();
+        Assert.assertEquals("FILL_DATA", next.source);
+        Assert.assertNull(queue.poll());
+
+        // 归还前重新入队再出队，按出队次数归还
+        queue.put(next);
+        Assert.assertNull(queue.poll());
+        Assert.assertTrue(queue.release(next));
+        Assert.assertEquals(next, queue.poll());
+        Assert.assertTrue(queue.release(next));
+        Assert.assertFalse(queue.release(next));
+        Assert.assertEquals("FILL_DATA", queue.poll().source);
+
+        // 租户并发上限，t1 已有一个补数据实例未归还
+        Job normal = jobs.stream().filter(j -> "t1".equals(j.tenant) && "NORMAL".equals(j.source)).findFirst().get();
+        queue.release(normal);
+        for (int i = 0; i < 5; i++) {
+            queue.put(new Job("t1", "NORMAL", 100 + i, i));
+        }
+        Assert.assertEquals("t1", queue.poll().tenant);
+        Assert.assertEquals("t1", queue.poll().tenant);
+        Assert.assertNull(queue.poll());
+    }
+
+    @Test
+    public void testRemoveAndContains() {
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), new Policy());
+        Job job1 = new Job("t1", "NORMAL", 1, 1);
+        Job job2 = new Job("t1", "NORMAL", 2, 2);
+        queue.put(job1);
+        queue.put(job2);
+        queue.put(job1);
+        Assert.assertEquals(2, queue.size());
+        Assert.assertTrue(queue.contains(job1));
+        Assert.assertTrue(queue.remove(job1));
+        Assert.assertFalse(queue.remove(job1));
+        Assert.assertFalse(queue.contains(job1));
+        Assert.assertEquals(job2, queue.poll());
+        Assert.assertNull(queue.poll());
+        Assert.assertEquals(1, queue.getWaitTimes().get("t1/NORMAL").getCount());
+    }
+
+    @Test
+    public void testTakeBlocking() throws Exception {
+        FairShareQueue<Job> queue = new FairShareQueue<>(Comparator.comparingLong(Job::getPriority), new Policy());
+        Job job = new Job("t1", "NORMAL", 1, 1);
+        Thread producer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            queue.put(job);
+        });
+        producer.start();
+        Assert.assertEquals(job, queue.take());
+        producer.join();
+    }
+
+    @Test
+    public void testWaitTimeHistogram() {
+        WaitTimeHistogram histogram = new WaitTimeHistogram();
+        histogram.record(50);
+        histogram.record(100);
+        histogram.record(2000);
+        histogram.record(Long.MAX_VALUE / 2);
+        long[] buckets = histogram.getBuckets();
+        Assert.assertEquals(2, buckets[0]);
+        Assert.assertEquals(1, buckets[2]);
+        Assert.assertEquals(1, buckets[WaitTimeHistogram.BOUNDS.length]);
+        Assert.assertEquals(4, histogram.getCount());
+    }
+
+    private Map<String, Integer> countTenants(FairShareQueue<Job> queue, int size) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            counts.merge(queue.poll().tenant, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static class Policy implements FairSharePolicy<Job> {
+
+        private final Map<String, Integer> tenantWeights = new HashMap<>();
+
+        private final Map<String, Integer> sourceWeights = new HashMap<>();
+
+        private final Map<String, Integer> sourceMaxConcurrent = new HashMap<>();
+
+        private int tenantMaxConcurrent;
+
+        @Override
+        public String tenantOf(Job job) {
+            return job.tenant;
+        }
+
+        @Override
+        public String sourceOf(Job job) {
+            return job.source;
+        }
+
+        @Override
+        public int tenantWeight(String tenant) {
+            return tenantWeights.getOrDefault(tenant, 1);
+        }
+
+        @Override
+        public int sourceWeight(String source) {
+            return sourceWeights.getOrDefault(source, 1);
+        }
+
+        @Override
+        public int tenantMaxConcurrent(String tenant) {
+            return tenantMaxConcurrent;
+        }
+
+        @Override
+        public int sourceMaxConcurrent(String source) {
+            return sourceMaxConcurrent.getOrDefault(source, 0);
+        }
+    }
+
+    private static class Job {
+
+        private final String tenant;
+
+        private final String source;
+
+        private final int id;
+
+        private final long priority;
+
+        private Job(String tenant, String source, int id, long priority) {
+            this.tenant = tenant;
+            this.source = source;
+            this.id = id;
+            this.priority = priority;
+        }
+
+        private long getPriority() {
+            return priority;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Job && ((Job) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+    }
+}
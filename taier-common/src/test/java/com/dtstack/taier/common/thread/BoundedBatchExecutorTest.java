@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.thread;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BoundedBatchExecutorTest {
+
+    @Test
+    public void testBoundedParallelism() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        BoundedBatchExecutor executor = new BoundedBatchExecutor("test", 3);
+        for (int i = 0; i < 50; i++) {
+            executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.incrementAndGet();
+            });
+        }
+        Assert.assertEquals(0, executor.await());
+        Assert.assertEquals(50, done.get());
+        // 队列满时提交线程阻塞而不是自己执行，最多同时运行并行度个批次
+        Assert.assertTrue(maxRunning.get() <= 3);
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        AtomicInteger done = new AtomicInteger();
+        BoundedBatchExecutor executor = new BoundedBatchExecutor("test", 2);
+        for (int i = 0; i < 10; i++) {
+            int index = i;
+            executor.submit(() -> {
+                if (index % 3 == 0) {
+                    throw new IllegalStateException("batch " + index);
+                }
+                done.incrementAndGet();
+            });
+        }
+        Assert.assertEquals(4, executor.await());
+        Assert.assertEquals(6, done.get());
+    }
+}
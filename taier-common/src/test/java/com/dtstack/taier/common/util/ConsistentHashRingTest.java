@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 20000;
+
+    @Test
+    public void testBalance() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("n1:8090", "n2:8090", "n3:8090", "n4:8090"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.getNode("job" + i), 1, Integer::sum);
+        }
+        Assert.assertEquals(4, counts.size());
+        for (int count : counts.values()) {
+            // 160 个虚拟节点时各节点负载偏差在 20% 以内
+            Assert.assertTrue(String.valueOf(counts), Math.abs(count - KEYS / 4) < KEYS / 4 / 5);
+        }
+    }
+
+    @Test
+    public void testOrderIndependent() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList("n1:8090", "n2:8090", "n3:8090"));
+        ConsistentHashRing other = new ConsistentHashRing(Arrays.asList("n3:8090", "n1:8090", "n2:8090", "n1:8090"));
+        Assert.assertEquals(ring.getNodes(), other.getNodes());
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(ring.getNode("job" + i), other.getNode("job" + i));
+        }
+    }
+
+    @Test
+    public void testMinimalMovement() {
+        List<String> nodes = Arrays.asList("n1:8090", "n2:8090", "n3:8090");
+        ConsistentHashRing ring = new ConsistentHashRing(nodes);
+        ConsistentHashRing joined = new ConsistentHashRing(Arrays.asList("n1:8090", "n2:8090", "n3:8090", "n4:8090"));
+        ConsistentHashRing left = new ConsistentHashRing(Arrays.asList("n1:8090", "n3:8090"));
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = "job" + i;
+            String owner = ring.getNode(key);
+            // 节点加入时只有归属新节点的 key 移动
+            String joinedOwner = joined.getNode(key);
+            if (!owner.equals(joinedOwner)) {
+                Assert.assertEquals("n4:8090", joinedOwner);
+                moved++;
+            }
+            // 节点离开时只有离开节点的 key 移动
+            if (!"n2:8090".equals(owner)) {
+                Assert.assertEquals(owner, left.getNode(key));
+            }
+        }
+        Assert.assertTrue(moved > KEYS / 4 * 0.8 && moved < KEYS / 4 * 1.2);
+    }
+
+    @Test
+    public void testEmpty() {
+        ConsistentHashRing ring = new ConsistentHashRing(Arrays.asList());
+        Assert.assertTrue(ring.isEmpty());
+        Assert.assertNull(ring.getNode("job"));
+    }
+}
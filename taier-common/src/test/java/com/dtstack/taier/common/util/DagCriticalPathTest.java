@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+public class DagCriticalPathTest {
+
+    @Test
+    public void testDownstreamLength() {
+        Map<Long, List<Long>> nodeSide = new HashMap<>();
+        nodeSide.put(1L, Arrays.asList(2L, 3L));
+        nodeSide.put(2L, Arrays.asList(4L));
+        nodeSide.put(3L, Arrays.asList(4L));
+        nodeSide.put(4L, Arrays.asList(5L));
+        Map<Long, Long> weights = new HashMap<>();
+        weights.put(1L, 1L);
+        weights.put(2L, 10L);
+        weights.put(3L, 3L);
+        weights.put(4L, 5L);
+        weights.put(5L, 7L);
+
+        Map<Long, Long> lengths = DagCriticalPath.downstreamLength(nodeSide, weights::get);
+        Assert.assertEquals(Long.valueOf(0L), lengths.get(5L));
+        Assert.assertEquals(Long.valueOf(7L), lengths.get(4L));
+        Assert.assertEquals(Long.valueOf(12L), lengths.get(3L));
+        Assert.assertEquals(Long.valueOf(12L), lengths.get(2L));
+        Assert.assertEquals(Long.valueOf(22L), lengths.get(1L));
+    }
+
+    @Test
+    public void testCycle() {
+        Map<Long, List<Long>> nodeSide = new HashMap<>();
+        nodeSide.put(1L, Arrays.asList(2L, 4L));
+        nodeSide.put(2L, Arrays.asList(3L));
+        nodeSide.put(3L, Arrays.asList(2L));
+        Map<Long, Long> lengths = DagCriticalPath.downstreamLength(nodeSide, taskKey -> 1L);
+        Assert.assertEquals(Long.valueOf(0L), lengths.get(4L));
+        Assert.assertEquals(4, lengths.size());
+    }
+
+    /**
+     * 在随机依赖图上模拟有限并发的调度，比较按生成顺序与按关键路径派发的完成时间
+     */
+    @Test
+    public void testMakespanSimulation() {
+        Random random = new Random(20220901L);
+        long fifoTotal = 0;
+        long criticalTotal = 0;
+        for (int round = 0; round < 50; round++) {
+            int nodeCount = 2000;
+            long[] durations = new long[nodeCount];
+            Map<Long, List<Long>> nodeSide = new HashMap<>();
+            for (int i = 0; i < nodeCount; i++) {
+                // 少量长任务链，大量短的末端任务
+                durations[i] = random.nextInt(10) == 0 ? 600 + random.nextInt(3000) : 10 + random.nextInt(120);
+                if (i > 0 && random.nextInt(3) != 0) {
+                    int parents = 1 + random.nextInt(3);
+                    for (int p = 0; p < parents; p++) {
+                        nodeSide.computeIfAbsent((long) random.nextInt(i), k -> new ArrayList<>()).add((long) i);
+                    }
+                }
+            }
+            Map<Long, Long> downstream = DagCriticalPath.downstreamLength(nodeSide, taskKey -> durations[taskKey.intValue()]);
+            long[] priority = new long[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                priority[i] = durations[i] + downstream.getOrDefault((long) i, 0L);
+            }
+            long fifo = simulate(nodeSide, durations, 16, Comparator.comparingInt(node -> node));
+            long critical = simulate(nodeSide, durations, 16,
+                    Comparator.<Integer>comparingLong(node -> -priority[node]).thenComparingInt(node -> node));
+            fifoTotal += fifo;
+            criticalTotal += critical;
+        }
+        Assert.assertTrue("fifo:" + fifoTotal + " critical:" + criticalTotal, criticalTotal < fifoTotal);
+    }
+
+    private static long simulate(Map<Long, List<Long>> nodeSide, long[] durations, int slots, Comparator<Integer> order) {
+        int nodeCount = durations.length;
+        int[] inDegrees = new int[nodeCount];
+        for (List<Long> children : nodeSide.values()) {
+            for (Long child : children) {
+                inDegrees[child.intValue()]++;
+            }
+        }
+        PriorityQueue<Integer> ready = new PriorityQueue<>(order);
+        for (int i = 0; i < nodeCount; i++) {
+            if (inDegrees[i] == 0) {
+                ready.add(i);
+            }
+        }
+        // 正在运行的任务按结束时间排序 [结束时间, 节点]
+        PriorityQueue<long[]> running = new PriorityQueue<>(Comparator.comparingLong((long[] r) -> r[0]));
+        long now = 0;
+        int finished = 0;
+        while (finished < nodeCount) {
+            while (running.size() < slots && !ready.isEmpty()) {
+                int node = ready.poll();
+                running.add(new long[]{now + durations[node], node});
+            }
+            long[] done = running.poll();
+            now = done[0];
+            finished++;
+            List<Long> children = nodeSide.get(done[1]);
+            if (children != null) {
+                for (Long child : children) {
+                    if (--inDegrees[child.intValue()] == 0) {
+                        ready.add(child.intValue());
+                    }
+                }
+            }
+        }
+        return now;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class DagReachabilityTest {
+
+    @Test
+    public void testIntermediateNodes() {
+        Map<Long, List<Long>> nodeSide = new HashMap<>();
+        addEdge(nodeSide, 1L, 2L);
+        addEdge(nodeSide, 2L, 3L);
+        addEdge(nodeSide, 3L, 4L);
+        addEdge(nodeSide, 2L, 5L);
+        addEdge(nodeSide, 5L, 6L);
+        addEdge(nodeSide, 1L, 7L);
+        addEdge(nodeSide, 7L, 4L);
+
+        Set<Long> targets = new HashSet<>();
+        targets.add(1L);
+        targets.add(4L);
+        Set<Long> expected = new HashSet<>();
+        expected.add(2L);
+        expected.add(3L);
+        expected.add(7L);
+        Assert.assertEquals(expected, DagReachability.intermediateNodes(targets, nodeSide));
+
+        targets.add(6L);
+        expected.add(5L);
+        Assert.assertEquals(expected, DagReachability.intermediateNodes(targets, nodeSide));
+    }
+
+    @Test
+    public void testPathEnumerationEquivalence() {
+        Random random = new Random(20220801L);
+        for (int round = 0; round < 500; round++) {
+            int nodeCount = 2 + random.nextInt(14);
+            double density = 0.05 + random.nextDouble() * 0.3;
+            Map<Long, List<Long>> nodeSide = randomDag(random, nodeCount, density);
+            Set<Long> targets = new HashSet<>();
+            int targetCount = 1 + random.nextInt(nodeCount);
+            for (int i = 0; i < targetCount; i++) {
+                targets.add((long) random.nextInt(nodeCount));
+            }
+            // 只保留目标节点能到达的边，与补数据查询边的方式一致
+            Map<Long, List<Long>> reachableSide = reachableSide(targets, nodeSide);
+
+            Set<Long> expected = PathEnumeration.allList(targets, reachableSide);
+            Set<Long> actual = new HashSet<>(targets);
+            actual.addAll(DagReachability.intermediateNodes(targets, reachableSide));
+            Assert.assertEquals("round " + round + " targets " + targets + " edges " + reachableSide, expected, actual);
+        }
+    }
+
+    @Test
+    public void testLargeDag() {
+        Random random = new Random(7L);
+        int nodeCount = 100000;
+        Map<Long, List<Long>> nodeSide = new HashMap<>(nodeCount * 2);
+        for (int i = 1; i < nodeCount; i++) {
+            // 每个节点 1~4 个上游，形成较宽的分层依赖
+            int parents = 1 + random.nextInt(4);
+            for (int p = 0; p < parents; p++) {
+                addEdge(nodeSide, (long) random.nextInt(i), (long) i);
+            }
+        }
+        Set<Long> targets = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            targets.add((long) random.nextInt(nodeCount));
+        }
+        Set<Long> intermediates = DagReachability.intermediateNodes(targets, nodeSide);
+        for (Long target : targets) {
+            Assert.assertFalse(intermediates.contains(target));
+        }
+        Assert.assertFalse(intermediates.isEmpty());
+    }
+
+    private static Map<Long, List<Long>> randomDag(Random random, int nodeCount, double density) {
+        // 按随机拓扑序生成边，保证无环
+        List<Long> order = new ArrayList<>();
+        for (long i = 0; i < nodeCount; i++) {
+            order.add(i);
+        }
+        java.util.Collections.shuffle(order, random);
+        Map<Long, List<Long>> nodeSide = new HashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            for (int j = i + 1; j < nodeCount; j++) {
+                if (random.nextDouble() < density) {
+                    addEdge(nodeSide, order.get(i), order.get(j));
+                }
+            }
+        }
+        return nodeSide;
+    }
+
+    private static Map<Long, List<Long>> reachableSide(Set<Long> targets, Map<Long, List<Long>> nodeSide) {
+        Map<Long, List<Long>> reachableSide = new HashMap<>();
+        List<Long> current = new ArrayList<>(targets);
+        while (!current.isEmpty()) {
+            List<Long> next = new ArrayList<>();
+            for (Long node : current) {
+                List<Long> children = nodeSide.get(node);
+                if (children != null && !reachableSide.containsKey(node)) {
+                    reachableSide.put(node, children);
+                    next.addAll(children);
+                }
+            }
+            current = next;
+        }
+        return reachableSide;
+    }
+
+    private static void addEdge(Map<Long, List<Long>> nodeSide, Long parent, Long child) {
+        List<Long> children = nodeSide.computeIfAbsent(parent, k -> new ArrayList<>());
+        if (!children.contains(child)) {
+            children.add(child);
+        }
+    }
+
+    /**
+     * 原补数据按路径枚举计算 all 集合的实现，作为对照
+     */
+    private static class PathEnumeration {
+
+        static Set<Long> allList(Set<Long> run, Map<Long, List<Long>> nodeSide) {
+            Set<Long> all = new HashSet<>(run);
+            if (run.size() == 1) {
+                return all;
+            }
+            Set<Long> validPathTaskKey = new HashSet<>();
+            Map<Long, List<Path>> dagNodes = new HashMap<>();
+            for (Long aimNode : run) {
+                if (!validPathTaskKey.contains(aimNode)) {
+                    Path path = new Path();
+                    path.rTaskKeys.add(aimNode);
+                    dagNodes.put(aimNode, fillDAGPaths(aimNode, path, validPathTaskKey, dagNodes, run, nodeSide));
+                    validPathTaskKey.add(aimNode);
+                }
+            }
+            for (List<Path> paths : dagNodes.values()) {
+                for (Path path : paths) {
+                    all.addAll(path.rTaskKeys);
+                }
+            }
+            return all;
+        }
+
+        static List<Path> fillDAGPaths(Long aimPath, Path path, Set<Long> validPathTaskKey, Map<Long, List<Path>> dagNodes,
+                                       Set<Long> run, Map<Long, List<Long>> nodeSide) {
+            List<Long> childTaskKeys = nodeSide.get(aimPath);
+            List<Path> paths = new ArrayList<>();
+            if (childTaskKeys == null || childTaskKeys.isEmpty()) {
+                if (path.rEnd) {
+                    paths.add(path);
+                }
+            } else if (childTaskKeys.size() == 1) {
+                fillPaths(path, validPathTaskKey, dagNodes, run, nodeSide, childTaskKeys.get(0), paths);
+            } else {
+                for (Long childTaskKey : childTaskKeys) {
+                    fillPaths(new Path(path), validPathTaskKey, dagNodes, run, nodeSide, childTaskKey, paths);
+                }
+            }
+            return paths;
+        }
+
+        static void fillPaths(Path path, Set<Long> validPathTaskKey, Map<Long, List<Path>> dagNodes, Set<Long> run,
+                              Map<Long, List<Long>> nodeSide, Long childTaskKey, List<Path> paths) {
+            if (run.contains(childTaskKey)) {
+                validPathTaskKey.add(childTaskKey);
+                path.taskKeys.add(childTaskKey);
+                path.rTaskKeys.addAll(path.taskKeys);
+                path.taskKeys.clear();
+                List<Path> childPaths = dagNodes.get(childTaskKey);
+                if (childPaths == null) {
+                    path.rEnd = true;
+                    paths.addAll(fillDAGPaths(childTaskKey, path, validPathTaskKey, dagNodes, run, nodeSide));
+                } else if (childPaths.isEmpty()) {
+                    path.rEnd = true;
+                    paths.add(path);
+                } else {
+                    for (Path childPath : childPaths) {
+                        childPath.rTaskKeys.addAll(path.rTaskKeys);
+                    }
+                    paths.addAll(childPaths);
+                }
+            } else {
+                path.taskKeys.add(childTaskKey);
+                paths.addAll(fillDAGPaths(childTaskKey, path, validPathTaskKey, dagNodes, run, nodeSide));
+            }
+        }
+
+        private static class Path {
+
+            private boolean rEnd;
+
+            private List<Long> taskKeys = new ArrayList<>();
+
+            private List<Long> rTaskKeys = new ArrayList<>();
+
+            Path() {
+            }
+
+            Path(Path path) {
+                this.rEnd = path.rEnd;
+                this.taskKeys = new ArrayList<>(path.taskKeys);
+                this.rTaskKeys = new ArrayList<>(path.rTaskKeys);
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class JobKeyIdUtilTest {
+
+    @Test
+    public void testSameAsSqlConv() {
+        // CONV(LEFT(MD5(job_key), 15), 16, 10)
+        Assert.assertEquals(377765293725729794L, JobKeyIdUtil.getJobKeyId("cronTrigger_1_20220301000000"));
+        Assert.assertEquals(357987578801309759L, JobKeyIdUtil.getJobKeyId("P_补数据_0301_12_20220301000000"));
+    }
+
+    @Test
+    public void testEmptyKey() {
+        Assert.assertEquals(0L, JobKeyIdUtil.getJobKeyId(null));
+        Assert.assertEquals(0L, JobKeyIdUtil.getJobKeyId(""));
+    }
+
+    @Test
+    public void testRange() {
+        for (int i = 0; i < 10000; i++) {
+            long id = JobKeyIdUtil.getJobKeyId("cronTrigger_" + i + "_20220301000000");
+            Assert.assertTrue(id > 0 && id < (1L << 60));
+        }
+    }
+}
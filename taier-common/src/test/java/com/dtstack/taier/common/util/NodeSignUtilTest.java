@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NodeSignUtilTest {
+
+    private static final long MAX_SKEW = 60 * 1000L;
+
+    @Test
+    public void testVerify() {
+        long now = System.currentTimeMillis();
+        String sign = NodeSignUtil.sign("token", now);
+        Assert.assertEquals(64, sign.length());
+        Assert.assertTrue(NodeSignUtil.verify("token", String.valueOf(now), sign, MAX_SKEW));
+        Assert.assertFalse(NodeSignUtil.verify("other", String.valueOf(now), sign, MAX_SKEW));
+        Assert.assertFalse(NodeSignUtil.verify("token", String.valueOf(now + 1), sign, MAX_SKEW));
+        Assert.assertFalse(NodeSignUtil.verify("token", String.valueOf(now), sign.substring(1), MAX_SKEW));
+    }
+
+    @Test
+    public void testExpiredOrIllegal() {
+        long expired = System.currentTimeMillis() - 2 * MAX_SKEW;
+        Assert.assertFalse(NodeSignUtil.verify("token", String.valueOf(expired), NodeSignUtil.sign("token", expired), MAX_SKEW));
+        Assert.assertFalse(NodeSignUtil.verify("token", "abc", "sign", MAX_SKEW));
+        Assert.assertFalse(NodeSignUtil.verify("token", null, null, MAX_SKEW));
+        Assert.assertFalse(NodeSignUtil.verify("", "1", NodeSignUtil.sign("x", 1), MAX_SKEW));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ParamTemplateTest {
+
+    private static final List<String> CYC_TIMES = Arrays.asList("20180607010101", "20200229235959", "20211231000000", "20220301120000");
+
+    private static final List<String> CUSTOMIZE_COMMANDS = Arrays.asList(
+            "$[yyyyMMdd]", "$[yyyyMMdd-1]", "$[yyyyMMdd+10]", "$[yyyyMMdd-7*1]", "$[yyyyMMdd+7*2]", "$[yyyyMMdd-1,'-']",
+            "$[yyyyMMdd+10,'-']", "$[hh24miss+3/24]", "$[hh24miss-4/24]", "$[hh24miss+3/24/60]", "$[hh24miss-3/24/60,'-']",
+            "$[add_months(yyyyMMdd,12*2)]", "$[add_months(yyyyMMdd,-12*1)]", "$[add_months(yyyyMM,-10)]",
+            "$[add_months(yyyy,10)]", "$[add_months(yyyyMMdd,2,'-')]", "$[yyyy]", "$[MM]", "$[dd]", "$[HH]", "$[mm]", "$[ss]",
+            "$[yyyyMM]", "$[yyyyMMddHH]", "$[yyyyMMddHHmm]", "$[yyyyMMddHHmmss]", "$[yyyyMMddhh24]", "$[yyyyMMddhh24mm]",
+            "$[yyyy-MM-dd]", "$[yyyy-MM-dd HH:mm:ss]", "$[HH:mm:ss]", "$[yyyyMM,':']", "$[yyyyMMddhh24,':']",
+            "$[format(yyyyMMdd - 1d, 'yyyy-MM-dd')]", "$[format(yyyyMMddHHmmss + 3H, 'yyyy/MM/dd HH:mm:ss')]",
+            "$[format(yyyyMMdd - 1w, 'UnixTimestamp10')]", "${yyyyMMdd}", "${yyyyMMdd-1}", "${yyyy-MM-dd}",
+            "plain value", "yyyyMMdd", "");
+
+    private static final List<String> TRANSFORM_COMMANDS = Arrays.asList(
+            "yyyyMMddHHmmss", "yyyyMMdd", " yyyyMMdd ", "yyyyMMdd-1", "yyyyMMdd+1", "yyyyMM-1", "yyyyMM+2", "yyyy-1",
+            "yyyy+1", "yyyy-MM-dd,-1", "yyyy-MM-dd,+1", "yyyyMMdd,-3", "");
+
+    private static final List<String> ILLEGAL_COMMANDS = Arrays.asList(
+            "$[yyyyMMdd-3*3]", "$[add_months(yyyyMMdd,2*3)]", "$[hh24miss+3]", "$[unknown]", "$[format(bad)]");
+
+    @Test
+    public void testCompiledTimeParamEquivalence() {
+        for (String command : CUSTOMIZE_COMMANDS) {
+            TimeParamEvaluator evaluator = TimeParamOperator.compileCustomizeTimeOperator(command);
+            for (String cycTime : CYC_TIMES) {
+                Assert.assertEquals(command + "@" + cycTime,
+                        TimeParamOperator.dealCustomizeTimeOperator(command, cycTime), evaluator.evaluate(cycTime));
+            }
+        }
+        for (String command : TRANSFORM_COMMANDS) {
+            TimeParamEvaluator evaluator = TimeParamOperator.compileTransform(command);
+            for (String cycTime : CYC_TIMES) {
+                Assert.assertEquals(command + "@" + cycTime,
+                        TimeParamOperator.transform(command, cycTime), evaluator.evaluate(cycTime));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledTimeParamIllegal() {
+        for (String command : ILLEGAL_COMMANDS) {
+            String expected = null;
+            try {
+                TimeParamOperator.dealCustomizeTimeOperator(command, "20180607010101");
+            } catch (RuntimeException e) {
+                expected = e.getClass().getName() + ":" + e.getMessage();
+            }
+            String actual = null;
+            try {
+                TimeParamOperator.compileCustomizeTimeOperator(command).evaluate("20180607010101");
+            } catch (RuntimeException e) {
+                actual = e.getClass().getName() + ":" + e.getMessage();
+            }
+            Assert.assertNotNull(command, expected);
+            Assert.assertEquals(command, expected, actual);
+        }
+    }
+
+    @Test
+    public void testRenderEquivalence() {
+        Map<String, String> params = new LinkedHashMap<>();
+        params.put("bizdate", "$[yyyyMMdd-1]");
+        params.put("month", "$[add_months(yyyyMM,-1)]");
+        params.put("hour", "$[hh24miss-1/24]");
+        params.put("unused", "$[yyyy]");
+        String sql = "insert overwrite table t partition(pt='${bizdate}', hour='${hour}')\n"
+                + "select * from s where pt = '${bizdate}' and m = ${month} and x = '${missing}' and y = '${' and z = '@@{bizdate}'\n"
+                + "-- ${bizdate}${month}${bizdate} ${x${hour}} }";
+
+        for (String cycTime : CYC_TIMES) {
+            String expected = sql;
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                expected = expected.replace("${" + entry.getKey() + "}",
+                        TimeParamOperator.dealCustomizeTimeOperator(entry.getValue(), cycTime));
+            }
+            String actual = ParamTemplate.compile(sql).render((component, name) ->
+                    component || !params.containsKey(name) ? null
+                            : TimeParamOperator.compileCustomizeTimeOperator(params.get(name)).evaluate(cycTime));
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testComponentPlaceholder() {
+        ParamTemplate template = ParamTemplate.compile("a @@{comp} b ${comp} c");
+        Assert.assertEquals("a X b Y c", template.render((component, name) -> component ? "X" : "Y"));
+        Assert.assertEquals("a @@{comp} b Y c", template.render((component, name) -> component ? null : "Y"));
+    }
+
+    @Test
+    public void testNoPlaceholder() {
+        String sql = "select 1 from dual where a = '$' and b = '{}'";
+        ParamTemplate template = ParamTemplate.of(sql);
+        Assert.assertFalse(template.hasPlaceholder());
+        Assert.assertSame(sql, template.render((component, name) -> "x"));
+        Assert.assertSame(template, ParamTemplate.of(sql));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class SqlLexerTest {
+
+    /**
+     * 注释标记、分号均不出现在引号内的常规脚本，新旧实现输出必须一致
+     */
+    private static final List<String> CORPUS = Arrays.asList(
+            "select * from dual",
+            "select id, name from t_user where id = 1;",
+            "-- 头部注释\nselect id from t;\n-- 尾部注释",
+            "select id, -- 行内注释\n name from t_user;",
+            "/** 任务说明 **/\ninsert into t1 select * from t2;",
+            "/**/select 1;",
+            "select /* hint */ a from b; select 2;",
+            "/*\n * 多行\n * 注释\n */\ncreate table t (id int) lifecycle 10;",
+            "create table t1 (id int comment 'id', name string comment \"名称\") catalogue 12 lifecycle 3;",
+            "insert overwrite table t partition (pt='${bdp.system.bizdate}') select a, b from s where c = 'x';",
+            "set hive.exec.dynamic.partition=true;\nset hive.exec.dynamic.partition.mode=nonstrict;\nselect 1",
+            "select 'a', \"b\", `c` from t;\r\nselect 2;\r\n",
+            "select count(1) from t group by a having count(1) > 1;;",
+            ""
+    );
+
+    @Test
+    public void testRemoveCommentsEquivalence() {
+        for (String sql : CORPUS) {
+            Assert.assertEquals(sql, legacyRemoveComment(sql), SqlLexer.removeComments(sql));
+        }
+    }
+
+    @Test
+    public void testSplitStatementsEquivalence() {
+        for (String sql : CORPUS) {
+            Assert.assertEquals(sql, legacySplitSqlText(sql), SqlLexer.splitStatements(sql));
+        }
+    }
+
+    @Test
+    public void testQuoteAware() {
+        String sql = "select '--not comment', \"a;b\", '/* x */' from t -- tail\n;select 'it\\'s;' from t2;";
+        Assert.assertEquals("select '--not comment', \"a;b\", '/* x */' from t \n;select 'it\\'s;' from t2;",
+                SqlLexer.removeComments(sql));
+        List<String> statements = SqlLexer.splitStatements(sql);
+        Assert.assertEquals(2, statements.size());
+        Assert.assertEquals("select 'it\\'s;' from t2", statements.get(1));
+
+        Assert.assertEquals(1, SqlLexer.splitStatements("select 1 /* a;b */ from t; -- c;d").size());
+    }
+
+    @Test
+    public void testLeadingKeyword() {
+        Assert.assertEquals("create", SqlLexer.leadingKeyword("  -- c\n/* d */ CREATE table t(id int)"));
+        Assert.assertEquals("comment", SqlLexer.leadingKeyword("Comment on table t is 'x'"));
+        Assert.assertNull(SqlLexer.leadingKeyword("(select 1)"));
+        Assert.assertNull(SqlLexer.leadingKeyword(" -- only comment"));
+        Assert.assertNull(SqlLexer.leadingKeyword(null));
+    }
+
+    @Test
+    public void testTokenize() {
+        String sql = "select a,'b' from t;";
+        List<SqlLexer.Token> tokens = SqlLexer.tokenize(sql);
+        StringBuilder rebuilt = new StringBuilder();
+        for (SqlLexer.Token token : tokens) {
+            rebuilt.append(token.text(sql));
+        }
+        Assert.assertEquals(sql, rebuilt.toString());
+        Assert.assertEquals(SqlLexer.TokenType.QUOTED, tokens.get(4).getType());
+        Assert.assertEquals(SqlLexer.TokenType.SEMICOLON, tokens.get(tokens.size() - 1).getType());
+    }
+
+    /**
+     * 原 SqlFormatUtil#removeComment 的正则实现
+     */
+    private static String legacyRemoveComment(String sql) {
+        sql = sql.replaceAll("--.*", "");
+        sql = sql.replaceAll("\\/\\*\\*+.*\\*\\*+\\/", "");
+        sql = sql.replaceAll("/\\*{1,2}\\*/", "");
+        sql = sql.replaceAll("/\\*{1,2}[\\s\\S]*?\\*/", "");
+        return sql;
+    }
+
+    /**
+     * 原 SqlFormatUtil#splitSqlText 的正则实现
+     */
+    private static List<String> legacySplitSqlText(String sqlText) {
+        String sqlTemp = sqlText;
+        Matcher matcher = Pattern.compile("('[^']*?')|(\"[^\"]*?\")").matcher(sqlTemp);
+        while (matcher.find()) {
+            String group = matcher.group();
+            sqlTemp = sqlTemp.replace(group, new String(new char[group.length()]).replace('\0', ' '));
+        }
+        List<Integer> posits = new ArrayList<>();
+        while (sqlTemp.contains(";")) {
+            int pos = sqlTemp.indexOf(";");
+            posits.add(pos);
+            sqlTemp = sqlTemp.substring(pos + 1);
+        }
+        List<String> sqls = new ArrayList<>();
+        for (Integer posit : posits) {
+            sqls.add(sqlText.substring(0, posit));
+            sqlText = sqlText.substring(posit + 1);
+        }
+        return sqls;
+    }
+}
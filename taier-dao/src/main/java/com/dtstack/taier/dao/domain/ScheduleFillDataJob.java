@@ -77,6 +77,31 @@ public class ScheduleFillDataJob implements Serializable {
      */
     private Integer fillGenerateStatus;
 
+    /**
+     * 每天补数据的开始时间
+     */
+    private String beginTime;
+
+    /**
+     * 每天补数据的结束时间
+     */
+    private String endTime;
+
+    /**
+     * 生成补数据实例的节点
+     */
+    private String nodeAddress;
+
+    /**
+     * 已完成生成实例的最后一个业务日期，用于节点宕机后续跑
+     */
+    private String finishDay;
+
+    /**
+     * 已生成的实例数
+     */
+    private Integer generateJobNum;
+
 
     public Long getId() {
         return id;
@@ -173,4 +198,44 @@ public class ScheduleFillDataJob implements Serializable {
     public void setFillGenerateStatus(Integer fillGenerateStatus) {
         this.fillGenerateStatus = fillGenerateStatus;
     }
+
+    public String getBeginTime() {
+        return beginTime;
+    }
+
+    public void setBeginTime(String beginTime) {
+        this.beginTime = beginTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(String endTime) {
+        this.endTime = endTime;
+    }
+
+    public String getNodeAddress() {
+        return nodeAddress;
+    }
+
+    public void setNodeAddress(String nodeAddress) {
+        this.nodeAddress = nodeAddress;
+    }
+
+    public String getFinishDay() {
+        return finishDay;
+    }
+
+    public void setFinishDay(String finishDay) {
+        this.finishDay = finishDay;
+    }
+
+    public Integer getGenerateJobNum() {
+        return generateJobNum;
+    }
+
+    public void setGenerateJobNum(Integer generateJobNum) {
+        this.generateJobNum = generateJobNum;
+    }
 }
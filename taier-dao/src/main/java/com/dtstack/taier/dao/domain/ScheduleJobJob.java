@@ -55,6 +55,16 @@ public class ScheduleJobJob {
      */
     private String parentJobKey;
 
+    /**
+     * 实例key的数值标识，见 JobKeyIdUtil
+     */
+    private Long jobKeyId;
+
+    /**
+     * 父实例key的数值标识
+     */
+    private Long parentJobKeyId;
+
     /**
      * parentJobKey类型： RelyType
      *   1. 自依赖实例key
@@ -117,6 +127,22 @@ public class ScheduleJobJob {
         this.parentJobKey = parentJobKey;
     }
 
+    public Long getJobKeyId() {
+        return jobKeyId;
+    }
+
+    public void setJobKeyId(Long jobKeyId) {
+        this.jobKeyId = jobKeyId;
+    }
+
+    public Long getParentJobKeyId() {
+        return parentJobKeyId;
+    }
+
+    public void setParentJobKeyId(Long parentJobKeyId) {
+        this.parentJobKeyId = parentJobKeyId;
+    }
+
     public Integer getJobKeyType() {
         return jobKeyType;
     }
@@ -162,12 +188,12 @@ public class ScheduleJobJob {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         ScheduleJobJob that = (ScheduleJobJob) o;
-        return Objects.equals(id, that.id) && Objects.equals(tenantId, that.tenantId) && Objects.equals(jobKey, that.jobKey) && Objects.equals(parentJobKey, that.parentJobKey) && Objects.equals(jobKeyType, that.jobKeyType) && Objects.equals(rule, that.rule) && Objects.equals(gmtCreate, that.gmtCreate) && Objects.equals(gmtModified, that.gmtModified) && Objects.equals(isDeleted, that.isDeleted);
+        return Objects.equals(id, that.id) && Objects.equals(tenantId, that.tenantId) && Objects.equals(jobKey, that.jobKey) && Objects.equals(parentJobKey, that.parentJobKey) && Objects.equals(jobKeyId, that.jobKeyId) && Objects.equals(parentJobKeyId, that.parentJobKeyId) && Objects.equals(jobKeyType, that.jobKeyType) && Objects.equals(rule, that.rule) && Objects.equals(gmtCreate, that.gmtCreate) && Objects.equals(gmtModified, that.gmtModified) && Objects.equals(isDeleted, that.isDeleted);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, tenantId, jobKey, parentJobKey, jobKeyType, rule, gmtCreate, gmtModified, isDeleted);
+        return Objects.hash(id, tenantId, jobKey, parentJobKey, jobKeyId, parentJobKeyId, jobKeyType, rule, gmtCreate, gmtModified, isDeleted);
     }
 
     @Override
@@ -177,6 +203,8 @@ public class ScheduleJobJob {
                 ", tenantId=" + tenantId +
                 ", jobKey='" + jobKey + '\'' +
                 ", parentJobKey='" + parentJobKey + '\'' +
+                ", jobKeyId=" + jobKeyId +
+                ", parentJobKeyId=" + parentJobKeyId +
                 ", jobKeyType=" + jobKeyType +
                 ", rule=" + rule +
                 ", gmtCreate=" + gmtCreate +
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.sql.Timestamp;
+
+/**
+ * 实时任务 checkpoint 历史，按 (job_id, checkpoint_trigger) 建索引，支持按时间倒序的范围查询
+ */
+@TableName("stream_task_checkpoint_history")
+public class StreamTaskCheckpointHistory {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    private String jobId;
+
+    private String engineJobId;
+
+    private Long checkpointId;
+
+    private Timestamp checkpointTrigger;
+
+    private String checkpointSavepath;
+
+    private Long checkpointSize;
+
+    private Long checkpointDuration;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getEngineJobId() {
+        return engineJobId;
+    }
+
+    public void setEngineJobId(String engineJobId) {
+        this.engineJobId = engineJobId;
+    }
+
+    public Long getCheckpointId() {
+        return checkpointId;
+    }
+
+    public void setCheckpointId(Long checkpointId) {
+        this.checkpointId = checkpointId;
+    }
+
+    public Timestamp getCheckpointTrigger() {
+        return checkpointTrigger;
+    }
+
+    public void setCheckpointTrigger(Timestamp checkpointTrigger) {
+        this.checkpointTrigger = checkpointTrigger;
+    }
+
+    public String getCheckpointSavepath() {
+        return checkpointSavepath;
+    }
+
+    public void setCheckpointSavepath(String checkpointSavepath) {
+        this.checkpointSavepath = checkpointSavepath;
+    }
+
+    public Long getCheckpointSize() {
+        return checkpointSize;
+    }
+
+    public void setCheckpointSize(Long checkpointSize) {
+        this.checkpointSize = checkpointSize;
+    }
+
+    public Long getCheckpointDuration() {
+        return checkpointDuration;
+    }
+
+    public void setCheckpointDuration(Long checkpointDuration) {
+        this.checkpointDuration = checkpointDuration;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.domain;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+
+import java.sql.Timestamp;
+
+/**
+ * 实时任务 checkpoint 汇总，每个实例一行，记录触发时间范围、个数与总大小
+ */
+@TableName("stream_task_checkpoint_summary")
+public class StreamTaskCheckpointSummary {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    private String jobId;
+
+    private Timestamp minTrigger;
+
+    private Timestamp maxTrigger;
+
+    private Long checkpointCount;
+
+    private Long totalSize;
+
+    /**
+     * 最近一次压缩时间
+     */
+    private Timestamp compactTime;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Timestamp getMinTrigger() {
+        return minTrigger;
+    }
+
+    public void setMinTrigger(Timestamp minTrigger) {
+        this.minTrigger = minTrigger;
+    }
+
+    public Timestamp getMaxTrigger() {
+        return maxTrigger;
+    }
+
+    public void setMaxTrigger(Timestamp maxTrigger) {
+        this.maxTrigger = maxTrigger;
+    }
+
+    public Long getCheckpointCount() {
+        return checkpointCount;
+    }
+
+    public void setCheckpointCount(Long checkpointCount) {
+        this.checkpointCount = checkpointCount;
+    }
+
+    public Long getTotalSize() {
+        return totalSize;
+    }
+
+    public void setTotalSize(Long totalSize) {
+        this.totalSize = totalSize;
+    }
+
+    public Timestamp getCompactTime() {
+        return compactTime;
+    }
+
+    public void setCompactTime(Timestamp compactTime) {
+        this.compactTime = compactTime;
+    }
+}
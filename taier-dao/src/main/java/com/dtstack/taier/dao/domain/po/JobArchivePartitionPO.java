@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.domain.po;
+
+/**
+ * schedule_job_archive 的分区
+ *
+ * @author jiangbo
+ */
+public class JobArchivePartitionPO {
+
+    /**
+     * 分区名 p + 调度日期 yyyyMMdd
+     */
+    private String partitionName;
+
+    /**
+     * 分区上界(不包含)，下一天的 yyyyMMddHHmmss
+     */
+    private String lessThan;
+
+    public JobArchivePartitionPO() {
+    }
+
+    public JobArchivePartitionPO(String partitionName, String lessThan) {
+        this.partitionName = partitionName;
+        this.lessThan = lessThan;
+    }
+
+    public String getPartitionName() {
+        return partitionName;
+    }
+
+    public void setPartitionName(String partitionName) {
+        this.partitionName = partitionName;
+    }
+
+    public String getLessThan() {
+        return lessThan;
+    }
+
+    public void setLessThan(String lessThan) {
+        this.lessThan = lessThan;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.domain.po;
+
+/**
+ * 任务按计划日期、小时汇总的平均运行时长
+ *
+ * @author jiangbo
+ */
+public class TaskExecTimePO {
+
+    private Long taskId;
+
+    /**
+     * 计划日期 yyyyMMdd
+     */
+    private String cycDay;
+
+    /**
+     * 计划小时 HH
+     */
+    private String cycHour;
+
+    /**
+     * 平均运行时长，单位秒
+     */
+    private Long execTime;
+
+    public Long getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(Long taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getCycDay() {
+        return cycDay;
+    }
+
+    public void setCycDay(String cycDay) {
+        this.cycDay = cycDay;
+    }
+
+    public String getCycHour() {
+        return cycHour;
+    }
+
+    public void setCycHour(String cycHour) {
+        this.cycHour = cycHour;
+    }
+
+    public Long getExecTime() {
+        return execTime;
+    }
+
+    public void setExecTime(Long execTime) {
+        this.execTime = execTime;
+    }
+}
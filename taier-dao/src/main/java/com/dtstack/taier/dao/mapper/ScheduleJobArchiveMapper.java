@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.mapper;
+
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.po.JobArchivePartitionPO;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 已结束实例的归档，schedule_job 只保留运行中和最近的实例
+ *
+ * @author jiangbo
+ */
+public interface ScheduleJobArchiveMapper {
+
+    /**
+     * 查询 schedule_job 中需要归档的最早调度时间
+     */
+    String minArchiveCycTime(@Param("endCycTime") String endCycTime, @Param("statuses") List<Integer> statuses);
+
+    /**
+     * 按 id 顺序查询 schedule_job 中需要归档的实例，只返回 id
+     */
+    List<Long> listArchiveJobIds(@Param("startId") Long startId, @Param("endCycTime") String endCycTime,
+                                 @Param("statuses") List<Integer> statuses, @Param("limit") Integer limit);
+
+    /**
+     * 复制实例到归档表，已存在时覆盖
+     */
+    int archiveByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 删除 schedule_job 中已归档的实例，状态已被修改的实例(如重跑)不删除
+     */
+    int deleteArchivedByIds(@Param("ids") List<Long> ids, @Param("statuses") List<Integer> statuses);
+
+    /**
+     * 归档表现有分区，按上界升序
+     */
+    List<JobArchivePartitionPO> listPartitions();
+
+    int addPartitions(@Param("partitions") List<JobArchivePartitionPO> partitions);
+
+    int dropPartitions(@Param("partitionNames") List<String> partitionNames);
+
+    ScheduleJob getByJobId(@Param("jobId") String jobId);
+
+    List<ScheduleJob> listByJobKeys(@Param("jobKeys") Collection<String> jobKeys);
+}
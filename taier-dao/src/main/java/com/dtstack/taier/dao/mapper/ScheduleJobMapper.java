@@ -6,6 +6,7 @@ import com.dtstack.taier.dao.domain.po.CountFillDataJobStatusPO;
 import com.dtstack.taier.dao.domain.po.JobsStatusStatisticsPO;
 import com.dtstack.taier.dao.domain.po.SimpleScheduleJobPO;
 import com.dtstack.taier.dao.domain.po.StatusCountPO;
+import com.dtstack.taier.dao.domain.po.TaskExecTimePO;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -111,5 +112,16 @@ public interface ScheduleJobMapper extends BaseMapper<ScheduleJob> {
      */
     Integer updateJobStatusAndExecTime(@Param("jobId") String jobId, @Param("status") int status);
 
+    /**
+     * 按任务、计划日期、小时汇总实例的平均运行时长
+     *
+     * @param startCycTime 计划时间开始(包含)
+     * @param endCycTime   计划时间结束(不包含)
+     * @param type         实例类型
+     * @param status       实例状态
+     * @return 平均运行时长
+     */
+    List<TaskExecTimePO> listTaskExecTime(@Param("startCycTime") String startCycTime, @Param("endCycTime") String endCycTime, @Param("type") Integer type, @Param("status") Integer status);
+
 
 }
@@ -0,0 +1,32 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dtstack.taier.dao.domain.StreamTaskCheckpointHistory;
+
+public interface StreamTaskCheckpointHistoryMapper extends BaseMapper<StreamTaskCheckpointHistory> {
+
+    /**
+     * 写入 checkpoint，(job_id, checkpoint_trigger, checkpoint_id) 已存在时忽略
+     *
+     * @return 实际写入的行数
+     */
+    int insertIgnore(StreamTaskCheckpointHistory history);
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.dao.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.dtstack.taier.dao.domain.StreamTaskCheckpointSummary;
+import org.apache.ibatis.annotations.Param;
+
+import java.sql.Timestamp;
+
+public interface StreamTaskCheckpointSummaryMapper extends BaseMapper<StreamTaskCheckpointSummary> {
+
+    /**
+     * 累加新写入的 checkpoint 到汇总行，汇总行不存在时新建
+     */
+    int merge(StreamTaskCheckpointSummary increment);
+
+    /**
+     * 按 checkpoint 历史重新计算汇总行，压缩后调用
+     */
+    int refresh(@Param("jobId") String jobId, @Param("compactTime") Timestamp compactTime);
+
+    /**
+     * 认领汇总行的压缩，compact_time 为空或不晚于 compactedBefore 时更新为 compactTime
+     *
+     * @return 1 表示认领成功，0 表示已被其他节点认领或近期已压缩
+     */
+    int claimCompact(@Param("id") Long id, @Param("compactTime") Timestamp compactTime, @Param("compactedBefore") Timestamp compactedBefore);
+
+    /**
+     * 压缩失败时把 compact_time 从 claimedTime 恢复为认领前的值，下次压缩从原位置继续
+     */
+    int restoreCompactTime(@Param("id") Long id, @Param("claimedTime") Timestamp claimedTime, @Param("compactTime") Timestamp compactTime);
+}
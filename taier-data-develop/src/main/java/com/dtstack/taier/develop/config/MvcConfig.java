@@ -20,6 +20,7 @@
 
 package com.dtstack.taier.develop.config;
 
+import com.dtstack.taier.develop.controller.console.NodeRecoverController;
 import com.dtstack.taier.develop.interceptor.LoginInterceptor;
 import com.dtstack.taier.pluginapi.constrant.ConfigConstant;
 import org.springframework.context.annotation.Bean;
@@ -73,7 +74,8 @@ public class MvcConfig extends DelegatingWebMvcConfiguration {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(loginInterceptor()).addPathPatterns("/**");
+        registry.addInterceptor(loginInterceptor()).addPathPatterns("/**")
+                .excludePathPatterns(NodeRecoverController.PATH + "/**");
         super.addInterceptors(registry);
     }
 
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.develop.controller.console;
+
+import com.dtstack.taier.common.exception.ErrorCode;
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.lang.web.R;
+import com.dtstack.taier.common.util.NodeSignUtil;
+import com.dtstack.taier.scheduler.service.NodeRecoverService;
+import com.dtstack.taier.scheduler.zookeeper.ZkService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 节点间容灾通知，master 迁移完宕机节点的任务后通知存活节点恢复已提交的任务；
+ * 不经过登录拦截，请求需带节点间共享密钥的签名，见 {@link NodeSignUtil}
+ *
+ * @author jiangbo
+ */
+@RestController
+@RequestMapping(NodeRecoverController.PATH)
+@Api(value = NodeRecoverController.PATH, tags = {"节点容灾接口"})
+public class NodeRecoverController {
+
+    public static final String PATH = "/node/nodeRecover";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(NodeRecoverController.class);
+
+    /**
+     * 签名时间戳允许的偏差，容忍节点间的时钟误差
+     */
+    private static final long SIGN_MAX_SKEW_MILLIS = 5 * 60 * 1000L;
+
+    @Autowired
+    private NodeRecoverService nodeRecoverService;
+
+    @Autowired
+    private ZkService zkService;
+
+    @PostMapping(value = "/masterTriggerNode")
+    @ApiOperation(value = "恢复当前节点上已提交的任务")
+    public R<Void> masterTriggerNode(HttpServletRequest request) {
+        // 只接受带有效节点间签名的通知，不依赖来源 ip
+        if (!NodeSignUtil.verify(zkService.getNodeToken(), request.getHeader(NodeSignUtil.HEADER_TIMESTAMP),
+                request.getHeader(NodeSignUtil.HEADER_SIGN), SIGN_MAX_SKEW_MILLIS)) {
+            LOGGER.warn("reject masterTriggerNode from {}, invalid node sign", request.getRemoteAddr());
+            throw new RdosDefineException(ErrorCode.PERMISSION_LIMIT);
+        }
+        nodeRecoverService.masterTriggerNode();
+        return R.empty();
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.develop.service.datasource.impl;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.thread.RdosThreadFactory;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据源元数据缓存(表列表、字段、schema、分区)
+ * <p>
+ * key 为 (数据源 id, 元数据类型, schema, 对象名)，value 带上数据源的修改时间作为版本号：
+ * 1. 版本号与数据源当前修改时间不一致时视为失效，同步重新加载；
+ * 2. 超过刷新间隔的数据直接返回旧值，同时提交异步刷新，同一个 key 同时只会有一个刷新任务；
+ * 3. 空结果(表不存在、无分区等)单独使用较短的过期时间，避免频繁访问远端的同时不会长时间掩盖新建的表；
+ * 4. 加载异常不做缓存，直接抛给调用方
+ * <p>
+ * 缓存值由调用方共享，调用方需要自行复制后再修改
+ *
+ * @author jiangbo
+ */
+@Component
+public class DatasourceMetadataCache implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DatasourceMetadataCache.class);
+
+    /**
+     * 每多少次查询打印一次命中情况
+     */
+    private static final long STATS_LOG_INTERVAL = 1000;
+
+    private static final int REFRESH_QUEUE_CAPACITY = 256;
+
+    public enum MetadataType {
+        TABLE_LIST,
+        COLUMN,
+        SCHEMA,
+        PARTITION
+    }
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    private Cache<MetadataKey, MetadataEntry> cache;
+
+    private ThreadPoolExecutor refreshExecutor;
+
+    private final Set<MetadataKey> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong negativeHitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final AtomicLong refreshCount = new AtomicLong();
+
+    @Override
+    public void afterPropertiesSet() {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(environmentContext.getDatasourceMetadataCacheMaxSize())
+                .expireAfterWrite(environmentContext.getDatasourceMetadataCacheExpireSeconds(), TimeUnit.SECONDS)
+                .build();
+        int poolSize = Math.max(1, environmentContext.getDatasourceMetadataRefreshPoolSize());
+        refreshExecutor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY),
+                new RdosThreadFactory("datasource-metadata-refresh"), new ThreadPoolExecutor.AbortPolicy());
+        refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void destroy() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 查询元数据，未命中或版本不一致时同步调用 loader
+     *
+     * @param key     缓存 key
+     * @param version 数据源版本号，一般为数据源修改时间
+     * @param loader  访问远端数据源的加载逻辑，可能在后台线程中执行
+     * @return 缓存的元数据，调用方不能直接修改
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(MetadataKey key, long version, Callable<T> loader) throws Exception {
+        if (!environmentContext.getDatasourceMetadataCacheEnable()) {
+            return loader.call();
+        }
+        logStats();
+        MetadataEntry entry = cache.getIfPresent(key);
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.version == version) {
+            long age = now - entry.loadTime;
+            if (entry.negative) {
+                if (age < TimeUnit.SECONDS.toMillis(environmentContext.getDatasourceMetadataNegativeSeconds())) {
+                    negativeHitCount.incrementAndGet();
+                    return (T) entry.value;
+                }
+            } else {
+                hitCount.incrementAndGet();
+                if (age >= TimeUnit.SECONDS.toMillis(environmentContext.getDatasourceMetadataRefreshSeconds())) {
+                    refreshAsync(key, version, loader);
+                }
+                return (T) entry.value;
+            }
+        }
+        missCount.incrementAndGet();
+        return load(key, version, loader);
+    }
+
+    /**
+     * 数据源编辑、删除后清除该数据源的全部元数据
+     */
+    public void invalidate(Long sourceId) {
+        if (sourceId == null || cache == null) {
+            return;
+        }
+        cache.asMap().keySet().removeIf(key -> sourceId.equals(key.sourceId));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getNegativeHitCount() {
+        return negativeHitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    private <T> T load(MetadataKey key, long version, Callable<T> loader) throws Exception {
+        T value = loader.call();
+        cache.put(key, new MetadataEntry(version, value));
+        return value;
+    }
+
+    private <T> void refreshAsync(MetadataKey key, long version, Callable<T> loader) {
+        if (!refreshingKeys.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    MetadataEntry current = cache.getIfPresent(key);
+                    T value = loader.call();
+                    // 刷新期间缓存被清除(数据源编辑、删除)或已被其他线程更新时，放弃本次结果
+                    if (current != null && cache.asMap().replace(key, current, new MetadataEntry(version, value))) {
+                        refreshCount.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    LOGGER.warn("refresh datasource metadata {} error, keep the old value", key, e);
+                } finally {
+                    refreshingKeys.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.remove(key);
+            LOGGER.debug("datasource metadata refresh queue is full, skip refresh {}", key);
+        }
+    }
+
+    private void logStats() {
+        if (requestCount.incrementAndGet() % STATS_LOG_INTERVAL == 0) {
+            LOGGER.info("datasource metadata cache size:{}, hitCount:{}, negativeHitCount:{}, missCount:{}, refreshCount:{}",
+                    cache.size(), hitCount.get(), negativeHitCount.get(), missCount.get(), refreshCount.get());
+        }
+    }
+
+    private static boolean isEmptyValue(Object value) {
+        if (value == null) {
+            return true;
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).isEmpty();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).isEmpty();
+        }
+        return false;
+    }
+
+    public static MetadataKey key(Long sourceId, MetadataType type, String schema, String object) {
+        return new MetadataKey(sourceId, type, schema, object);
+    }
+
+    public static final class MetadataKey {
+
+        private final Long sourceId;
+
+        private final MetadataType type;
+
+        private final String schema;
+
+        /**
+         * 表名、表名匹配规则等，由调用方按查询条件拼接
+         */
+        private final String object;
+
+        private MetadataKey(Long sourceId, MetadataType type, String schema, String object) {
+            this.sourceId = sourceId;
+            this.type = type;
+            this.schema = schema;
+            this.object = object;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            MetadataKey that = (MetadataKey) o;
+            return Objects.equals(sourceId, that.sourceId)
+                    && type == that.type
+                    && Objects.equals(schema, that.schema)
+                    && Objects.equals(object, that.object);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sourceId, type, schema, object);
+        }
+
+        @Override
+        public String toString() {
+            return "MetadataKey{sourceId=" + sourceId + ", type=" + type + ", schema=" + schema + ", object=" + object + '}';
+        }
+    }
+
+    private static final class MetadataEntry {
+
+        private final long version;
+
+        private final long loadTime;
+
+        private final Object value;
+
+        private final boolean negative;
+
+        private MetadataEntry(long version, Object value) {
+            this.version = version;
+            this.loadTime = System.currentTimeMillis();
+            this.value = value;
+            this.negative = isEmptyValue(value);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import com.dtstack.taier.develop.enums.develop.RDBMSSourceType;
 import com.dtstack.taier.develop.enums.develop.SourceDTOType;
 import com.dtstack.taier.develop.enums.develop.TableLocationType;
 import com.dtstack.taier.develop.enums.develop.TaskCreateModelType;
+import com.dtstack.taier.develop.service.datasource.impl.DatasourceMetadataCache.MetadataType;
 import com.dtstack.taier.develop.sql.formate.SqlFormatter;
 import com.dtstack.taier.develop.utils.develop.sync.format.ColumnType;
 import com.dtstack.taier.develop.utils.develop.sync.format.TypeFormat;
@@ -68,6 +69,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -82,6 +84,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.Callable;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -123,6 +126,9 @@ public class DatasourceService {
     @Autowired
     private EnvironmentContext environmentContext;
 
+    @Autowired
+    private DatasourceMetadataCache metadataCache;
+
 
     private static final String IS_OPEN_CDB = "select * from v$database";
     public static final String JDBC_URL = "jdbcUrl";
@@ -555,6 +561,7 @@ public class DatasourceService {
             }
             dsInfo.setGmtCreate(DateTime.now().toDate());
             dsInfoService.updateById(dsInfo);
+            metadataCache.invalidate(dsInfo.getId());
         } else {
             // add 存在授权产品操作
             dsInfo.setCreateUserId(dataSourceVO.getUserId());
@@ -1349,23 +1356,34 @@ public class DatasourceService {
             if (part ==null){
                 part = false;
             }
-            JSONObject dataJson = JSONObject.parseObject(source.getDataJson());
-            Map<String, Object> kerberosConfig = fillKerberosConfig(source.getId());
-            IClient iClient = ClientCache.getClient(source.getType());
-            SqlQueryDTO sqlQueryDTO = SqlQueryDTO.builder()
-                    .tableName(tableName)
-                    .schema(schema)
-                    .filterPartitionColumns(part)
-                    .build();
-            ISourceDTO iSourceDTO = SourceDTOType.getSourceDTO(dataJson, source.getType(), kerberosConfig, Maps.newHashMap());
-            List<ColumnMetaDTO> columnMetaData = iClient.getColumnMetaData(iSourceDTO, sqlQueryDTO);
-            List<JSONObject> list = new ArrayList<>();
-            if (CollectionUtils.isNotEmpty(columnMetaData)) {
-                for (ColumnMetaDTO columnMetaDTO : columnMetaData) {
-                    JSONObject jsonObject = JSON.parseObject(JSON.toJSONString(columnMetaDTO));
-                    jsonObject.put("isPart",columnMetaDTO.getPart());
-                    list.add(jsonObject);
-                }
+            Boolean filterPartitionColumns = part;
+            List<JSONObject> columns = metadataCache.get(
+                    DatasourceMetadataCache.key(source.getId(), MetadataType.COLUMN, schema, tableName + ":" + part),
+                    metadataVersion(source), () -> {
+                        JSONObject dataJson = JSONObject.parseObject(source.getDataJson());
+                        Map<String, Object> kerberosConfig = fillKerberosConfig(source.getId());
+                        IClient iClient = ClientCache.getClient(source.getType());
+                        SqlQueryDTO sqlQueryDTO = SqlQueryDTO.builder()
+                                .tableName(tableName)
+                                .schema(schema)
+                                .filterPartitionColumns(filterPartitionColumns)
+                                .build();
+                        ISourceDTO iSourceDTO = SourceDTOType.getSourceDTO(dataJson, source.getType(), kerberosConfig, Maps.newHashMap());
+                        List<ColumnMetaDTO> columnMetaData = iClient.getColumnMetaData(iSourceDTO, sqlQueryDTO);
+                        List<JSONObject> list = new ArrayList<>();
+                        if (CollectionUtils.isNotEmpty(columnMetaData)) {
+                            for (ColumnMetaDTO columnMetaDTO : columnMetaData) {
+                                JSONObject jsonObject = JSON.parseObject(JSON.toJSONString(columnMetaDTO));
+                                jsonObject.put("isPart", columnMetaDTO.getPart());
+                                list.add(jsonObject);
+                            }
+                        }
+                        return list;
+                    });
+            // 缓存中的字段信息是共享的，调用方会修改返回值，这里返回副本
+            List<JSONObject> list = new ArrayList<>(columns.size());
+            for (JSONObject column : columns) {
+                list.add((JSONObject) column.clone());
             }
             return list;
         } catch (DtCenterDefException e) {
@@ -1381,9 +1399,29 @@ public class DatasourceService {
         BeanUtils.copyProperties(dsInfo, developDataSource);
         developDataSource.setType(dsInfo.getDataTypeCode());
         developDataSource.setIsDefault(dsInfo.getIsMeta());
+        if (dsInfo.getGmtModified() != null) {
+            developDataSource.setGmtModified(new Timestamp(dsInfo.getGmtModified().getTime()));
+        }
         return developDataSource;
     }
 
+    /**
+     * 数据源元数据缓存的版本号，数据源被编辑后修改时间变化，旧的元数据随之失效
+     */
+    private long metadataVersion(DevelopDataSource source) {
+        return source.getGmtModified() == null ? 0L : source.getGmtModified().getTime();
+    }
+
+    private <T> T getCachedMetadata(DevelopDataSource source, MetadataType type, String schema, String object, Callable<T> loader) {
+        try {
+            return metadataCache.get(DatasourceMetadataCache.key(source.getId(), type, schema, object), metadataVersion(source), loader);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RdosDefineException(String.format("%s获取元数据失败", source.getDataName()), e);
+        }
+    }
+
     /**
      * 数据同步-获得数据库中相关的表信息
      *
@@ -1393,21 +1431,22 @@ public class DatasourceService {
      * @return
      */
     public List<String> tablelist(Long sourceId, String schema, String name) {
-        List<String> tables = new ArrayList<>();
         DevelopDataSource source = getOne(sourceId);
-        String dataJson = source.getDataJson();
-        JSONObject json = JSON.parseObject(dataJson);
-        //查询的db
-        String dataSource = schema;
-
-        IClient client = ClientCache.getClient(source.getType());
-        ISourceDTO sourceDTO = SourceDTOType.getSourceDTO(json, source.getType(), fillKerberosConfig(source.getId()), Maps.newHashMap());
-        SqlQueryDTO sqlQueryDTO = SqlQueryDTO.builder().tableNamePattern(name).limit(5000).build();
-        sqlQueryDTO.setView(true);
-        sqlQueryDTO.setSchema(dataSource);
-        //如果是hive类型的数据源  过滤脏数据表 和 临时表
-        tables = client.getTableList(sourceDTO, sqlQueryDTO);
-        return tables;
+        List<String> tables = getCachedMetadata(source, MetadataType.TABLE_LIST, schema, name, () -> {
+            String dataJson = source.getDataJson();
+            JSONObject json = JSON.parseObject(dataJson);
+            //查询的db
+            String dataSource = schema;
+
+            IClient client = ClientCache.getClient(source.getType());
+            ISourceDTO sourceDTO = SourceDTOType.getSourceDTO(json, source.getType(), fillKerberosConfig(source.getId()), Maps.newHashMap());
+            SqlQueryDTO sqlQueryDTO = SqlQueryDTO.builder().tableNamePattern(name).limit(5000).build();
+            sqlQueryDTO.setView(true);
+            sqlQueryDTO.setSchema(dataSource);
+            //如果是hive类型的数据源  过滤脏数据表 和 临时表
+            return client.getTableList(sourceDTO, sqlQueryDTO);
+        });
+        return tables == null ? new ArrayList<>() : new ArrayList<>(tables);
     }
 
 
@@ -1592,23 +1631,26 @@ public class DatasourceService {
     public Set<String> getHivePartitions(Long sourceId, String tableName) {
 
         DevelopDataSource source = getOne(sourceId);
-        JSONObject json = JSON.parseObject(source.getDataJson());
-        Map<String, Object> kerberosConfig = this.fillKerberosConfig(sourceId);
-
-        ISourceDTO sourceDTO = SourceDTOType.getSourceDTO(json, source.getType(), kerberosConfig, Maps.newHashMap());
-        IClient iClient = ClientCache.getClient(source.getType());
-        List<ColumnMetaDTO> partitionColumn = iClient.getPartitionColumn(sourceDTO, SqlQueryDTO.builder().tableName(tableName).build());
-
-        Set<String> partitionNameSet = Sets.newHashSet();
-        //格式化分区信息 与hive保持一致
-        if (CollectionUtils.isNotEmpty(partitionColumn)){
-            StringJoiner tempJoiner = new StringJoiner("=/","","=");
-            for (ColumnMetaDTO column : partitionColumn) {
-                tempJoiner.add(column.getKey());
+        Set<String> partitions = getCachedMetadata(source, MetadataType.PARTITION, null, tableName, () -> {
+            JSONObject json = JSON.parseObject(source.getDataJson());
+            Map<String, Object> kerberosConfig = this.fillKerberosConfig(sourceId);
+
+            ISourceDTO sourceDTO = SourceDTOType.getSourceDTO(json, source.getType(), kerberosConfig, Maps.newHashMap());
+            IClient iClient = ClientCache.getClient(source.getType());
+            List<ColumnMetaDTO> partitionColumn = iClient.getPartitionColumn(sourceDTO, SqlQueryDTO.builder().tableName(tableName).build());
+
+            Set<String> partitionNameSet = Sets.newHashSet();
+            //格式化分区信息 与hive保持一致
+            if (CollectionUtils.isNotEmpty(partitionColumn)){
+                StringJoiner tempJoiner = new StringJoiner("=/","","=");
+                for (ColumnMetaDTO column : partitionColumn) {
+                    tempJoiner.add(column.getKey());
+                }
+                partitionNameSet.add(tempJoiner.toString());
             }
-            partitionNameSet.add(tempJoiner.toString());
-        }
-        return partitionNameSet;
+            return partitionNameSet;
+        });
+        return Sets.newHashSet(partitions);
     }
 
     /**
@@ -1673,11 +1715,14 @@ public class DatasourceService {
      */
     public List<String> getAllSchemas(Long sourceId, String schema) {
         DevelopDataSource source = getOne(sourceId);
-        String dataJson = source.getDataJson();
-        JSONObject json = JSON.parseObject(dataJson);
-        ISourceDTO sourceDTO = SourceDTOType.getSourceDTO(json, source.getType(), fillKerberosConfig(sourceId), Maps.newHashMap());
-        IClient client = ClientCache.getClient(source.getType());
-        return client.getAllDatabases(sourceDTO, SqlQueryDTO.builder().schema(schema).build());
+        List<String> schemas = getCachedMetadata(source, MetadataType.SCHEMA, schema, null, () -> {
+            String dataJson = source.getDataJson();
+            JSONObject json = JSON.parseObject(dataJson);
+            ISourceDTO sourceDTO = SourceDTOType.getSourceDTO(json, source.getType(), fillKerberosConfig(sourceId), Maps.newHashMap());
+            IClient client = ClientCache.getClient(source.getType());
+            return client.getAllDatabases(sourceDTO, SqlQueryDTO.builder().schema(schema).build());
+        });
+        return schemas == null ? new ArrayList<>() : new ArrayList<>(schemas);
     }
 
     /**
@@ -80,6 +80,9 @@ public class DsInfoService  extends ServiceImpl<DsInfoMapper, DsInfo> {
     @Autowired
     private SourceLoaderService sourceLoaderService;
 
+    @Autowired
+    private DatasourceMetadataCache metadataCache;
+
     // 数据源是否是默认数据源
     private static final Long IS_META = 1L;
     private static final String DECIMAL_COLUMN = "%s(%s,%s)";
@@ -161,7 +164,9 @@ public class DsInfoService  extends ServiceImpl<DsInfoMapper, DsInfo> {
         if (Objects.equals(dsInfo.getIsMeta(), 1)) {
             throw new PubSvcDefineException(ErrorCode.CAN_NOT_DEL_META_DS);
         }
-        return this.getBaseMapper().deleteById(dataInfoId) > 0;
+        boolean deleted = this.getBaseMapper().deleteById(dataInfoId) > 0;
+        metadataCache.invalidate(dataInfoId);
+        return deleted;
     }
     /**
      * 特殊表名处理
@@ -40,6 +40,8 @@ import com.dtstack.taier.develop.dto.devlop.DevelopCatalogueVO;
 import com.dtstack.taier.develop.enums.develop.RdosBatchCatalogueTypeEnum;
 import com.dtstack.taier.develop.service.console.ClusterTenantService;
 import com.dtstack.taier.scheduler.service.ScheduleDictService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.collections.CollectionUtils;
@@ -53,10 +55,13 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Service
@@ -89,6 +94,16 @@ public class DevelopCatalogueService {
 
     private final static String FILE_TYPE_FOLDER = "folder";
 
+    private static final long CATALOGUE_TREE_CACHE_SIZE = 500;
+
+    /**
+     * 租户目录树快照，key 为租户 id
+     */
+    private final Cache<Long, DevelopCatalogueTree> catalogueTreeCache = CacheBuilder.newBuilder()
+            .maximumSize(CATALOGUE_TREE_CACHE_SIZE)
+            .expireAfterAccess(30, TimeUnit.MINUTES)
+            .build();
+
 
     /**
      * 获取任务或资源的上级目录，用于前端搜索定位
@@ -96,24 +111,29 @@ public class DevelopCatalogueService {
      * @return
      */
     public CatalogueVO getLocation(Long tenantId, String catalogueType, Long id, String name) {
+        DevelopCatalogueTree tree = getCatalogueTree(tenantId);
         // 获取当前资源的父级类目id，一直到根目录为止
-        List<Long> grandCatalogueIds = grandCatalogueIds(tenantId, catalogueType, id, name);
+        List<Long> grandCatalogueIds = grandCatalogueIds(tenantId, catalogueType, id, name, tree);
         //获取根目录
         DevelopCatalogue rootCatalogue = getRootCatalogueByType(tenantId, catalogueType);
 
         CatalogueVO root = CatalogueVO.toVO(rootCatalogue);
         root.setType("folder");
-        getTree(root, grandCatalogueIds, tenantId, catalogueType);
+        getTree(root, new HashSet<>(grandCatalogueIds), tenantId, catalogueType, tree);
         return root;
     }
 
     public List<Long> grandCatalogueIds(Long tenantId, String catalogueType, Long id, String name) {
+        return grandCatalogueIds(tenantId, catalogueType, id, name, getCatalogueTree(tenantId));
+    }
+
+    private List<Long> grandCatalogueIds(Long tenantId, String catalogueType, Long id, String name, DevelopCatalogueTree tree) {
         // 获取当前资源的父级类目id，一直到根目录为止
         List<Long> grandCatalogueIds = new ArrayList<>();
         if (CatalogueType.TASK_DEVELOP.getType().equals(catalogueType)) {
-            grandCatalogueIds = grandCatalogueTaskIds(tenantId, id, name);
+            grandCatalogueIds = grandCatalogueTaskIds(tenantId, id, name, tree);
         } else if (CatalogueType.RESOURCE_MANAGER.getType().equals(catalogueType)) {
-            grandCatalogueIds = grandCatalogueResourceIds(id);
+            grandCatalogueIds = grandCatalogueResourceIds(id, tree);
         }else {
             throw new DtCenterDefException("不支持其他");
         }
@@ -152,23 +172,23 @@ public class DevelopCatalogueService {
     }
 
 
-    private void getTree(CatalogueVO root, List<Long> grandCatalogueIds, Long tenantId, String catalogueType) {
+    private void getTree(CatalogueVO root, Set<Long> grandCatalogueIds, Long tenantId, String catalogueType, DevelopCatalogueTree tree) {
         if (StringUtils.isBlank(root.getCatalogueType())) {
             root.setCatalogueType(catalogueType);
         }
 
         if (grandCatalogueIds.contains(root.getId())) {
             if (CollectionUtils.isEmpty(root.getChildren()) && "folder".equals(root.getType())) {
-                getChildNode(root, true, tenantId);
+                getChildNode(root, true, tenantId, tree);
             }
         } else {
-            getChildNode(root, false, tenantId);
+            getChildNode(root, false, tenantId, tree);
         }
 
         if (CollectionUtils.isNotEmpty(root.getChildren())) {
             for (CatalogueVO vo : root.getChildren()) {
                 if ("folder".equals(vo.getType())) {
-                    getTree(vo, grandCatalogueIds, tenantId, catalogueType);
+                    getTree(vo, grandCatalogueIds, tenantId, catalogueType, tree);
                 }
             }
         }
@@ -182,19 +202,27 @@ public class DevelopCatalogueService {
      * @param name
      * @return
      */
-    private List<Long> grandCatalogueTaskIds(Long tenantId, Long taskId, String name) {
+    private List<Long> grandCatalogueTaskIds(Long tenantId, Long taskId, String name, DevelopCatalogueTree tree) {
         List<Long> grandCatalogueIds = new ArrayList<>();
         if (taskId != null) {
             Task task = developTaskService.getOne(taskId);
             if (task != null) {
-                getGrandCatalogueIds(task.getNodePid(), grandCatalogueIds);
+                getGrandCatalogueIds(task.getNodePid(), grandCatalogueIds, tree);
             }
         } else if (StringUtils.isNotEmpty(name)) {
             List<Task> tasks = developTaskService.getByLikeName(name, tenantId);
             if (CollectionUtils.isNotEmpty(tasks)) {
+                // 同一目录下的任务只需要向上查找一次
+                Set<Long> grandIdSet = new LinkedHashSet<>();
                 for (Task task : tasks) {
-                    getGrandCatalogueIds(task.getNodePid(), grandCatalogueIds);
+                    if (grandIdSet.contains(task.getNodePid())) {
+                        continue;
+                    }
+                    List<Long> taskGrandIds = new ArrayList<>();
+                    getGrandCatalogueIds(task.getNodePid(), taskGrandIds, tree);
+                    grandIdSet.addAll(taskGrandIds);
                 }
+                grandCatalogueIds.addAll(grandIdSet);
             }
         }
         return grandCatalogueIds;
@@ -208,11 +236,18 @@ public class DevelopCatalogueService {
      * @return
      */
     public List<Long> grandCatalogueResourceIds(Long resourceId) {
+        return grandCatalogueResourceIds(resourceId, null);
+    }
+
+    private List<Long> grandCatalogueResourceIds(Long resourceId, DevelopCatalogueTree tree) {
         List<Long> grandCatalogueIds = new ArrayList<>();
         if (resourceId != null) {
             DevelopResource developResource = developResourceService.getResource(resourceId);
             if (developResource != null) {
-                getGrandCatalogueIds(developResource.getNodePid(), grandCatalogueIds);
+                if (tree == null) {
+                    tree = getCatalogueTree(developResource.getTenantId());
+                }
+                getGrandCatalogueIds(developResource.getNodePid(), grandCatalogueIds, tree);
             }
         }
         return grandCatalogueIds;
@@ -270,6 +305,7 @@ public class DevelopCatalogueService {
             }
         }
         addOrUpdate(catalogue);
+        catalogueTreeCache.invalidate(catalogue.getTenantId());
 
         CatalogueVO cv = CatalogueVO.toVO(catalogue);
         cv.setType(DevelopCatalogueService.FILE_TYPE_FOLDER);
@@ -333,6 +369,7 @@ public class DevelopCatalogueService {
                 }
             }
         }
+        catalogueTreeCache.invalidate(tenantId);
     }
 
     /**
@@ -342,23 +379,29 @@ public class DevelopCatalogueService {
      * @param ids
      * @return
      */
-    private void getGrandCatalogueIds(Long currentId, List<Long> ids) {
+    private void getGrandCatalogueIds(Long currentId, List<Long> ids, DevelopCatalogueTree tree) {
         ids.add(currentId);
-        getGrandCatalogueId(currentId, ids);
+        getGrandCatalogueId(currentId, ids, tree);
     }
 
     /**
-     * 根据当前节点递归查询所有父节点列表
+     * 根据当前节点逐级查询所有父节点列表，优先从租户目录树快照中查找，快照中不存在的目录再查库
      *
      * @param currentId
      * @param ids
+     * @param tree      租户目录树快照，可以为空
      * @return 父节点列表
      */
-    private void getGrandCatalogueId(Long currentId, List<Long> ids) {
-        DevelopCatalogue catalogue = developCatalogueMapper.selectById(currentId);
-        if (catalogue != null && catalogue.getLevel() >= 1) {
+    private void getGrandCatalogueId(Long currentId, List<Long> ids, DevelopCatalogueTree tree) {
+        Long id = currentId;
+        // 0 和 -1 表示没有上级目录
+        while (id != null && id > 0) {
+            DevelopCatalogue catalogue = tree != null && tree.contains(id) ? tree.get(id) : developCatalogueMapper.selectById(id);
+            if (catalogue == null || catalogue.getLevel() < 1) {
+                return;
+            }
             ids.add(catalogue.getNodePid());
-            getGrandCatalogueId(catalogue.getNodePid(), ids);
+            id = catalogue.getNodePid();
         }
     }
 
@@ -413,7 +456,7 @@ public class DevelopCatalogueService {
             throw new RdosDefineException(ErrorCode.CAN_NOT_FIND_CATALOGUE);
         }
 
-        if (canNotMoveCatalogue(catalogueInput.getId(), catalogueInput.getNodePid())) {
+        if (canNotMoveCatalogue(catalogue.getTenantId(), catalogueInput.getId(), catalogueInput.getNodePid())) {
             throw new RdosDefineException(ErrorCode.CAN_NOT_MOVE_CATALOGUE);
         }
         DevelopCatalogue updateCatalogue = new DevelopCatalogue();
@@ -441,6 +484,7 @@ public class DevelopCatalogueService {
         }
         updateCatalogue.setGmtModified(Timestamp.valueOf(LocalDateTime.now()));
         addOrUpdate(updateCatalogue);
+        catalogueTreeCache.invalidate(catalogue.getTenantId());
 
     }
 
@@ -477,6 +521,7 @@ public class DevelopCatalogueService {
         catalogue.setIsDeleted(Deleted.DELETED.getStatus());
         catalogue.setGmtModified(Timestamp.valueOf(LocalDateTime.now()));
         developCatalogueMapper.deleteById(catalogue.getId());
+        catalogueTreeCache.invalidate(catalogue.getTenantId());
     }
 
     /**
@@ -581,7 +626,17 @@ public class DevelopCatalogueService {
      * @author
      */
     private CatalogueVO getChildNode(CatalogueVO currentCatalogueVO, Boolean isGetFile, Long tenantId) {
-        DevelopCatalogue currentCatalogue = developCatalogueMapper.selectById(currentCatalogueVO.getId());
+        return getChildNode(currentCatalogueVO, isGetFile, tenantId, null);
+    }
+
+    /**
+     * 获得当前节点的子节点信息，目录在租户目录树快照中时直接使用快照中的目录和子目录
+     *
+     * @param tree 租户目录树快照，可以为空
+     */
+    private CatalogueVO getChildNode(CatalogueVO currentCatalogueVO, Boolean isGetFile, Long tenantId, DevelopCatalogueTree tree) {
+        boolean inTree = tree != null && tree.contains(currentCatalogueVO.getId());
+        DevelopCatalogue currentCatalogue = inTree ? tree.get(currentCatalogueVO.getId()) : developCatalogueMapper.selectById(currentCatalogueVO.getId());
         if (Objects.isNull(currentCatalogue)) {
             throw new RdosDefineException(ErrorCode.CAN_NOT_FIND_CATALOGUE);
         }
@@ -670,7 +725,7 @@ public class DevelopCatalogueService {
         }
 
         //获取目录下的子目录
-        List<DevelopCatalogue> childCatalogues = this.getChildCataloguesByNodePid(currentCatalogueVO.getId());
+        List<DevelopCatalogue> childCatalogues = inTree ? tree.getChildren(currentCatalogueVO.getId()) : this.getChildCataloguesByNodePid(currentCatalogueVO.getId());
         childCatalogues.sort(Comparator.comparing(DevelopCatalogue::getNodeName));
         List<CatalogueVO> children = new ArrayList<>();
         for (DevelopCatalogue catalogue : childCatalogues) {
@@ -709,12 +764,49 @@ public class DevelopCatalogueService {
      * @param catalogueNodePid
      * @return
      */
-    private boolean canNotMoveCatalogue(Long catalogueId, Long catalogueNodePid) {
+    private boolean canNotMoveCatalogue(Long tenantId, Long catalogueId, Long catalogueNodePid) {
         List<Long> ids = Lists.newArrayList();
-        getGrandCatalogueIds(catalogueNodePid, ids);
+        getGrandCatalogueIds(catalogueNodePid, ids, getCatalogueTree(tenantId));
         return ids.contains(catalogueId);
     }
 
+    /**
+     * 获取租户目录树快照
+     * <p>
+     * 先通过一次聚合查询计算租户目录指纹，指纹与内存中的快照一致时直接复用，
+     * 否则按租户一次读出全部目录重建快照；其他节点修改目录后指纹随之变化，不会读到旧的目录结构
+     *
+     * @param tenantId 租户id
+     * @return 目录树快照
+     */
+    private DevelopCatalogueTree getCatalogueTree(Long tenantId) {
+        String fingerprint = getCatalogueFingerprint(tenantId);
+        DevelopCatalogueTree tree = catalogueTreeCache.getIfPresent(tenantId);
+        if (tree != null && tree.getFingerprint().equals(fingerprint)) {
+            return tree;
+        }
+        List<DevelopCatalogue> catalogues = developCatalogueMapper.selectList(Wrappers.lambdaQuery(DevelopCatalogue.class)
+                .eq(DevelopCatalogue::getTenantId, tenantId)
+                .orderByDesc(DevelopCatalogue::getGmtCreate));
+        tree = new DevelopCatalogueTree(fingerprint, catalogues);
+        catalogueTreeCache.put(tenantId, tree);
+        return tree;
+    }
+
+    /**
+     * 租户目录指纹：目录数 + 最后修改时间，新增、删除、移动、重命名都会改变指纹
+     */
+    private String getCatalogueFingerprint(Long tenantId) {
+        List<Map<String, Object>> result = developCatalogueMapper.selectMaps(Wrappers.<DevelopCatalogue>query()
+                .select("count(1) AS total", "max(gmt_modified) AS modified")
+                .eq("tenant_id", tenantId));
+        if (CollectionUtils.isEmpty(result) || result.get(0) == null) {
+            return "0";
+        }
+        Map<String, Object> row = result.get(0);
+        return row.get("total") + "_" + row.get("modified");
+    }
+
     /**
      * 根据 目录Id 查询目录信息
      *
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.develop.service.develop.impl;
+
+import com.dtstack.taier.dao.domain.DevelopCatalogue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 租户目录树快照
+ * <p>
+ * 一次性读取租户下全部目录后在内存中建立 id 和父子关系索引，
+ * 定位、展开、查找上级目录都不再逐级查询 develop_catalogue；
+ * 快照只读，不能修改其中的目录对象
+ *
+ * @author jiangbo
+ */
+public class DevelopCatalogueTree {
+
+    /**
+     * 生成快照时租户目录的指纹(目录数 + 最后修改时间)，用于判断快照是否过期
+     */
+    private final String fingerprint;
+
+    private final Map<Long, DevelopCatalogue> nodes;
+
+    private final Map<Long, List<DevelopCatalogue>> children;
+
+    /**
+     * @param fingerprint 租户目录指纹
+     * @param catalogues  租户下全部目录，子目录列表保持传入的顺序
+     */
+    public DevelopCatalogueTree(String fingerprint, Collection<DevelopCatalogue> catalogues) {
+        this.fingerprint = fingerprint;
+        this.nodes = new HashMap<>(catalogues.size() * 2);
+        this.children = new HashMap<>();
+        for (DevelopCatalogue catalogue : catalogues) {
+            nodes.put(catalogue.getId(), catalogue);
+            children.computeIfAbsent(catalogue.getNodePid(), pid -> new ArrayList<>()).add(catalogue);
+        }
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public boolean contains(Long id) {
+        return nodes.containsKey(id);
+    }
+
+    public DevelopCatalogue get(Long id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * 直接子目录，返回新的列表，调用方可以排序
+     */
+    public List<DevelopCatalogue> getChildren(Long id) {
+        List<DevelopCatalogue> childList = children.get(id);
+        return childList == null ? new ArrayList<>() : new ArrayList<>(childList);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+}
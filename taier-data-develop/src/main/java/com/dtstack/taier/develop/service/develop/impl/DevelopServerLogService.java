@@ -128,7 +128,7 @@ public class DevelopServerLogService {
             return null;
         }
 
-        final ScheduleJob job = scheduleJobService.getByJobId(jobId);
+        final ScheduleJob job = scheduleJobService.getByJobIdWithArchive(jobId);
         if (Objects.isNull(job)) {
             LOGGER.info("can not find job by id:{}.", jobId);
             throw new RdosDefineException(ErrorCode.CAN_NOT_FIND_JOB);
@@ -604,7 +604,7 @@ public class DevelopServerLogService {
 
     public String formatPerfLogInfo(final String engineJobId, final String jobId, final long startTime, final long endTime, final Long tenantId) {
 
-        final ScheduleJob job = scheduleJobService.getByJobId(jobId);
+        final ScheduleJob job = scheduleJobService.getByJobIdWithArchive(jobId);
         if (Objects.isNull(job)) {
             LOGGER.info("can not find job by id:{}.", jobId);
             throw new RdosDefineException(ErrorCode.CAN_NOT_FIND_JOB);
@@ -3,11 +3,6 @@ package com.dtstack.taier.develop.service.develop.impl;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
 import com.dtstack.dtcenter.loader.IDownloader;
-import com.dtstack.dtcenter.loader.client.ClientCache;
-import com.dtstack.dtcenter.loader.client.IRestful;
-import com.dtstack.dtcenter.loader.dto.restful.Response;
-import com.dtstack.dtcenter.loader.dto.source.RestfulSourceDTO;
-import com.dtstack.dtcenter.loader.source.DataSourceType;
 import com.dtstack.taier.common.enums.EComponentType;
 import com.dtstack.taier.common.exception.DtCenterDefException;
 import com.dtstack.taier.common.exception.ErrorCode;
@@ -33,19 +28,19 @@ import com.dtstack.taier.pluginapi.enums.EDeployMode;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.pojo.ParamAction;
 import com.dtstack.taier.pluginapi.util.PublicUtil;
+import com.dtstack.taier.pluginapi.util.RollingLogReader;
 import com.dtstack.taier.scheduler.WorkerOperator;
 import com.dtstack.taier.scheduler.service.ClusterService;
 import com.dtstack.taier.scheduler.service.ScheduleActionService;
 import com.dtstack.taier.scheduler.service.ScheduleJobCacheService;
 import com.dtstack.taier.scheduler.vo.action.ActionLogVO;
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang.StringUtils;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.select.Elements;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -59,6 +54,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static com.dtstack.taier.develop.service.develop.impl.DevelopDownloadService.DEFAULT_LOG_PREVIEW_BYTES;
 
@@ -107,6 +103,13 @@ public class FlinkRuntimeLogService {
      */
     private static final Integer MAX_PAGE_SIZE = 1024 * 1024;
 
+    private final RollingLogReader logReader = new RollingLogReader(MAX_PAGE_SIZE, 5000, 30000, null);
+
+    private final Cache<String, Map<String, Object>> logInfoCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(1, TimeUnit.MINUTES)
+            .build();
+
 
     /**
      * 获取taskManager信息
@@ -188,6 +191,8 @@ public class FlinkRuntimeLogService {
 
     /**
      * 分页处理taskManager实时日志，一页1MB
+     * <p>
+     * 按字节范围流式读取，jobManager 日志从 place 开始每次最多读取一页
      *
      * @param taskId
      * @param taskManagerId
@@ -196,81 +201,57 @@ public class FlinkRuntimeLogService {
      * @return
      */
     private RuntimeLogResultVO dealRuntimeLog(Long taskId, String taskManagerId, Integer page, Integer place, String logType, Long tenantId) throws Exception {
-        Map<String, Object> logInfo = null;
-        if (JOB_MANAGER.equals(logType)) {
-            //获取jobManager日志相关信息
-            logInfo = getJobManagerLogInfo(taskId, tenantId);
-        } else if (TASK_MANAGER.equals(logType)) {
-            //获取taskManager日志相关信息
-            logInfo = getTaskManagerLogInfo(taskId
-                    , taskManagerId, tenantId);
-        }
+        Map<String, Object> logInfo = getLogInfo(taskId, taskManagerId, logType, tenantId);
         if (CollectionUtils.isEmpty(logInfo)) {
             return new RuntimeLogResultVO();
         }
         RuntimeLogResultVO runtimeLog = new RuntimeLogResultVO();
         //获取集群类型
         String clusterMode = getClusterMode(tenantId);
-        //获取到总字节数
-        int totalBytes = MapUtils.getIntValue(logInfo, TOTAL_BYTES, 0);
-        //计算总页码
-        int totalPage = totalBytes % MAX_PAGE_SIZE == 0 ? totalBytes / MAX_PAGE_SIZE : totalBytes / MAX_PAGE_SIZE + 1;
-        runtimeLog.setTotalPage(totalPage);
-        runtimeLog.setPlace(totalBytes);
+        AssertUtils.isTrue(ClusterMode.YARN.getVal().equals(clusterMode), "暂不支持" + clusterMode + "调度引擎类型的日志获取");
         //获取日志地址
         String url = (String) logInfo.get(DOWNLOAD_URL);
-        //起始位置
-        int start = 0;
-        //结束位置
-        int end = 0;
-        //处理taskManager日志分页
+        RollingLogReader.LogPage logPage;
         if (TASK_MANAGER.equals(logType)) {
-
             //正序分页
-            start = (page - 1) * MAX_PAGE_SIZE;
-            end = (page) * MAX_PAGE_SIZE;
-
-        }
-        //处理jobManager日志分页
-        if (JOB_MANAGER.equals(logType)) {
-            if (place < 0) {
-                start = (totalPage - 1) * MAX_PAGE_SIZE;
-                end = totalBytes;
-            } else {
-                start = place;
-                end = totalBytes;
-            }
+            logPage = logReader.read(url, (long) (page - 1) * MAX_PAGE_SIZE, MAX_PAGE_SIZE);
+        } else if (place < 0) {
+            //jobManager日志首次获取最后一页
+            logPage = logReader.tail(url, MAX_PAGE_SIZE);
+        } else {
+            logPage = logReader.read(url, place, MAX_PAGE_SIZE);
         }
-        AssertUtils.isTrue(ClusterMode.YARN.getVal().equals(clusterMode), "暂不支持" + clusterMode + "调度引擎类型的日志获取");
-        //最终url
-        String logUrl = String.format("%s?start=%s&end=%s", url, start, end);
-        logger.info("获取日志的最终Url{}", logUrl);
-        IRestful restful = ClientCache.getRestful(DataSourceType.RESTFUL.getVal());
-        RestfulSourceDTO sourceDTO = RestfulSourceDTO.builder().url(logUrl).build();
-        Response restResponse = restful.get(sourceDTO, null, null, null);
-        runtimeLog.setEngineLog(getEntityPre(restResponse.getContent()));
-
-
+        //日志列表中的总字节数可能已经过时，以读取时得到的为准
+        long totalBytes = Math.max(MapUtils.getLongValue(logInfo, TOTAL_BYTES, 0L), logPage.getTotalBytes());
+        //计算总页码
+        long totalPage = totalBytes % MAX_PAGE_SIZE == 0 ? totalBytes / MAX_PAGE_SIZE : totalBytes / MAX_PAGE_SIZE + 1;
+        runtimeLog.setTotalPage((int) totalPage);
+        //jobManager日志下次从本次读取的结束位置继续
+        runtimeLog.setPlace((int) (JOB_MANAGER.equals(logType) ? logPage.getEndOffset() : totalBytes));
+        runtimeLog.setEngineLog(logPage.getContent());
         return runtimeLog;
     }
 
     /**
-     * 使用Jsoup解析网页上日志
-     *
-     * @param responseEntity
-     * @return
+     * 日志地址在容器生命周期内不变，缓存日志信息，翻页时不再重新解析所有容器的日志列表
      */
-    private String getEntityPre(String responseEntity) {
-        if (StringUtils.isBlank(responseEntity)) {
-            logger.warn("获取网页信息为空");
-            return StringUtils.EMPTY;
+    private Map<String, Object> getLogInfo(Long taskId, String taskManagerId, String logType, Long tenantId) throws Exception {
+        String key = taskId + "_" + logType + "_" + taskManagerId;
+        Map<String, Object> logInfo = logInfoCache.getIfPresent(key);
+        if (logInfo != null) {
+            return logInfo;
+        }
+        if (JOB_MANAGER.equals(logType)) {
+            //获取jobManager日志相关信息
+            logInfo = getJobManagerLogInfo(taskId, tenantId);
+        } else if (TASK_MANAGER.equals(logType)) {
+            //获取taskManager日志相关信息
+            logInfo = getTaskManagerLogInfo(taskId, taskManagerId, tenantId);
         }
-        Document document = Jsoup.parse(responseEntity);
-        Elements pres = document.getElementsByTag("pre");
-        if (pres.size() == 0) {
-            return StringUtils.EMPTY;
+        if (!CollectionUtils.isEmpty(logInfo) && StringUtils.isNotBlank((String) logInfo.get(DOWNLOAD_URL))) {
+            logInfoCache.put(key, logInfo);
         }
-        return pres.get(0).html().replace("&lt;", "<").replace("&gt;", ">");
+        return logInfo;
     }
 
     /**
@@ -19,6 +19,7 @@
 package com.dtstack.taier.develop.service.develop.impl;
 
 import com.dtstack.taier.common.enums.EParamType;
+import com.dtstack.taier.common.util.ParamTemplate;
 import com.dtstack.taier.common.util.TimeParamOperator;
 import com.dtstack.taier.dao.domain.DevelopSysParameter;
 import com.dtstack.taier.dao.domain.DevelopTaskParam;
@@ -27,9 +28,10 @@ import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * 变量替换
@@ -45,46 +47,41 @@ public class JobParamReplace {
     @Autowired
     private DevelopSysParamService developSysParamService;
 
-    private static final Pattern PARAM_PATTERN = Pattern.compile("\\$\\{(.*?)\\}");
-
-    private final static String VAR_FORMAT = "${%s}";
-
     public String paramReplace(String sql, List paramList, String cycTime){
 
-        if(CollectionUtils.isEmpty(paramList)){
+        if(CollectionUtils.isEmpty(paramList) || sql == null){
             return sql;
         }
 
-        Matcher matcher = PARAM_PATTERN.matcher(sql);
-        if(!matcher.find()){
+        // 任务内容只解析一次，占位符按位置一次替换
+        ParamTemplate template = ParamTemplate.of(sql);
+        if(!template.hasPlaceholder()){
             return sql;
         }
 
+        // 同名参数以第一个为准
+        Map<String, Object> variables = new HashMap<>(paramList.size() * 2);
         for (Object param : paramList) {
-            Integer type;
-            String paramName;
-            String paramCommand;
-            if (param instanceof DevelopTaskParamShade){
-                type = ((DevelopTaskParamShade) param).getType();
-                paramName = ((DevelopTaskParamShade) param).getParamName();
-                paramCommand = ((DevelopTaskParamShade) param).getParamCommand();
-            } else {
-                type = ((DevelopTaskParam) param).getType();
-                paramName = ((DevelopTaskParam) param).getParamName();
-                paramCommand = ((DevelopTaskParam) param).getParamCommand();
-            }
-
-            String replaceStr = String.format(VAR_FORMAT, paramName);
-            // 判断参数是否存在 SQL 中
-            if (!sql.contains(replaceStr)) {
-                continue;
-            }
-
-            String targetVal = convertParam(type,paramName,paramCommand,cycTime);
-            sql = sql.replace(replaceStr, targetVal);
+            String paramName = param instanceof DevelopTaskParamShade ? ((DevelopTaskParamShade) param).getParamName()
+                    : ((DevelopTaskParam) param).getParamName();
+            variables.putIfAbsent(paramName, param);
         }
 
-        return sql;
+        Map<Object, String> values = new IdentityHashMap<>();
+        return template.render((component, name) -> {
+            Object param = component ? null : variables.get(name);
+            if (param == null) {
+                return null;
+            }
+            return values.computeIfAbsent(param, p -> {
+                if (p instanceof DevelopTaskParamShade) {
+                    DevelopTaskParamShade shade = (DevelopTaskParamShade) p;
+                    return convertParam(shade.getType(), shade.getParamName(), shade.getParamCommand(), cycTime);
+                }
+                DevelopTaskParam taskParam = (DevelopTaskParam) p;
+                return convertParam(taskParam.getType(), taskParam.getParamName(), taskParam.getParamCommand(), cycTime);
+            });
+        });
     }
 
 
@@ -98,14 +95,14 @@ public class JobParamReplace {
 
             // 特殊处理 bdp.system.currenttime
             if ("bdp.system.runtime".equals(sysParameter.getParamName())) {
-                return TimeParamOperator.dealCustomizeTimeOperator(command, cycTime);
+                return TimeParamOperator.compileCustomizeTimeOperator(command).evaluate(cycTime);
             }
         } else {
             command = paramCommand;
-            return TimeParamOperator.dealCustomizeTimeOperator(command, cycTime);
+            return TimeParamOperator.compileCustomizeTimeOperator(command).evaluate(cycTime);
         }
 
-        command = TimeParamOperator.transform(command, cycTime);
+        command = TimeParamOperator.compileTransform(command).evaluate(cycTime);
         return command;
     }
 
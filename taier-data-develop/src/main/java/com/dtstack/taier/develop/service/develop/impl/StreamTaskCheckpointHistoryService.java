@@ -0,0 +1,383 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.develop.service.develop.impl;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.util.TaskParamsUtils;
+import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.StreamTaskCheckpointHistory;
+import com.dtstack.taier.dao.domain.StreamTaskCheckpointSummary;
+import com.dtstack.taier.dao.mapper.ScheduleJobMapper;
+import com.dtstack.taier.dao.mapper.StreamTaskCheckpointHistoryMapper;
+import com.dtstack.taier.dao.mapper.StreamTaskCheckpointSummaryMapper;
+import com.dtstack.taier.pluginapi.JobIdentifier;
+import com.dtstack.taier.pluginapi.enums.ComputeType;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.dtstack.taier.pluginapi.pojo.ParamAction;
+import com.dtstack.taier.pluginapi.util.PublicUtil;
+import com.dtstack.taier.scheduler.WorkerOperator;
+import com.dtstack.taier.scheduler.service.ScheduleJobCacheService;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实时任务 checkpoint 历史存储
+ * <p>
+ * 1. 定时从 flink 拉取本节点运行中任务的 checkpoint 写入 stream_task_checkpoint_history，并累加到汇总表；
+ * 2. 查询走 (job_id, checkpoint_trigger) 索引做倒序范围读并按触发时间分页拉取，时间范围直接读汇总表；
+ * 3. 定时压缩：最近 raw.days 天内的 checkpoint 全部保留，更早的按 bucket.minutes 分桶每桶只保留最后一个，
+ * 超过 retain.days 天的直接删除；压缩从上次压缩位置继续，不会反复扫描全部历史；
+ * 每个实例压缩前以 compact_time 条件更新认领，多个节点同时执行时同一实例只有一个节点压缩
+ */
+@Service
+public class StreamTaskCheckpointHistoryService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamTaskCheckpointHistoryService.class);
+
+    /**
+     * 范围查询每页读取的 checkpoint 个数
+     */
+    private static final int QUERY_PAGE_SIZE = 1000;
+
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private static final int COMPACT_PAGE_SIZE = 200;
+
+    private static final long COMPACT_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final String HISTORY = "history";
+
+    private static final String STATUS_COMPLETED = "COMPLETED";
+
+    @Autowired
+    private StreamTaskCheckpointHistoryMapper historyMapper;
+
+    @Autowired
+    private StreamTaskCheckpointSummaryMapper summaryMapper;
+
+    @Autowired
+    private ScheduleJobMapper scheduleJobMapper;
+
+    @Autowired
+    private ScheduleJobCacheService scheduleJobCacheService;
+
+    @Autowired
+    private WorkerOperator workerOperator;
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    /**
+     * 获取实例的 checkpoint 汇总，没有记录时返回 null
+     */
+    public StreamTaskCheckpointSummary getSummary(String jobId) {
+        return summaryMapper.selectOne(Wrappers.lambdaQuery(StreamTaskCheckpointSummary.class)
+                .eq(StreamTaskCheckpointSummary::getJobId, jobId));
+    }
+
+    /**
+     * 按触发时间倒序查询指定范围内的全部 checkpoint，按 (触发时间, id) 分页读取，不会截断
+     *
+     * @param jobId        实例id
+     * @param triggerStart 开始时间，可以为空
+     * @param triggerEnd   结束时间，可以为空
+     */
+    public List<StreamTaskCheckpointHistory> listByRangeTimeDesc(String jobId, Long triggerStart, Long triggerEnd) {
+        List<StreamTaskCheckpointHistory> checkpoints = new ArrayList<>();
+        if (StringUtils.isBlank(jobId)) {
+            return checkpoints;
+        }
+        StreamTaskCheckpointHistory last = null;
+        while (true) {
+            StreamTaskCheckpointHistory cursor = last;
+            List<StreamTaskCheckpointHistory> page = historyMapper.selectList(Wrappers.lambdaQuery(StreamTaskCheckpointHistory.class)
+                    .eq(StreamTaskCheckpointHistory::getJobId, jobId)
+                    .ge(triggerStart != null, StreamTaskCheckpointHistory::getCheckpointTrigger, triggerStart == null ? null : new Timestamp(triggerStart))
+                    .le(triggerEnd != null, StreamTaskCheckpointHistory::getCheckpointTrigger, triggerEnd == null ? null : new Timestamp(triggerEnd))
+                    .and(cursor != null, wrapper -> wrapper
+                            .lt(StreamTaskCheckpointHistory::getCheckpointTrigger, cursor.getCheckpointTrigger())
+                            .or(sameTrigger -> sameTrigger
+                                    .eq(StreamTaskCheckpointHistory::getCheckpointTrigger, cursor.getCheckpointTrigger())
+                                    .lt(StreamTaskCheckpointHistory::getId, cursor.getId())))
+                    .orderByDesc(StreamTaskCheckpointHistory::getCheckpointTrigger, StreamTaskCheckpointHistory::getId)
+                    .last("limit " + QUERY_PAGE_SIZE));
+            checkpoints.addAll(page);
+            if (page.size() < QUERY_PAGE_SIZE) {
+                return checkpoints;
+            }
+            last = page.get(page.size() - 1);
+        }
+    }
+
+    /**
+     * 写入 checkpoint，已存在的忽略，新写入的累加到汇总表
+     *
+     * @return 新写入的个数
+     */
+    public int record(String jobId, List<StreamTaskCheckpointHistory> checkpoints) {
+        if (CollectionUtils.isEmpty(checkpoints)) {
+            return 0;
+        }
+        StreamTaskCheckpointSummary increment = new StreamTaskCheckpointSummary();
+        increment.setJobId(jobId);
+        long count = 0;
+        long totalSize = 0;
+        for (StreamTaskCheckpointHistory checkpoint : checkpoints) {
+            if (historyMapper.insertIgnore(checkpoint) <= 0) {
+                continue;
+            }
+            count++;
+            totalSize += checkpoint.getCheckpointSize() == null ? 0L : checkpoint.getCheckpointSize();
+            Timestamp trigger = checkpoint.getCheckpointTrigger();
+            if (increment.getMinTrigger() == null || trigger.before(increment.getMinTrigger())) {
+                increment.setMinTrigger(trigger);
+            }
+            if (increment.getMaxTrigger() == null || trigger.after(increment.getMaxTrigger())) {
+                increment.setMaxTrigger(trigger);
+            }
+        }
+        if (count > 0) {
+            increment.setCheckpointCount(count);
+            increment.setTotalSize(totalSize);
+            summaryMapper.merge(increment);
+        }
+        return (int) count;
+    }
+
+    /**
+     * 从 flink 拉取实例当前保留的 checkpoint 并写入历史
+     */
+    public int syncFromEngine(ScheduleJob scheduleJob) {
+        String jobId = scheduleJob.getJobId();
+        if (StringUtils.isBlank(scheduleJob.getEngineJobId())) {
+            return 0;
+        }
+        ScheduleEngineJobCache engineJobCache = scheduleJobCacheService.getByJobId(jobId);
+        if (engineJobCache == null) {
+            return 0;
+        }
+        try {
+            ParamAction paramAction = PublicUtil.jsonStrToObject(engineJobCache.getJobInfo(), ParamAction.class);
+            Map<String, Object> pluginInfo = paramAction.getPluginInfo();
+            JobIdentifier jobIdentifier = new JobIdentifier(scheduleJob.getEngineJobId(), scheduleJob.getApplicationId(), jobId,
+                    scheduleJob.getTenantId(), scheduleJob.getTaskType(),
+                    TaskParamsUtils.parseDeployTypeByTaskParams(paramAction.getTaskParams(), scheduleJob.getComputeType()).getType(),
+                    null, MapUtils.isEmpty(pluginInfo) ? null : JSONObject.toJSONString(pluginInfo), paramAction.getComponentVersion());
+            String checkpointMsg = workerOperator.getCheckpoints(jobIdentifier);
+            return record(jobId, parseFlinkCheckpoints(jobId, scheduleJob.getEngineJobId(), checkpointMsg));
+        } catch (Exception e) {
+            LOGGER.warn("sync checkpoint of job:{} error", jobId, e);
+            return 0;
+        }
+    }
+
+    /**
+     * flink rest 只保留最近若干个 checkpoint，定时拉取本节点运行中的实时任务，把历史沉淀下来
+     */
+    @Scheduled(initialDelay = 60000, fixedDelayString = "${checkpoint.history.sync.interval:60000}")
+    public void syncRunningJobs() {
+        if (!Boolean.TRUE.equals(environmentContext.getCheckpointHistorySyncEnable())) {
+            return;
+        }
+        List<ScheduleJob> runningJobs = scheduleJobMapper.selectList(Wrappers.lambdaQuery(ScheduleJob.class)
+                .eq(ScheduleJob::getComputeType, ComputeType.STREAM.getType())
+                .eq(ScheduleJob::getStatus, TaskStatus.RUNNING.getStatus())
+                .eq(ScheduleJob::getNodeAddress, environmentContext.getLocalAddress())
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()));
+        for (ScheduleJob runningJob : runningJobs) {
+            int recorded = syncFromEngine(runningJob);
+            if (recorded > 0) {
+                LOGGER.debug("job:{} record {} checkpoints", runningJob.getJobId(), recorded);
+            }
+        }
+    }
+
+    /**
+     * 定时压缩 checkpoint 历史，一个小时内已压缩过的实例跳过；
+     * 压缩前按 compact_time 条件更新认领实例，多个节点同时执行时只有认领成功的节点压缩
+     */
+    @Scheduled(initialDelay = 300000, fixedDelayString = "${checkpoint.history.compact.interval:3600000}")
+    public void compactAll() {
+        long now = System.currentTimeMillis();
+        Timestamp compactedAfter = new Timestamp(now - COMPACT_INTERVAL_MILLIS);
+        long lastId = 0L;
+        while (true) {
+            List<StreamTaskCheckpointSummary> summaries = summaryMapper.selectList(Wrappers.lambdaQuery(StreamTaskCheckpointSummary.class)
+                    .gt(StreamTaskCheckpointSummary::getId, lastId)
+                    .orderByAsc(StreamTaskCheckpointSummary::getId)
+                    .last("limit " + COMPACT_PAGE_SIZE));
+            if (CollectionUtils.isEmpty(summaries)) {
+                return;
+            }
+            for (StreamTaskCheckpointSummary summary : summaries) {
+                lastId = summary.getId();
+                if (summary.getCompactTime() != null && summary.getCompactTime().after(compactedAfter)) {
+                    continue;
+                }
+                // 按秒取整，与 datetime 列中保存的值一致，失败时才能按认领时间恢复
+                Timestamp claimedTime = new Timestamp(now - now % 1000);
+                if (summaryMapper.claimCompact(summary.getId(), claimedTime, compactedAfter) <= 0) {
+                    continue;
+                }
+                try {
+                    // summary 中仍是认领前的 compact_time，压缩从上次的位置继续
+                    compact(summary, now);
+                } catch (Exception e) {
+                    LOGGER.error("compact checkpoint history of job:{} error", summary.getJobId(), e);
+                    summaryMapper.restoreCompactTime(summary.getId(), claimedTime, summary.getCompactTime());
+                }
+            }
+        }
+    }
+
+    /**
+     * 压缩单个实例的 checkpoint 历史
+     *
+     * @return 删除的个数
+     */
+    public int compact(StreamTaskCheckpointSummary summary, long now) {
+        String jobId = summary.getJobId();
+        long bucketMillis = TimeUnit.MINUTES.toMillis(Math.max(1, environmentContext.getCheckpointHistoryBucketMinutes()));
+        long rawCutoff = now - TimeUnit.DAYS.toMillis(environmentContext.getCheckpointHistoryRawDays());
+        long retainCutoff = now - TimeUnit.DAYS.toMillis(environmentContext.getCheckpointHistoryRetainDays());
+        int deleted = 0;
+
+        // 超过保留天数的直接删除
+        while (true) {
+            List<StreamTaskCheckpointHistory> expired = historyMapper.selectList(Wrappers.lambdaQuery(StreamTaskCheckpointHistory.class)
+                    .select(StreamTaskCheckpointHistory::getId)
+                    .eq(StreamTaskCheckpointHistory::getJobId, jobId)
+                    .lt(StreamTaskCheckpointHistory::getCheckpointTrigger, new Timestamp(retainCutoff))
+                    .last("limit " + DELETE_BATCH_SIZE));
+            if (CollectionUtils.isEmpty(expired)) {
+                break;
+            }
+            deleted += deleteByIds(expired);
+        }
+
+        // 上次压缩之后才超出 raw 窗口的部分按桶稀疏化，多回退一个桶保证边界上的桶完整
+        long compactFrom = retainCutoff;
+        if (summary.getCompactTime() != null) {
+            long lastRawCutoff = summary.getCompactTime().getTime() - TimeUnit.DAYS.toMillis(environmentContext.getCheckpointHistoryRawDays());
+            compactFrom = Math.max(retainCutoff, lastRawCutoff - bucketMillis);
+        }
+        compactFrom = compactFrom - compactFrom % bucketMillis;
+        long compactTo = rawCutoff - rawCutoff % bucketMillis;
+        if (compactFrom < compactTo) {
+            List<StreamTaskCheckpointHistory> candidates = historyMapper.selectList(Wrappers.lambdaQuery(StreamTaskCheckpointHistory.class)
+                    .select(StreamTaskCheckpointHistory::getId, StreamTaskCheckpointHistory::getCheckpointTrigger)
+                    .eq(StreamTaskCheckpointHistory::getJobId, jobId)
+                    .ge(StreamTaskCheckpointHistory::getCheckpointTrigger, new Timestamp(compactFrom))
+                    .lt(StreamTaskCheckpointHistory::getCheckpointTrigger, new Timestamp(compactTo))
+                    .orderByAsc(StreamTaskCheckpointHistory::getCheckpointTrigger));
+            List<Long> redundantIds = selectRedundantIds(candidates, bucketMillis);
+            for (int from = 0; from < redundantIds.size(); from += DELETE_BATCH_SIZE) {
+                List<Long> batch = redundantIds.subList(from, Math.min(from + DELETE_BATCH_SIZE, redundantIds.size()));
+                deleted += historyMapper.deleteBatchIds(batch);
+            }
+        }
+
+        summaryMapper.refresh(jobId, new Timestamp(now));
+        if (deleted > 0) {
+            LOGGER.info("compact checkpoint history of job:{}, deleted:{}", jobId, deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * 每个时间桶只保留触发时间最晚的 checkpoint，返回其余需要删除的 id
+     *
+     * @param checkpoints  按触发时间升序排列的 checkpoint
+     * @param bucketMillis 桶大小
+     */
+    static List<Long> selectRedundantIds(List<StreamTaskCheckpointHistory> checkpoints, long bucketMillis) {
+        if (CollectionUtils.isEmpty(checkpoints)) {
+            return Collections.emptyList();
+        }
+        Map<Long, StreamTaskCheckpointHistory> latestInBucket = new HashMap<>();
+        List<Long> redundantIds = new ArrayList<>();
+        for (StreamTaskCheckpointHistory checkpoint : checkpoints) {
+            long bucket = checkpoint.getCheckpointTrigger().getTime() / bucketMillis;
+            StreamTaskCheckpointHistory previous = latestInBucket.put(bucket, checkpoint);
+            if (previous != null) {
+                redundantIds.add(previous.getId());
+            }
+        }
+        return redundantIds;
+    }
+
+    /**
+     * 解析 flink rest /jobs/:jobid/checkpoints 返回中已完成的 checkpoint
+     */
+    static List<StreamTaskCheckpointHistory> parseFlinkCheckpoints(String jobId, String engineJobId, String checkpointMsg) {
+        List<StreamTaskCheckpointHistory> checkpoints = new ArrayList<>();
+        if (StringUtils.isBlank(checkpointMsg)) {
+            return checkpoints;
+        }
+        JSONObject checkpointJson = JSONObject.parseObject(checkpointMsg);
+        JSONArray history = checkpointJson == null ? null : checkpointJson.getJSONArray(HISTORY);
+        if (history == null) {
+            return checkpoints;
+        }
+        for (int i = 0; i < history.size(); i++) {
+            JSONObject item = history.getJSONObject(i);
+            if (item == null || !STATUS_COMPLETED.equalsIgnoreCase(item.getString("status"))
+                    || item.getLong("id") == null || item.getLong("trigger_timestamp") == null) {
+                continue;
+            }
+            StreamTaskCheckpointHistory checkpoint = new StreamTaskCheckpointHistory();
+            checkpoint.setJobId(jobId);
+            checkpoint.setEngineJobId(engineJobId);
+            checkpoint.setCheckpointId(item.getLong("id"));
+            checkpoint.setCheckpointTrigger(new Timestamp(item.getLong("trigger_timestamp")));
+            checkpoint.setCheckpointSavepath(item.getString("external_path"));
+            checkpoint.setCheckpointSize(item.getLongValue("state_size"));
+            checkpoint.setCheckpointDuration(item.getLongValue("end_to_end_duration"));
+            checkpoints.add(checkpoint);
+        }
+        return checkpoints;
+    }
+
+    private int deleteByIds(List<StreamTaskCheckpointHistory> checkpoints) {
+        List<Long> ids = new ArrayList<>(checkpoints.size());
+        for (StreamTaskCheckpointHistory checkpoint : checkpoints) {
+            ids.add(checkpoint.getId());
+        }
+        return historyMapper.deleteBatchIds(ids);
+    }
+}
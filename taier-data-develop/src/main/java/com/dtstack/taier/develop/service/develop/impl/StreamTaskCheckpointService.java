@@ -5,6 +5,8 @@ import com.dtstack.taier.common.enums.EComponentType;
 import com.dtstack.taier.common.exception.DtCenterDefException;
 import com.dtstack.taier.common.exception.ErrorCode;
 import com.dtstack.taier.common.util.MathUtil;
+import com.dtstack.taier.dao.domain.StreamTaskCheckpointHistory;
+import com.dtstack.taier.dao.domain.StreamTaskCheckpointSummary;
 import com.dtstack.taier.develop.dto.devlop.CheckPointTimeRangeResultDTO;
 import com.dtstack.taier.develop.dto.devlop.EngineJobCheckpoint;
 import com.dtstack.taier.develop.dto.devlop.StreamTaskCheckpoint;
@@ -21,12 +23,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * 操作checkpoint相关
@@ -50,6 +49,9 @@ public class StreamTaskCheckpointService {
     @Autowired
     private ClusterService clusterService;
 
+    @Autowired
+    private StreamTaskCheckpointHistoryService checkpointHistoryService;
+
     /**
      * 获取任务的checkpoint可选时间范围
      *
@@ -57,19 +59,15 @@ public class StreamTaskCheckpointService {
      * @return
      */
     public CheckPointTimeRangeResultDTO getCheckpointTimeRange(String jobId) {
-
-        List<StreamTaskCheckpoint> checkpointList = listByTaskId(jobId);
-        if (CollectionUtils.isEmpty(checkpointList)) {
+        // 时间范围直接读汇总表，不再拉取全部 checkpoint
+        StreamTaskCheckpointSummary summary = checkpointHistoryService.getSummary(jobId);
+        if (summary == null || summary.getMinTrigger() == null || summary.getMaxTrigger() == null) {
             return new CheckPointTimeRangeResultDTO();
         }
 
-        StreamTaskCheckpoint startNode = checkpointList.get(0);
-        StreamTaskCheckpoint endNode = checkpointList.get(checkpointList.size() - 1);
-        Timestamp startTrigger = startNode.getCheckpointTrigger();
-        Timestamp endTrigger = endNode.getCheckpointTrigger();
         CheckPointTimeRangeResultDTO dto = new CheckPointTimeRangeResultDTO();
-        dto.setStartTime(startTrigger.getTime());
-        dto.setEndTime(endTrigger.getTime());
+        dto.setStartTime(summary.getMinTrigger().getTime());
+        dto.setEndTime(summary.getMaxTrigger().getTime());
         return dto;
     }
 
@@ -89,18 +87,12 @@ public class StreamTaskCheckpointService {
             json.put(DURATION, checkpoint.getCheckpointDuration());
             simpleHistory.add(json);
         }
-        //按checkPoint生成时间desc
-        if (CollectionUtils.isNotEmpty(simpleHistory)) {
-            simpleHistory = simpleHistory.stream().sorted((obj1, obj2) -> {
-                if (Optional.ofNullable(obj1.getLong(TIME)).orElse(0L) - Optional.ofNullable(obj2.getLong(TIME)).orElse(0L) > 0) {
-                    return -1;
-                }
-                return 1;
-            }).collect(Collectors.toList());
-        }
+        //listByRangeTime 已按checkPoint生成时间desc
         JSONObject result = new JSONObject();
-        // todo
-        // result.put("totalSize", DataSizeUtil.format(streamTaskServiceClient.totalSize(taskId).getData()));
+        StreamTaskCheckpointSummary summary = checkpointHistoryService.getSummary(jobId);
+        if (summary != null) {
+            result.put("totalSize", DataSizeUtil.format(summary.getTotalSize()));
+        }
         result.put("checkpointList", simpleHistory);
         return result;
     }
@@ -121,19 +113,9 @@ public class StreamTaskCheckpointService {
             Long triggerTime = checkpoint.getCheckpointTrigger().getTime();
             Long cpId = MathUtil.getLongVal(checkpoint.getCheckpointID());
             String extPath = MathUtil.getString(checkpoint.getCheckpointSavepath());
-
-            //判断checkpoint 是否在查询范围内
-            if (triggerTime >= startTime && triggerTime <= endTime) {
-                StreamTaskCheckpointVO vo = new StreamTaskCheckpointVO(checkpoint.getId(), cpId, triggerTime, extPath);
-                voList.add(vo);
-            }
+            voList.add(new StreamTaskCheckpointVO(checkpoint.getId(), cpId, triggerTime, extPath));
         }
-
-        if (CollectionUtils.isEmpty(voList)) {
-            return new ArrayList<>();
-        }
-
-        return voList.stream().sorted((vo1, vo2) -> vo2.getTime().compareTo(vo1.getTime())).limit(1000).collect(Collectors.toList());
+        return voList;
     }
 
     /**
@@ -170,19 +152,23 @@ public class StreamTaskCheckpointService {
     }
 
     /**
-     * 从engine端获取checkpoint
+     * 从checkpoint历史中按触发时间倒序获取指定范围内的checkpoint
      */
     public List<StreamTaskCheckpoint> listByRangeTime(String taskId, Long triggerStart, Long triggerEnd) {
         List<StreamTaskCheckpoint> checkpoints = new ArrayList<>();
         try {
-            //todo
-            List<EngineJobCheckpoint> apiResponse = new ArrayList<>();//=  streamTaskServiceClient.getCheckPoint(taskId,triggerStart,triggerEnd);
-            if (apiResponse != null) {
-                if (CollectionUtils.isNotEmpty(apiResponse)) {
-                    for (EngineJobCheckpoint object : apiResponse) {
-                        checkpoints.add(JsonUtils.objectToObject(object, StreamTaskCheckpoint.class));
-                    }
-                }
+            List<StreamTaskCheckpointHistory> histories = checkpointHistoryService.listByRangeTimeDesc(taskId, triggerStart, triggerEnd);
+            for (StreamTaskCheckpointHistory history : histories) {
+                StreamTaskCheckpoint checkpoint = new StreamTaskCheckpoint();
+                checkpoint.setId(history.getId());
+                checkpoint.setTaskId(history.getJobId());
+                checkpoint.setTaskEngineId(history.getEngineJobId());
+                checkpoint.setCheckpointID(String.valueOf(history.getCheckpointId()));
+                checkpoint.setCheckpointTrigger(history.getCheckpointTrigger());
+                checkpoint.setCheckpointSavepath(history.getCheckpointSavepath());
+                checkpoint.setCheckpointSize(history.getCheckpointSize());
+                checkpoint.setCheckpointDuration(history.getCheckpointDuration());
+                checkpoints.add(checkpoint);
             }
         } catch (Exception e) {
             throw new DtCenterDefException("get checkpoint by taskId:" + taskId + " error:" + e.getMessage(), e);
@@ -8,6 +8,7 @@ import com.dtstack.taier.common.enums.EScheduleJobType;
 import com.dtstack.taier.common.env.EnvironmentContext;
 import com.dtstack.taier.common.exception.ErrorCode;
 import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.util.JobKeyIdUtil;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
@@ -239,6 +240,7 @@ public class JobJobService extends ServiceImpl<ScheduleJobJobMapper, ScheduleJob
             if (DisplayDirect.CHILD.getType().equals(directType)) {
                 // 向下查询
                 List<ScheduleJobJob> jobJobList = this.lambdaQuery()
+                        .in(ScheduleJobJob::getParentJobKeyId, toJobKeyIds(jobKeys))
                         .in(ScheduleJobJob::getParentJobKey, jobKeys)
                         .eq(ScheduleJobJob::getJobKeyType, RelyType.UPSTREAM.getType())
                         .eq(ScheduleJobJob::getIsDeleted, Deleted.NORMAL.getStatus())
@@ -249,6 +251,7 @@ public class JobJobService extends ServiceImpl<ScheduleJobJobMapper, ScheduleJob
             } else {
                 // 向上查询
                 List<ScheduleJobJob> jobJobList = this.lambdaQuery()
+                        .in(ScheduleJobJob::getJobKeyId, toJobKeyIds(jobKeys))
                         .in(ScheduleJobJob::getJobKey, jobKeys)
                         .eq(ScheduleJobJob::getJobKeyType, RelyType.UPSTREAM.getType())
                         .eq(ScheduleJobJob::getIsDeleted, Deleted.NORMAL.getStatus())
@@ -262,6 +265,10 @@ public class JobJobService extends ServiceImpl<ScheduleJobJobMapper, ScheduleJob
         return jobJobKeyMap;
     }
 
+    private List<Long> toJobKeyIds(List<String> jobKeys) {
+        return jobKeys.stream().map(JobKeyIdUtil::getJobKeyId).distinct().collect(Collectors.toList());
+    }
+
 
     public List<String> getWorkFlowTopTask(String jobId) {
         ScheduleJob workFlowJob = jobService.getScheduleJob(jobId);
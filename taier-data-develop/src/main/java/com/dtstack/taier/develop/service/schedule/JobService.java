@@ -6,6 +6,7 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EScheduleType;
+import com.dtstack.taier.common.env.EnvironmentContext;
 import com.dtstack.taier.common.exception.ErrorCode;
 import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.dao.domain.ScheduleFillDataJob;
@@ -89,6 +90,9 @@ public class JobService extends ServiceImpl<ScheduleJobMapper, ScheduleJob> {
 
     @Autowired
     private FillStatusUpdateFinishEvent fillStatusUpdateFinishEvent;
+
+    @Autowired
+    private EnvironmentContext environmentContext;
     /**
      * 查询周期实例列表
      *
@@ -454,6 +458,9 @@ public class JobService extends ServiceImpl<ScheduleJobMapper, ScheduleJob> {
         scheduleFillDataJob.setFillGenerateStatus(FillGeneratStatusEnum.REALLY_GENERATED.getType());
         scheduleFillDataJob.setFromDay(scheduleFillJobParticipateDTO.getStartDay());
         scheduleFillDataJob.setToDay(scheduleFillJobParticipateDTO.getEndDay());
+        scheduleFillDataJob.setBeginTime(scheduleFillJobParticipateDTO.getBeginTime());
+        scheduleFillDataJob.setEndTime(scheduleFillJobParticipateDTO.getEndTime());
+        scheduleFillDataJob.setNodeAddress(environmentContext.getLocalAddress());
         scheduleFillDataJob.setJobName(scheduleFillJobParticipateDTO.getFillName());
         scheduleFillDataJob.setTenantId(scheduleFillJobParticipateDTO.getTenantId());
         scheduleFillDataJob.setCreateUserId(scheduleFillJobParticipateDTO.getUserId());
@@ -11,7 +11,7 @@ import java.util.List;
  *
  * @author jiangbo
  */
-public class Column {
+public class Column implements Cloneable {
 
     /**
      * 名称
@@ -99,6 +99,15 @@ public class Column {
         this.table = table;
     }
 
+    @Override
+    public Column clone() {
+        try {
+            return (Column) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     @Override
     public String toString() {
         return "Column{" +
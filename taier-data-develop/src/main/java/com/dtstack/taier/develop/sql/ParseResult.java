@@ -1,6 +1,7 @@
 package com.dtstack.taier.develop.sql;
 
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -193,6 +194,45 @@ public class ParseResult {
         this.limit = limit;
     }
 
+    /**
+     * 复制一份解析结果，供缓存命中时返回，避免调用方修改缓存内容。
+     * 集合、表及表中的字段均与原结果独立；血缘、alter 结果与查询树等对象仍共享，调用方只读使用
+     */
+    public ParseResult copy() {
+        ParseResult result = new ParseResult();
+        result.parseSuccess = parseSuccess;
+        result.failedMsg = failedMsg;
+        result.standardSql = standardSql;
+        result.originSql = originSql;
+        result.sqlType = sqlType;
+        result.extraSqlType = extraSqlType;
+        result.currentDb = currentDb;
+        result.mainTable = copyTable(mainTable);
+        result.alterResult = alterResult;
+        result.root = root;
+        result.columnLineages = columnLineages == null ? null : new ArrayList<>(columnLineages);
+        result.tableLineages = tableLineages == null ? null : new ArrayList<>(tableLineages);
+        if (tables != null) {
+            result.tables = new ArrayList<>(tables.size());
+            for (Table table : tables) {
+                result.tables.add(copyTable(table));
+            }
+        }
+        result.limit = limit == null ? null : new ArrayList<>(limit);
+        return result;
+    }
+
+    private static Table copyTable(Table table) {
+        if (table == null) {
+            return null;
+        }
+        try {
+            return (Table) table.clone();
+        } catch (CloneNotSupportedException e) {
+            return table;
+        }
+    }
+
     @Override
     public String toString() {
         return "ParseResult{" +
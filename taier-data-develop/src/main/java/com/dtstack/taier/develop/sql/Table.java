@@ -336,9 +336,26 @@ public class Table implements Cloneable {
                 '}';
     }
 
+    /**
+     * 复制表描述，字段与分区列表及其中的字段对象均与原表独立
+     */
     @Override
     public Object clone() throws CloneNotSupportedException {
-        return super.clone();
+        Table table = (Table) super.clone();
+        table.columns = copyColumns(columns);
+        table.partitions = copyColumns(partitions);
+        return table;
+    }
+
+    private static List<Column> copyColumns(List<Column> source) {
+        if (source == null) {
+            return null;
+        }
+        List<Column> target = Lists.newArrayListWithCapacity(source.size());
+        for (Column column : source) {
+            target.add(column == null ? null : column.clone());
+        }
+        return target;
     }
 
     @Override
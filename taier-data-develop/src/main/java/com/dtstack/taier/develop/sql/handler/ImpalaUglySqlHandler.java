@@ -1,6 +1,7 @@
 package com.dtstack.taier.develop.sql.handler;
 
 
+import com.dtstack.taier.common.util.SqlLexer;
 import com.dtstack.taier.develop.sql.ParseResult;
 import com.dtstack.taier.develop.sql.SqlType;
 import com.dtstack.taier.develop.sql.Table;
@@ -121,7 +122,31 @@ public class ImpalaUglySqlHandler implements IUglySqlHandler {
     ----------impala 自己特殊关键字------------
      */
 
-    private static String ENCODING_REGEX = "(?i)ENCODING\\s+AUTO_ENCODING\\s+COMPRESSION\\s+DEFAULT_COMPRESSION";
+    private static final Pattern ENCODING_PATTERN = Pattern.compile("(?i)ENCODING\\s+AUTO_ENCODING\\s+COMPRESSION\\s+DEFAULT_COMPRESSION");
+
+    /*
+    ----------initSql 预处理用到的正则，统一预编译------------
+     */
+
+    private static final Pattern BLANKS_PATTERN = Pattern.compile("\\s+");
+
+    private static final Pattern SORT_BY_PATTERN = Pattern.compile("(?i)(sort\\s+by\\s*\\(.*\\)\\s*)");
+
+    private static final Pattern VARCHAR_PATTERN = Pattern.compile("(?i)(\\s+varchar\\s*,)");
+
+    private static final Pattern LEFT_PATTERN = Pattern.compile("(?i)(left\\()");
+
+    private static final Pattern EXTERNAL_PATTERN = Pattern.compile(SqlRegexUtil.EXTERNAL_REGEX);
+
+    private static final Pattern PARTITION_PATTERN = Pattern.compile(SqlRegexUtil.PARTITION_REGEX);
+
+    private static final Pattern WITH_SERDEPROPERTIES_PATTERN = Pattern.compile(SqlRegexUtil.WITH_SERDEPROPERTIES_REGEX);
+
+    private static final Pattern STORED_PATTERN = Pattern.compile(SqlRegexUtil.STORED_REGEX);
+
+    private static final Pattern TBLPROPERTIES_PATTERN = Pattern.compile(SqlRegexUtil.TBLPROPERTIES_REGEX);
+
+    private static final Pattern LOCATION_PATTERN = Pattern.compile(SqlRegexUtil.LOCATION_REGEX);
 
     public int getSqlMode() {
         return sqlMode;
@@ -147,19 +172,19 @@ public class ImpalaUglySqlHandler implements IUglySqlHandler {
     private void initSql() {
         formattedSql = SqlFormatUtil.getStandardSql(SqlFormatUtil.formatSql(sql));
         formattedSql = formattedSql.trim();
-        formattedSql = formattedSql.replaceAll("%","/");
-        formattedSql = formattedSql.replaceAll("\\s+", " ");
-        formattedSql = formattedSql.replaceAll("(?i)(sort\\s+by\\s*\\(.*\\)\\s*)", " ");
-        formattedSql = formattedSql.replaceAll("(?i)(\\s+varchar\\s*,)"," STRING ,");
-        formattedSql = formattedSql.replaceAll("(?i)(left\\()","nvl(");
+        formattedSql = formattedSql.replace('%', '/');
+        formattedSql = BLANKS_PATTERN.matcher(formattedSql).replaceAll(" ");
+        formattedSql = SORT_BY_PATTERN.matcher(formattedSql).replaceAll(" ");
+        formattedSql = VARCHAR_PATTERN.matcher(formattedSql).replaceAll(" STRING ,");
+        formattedSql = LEFT_PATTERN.matcher(formattedSql).replaceAll("nvl(");
 //        formattedSql = formattedSql.replaceAll("(?i)(\\s+exchange\\s*,)"," exchange_Ranm ");
         formattedSql = SqlFormatUtil.removeComment(formattedSql);
         if(SqlFormatUtil.isCreateSql(formattedSql)){
             formattedSql = SqlFormatUtil.removeDoubleQuotesComment(formattedSql);
             //去除 external
-            formattedSql = formattedSql.replaceAll(SqlRegexUtil.EXTERNAL_REGEX," ");
+            formattedSql = EXTERNAL_PATTERN.matcher(formattedSql).replaceAll(" ");
             //去除KUDU 建表分区语句
-            formattedSql = formattedSql.replaceAll(SqlRegexUtil.PARTITION_REGEX," STORED ");
+            formattedSql = PARTITION_PATTERN.matcher(formattedSql).replaceAll(" STORED ");
             try {
                 Matcher matcher = SqlRegexUtil.row_pattern.matcher(formattedSql);
                 if(matcher.find()){
@@ -170,12 +195,12 @@ public class ImpalaUglySqlHandler implements IUglySqlHandler {
             }
             //array struct map 特殊结构 映射为 string 处理
             formattedSql = SqlFormatUtil.formatType(formattedSql);
-            formattedSql = formattedSql.replaceAll(SqlRegexUtil.WITH_SERDEPROPERTIES_REGEX," ");
+            formattedSql = WITH_SERDEPROPERTIES_PATTERN.matcher(formattedSql).replaceAll(" ");
             //去除存储
-            formattedSql = formattedSql.replaceAll(SqlRegexUtil.STORED_REGEX,"");
-            formattedSql = formattedSql.replaceAll(SqlRegexUtil.TBLPROPERTIES_REGEX,"");
-            formattedSql = formattedSql.replaceAll(SqlRegexUtil.LOCATION_REGEX,"");
-            formattedSql = formattedSql.replaceAll(ENCODING_REGEX,"");
+            formattedSql = STORED_PATTERN.matcher(formattedSql).replaceAll("");
+            formattedSql = TBLPROPERTIES_PATTERN.matcher(formattedSql).replaceAll("");
+            formattedSql = LOCATION_PATTERN.matcher(formattedSql).replaceAll("");
+            formattedSql = ENCODING_PATTERN.matcher(formattedSql).replaceAll("");
         }
         if (formattedSql.endsWith(";")) {
             formattedSql = formattedSql.substring(0, formattedSql.length() - 1);
@@ -185,35 +210,40 @@ public class ImpalaUglySqlHandler implements IUglySqlHandler {
     private void initSqlMode() {
         this.sqlMode = 0b00000000;
         this.uglySqlMode = 0b00000000;
-        if (SqlRegexUtil.isCreateTemp(formattedSql)) {
+        // 以下整句匹配的正则均以固定关键字开头，先用词法扫描取首个关键字，避免对无关语句做回溯匹配
+        String keyword = SqlLexer.leadingKeyword(formattedSql);
+        boolean isCreate = "create".equals(keyword);
+        boolean isComment = "comment".equals(keyword);
+        boolean isTruncate = "truncate".equals(keyword);
+        if (isCreate && SqlRegexUtil.isCreateTemp(formattedSql)) {
             uglySqlMode = uglySqlMode + CREATE_TEMP;
         }
-        if (formattedSql.matches(SqlRegexUtil.COMMENT_ON_TABLE)) {
+        if (isComment && COMMENT_ON_TABLE_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + COMMENT_ON_TABLE;
         }
-        if (formattedSql.matches(SqlRegexUtil.COMMENT_ON_COLUMN)) {
+        if (isComment && COMMENT_ON_COLUMN_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + COMMENT_ON_COLUMN;
         }
-        if (formattedSql.matches(SqlRegexUtil.CREATE_DISTRIBUTE_BY)) {
+        if (isCreate && CREATE_DISTRIBUTE_BY_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + DISTRIBUTE_BY;
         }
-        if (formattedSql.matches(SqlRegexUtil.PARTITION_BY)) {
+        if (isCreate && PARTITION_BY_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + PARTITION_BY;
         }
-        if (formattedSql.matches(SqlRegexUtil.TRUNCATE_TABLE)) {
+        if (isTruncate && TRUNCATE_TABLE_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + TRUNCATE_TABLE;
         }
-        if (formattedSql.matches(SqlRegexUtil.TABLE_SPACE)) {
+        if (isCreate && TABLE_SPACE_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + TABLE_SPACE;
         }
         Matcher forceCastMatter = FORCE_CAST_PATTERN.matcher(formattedSql);
         if (forceCastMatter.find()) {
             uglySqlMode = uglySqlMode + FORCE_CAST;
         }
-        if (formattedSql.matches(SqlRegexUtil.CREATE_TABLE_WITH)) {
+        if (isCreate && CREATE_TABLE_WITH_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + CREATE_TABLE_WITH;
         }
-        if (formattedSql.matches(SqlRegexUtil.DICTIONARY)) {
+        if (isCreate && DICTIONARY_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + DICTIONARY;
         }
         Matcher createCollateMatter = CREATE_COLLATE_PATTERN.matcher(formattedSql);
@@ -1,5 +1,6 @@
 package com.dtstack.taier.develop.sql.handler;
 
+import com.dtstack.taier.common.util.SqlLexer;
 import com.dtstack.taier.develop.sql.ParseResult;
 import com.dtstack.taier.develop.sql.SqlType;
 import com.dtstack.taier.develop.sql.Table;
@@ -126,25 +127,31 @@ public class LibraUglySqlHandler implements IUglySqlHandler {
     private void initSqlMode() {
         this.sqlMode = 0b00000000;
         this.uglySqlMode = 0b00000000;
-        if (SqlRegexUtil.isCreateTemp(formattedSql)) {
+        // 以下整句匹配的正则均以固定关键字开头，先用词法扫描取首个关键字，避免对无关语句做回溯匹配
+        String keyword = SqlLexer.leadingKeyword(formattedSql);
+        boolean isCreate = "create".equals(keyword);
+        boolean isComment = "comment".equals(keyword);
+        boolean isTruncate = "truncate".equals(keyword);
+        boolean isExplain = "explain".equals(keyword);
+        if (isCreate && SqlRegexUtil.isCreateTemp(formattedSql)) {
             uglySqlMode = uglySqlMode + CREATE_TEMP;
         }
-        if (formattedSql.matches(SqlRegexUtil.COMMENT_ON_TABLE)) {
+        if (isComment && COMMENT_ON_TABLE_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + COMMENT_ON_TABLE;
         }
-        if (formattedSql.matches(SqlRegexUtil.COMMENT_ON_COLUMN)) {
+        if (isComment && COMMENT_ON_COLUMN_PATTERN.matcher(formattedSql).matches()) {
             uglySqlMode = uglySqlMode + COMMENT_ON_COLUMN;
         }
-        if (formattedSql.matches(SqlRegexUtil.CREATE_DISTRIBUTE_BY)){
+        if (isCreate && CREATE_DISTRIBUTE_BY_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + DISTRIBUTE_BY;
         }
-        if (formattedSql.matches(SqlRegexUtil.PARTITION_BY)){
+        if (isCreate && PARTITION_BY_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + PARTITION_BY;
         }
-        if (formattedSql.matches(SqlRegexUtil.TRUNCATE_TABLE)){
+        if (isTruncate && TRUNCATE_TABLE_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + TRUNCATE_TABLE;
         }
-        if (formattedSql.matches(SqlRegexUtil.TABLE_SPACE)){
+        if (isCreate && TABLE_SPACE_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + TABLE_SPACE;
         }
 //        if (formattedSql.matches(SqlRegexUtil.FORCE_CAST)){
@@ -154,13 +161,13 @@ public class LibraUglySqlHandler implements IUglySqlHandler {
         if (forceCastMatter.find()){
             uglySqlMode = uglySqlMode + FORCE_CAST;
         }
-        if (formattedSql.matches(SqlRegexUtil.CREATE_TABLE_WITH)){
+        if (isCreate && CREATE_TABLE_WITH_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + CREATE_TABLE_WITH;
         }
-        if (formattedSql.matches(SqlRegexUtil.DICTIONARY)){
+        if (isCreate && DICTIONARY_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + DICTIONARY;
         }
-        if (formattedSql.matches(SqlRegexUtil.EXPLAIN)){
+        if (isExplain && EXPLAIN_PATTERN.matcher(formattedSql).matches()){
             uglySqlMode = uglySqlMode + EXPLAIN;
         }
         Matcher createCollateMatter = CREATE_COLLATE_PATTERN.matcher(formattedSql);
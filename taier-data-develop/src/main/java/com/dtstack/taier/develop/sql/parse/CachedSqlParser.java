@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.develop.sql.parse;
+
+import com.dtstack.taier.common.enums.ETableType;
+import com.dtstack.taier.develop.sql.Column;
+import com.dtstack.taier.develop.sql.ParseResult;
+import com.dtstack.taier.develop.sql.SqlParserImpl;
+import com.dtstack.taier.develop.sql.Table;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 带缓存的 sql 解析器
+ * <p>
+ * parseSql / parseTables / parseTableLineage 的结果按 sql 文本缓存；
+ * ugly sql handler 有状态，每次未命中都会新建一个解析器完成解析
+ *
+ * @author jiangbo
+ */
+public class CachedSqlParser implements SqlParserImpl {
+
+    private static final String PARSE_SQL = "parseSql";
+
+    private static final String PARSE_TABLES = "parseTables";
+
+    private static final String PARSE_TABLE_LINEAGE = "parseTableLineage";
+
+    private final ETableType tableType;
+
+    private final Supplier<SqlParserImpl> parserSupplier;
+
+    private final SqlParseCache parseCache;
+
+    public CachedSqlParser(ETableType tableType, Supplier<SqlParserImpl> parserSupplier, SqlParseCache parseCache) {
+        this.tableType = tableType;
+        this.parserSupplier = parserSupplier;
+        this.parseCache = parseCache;
+    }
+
+    @Override
+    public ParseResult parseSql(String originSql, String currentDb, Map<String, List<Column>> tableColumnsMap) throws Exception {
+        // 带表字段信息时血缘依赖外部元数据，不走缓存
+        if (StringUtils.isBlank(originSql) || (tableColumnsMap != null && !tableColumnsMap.isEmpty())) {
+            return parserSupplier.get().parseSql(originSql, currentDb, tableColumnsMap);
+        }
+        String key = SqlParseCache.buildKey(PARSE_SQL, tableType, currentDb, originSql);
+        ParseResult cached = parseCache.getParseResult(key);
+        if (cached != null) {
+            return cached;
+        }
+        ParseResult parseResult = parserSupplier.get().parseSql(originSql, currentDb, tableColumnsMap);
+        parseCache.putParseResult(key, parseResult);
+        return parseResult;
+    }
+
+    @Override
+    public List<Table> parseTables(String currentDb, String sql) throws Exception {
+        if (StringUtils.isBlank(sql)) {
+            return parserSupplier.get().parseTables(currentDb, sql);
+        }
+        String key = SqlParseCache.buildKey(PARSE_TABLES, tableType, currentDb, sql);
+        List<Table> cached = parseCache.getTables(key);
+        if (cached != null) {
+            return cached;
+        }
+        List<Table> tables = parserSupplier.get().parseTables(currentDb, sql);
+        parseCache.putTables(key, tables);
+        return tables;
+    }
+
+    @Override
+    public ParseResult parseTableLineage(String originSql, String currentDb) throws Exception {
+        if (StringUtils.isBlank(originSql)) {
+            return parserSupplier.get().parseTableLineage(originSql, currentDb);
+        }
+        String key = SqlParseCache.buildKey(PARSE_TABLE_LINEAGE, tableType, currentDb, originSql);
+        ParseResult cached = parseCache.getParseResult(key);
+        if (cached != null) {
+            return cached;
+        }
+        ParseResult parseResult = parserSupplier.get().parseTableLineage(originSql, currentDb);
+        parseCache.putParseResult(key, parseResult);
+        return parseResult;
+    }
+
+    @Override
+    public void parseLifecycleAndCatalogue(ParseResult parseResult) {
+        parserSupplier.get().parseLifecycleAndCatalogue(parseResult);
+    }
+
+    @Override
+    public Set<String> parseFunction(String sql) {
+        return parserSupplier.get().parseFunction(sql);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.develop.sql.parse;
+
+import com.dtstack.taier.common.enums.ETableType;
+import com.dtstack.taier.common.util.MD5Util;
+import com.dtstack.taier.develop.sql.ParseResult;
+import com.dtstack.taier.develop.sql.Table;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * sql 解析结果缓存
+ * <p>
+ * key 由 (解析方法, 数据库类型, 当前 db, sql 摘要) 组成，value 为解析结果快照，
+ * 读写时都会复制一份，调用方修改返回值不会影响缓存
+ *
+ * @author jiangbo
+ */
+public class SqlParseCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlParseCache.class);
+
+    private static final String KEY_SPLIT = ":";
+
+    /**
+     * 最多缓存的解析结果数
+     */
+    private static final long MAX_SIZE = 2000;
+
+    private static final long EXPIRE_MINUTES = 60;
+
+    /**
+     * 每多少次查询打印一次命中率
+     */
+    private static final long STATS_LOG_INTERVAL = 1000;
+
+    private static final SqlParseCache INSTANCE = new SqlParseCache();
+
+    private final Cache<String, Object> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SIZE)
+            .expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .recordStats()
+            .build();
+
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private SqlParseCache() {
+    }
+
+    public static SqlParseCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 生成缓存 key，sql 以原文的摘要参与计算：解析结果中保存了原始 sql 和标准 sql，后续会直接用于执行，
+     * 因此只有文本完全一致的 sql 才能共享同一份结果
+     */
+    public static String buildKey(String method, ETableType tableType, String currentDb, String sql) {
+        return method + KEY_SPLIT + tableType.name() + KEY_SPLIT + currentDb + KEY_SPLIT
+                + sql.length() + KEY_SPLIT + MD5Util.getMD5String(sql);
+    }
+
+    public ParseResult getParseResult(String key) {
+        Object value = get(key);
+        return value instanceof ParseResult ? ((ParseResult) value).copy() : null;
+    }
+
+    public void putParseResult(String key, ParseResult parseResult) {
+        if (parseResult != null) {
+            cache.put(key, parseResult.copy());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Table> getTables(String key) {
+        Object value = get(key);
+        return value instanceof List ? copyTables((List<Table>) value) : null;
+    }
+
+    public void putTables(String key, List<Table> tables) {
+        if (tables != null) {
+            cache.put(key, copyTables(tables));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    private Object get(String key) {
+        Object value = cache.getIfPresent(key);
+        if (requestCount.incrementAndGet() % STATS_LOG_INTERVAL == 0) {
+            CacheStats stats = cache.stats();
+            LOGGER.info("sql parse cache size:{}, hitRate:{}, hitCount:{}, missCount:{}, evictionCount:{}",
+                    cache.size(), stats.hitRate(), stats.hitCount(), stats.missCount(), stats.evictionCount());
+        }
+        return value;
+    }
+
+    private static List<Table> copyTables(List<Table> tables) {
+        List<Table> copies = new ArrayList<>(tables.size());
+        for (Table table : tables) {
+            try {
+                copies.add((Table) table.clone());
+            } catch (CloneNotSupportedException e) {
+                copies.add(table);
+            }
+        }
+        return copies;
+    }
+}
@@ -25,6 +25,8 @@ import com.dtstack.taier.develop.sql.handler.HiveUglySqlHandler;
 import com.dtstack.taier.develop.sql.handler.ImpalaUglySqlHandler;
 import com.dtstack.taier.develop.sql.hive.AstNodeParser;
 
+import java.util.function.Supplier;
+
 
 /**
  * @author jiangbo
@@ -42,27 +44,36 @@ public class SqlParserFactory {
     }
 
     /**
-     * 获取sql解析器
+     * 获取sql解析器，解析结果按 sql 文本缓存
      *
      * @param tableType 数据库类型
      * @return
      */
     public SqlParserImpl getSqlParser(ETableType tableType) {
-        SqlParserImpl sqlParser;
+        return new CachedSqlParser(tableType, getParserSupplier(tableType), SqlParseCache.getInstance());
+    }
+
+    /**
+     * 创建不带缓存的sql解析器
+     *
+     * @param tableType 数据库类型
+     * @return
+     */
+    public SqlParserImpl createSqlParser(ETableType tableType) {
+        return getParserSupplier(tableType).get();
+    }
+
+    private static Supplier<SqlParserImpl> getParserSupplier(ETableType tableType) {
         switch (tableType) {
             case HIVE:
-                sqlParser = new AstNodeParser(new HiveUglySqlHandler());
-                break;
+                return () -> new AstNodeParser(new HiveUglySqlHandler());
             case LIBRA:
             case ORACLE:
             case GREENPLUM:
             case IMPALA:
-                sqlParser = new AstNodeParser(new ImpalaUglySqlHandler());
-                break;
+                return () -> new AstNodeParser(new ImpalaUglySqlHandler());
             default:
                 throw new IllegalArgumentException("Unsupported database type:" + tableType.name());
         }
-
-        return sqlParser;
     }
 }
@@ -1,8 +1,8 @@
 package com.dtstack.taier.develop.sql.utils;
 
+import com.dtstack.taier.common.util.SqlLexer;
 import com.dtstack.taier.common.util.Strings;
 import com.dtstack.taier.develop.sql.hive.ASTNodeUtil;
-import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.ListUtils;
 import org.apache.commons.lang.StringUtils;
@@ -26,34 +26,24 @@ public class SqlFormatUtil {
 
     private ParseDriver parseDriver = new ParseDriver();
 
-    private static final String RETURN_REGEX = "\r";
+    private static final Pattern LIFECYCLE_PATTERN = Pattern.compile("(?i)lifecycle\\s+(?<lifecycle>[1-9]\\d*)");
 
-    private static final String NEWLINE_REGEX = "\n";
-
-    private static final String COMMENTS_REGEX = "--.*";
-
-    private static final String COMMENTS_REGEX_LIBRA = "\\/\\*\\*+.*\\*\\*+\\/";
-
-    private static final String COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS = "/\\*{1,2}\\*/";
-
-    private static final String COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS2 = "/\\*{1,2}[\\s\\S]*?\\*/";
-
-    private static final String LIFECYCLE_REGEX = "(?i)lifecycle\\s+(?<lifecycle>[1-9]\\d*)";
-
-    private static final String CATALOGUE_REGEX = "(?i)catalogue\\s+(?<catalogue>[1-9]\\d*)";
+    private static final Pattern CATALOGUE_PATTERN = Pattern.compile("(?i)catalogue\\s+(?<catalogue>[1-9]\\d*)");
 
     private static final String STORE_REGEX = "(?i)store\\s+(?<store>[a-Z]\\d*)";
 
     private static final String EMPTY_QUOTATION = "''";
 
-    private static final String CREATE_REGEX = "(?i)create\\s+(external|temporary)*\\s*table\\s+[\\W\\w]+";
-
-    private static final String DDL_REGEX = "(?i)(insert|create|drop|alter|truncate|set|update|delete)+\\s+[\\W\\w]+";
+    private static final Pattern CREATE_PATTERN = Pattern.compile("(?i)create\\s+(external|temporary)*\\s*table\\s+[\\W\\w]+");
 
-    private static final String SQL_SPLIT_REGEX = "('[^']*?')|(\"[^\"]*?\")";
+    private static final Pattern DDL_PATTERN = Pattern.compile("(?i)(insert|create|drop|alter|truncate|set|update|delete)+\\s+[\\W\\w]+");
 
     public static final String SPLIT_CHAR = ";";
 
+    private static final Pattern COMMENT_PATTERN = Pattern.compile("(?i)comment\\s*'([^']*)'");
+
+    private static final Pattern DOUBLE_QUOTES_COMMENT_PATTERN = Pattern.compile("(?i)comment\\s*\"([^\"]*)\"");
+
     private SqlFormatUtil() {
     }
 
@@ -61,39 +51,21 @@ public class SqlFormatUtil {
      * 是否为ddl语句
      */
     public static boolean isDDLSql(String sql) {
-        return sql.matches(DDL_REGEX);
+        return DDL_PATTERN.matcher(sql).matches();
     }
 
     /**
      * 是否为建表语句
      */
     public static boolean isCreateSql(String sql) {
-        return sql.matches(CREATE_REGEX);
+        return CREATE_PATTERN.matcher(sql).matches();
     }
 
+    /**
+     * 按引号、注释之外的分号切分sql
+     */
     public static List<String> splitSqlText(String sqlText) {
-        String sqlTemp = sqlText;
-        Pattern pattern = Pattern.compile(SQL_SPLIT_REGEX);
-        Matcher matcher = pattern.matcher(sqlTemp);
-        while (matcher.find()) {
-            String group = matcher.group();
-            sqlTemp = sqlTemp.replace(group, StringUtils.repeat(" ", group.length()));
-        }
-
-        List<Integer> posits = Lists.newArrayList();
-        while (sqlTemp.contains(SPLIT_CHAR)) {
-            int pos = sqlTemp.indexOf(SPLIT_CHAR);
-            posits.add(pos);
-            sqlTemp = sqlTemp.substring(pos + 1);
-        }
-
-        List<String> sqls = Lists.newArrayList();
-        for (Integer posit : posits) {
-            sqls.add(sqlText.substring(0, posit));
-            sqlText = sqlText.substring(posit + 1);
-        }
-
-        return sqls;
+        return SqlLexer.splitStatements(sqlText);
     }
 
     public static void checkSql(String sql) throws Exception {
@@ -142,7 +114,7 @@ public class SqlFormatUtil {
     }
 
     public SqlFormatUtil toOneLine() {
-        sql = sql.replaceAll(RETURN_REGEX, " ").replaceAll(NEWLINE_REGEX, " ");
+        sql = sql.replace('\r', ' ').replace('\n', ' ');
         return this;
     }
 
@@ -169,23 +141,20 @@ public class SqlFormatUtil {
     }
 
     /**
-     * 去除注释 -- 开头的sql
+     * 去除 -- 与块注释，引号内的内容不受影响
      */
     public SqlFormatUtil removeComment() {
-        sql = sql.replaceAll(COMMENTS_REGEX, StringUtils.EMPTY);
-        sql = sql.replaceAll(COMMENTS_REGEX_LIBRA, StringUtils.EMPTY);
-        sql = sql.replaceAll(COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS, StringUtils.EMPTY);
-        sql = sql.replaceAll(COMMENTS_REGEX_LIBRA_SINGLE_QUOTATION_MARKS2, StringUtils.EMPTY);
+        sql = SqlLexer.removeComments(sql);
         return this;
     }
 
     public SqlFormatUtil removeCatalogue() {
-        sql = sql.replaceAll(CATALOGUE_REGEX, StringUtils.EMPTY);
+        sql = CATALOGUE_PATTERN.matcher(sql).replaceAll(StringUtils.EMPTY);
         return this;
     }
 
     public SqlFormatUtil removeLifecycle() {
-        sql = sql.replaceAll(LIFECYCLE_REGEX, StringUtils.EMPTY);
+        sql = LIFECYCLE_PATTERN.matcher(sql).replaceAll(StringUtils.EMPTY);
         return this;
     }
 
@@ -219,7 +188,7 @@ public class SqlFormatUtil {
      * @return
      */
     public static String removeComment(String sql) {
-        return StringUtils.isBlank(sql) ? "" : sql.replaceAll("(?i)comment\\s*'([^']*)'", StringUtils.EMPTY);
+        return StringUtils.isBlank(sql) ? "" : COMMENT_PATTERN.matcher(sql).replaceAll(StringUtils.EMPTY);
     }
 
 
@@ -230,7 +199,7 @@ public class SqlFormatUtil {
      * @return
      */
     public static String removeDoubleQuotesComment(String sql) {
-        return StringUtils.isBlank(sql) ? "" : sql.replaceAll("(?i)comment\\s*\"([^\"]*)\"", StringUtils.EMPTY);
+        return StringUtils.isBlank(sql) ? "" : DOUBLE_QUOTES_COMMENT_PATTERN.matcher(sql).replaceAll(StringUtils.EMPTY);
     }
 
     public static Pattern pattern = Pattern.compile("(?i)(map|struct|array)<");
@@ -117,6 +117,14 @@ public class SqlRegexUtil {
 
     private static Pattern dropSqlPattern = Pattern.compile(DROP_REGEX);
 
+    private static final Pattern SHOW_PATTERN = Pattern.compile(SHOW_REGEX);
+
+    private static final Pattern DROP_DATABASE_PATTERN = Pattern.compile(DROP_DATABASE);
+
+    private static final Pattern CREATE_DATABASE_PATTERN = Pattern.compile(CREATE_DATABASE);
+
+    private static final Pattern REFRESH_PATTERN = Pattern.compile(REFRESH_REGEX);
+
     public static final String KEY_DB_TABLE = "dbTable";
 
     public static final String ALTER_TABLE_REGEX = "(?i)alter\\s+table\\s+(only\\s+)*(?<table>[a-zA-Z0-9\\._]+)\\s+.*";
@@ -172,7 +180,7 @@ public class SqlRegexUtil {
         String sql = originSql.trim().replace("\r", "")
                 .replace("\n", "")
                 .replace("\t", "");
-        return sql.matches(CREATE_TEMP_TABLE);
+        return CREATE_TEMP_TABLE_PATTERN.matcher(sql).matches();
     }
 
     public static String removeTempKey(String originSql) {
@@ -200,27 +208,27 @@ public class SqlRegexUtil {
             sql = sql.substring(0, sql.length() - 1);
         }
 
-        return sql.matches(CREATE_TABLE_LIKE_REGEX);
+        return likeSqlPattern.matcher(sql).matches();
     }
 
     public static boolean isAlterSql(String sql) {
-        return sql.matches(ALTER_TABLE_REGEX);
+        return alterSqlPattern.matcher(sql).matches();
     }
 
     public static boolean isShowSql(String sql) {
-        return sql.matches(SHOW_REGEX);
+        return SHOW_PATTERN.matcher(sql).matches();
     }
 
     public static boolean isDataBaseOperate(String sql) {
-        return sql.matches(DROP_DATABASE) || sql.matches(CREATE_DATABASE);
+        return DROP_DATABASE_PATTERN.matcher(sql).matches() || CREATE_DATABASE_PATTERN.matcher(sql).matches();
     }
 
     public static boolean isDropSql(String sql) {
-        return sql.matches(DROP_REGEX);
+        return dropSqlPattern.matcher(sql).matches();
     }
 
     public static boolean isRefreshSql(String sql) {
-        return sql.matches(REFRESH_REGEX);
+        return REFRESH_PATTERN.matcher(sql).matches();
     }
 
     public static boolean isInvalidateTableSql(String sql) {
@@ -367,10 +375,9 @@ public class SqlRegexUtil {
         if (StringUtils.isEmpty(str)) {
             return StringUtils.EMPTY;
         }
-        return str.
-                replaceAll("\\(", "\\\\(")
-                .replaceAll("\\)", "\\\\)")
-                .replaceAll("\\.", "\\\\.");
+        return str.replace("(", "\\(")
+                .replace(")", "\\)")
+                .replace(".", "\\.");
     }
 
     public static TableOperateEnum getAlterEnum(String sql) {
@@ -453,6 +460,8 @@ public class SqlRegexUtil {
 
     private static final Pattern SIMPLE_QUERY_PATTERN = Pattern.compile(SIMPLE_QUERY_REGEX);
 
+    private static final Pattern SIMPLE_QUERY_ONLY_PATTERN = Pattern.compile(SIMPLE_QUERY_REGEX_ONLY);
+
     /**
      * 判断是否简单查询
      *
@@ -468,7 +477,7 @@ public class SqlRegexUtil {
             fromCount++;
         }
         Matcher matcherSimple = SIMPLE_QUERY_PATTERN.matcher(sql);
-        if ((matcherSimple.matches() && fromCount == 1) || (sql.matches(SIMPLE_QUERY_REGEX_ONLY) && fromCount == 0)) {
+        if ((matcherSimple.matches() && fromCount == 1) || (SIMPLE_QUERY_ONLY_PATTERN.matcher(sql).matches() && fromCount == 0)) {
             //形如select DISTINCT id,t_int FROM chellner;的sql会被识别为简单查询
             String cols = null;
             try {
@@ -62,6 +62,11 @@ public class ParamActionExt extends ParamAction {
 
     private Long taskId;
 
+    /**
+     * 实例剩余关键路径的预估时长，单位毫秒，用于提高长依赖链上实例的优先级
+     */
+    private Long criticalPathTime;
+
     public Long getTaskId() {
         return taskId;
     }
@@ -133,4 +138,12 @@ public class ParamActionExt extends ParamAction {
     public void setPeriodType(Integer periodType) {
         this.periodType = periodType;
     }
+
+    public Long getCriticalPathTime() {
+        return criticalPathTime;
+    }
+
+    public void setCriticalPathTime(Long criticalPathTime) {
+        this.criticalPathTime = criticalPathTime;
+    }
 }
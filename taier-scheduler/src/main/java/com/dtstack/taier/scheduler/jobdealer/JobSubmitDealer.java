@@ -27,6 +27,7 @@ import com.dtstack.taier.common.exception.ClientAccessException;
 import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.common.exception.WorkerAccessException;
 import com.dtstack.taier.common.queue.DelayBlockingQueue;
+import com.dtstack.taier.common.queue.FairShareQueue;
 import com.dtstack.taier.common.util.SleepUtil;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.pluginapi.CustomThreadFactory;
@@ -54,7 +55,6 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -90,7 +90,7 @@ public class JobSubmitDealer implements Runnable {
     private String localAddress;
     private String jobResource = null;
     private GroupPriorityQueue priorityQueue;
-    private PriorityBlockingQueue<JobClient> queue = null;
+    private FairShareQueue<JobClient> queue = null;
     private DelayBlockingQueue<SimpleJobDelay<JobClient>> delayJobQueue = null;
     private JudgeResult workerNotFindResult = JudgeResult.notOk( "worker not find");
     private ExecutorService jobSubmitConcurrentService;
@@ -185,12 +185,14 @@ public class JobSubmitDealer implements Runnable {
     @Override
     public void run() {
         while (true) {
+            JobClient jobClient = null;
             try {
-                JobClient jobClient = queue.take();
+                jobClient = queue.take();
                 if(LOGGER.isDebugEnabled()){
                     LOGGER.debug("jobId:{} jobResource:{} queue size:{} take job from priorityQueue.", jobClient.getJobId(), jobResource, queue.size());
                 }
                 if (checkIsFinished(jobClient)) {
+                    queue.release(jobClient);
                     continue;
                 }
                 if (checkJobSubmitExpired(jobClient)){
@@ -198,21 +200,31 @@ public class JobSubmitDealer implements Runnable {
                     jobClient.doStatusCallBack(TaskStatus.AUTOCANCELED.getStatus());
                     ScheduleJobCacheService.deleteByJobId(jobClient.getJobId());
                     LOGGER.info("jobId:{} checkJobSubmitExpired is true, job ignore to submit.", jobClient.getJobId());
+                    queue.release(jobClient);
                     continue;
                 }
                 if (!checkMaxPriority(jobResource)) {
                     LOGGER.info("jobId:{} checkMaxPriority is false, wait other node job which priority higher.", jobClient.getJobId());
+                    queue.release(jobClient);
                     queue.put(jobClient);
                     SleepUtil.sleep(jobLackingInterval);
                     continue;
                 }
 
-                //提交任务
+                //提交任务，提交结束后归还队列中的并发数
+                JobClient submitJobClient = jobClient;
                 jobSubmitConcurrentService.submit(()->{
-                    submitJob(jobClient);
+                    try {
+                        submitJob(submitJobClient);
+                    } finally {
+                        queue.release(submitJobClient);
+                    }
                 });
             } catch (Exception e) {
                 LOGGER.error("", e);
+                if (jobClient != null) {
+                    queue.release(jobClient);
+                }
             }
         }
     }
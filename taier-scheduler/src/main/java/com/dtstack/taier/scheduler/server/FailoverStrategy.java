@@ -23,7 +23,12 @@ import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EJobCacheStage;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.exception.ErrorCode;
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.thread.BoundedBatchExecutor;
+import com.dtstack.taier.common.util.ConsistentHashRing;
 import com.dtstack.taier.common.util.GenerateErrorMsgUtil;
+import com.dtstack.taier.common.util.NodeSignUtil;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleJobOperatorRecord;
@@ -31,10 +36,12 @@ import com.dtstack.taier.pluginapi.CustomThreadFactory;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.exception.ExceptionUtil;
 import com.dtstack.taier.pluginapi.http.PoolHttpClient;
+import com.dtstack.taier.pluginapi.util.RetryUtil;
 import com.dtstack.taier.scheduler.dto.scheduler.SimpleScheduleJobDTO;
 import com.dtstack.taier.scheduler.enums.JobPhaseStatus;
 import com.dtstack.taier.scheduler.server.builder.CycleJobBuilder;
 import com.dtstack.taier.scheduler.service.NodeRecoverService;
+import com.dtstack.taier.scheduler.service.ScheduleFillDataJobService;
 import com.dtstack.taier.scheduler.service.ScheduleJobCacheService;
 import com.dtstack.taier.scheduler.service.ScheduleJobOperatorRecordService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
@@ -52,6 +59,8 @@ import org.springframework.stereotype.Component;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * company: www.dtstack.com
@@ -87,12 +96,22 @@ public class FailoverStrategy {
     @Autowired
     private JobGraphBuilderTrigger jobGraphBuilderTrigger;
 
+    @Autowired
+    private JobArchiveTrigger jobArchiveTrigger;
+
     @Autowired
     private ScheduleJobOperatorRecordService scheduleJobOperatorRecordService;
 
+    @Autowired
+    private ScheduleFillDataJobService scheduleFillDataJobService;
+
 
     private static final String MASTER_TRIGGER_NODE = "/node/nodeRecover/masterTriggerNode";
 
+    private static final int TRIGGER_NODE_RETRY_TIMES = 3;
+
+    private static final long TRIGGER_NODE_RETRY_INTERVAL = 1000L;
+
     private boolean currIsMaster = false;
 
     private ExecutorService masterNodeDealer;
@@ -101,8 +120,14 @@ public class FailoverStrategy {
 
     private final FaultTolerantDealer faultTolerantDealer = new FaultTolerantDealer();
 
+    private final BlockingQueue<List<String>> joinedQueue = new LinkedBlockingDeque<>();
+
+    private final OwnershipRebalancer ownershipRebalancer = new OwnershipRebalancer();
+
+    private static final int REBALANCE_BATCH_SIZE = 500;
+
     private FailoverStrategy() {
-        masterNodeDealer = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+        masterNodeDealer = new ThreadPoolExecutor(3, 3, 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<>(), new CustomThreadFactory(this.getClass().getSimpleName()));
     }
 
@@ -111,22 +136,26 @@ public class FailoverStrategy {
             currIsMaster = true;
 
             jobGraphBuilderTrigger.dealMaster(true);
+            jobArchiveTrigger.dealMaster(true);
             LOGGER.warn("---start jobMaster change listener------");
 
             if (masterNodeDealer.isShutdown()) {
-                masterNodeDealer = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+                masterNodeDealer = new ThreadPoolExecutor(3, 3, 0L, TimeUnit.MILLISECONDS,
                         new LinkedBlockingQueue<>(), new CustomThreadFactory(this.getClass().getSimpleName()));
             }
             masterNodeDealer.submit(faultTolerantDealer);
             masterNodeDealer.submit(new JobGraphChecker());
+            masterNodeDealer.submit(ownershipRebalancer);
             LOGGER.warn("---start master node dealer thread------");
         } else if (!isMaster && currIsMaster) {
             currIsMaster = false;
 
             jobGraphBuilderTrigger.dealMaster(false);
+            jobArchiveTrigger.dealMaster(false);
             LOGGER.warn("---stop jobMaster change listener------");
 
             faultTolerantDealer.stop();
+            ownershipRebalancer.stop();
             masterNodeDealer.shutdownNow();
             LOGGER.warn("---stop master node dealer thread------");
         }
@@ -143,6 +172,83 @@ public class FailoverStrategy {
         }
     }
 
+    /**
+     * 存活节点变化时更新一致性哈希的归属版本，有新节点加入时迁移部分未调度的实例到新节点
+     */
+    public void checkOwnership() {
+        if (!jobPartitioner.isConsistentHash()) {
+            return;
+        }
+        List<String> joinedNodes = jobPartitioner.refreshOwnership(zkService.getAliveBrokersChildren());
+        if (CollectionUtils.isNotEmpty(joinedNodes)) {
+            joinedQueue.offer(joinedNodes);
+        }
+    }
+
+    /**
+     * 新节点加入后，哈希环上只有落到新节点的实例需要迁移，
+     * 只迁移计划时间在延迟窗口之后、尚未被扫描提交的实例，已在运行和即将调度的实例保留在原节点
+     */
+    class OwnershipRebalancer implements Runnable {
+
+        private volatile boolean isRun = true;
+
+        @Override
+        public void run() {
+            isRun = true;
+            try {
+                while (isRun) {
+                    List<String> joinedNodes = joinedQueue.take();
+                    long startTime = System.currentTimeMillis();
+                    int moved = rebalance(new HashSet<>(joinedNodes));
+                    LOGGER.warn("----- joined nodes:{} ownership rebalance ends, moved jobs:{}, cost {} ms-----",
+                            joinedNodes, moved, System.currentTimeMillis() - startTime);
+                }
+            } catch (InterruptedException e) {
+                LOGGER.warn("----ownershipRebalancer interrupted");
+            } catch (Exception e) {
+                LOGGER.error("----ownershipRebalancer error:", e);
+            }
+        }
+
+        private int rebalance(Set<String> joinedNodes) {
+            Calendar calendar = Calendar.getInstance();
+            calendar.add(Calendar.MINUTE, environmentContext.getJobConsistentHashRebalanceDelayMinutes());
+            String minCycTime = new SimpleDateFormat("yyyyMMddHHmmss").format(calendar.getTime());
+            int moved = 0;
+            long startId = 0L;
+            while (isRun) {
+                List<ScheduleJob> jobs = scheduleJobService.listUnsubmitJobForRebalance(startId, minCycTime, REBALANCE_BATCH_SIZE);
+                if (CollectionUtils.isEmpty(jobs)) {
+                    break;
+                }
+                startId = jobs.get(jobs.size() - 1).getId();
+                ConsistentHashRing ring = jobPartitioner.getOwnershipRing();
+                // 原节点 -> 归属节点 -> 实例，每组一次批量更新
+                Map<String, Map<String, List<String>>> movingJobs = new HashMap<>();
+                for (ScheduleJob job : jobs) {
+                    String owner = ring.getNode(job.getJobId());
+                    if (owner == null || !joinedNodes.contains(owner) || owner.equals(job.getNodeAddress())) {
+                        continue;
+                    }
+                    movingJobs.computeIfAbsent(job.getNodeAddress(), k -> new HashMap<>())
+                            .computeIfAbsent(owner, k -> new ArrayList<>())
+                            .add(job.getJobId());
+                }
+                for (Map.Entry<String, Map<String, List<String>>> fromEntry : movingJobs.entrySet()) {
+                    for (Map.Entry<String, List<String>> ownerEntry : fromEntry.getValue().entrySet()) {
+                        moved += scheduleJobService.rebalanceNodeAddress(ownerEntry.getValue(), fromEntry.getKey(), ownerEntry.getKey());
+                    }
+                }
+            }
+            return moved;
+        }
+
+        public void stop() {
+            isRun = false;
+        }
+    }
+
     class JobGraphChecker implements Runnable {
 
         @Override
@@ -155,6 +261,12 @@ public class FailoverStrategy {
             } catch (Exception e) {
                 LOGGER.error("----jobGraphChecker error:", e);
             }
+            try {
+                //接管未生成完成的补数据
+                scheduleFillDataJobService.recoverOrphanFillData(zkService.getAliveBrokersChildren(), environmentContext.getLocalAddress());
+            } catch (Exception e) {
+                LOGGER.error("----recover fill data error:", e);
+            }
         }
     }
 
@@ -171,9 +283,14 @@ public class FailoverStrategy {
                 while (isRun) {
                     String node = queue.take();
                     LOGGER.warn("----- nodeAddress:{} node disaster recovery tasks begin to recover----", node);
+                    long startTime = System.currentTimeMillis();
 
-                    faultTolerantRecoverBatchJob(node);
-                    faultTolerantRecoverJobCache(node);
+                    if (jobPartitioner.isConsistentHash()) {
+                        //移除宕机节点后，只有原属于宕机节点的实例归属发生变化
+                        jobPartitioner.refreshOwnership(zkService.getAliveBrokersChildren());
+                    }
+                    int jobSize = faultTolerantRecoverBatchJob(node);
+                    int jobCacheSize = faultTolerantRecoverJobCache(node);
 
                     List<String> aliveNodes = zkService.getAliveBrokersChildren();
                     for (String nodeAddress : aliveNodes) {
@@ -183,9 +300,10 @@ public class FailoverStrategy {
                             continue;
                         }
 
-                        PoolHttpClient.post(String.format("http://%s/%s", node,MASTER_TRIGGER_NODE), null);
+                        triggerNodeRecover(nodeAddress);
                     }
-                    LOGGER.warn("----- nodeAddress:{} node disaster recovery task ends and resumes-----", node);
+                    LOGGER.warn("----- nodeAddress:{} node disaster recovery task ends and resumes, jobs:{}, jobCaches:{}, cost {} ms-----",
+                            node, jobSize, jobCacheSize, System.currentTimeMillis() - startTime);
                 }
             } catch (Exception e) {
                 LOGGER.error("----faultTolerantRecover error:", e);
@@ -197,41 +315,62 @@ public class FailoverStrategy {
         }
     }
 
-    public void faultTolerantRecoverBatchJob(String nodeAddress) {
+    /**
+     * 通知存活节点恢复已提交的任务，请求带节点间签名，失败时重试
+     */
+    private void triggerNodeRecover(String nodeAddress) {
+        String url = String.format("http://%s%s", nodeAddress, MASTER_TRIGGER_NODE);
+        try {
+            RetryUtil.executeWithRetry(() -> {
+                String token = zkService.getNodeToken();
+                if (StringUtils.isBlank(token)) {
+                    throw new RdosDefineException("node token is empty");
+                }
+                long timestamp = System.currentTimeMillis();
+                Map<String, String> headers = Maps.newHashMap();
+                headers.put(NodeSignUtil.HEADER_TIMESTAMP, String.valueOf(timestamp));
+                headers.put(NodeSignUtil.HEADER_SIGN, NodeSignUtil.sign(token, timestamp));
+                String result = PoolHttpClient.postWithHeaders(url, null, headers);
+                JSONObject response = StringUtils.isBlank(result) ? null : JSONObject.parseObject(result);
+                if (response == null || response.getIntValue("code") != ErrorCode.SUCCESS.getCode()) {
+                    throw new RdosDefineException("masterTriggerNode " + url + " failed, response:" + result);
+                }
+                return result;
+            }, TRIGGER_NODE_RETRY_TIMES, TRIGGER_NODE_RETRY_INTERVAL, true);
+        } catch (Exception e) {
+            LOGGER.error("----- nodeAddress:{} masterTriggerNode failed, submitted jobs of this node are not recovered -----", nodeAddress, e);
+        }
+    }
+
+    /**
+     * 迁移宕机节点上未完成的实例，按批次读取后并行分发
+     *
+     * @return 迁移的实例数
+     */
+    public int faultTolerantRecoverBatchJob(String nodeAddress) {
+        AtomicInteger recovered = new AtomicInteger();
         try {
             //再次判断broker是否alive
             BrokerHeartNode brokerHeart = zkService.getBrokerHeartNode(nodeAddress);
             if (brokerHeart.getAlive()) {
-                return;
+                return 0;
             }
 
             //节点容灾恢复任务
             LOGGER.warn("----- nodeAddress:{} BatchJob mission begins to resume----", nodeAddress);
-            long startId = 0L;
-            while (true) {
-                List<SimpleScheduleJobDTO> simpleScheduleJobDTOS = scheduleJobService.listSimpleJobByStatusAddress(startId, TaskStatus.getUnfinishedStatuses(), nodeAddress);
-                if (CollectionUtils.isEmpty(simpleScheduleJobDTOS)) {
-                    break;
-                }
-                Set<String> cronJobIds = new HashSet<>();
-                Set<String> fillJobIds =  new HashSet<>();
-                List<String> phaseStatus = Lists.newArrayList();
-                for (SimpleScheduleJobDTO batchJob : simpleScheduleJobDTOS) {
-                    if (EScheduleType.NORMAL_SCHEDULE.getType().equals(batchJob.getType())) {
-                        cronJobIds.add(batchJob.getJobId());
-                        LOGGER.info("----- nodeAddress:{} distributeBatchJobs {} NORMAL_SCHEDULE -----", nodeAddress, batchJob.getJobId());
-                    } else {
-                        fillJobIds.add(batchJob.getJobId());
-                        LOGGER.info("----- nodeAddress:{} distributeBatchJobs {} FILL_DATA -----", nodeAddress, batchJob.getJobId());
-                    }
-                    if (JobPhaseStatus.JOIN_THE_TEAM.getCode().equals(batchJob.getPhaseStatus())) {
-                        phaseStatus.add(batchJob.getJobId());
+            BoundedBatchExecutor batchExecutor = new BoundedBatchExecutor("recoverBatchJob", environmentContext.getJobFailoverParallelism());
+            try {
+                long startId = 0L;
+                while (true) {
+                    List<SimpleScheduleJobDTO> simpleScheduleJobDTOS = scheduleJobService.listSimpleJobByStatusAddress(startId, TaskStatus.getUnfinishedStatuses(), nodeAddress);
+                    if (CollectionUtils.isEmpty(simpleScheduleJobDTOS)) {
+                        break;
                     }
-                    startId = batchJob.getId();
+                    startId = simpleScheduleJobDTOS.get(simpleScheduleJobDTOS.size() - 1).getId();
+                    batchExecutor.submit(() -> recovered.addAndGet(recoverBatchJobs(nodeAddress, simpleScheduleJobDTOS)));
                 }
-                distributeBatchJobs(cronJobIds, EScheduleType.NORMAL_SCHEDULE.getType());
-                distributeBatchJobs(fillJobIds, EScheduleType.FILL_DATA.getType());
-                updatePhaseStatus(phaseStatus);
+            } finally {
+                batchExecutor.await();
             }
 
             //在迁移任务的时候，可能出现要迁移的节点也宕机了，任务没有正常接收需要再次恢复（由HearBeatCheckListener监控）。
@@ -240,12 +379,35 @@ public class FailoverStrategy {
                 zkService.updateSynchronizedLocalBrokerHeartNode(nodeAddress, BrokerHeartNode.initNullBrokerHeartNode(), true);
             }
 
+            //宕机节点上未生成完成的补数据由当前节点从记录的进度继续生成
+            scheduleFillDataJobService.recoverFillData(Collections.singletonList(nodeAddress), environmentContext.getLocalAddress());
+
             LOGGER.warn("----- nodeAddress:{} BatchJob mission end recovery-----", nodeAddress);
         } catch (Exception e) {
             LOGGER.error("----nodeAddress:{} faultTolerantRecoverBatchJob error:", nodeAddress, e);
         }
+        return recovered.get();
     }
 
+    private int recoverBatchJobs(String nodeAddress, List<SimpleScheduleJobDTO> simpleScheduleJobDTOS) {
+        List<SimpleScheduleJobDTO> cronJobs = Lists.newArrayList();
+        List<SimpleScheduleJobDTO> fillJobs = Lists.newArrayList();
+        List<String> phaseStatus = Lists.newArrayList();
+        for (SimpleScheduleJobDTO batchJob : simpleScheduleJobDTOS) {
+            if (EScheduleType.NORMAL_SCHEDULE.getType().equals(batchJob.getType())) {
+                cronJobs.add(batchJob);
+            } else {
+                fillJobs.add(batchJob);
+            }
+            if (JobPhaseStatus.JOIN_THE_TEAM.getCode().equals(batchJob.getPhaseStatus())) {
+                phaseStatus.add(batchJob.getJobId());
+            }
+        }
+        distributeBatchJobs(nodeAddress, cronJobs, EScheduleType.NORMAL_SCHEDULE.getType());
+        distributeBatchJobs(nodeAddress, fillJobs, EScheduleType.FILL_DATA.getType());
+        updatePhaseStatus(phaseStatus);
+        return simpleScheduleJobDTOS.size();
+    }
 
     private void updatePhaseStatus(List<String> jobIds) {
         if (CollectionUtils.isNotEmpty(jobIds)) {
@@ -260,91 +422,92 @@ public class FailoverStrategy {
     }
 
     /**
-     * Ps：jobIds  为 batchJob 表的 id 字段（非job_id字段）
+     * 开启一致性哈希时按哈希环上的归属节点分发；
+     * 否则实例按 id 有序，每个节点分到一段连续的实例，按 id 区间批量更新
      */
-    private void distributeBatchJobs(Set<String> jobIds, Integer scheduleType) {
-        if (jobIds.isEmpty()) {
+    private void distributeBatchJobs(String nodeAddress, List<SimpleScheduleJobDTO> jobs, Integer scheduleType) {
+        if (jobs.isEmpty()) {
             return;
         }
 
-        Iterator<String> jobIdsIterator = jobIds.iterator();
+        if (jobPartitioner.isConsistentHash()) {
+            Map<String, List<SimpleScheduleJobDTO>> nodeJobs = jobPartitioner.partitionByOwner(jobs, SimpleScheduleJobDTO::getJobId);
+            if (!nodeJobs.isEmpty()) {
+                for (Map.Entry<String, List<SimpleScheduleJobDTO>> nodeJobsEntry : nodeJobs.entrySet()) {
+                    List<String> jobIds = nodeJobsEntry.getValue().stream().map(SimpleScheduleJobDTO::getJobId).collect(Collectors.toList());
+                    scheduleJobService.updateNodeAddressByJobIds(jobIds, nodeAddress, nodeJobsEntry.getKey());
+                    updateOperatorRecord(jobIds, nodeJobsEntry.getKey());
+                }
+                return;
+            }
+        }
 
         //任务多节点分发，每个节点要分发的任务量
-        Map<String, List<String>> nodeJobs = Maps.newHashMap();
-
-        Map<String, Integer> nodeJobSize = jobPartitioner.computeBatchJobSize(scheduleType, jobIds.size());
+        Map<String, Integer> nodeJobSize = jobPartitioner.computeBatchJobSize(scheduleType, jobs.size());
+        int from = 0;
         for (Map.Entry<String, Integer> nodeJobSizeEntry : nodeJobSize.entrySet()) {
-            String nodeAddress = nodeJobSizeEntry.getKey();
+            if (from >= jobs.size()) {
+                break;
+            }
             int nodeSize = nodeJobSizeEntry.getValue();
-            while (nodeSize > 0 && jobIdsIterator.hasNext()) {
-                nodeSize--;
-                List<String> nodeJobIds = nodeJobs.computeIfAbsent(nodeAddress, k -> Lists.newArrayList());
-                nodeJobIds.add(jobIdsIterator.next());
+            if (nodeSize <= 0) {
+                continue;
             }
+            int to = Math.min(from + nodeSize, jobs.size());
+            updateBatchJobs(nodeAddress, nodeJobSizeEntry.getKey(), jobs.subList(from, to), scheduleType);
+            from = to;
         }
-
-        updateBatchJobs(nodeJobs);
     }
 
-    private void updateBatchJobs(Map<String, List<String>> nodeJobs) {
-        for (Map.Entry<String, List<String>> nodeEntry : nodeJobs.entrySet()) {
-            if (nodeEntry.getValue().isEmpty()) {
-                continue;
-            }
+    private void updateBatchJobs(String fromAddress, String toAddress, List<SimpleScheduleJobDTO> jobs, Integer scheduleType) {
+        // 更新实例
+        scheduleJobService.updateNodeAddressByIdRange(jobs.get(0).getId(), jobs.get(jobs.size() - 1).getId(), scheduleType,
+                TaskStatus.getUnfinishedStatuses(), fromAddress, toAddress);
 
-            // 更新实例
-            ScheduleJob scheduleJob = new ScheduleJob();
-            scheduleJob.setNodeAddress(nodeEntry.getKey());
-            scheduleJobService.lambdaUpdate()
-                    .in(ScheduleJob::getJobId,nodeEntry.getValue())
-                    .update(scheduleJob);
+        // 更新jobOperatorRecord
+        List<String> jobIds = jobs.stream().map(SimpleScheduleJobDTO::getJobId).collect(Collectors.toList());
+        updateOperatorRecord(jobIds, toAddress);
+    }
 
-            // 更新jobOperatorRecord
-            ScheduleJobOperatorRecord scheduleJobOperatorRecord = new ScheduleJobOperatorRecord();
-            scheduleJobOperatorRecord.setNodeAddress(nodeEntry.getKey());
-            scheduleJobOperatorRecordService.lambdaUpdate()
-                    .in(ScheduleJobOperatorRecord::getJobId,nodeEntry.getValue())
-                    .update(scheduleJobOperatorRecord);
+    private void updateOperatorRecord(List<String> jobIds, String toAddress) {
+        ScheduleJobOperatorRecord scheduleJobOperatorRecord = new ScheduleJobOperatorRecord();
+        scheduleJobOperatorRecord.setNodeAddress(toAddress);
+        scheduleJobOperatorRecordService.lambdaUpdate()
+                .in(ScheduleJobOperatorRecord::getJobId, jobIds)
+                .update(scheduleJobOperatorRecord);
 
-            LOGGER.info("jobIds:{} failover to address:{}", nodeEntry.getValue(), nodeEntry.getKey());
-        }
+        LOGGER.info("jobIds:{} failover to address:{}", jobIds, toAddress);
     }
 
-    public void faultTolerantRecoverJobCache(String nodeAddress) {
+    /**
+     * 迁移宕机节点上的任务缓存，按批次读取后并行分发
+     *
+     * @return 迁移的任务缓存数
+     */
+    public int faultTolerantRecoverJobCache(String nodeAddress) {
+        AtomicInteger recovered = new AtomicInteger();
         try {
             //再次判断broker是否alive
             BrokerHeartNode brokerHeart = zkService.getBrokerHeartNode(nodeAddress);
             if (brokerHeart.getAlive()) {
-                return;
+                return 0;
             }
 
             //节点容灾恢复任务
             LOGGER.warn("----- nodeAddress:{} JobCache mission begins to resume----", nodeAddress);
-            long startId = 0L;
-            while (true) {
-                List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(startId, nodeAddress, null, null);
-                if (CollectionUtils.isEmpty(jobCaches)) {
-                    break;
-                }
-                Map<String, List<String>> jobResources = Maps.newHashMap();
-                List<String> submittedJobs = Lists.newArrayList();
-                for (ScheduleEngineJobCache jobCache : jobCaches) {
-                    try {
-                        if (EJobCacheStage.unSubmitted().contains(jobCache.getStage())) {
-                            List<String> jobIds = jobResources.computeIfAbsent(jobCache.getJobResource(), k -> Lists.newArrayList());
-                            jobIds.add(jobCache.getJobId());
-                        } else {
-                            submittedJobs.add(jobCache.getJobId());
-                        }
-                        startId = jobCache.getId();
-                    } catch (Exception e) {
-                        //数据转换异常--打日志
-                        LOGGER.error("faultTolerantRecoverJobCache {} error", jobCache.getJobId(),e);
-                        dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + ExceptionUtil.getErrorMessage(e));
+            BoundedBatchExecutor batchExecutor = new BoundedBatchExecutor("recoverJobCache", environmentContext.getJobFailoverParallelism());
+            try {
+                long startId = 0L;
+                while (true) {
+                    List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(startId, nodeAddress, null, null);
+                    if (CollectionUtils.isEmpty(jobCaches)) {
+                        break;
                     }
+                    startId = jobCaches.get(jobCaches.size() - 1).getId();
+                    batchExecutor.submit(() -> recovered.addAndGet(recoverJobCaches(jobCaches)));
                 }
-                distributeQueueJobs(jobResources);
-                distributeSubmittedJobs(submittedJobs);
+            } finally {
+                batchExecutor.await();
             }
             //在迁移任务的时候，可能出现要迁移的节点也宕机了，任务没有正常接收
             List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(0L, nodeAddress, null, null);
@@ -356,6 +519,29 @@ public class FailoverStrategy {
         } catch (Exception e) {
             LOGGER.error("----nodeAddress:{} faultTolerantRecoverJobCache error:", nodeAddress, e);
         }
+        return recovered.get();
+    }
+
+    private int recoverJobCaches(List<ScheduleEngineJobCache> jobCaches) {
+        Map<String, List<String>> jobResources = Maps.newHashMap();
+        List<String> submittedJobs = Lists.newArrayList();
+        for (ScheduleEngineJobCache jobCache : jobCaches) {
+            try {
+                if (EJobCacheStage.unSubmitted().contains(jobCache.getStage())) {
+                    List<String> jobIds = jobResources.computeIfAbsent(jobCache.getJobResource(), k -> Lists.newArrayList());
+                    jobIds.add(jobCache.getJobId());
+                } else {
+                    submittedJobs.add(jobCache.getJobId());
+                }
+            } catch (Exception e) {
+                //数据转换异常--打日志
+                LOGGER.error("faultTolerantRecoverJobCache {} error", jobCache.getJobId(),e);
+                dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + ExceptionUtil.getErrorMessage(e));
+            }
+        }
+        distributeQueueJobs(jobResources);
+        distributeSubmittedJobs(submittedJobs);
+        return jobCaches.size();
     }
 
     private void distributeQueueJobs(Map<String, List<String>> jobResources) {
@@ -394,8 +580,8 @@ public class FailoverStrategy {
         //任务多节点分发，每个节点要分发的任务量
         Map<String, List<String>> nodeJobs = Maps.newHashMap();
         Iterator<String> jobsIt = jobs.iterator();
-        int size = avg;
         for (String nodeAddress : aliveNodes) {
+            int size = avg;
             while (size > 0 && jobsIt.hasNext()) {
                 size--;
                 String jobId = jobsIt.next();
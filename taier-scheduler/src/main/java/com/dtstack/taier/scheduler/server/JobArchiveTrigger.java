@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.scheduler.service.ScheduleJobArchiveService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 只在 master 节点定时归档历史实例，见 {@link ScheduleJobArchiveService}
+ *
+ * @author jiangbo
+ */
+@Component
+public class JobArchiveTrigger implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobArchiveTrigger.class);
+
+    private static final long INITIAL_DELAY = 5 * 60 * 1000L;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    @Autowired
+    private ScheduleJobArchiveService scheduleJobArchiveService;
+
+    private ScheduledExecutorService scheduledService;
+
+    public void dealMaster(boolean isMaster) {
+        try {
+            if (isMaster) {
+                start();
+            } else {
+                stop();
+            }
+        } catch (Throwable e) {
+            LOGGER.error("JobArchiveTrigger.dealMaster error:", e);
+        }
+    }
+
+    private void start() {
+        if (!scheduleJobArchiveService.isEnable() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("JobArchiveTrigger"));
+        scheduledService.scheduleWithFixedDelay(
+                this,
+                INITIAL_DELAY,
+                environmentContext.getJobArchiveInterval(),
+                TimeUnit.MILLISECONDS);
+        LOGGER.info("start job archive trigger...");
+    }
+
+    private void stop() {
+        if (!running.compareAndSet(true, false)) {
+            return;
+        }
+        if (scheduledService != null) {
+            scheduledService.shutdownNow();
+        }
+        LOGGER.info("stop job archive trigger...");
+    }
+
+    @Override
+    public void run() {
+        try {
+            long start = System.currentTimeMillis();
+            scheduleJobArchiveService.archive();
+            LOGGER.info("job archive end, cost:{}ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOGGER.error("job archive error", e);
+        }
+    }
+}
@@ -18,18 +18,30 @@
 
 package com.dtstack.taier.scheduler.server;
 
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.util.ConsistentHashRing;
 import com.dtstack.taier.scheduler.server.listener.QueueListener;
 import com.dtstack.taier.scheduler.server.queue.GroupInfo;
 import com.dtstack.taier.scheduler.server.queue.QueueInfo;
 import com.dtstack.taier.scheduler.zookeeper.ZkService;
+import com.dtstack.taier.scheduler.zookeeper.data.OwnershipEpoch;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
 
 /**
  * company: www.dtstack.com
@@ -39,12 +51,100 @@ import java.util.Map;
 @Component
 public class JobPartitioner {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobPartitioner.class);
+
     @Autowired
     private QueueListener queueListener;
 
     @Autowired
     private ZkService zkService;
 
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    private volatile OwnershipRing ownershipRing;
+
+    /**
+     * 是否按一致性哈希分配实例归属
+     */
+    public boolean isConsistentHash() {
+        return Boolean.TRUE.equals(environmentContext.getJobConsistentHashEnable());
+    }
+
+    /**
+     * 按 zk 中记录的归属版本构建一致性哈希环，未记录时使用当前存活节点
+     */
+    public ConsistentHashRing getOwnershipRing() {
+        OwnershipEpoch ownershipEpoch = zkService.getOwnershipEpoch();
+        if (ownershipEpoch == null || CollectionUtils.isEmpty(ownershipEpoch.getNodes())) {
+            return new ConsistentHashRing(zkService.getAliveBrokersChildren(), environmentContext.getJobConsistentHashVirtualNodes());
+        }
+        OwnershipRing current = ownershipRing;
+        if (current == null || !current.epoch.equals(ownershipEpoch.getEpoch())) {
+            current = new OwnershipRing(ownershipEpoch.getEpoch(),
+                    new ConsistentHashRing(ownershipEpoch.getNodes(), environmentContext.getJobConsistentHashVirtualNodes()));
+            ownershipRing = current;
+        }
+        return current.ring;
+    }
+
+    /**
+     * 按哈希环上的归属节点对实例分组
+     *
+     * @param jobs    实例
+     * @param jobIdFn 获取实例 jobId
+     * @return 节点 -> 实例
+     */
+    public <T> Map<String, List<T>> partitionByOwner(Collection<T> jobs, Function<T, String> jobIdFn) {
+        ConsistentHashRing ring = getOwnershipRing();
+        Map<String, List<T>> nodeJobs = new LinkedHashMap<>();
+        if (ring.isEmpty()) {
+            return nodeJobs;
+        }
+        for (T job : jobs) {
+            nodeJobs.computeIfAbsent(ring.getNode(jobIdFn.apply(job)), k -> Lists.newArrayList()).add(job);
+        }
+        return nodeJobs;
+    }
+
+    /**
+     * 存活节点变化时更新归属版本，由 master 调用
+     *
+     * @param aliveNodes 当前存活节点
+     * @return 新加入的节点，归属未变化时为空
+     */
+    public synchronized List<String> refreshOwnership(List<String> aliveNodes) {
+        if (CollectionUtils.isEmpty(aliveNodes)) {
+            return Lists.newArrayList();
+        }
+        OwnershipEpoch current = zkService.getOwnershipEpoch();
+        if (current == null) {
+            return Lists.newArrayList();
+        }
+        List<String> nodes = new ArrayList<>(new TreeSet<>(aliveNodes));
+        List<String> currentNodes = current.getNodes() == null ? Lists.newArrayList() : current.getNodes();
+        if (nodes.equals(currentNodes)) {
+            return Lists.newArrayList();
+        }
+        OwnershipEpoch next = new OwnershipEpoch();
+        next.setEpoch(current.getEpoch() + 1);
+        next.setNodes(nodes);
+        try {
+            zkService.setOwnershipEpoch(next);
+        } catch (Exception e) {
+            LOGGER.error("update ownership epoch {} error", next.getEpoch(), e);
+            return Lists.newArrayList();
+        }
+        LOGGER.warn("ownership epoch {} nodes {} -> epoch {} nodes {}", current.getEpoch(), currentNodes, next.getEpoch(), nodes);
+        // 首次记录时所有节点都视为已有节点
+        if (currentNodes.isEmpty()) {
+            return Lists.newArrayList();
+        }
+        List<String> joinedNodes = new ArrayList<>(nodes);
+        joinedNodes.removeAll(currentNodes);
+        return joinedNodes;
+    }
+
     public Map<String, Integer> getDefaultStrategy(List<String> aliveNodes, int jobSize) {
         Map<String, Integer> jobSizeInfo = new HashMap<>(aliveNodes.size());
         int size = (jobSize / aliveNodes.size()) + 1;
@@ -118,6 +218,18 @@ public class JobPartitioner {
         return nodeSort;
     }
 
+    private static class OwnershipRing {
+
+        private final Long epoch;
+
+        private final ConsistentHashRing ring;
+
+        private OwnershipRing(Long epoch, ConsistentHashRing ring) {
+            this.epoch = epoch;
+            this.ring = ring;
+        }
+    }
+
     public Map<String, GroupInfo> getGroupInfoByJobResource(String jobResource) {
         Map<String, Map<String, GroupInfo>> allNodesGroupQueueJobResources = queueListener.getAllNodesGroupQueueInfo();
         if (allNodesGroupQueueJobResources.isEmpty()) {
@@ -88,7 +88,10 @@ public class FillDataRunnable implements Runnable {
             }
 
             // 生成补数据实例
-            fillDataJobBuilder.createFillJob(all, run,fillId,fillName,beginTime,endTime,startDay,endDay);
+            if (!fillDataJobBuilder.createFillJob(all, run, fillId, fillName, beginTime, endTime, startDay, endDay)) {
+                // 已被其他节点接管，生成状态由接管节点更新
+                return;
+            }
 
         } catch (Throwable e) {
             LOGGER.error("fillId:{} create exception:",fillId,e);
@@ -106,6 +109,10 @@ public class FillDataRunnable implements Runnable {
 
 
 
+    public Long getFillId() {
+        return fillId;
+    }
+
     private FillDataTask getFillDataTask() {
         if (FillDataTypeEnum.BATCH.getType().equals(fillDataType)) {
             return new BatchFillDataTask(applicationContext, new FillDataInfoDTO(taskIds,rootTaskId));
@@ -8,6 +8,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * @Auther: dazhi
  * @Date: 2021/9/10 2:05 下午
@@ -22,6 +25,11 @@ public class FillDataThreadPoolExecutor implements InitializingBean, DisposableB
 
     private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
+    /**
+     * 已提交到线程池、排队或生成中的补数据
+     */
+    private final Set<Long> activeFills = ConcurrentHashMap.newKeySet();
+
     @Override
     public void afterPropertiesSet() throws Exception {
         //线程池维护线程的最少数量
@@ -41,7 +49,29 @@ public class FillDataThreadPoolExecutor implements InitializingBean, DisposableB
     }
 
     public void submit(FillDataRunnable fillDataRunnable) {
-        executor.execute(fillDataRunnable);
+        Long fillId = fillDataRunnable.getFillId();
+        if (!activeFills.add(fillId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    fillDataRunnable.run();
+                } finally {
+                    activeFills.remove(fillId);
+                }
+            });
+        } catch (RuntimeException e) {
+            activeFills.remove(fillId);
+            throw e;
+        }
+    }
+
+    /**
+     * 补数据是否已在当前节点排队或生成中
+     */
+    public boolean isActive(Long fillId) {
+        return activeFills.contains(fillId);
     }
 
 }
@@ -62,9 +62,7 @@ public class ForkJoinJobTask extends RecursiveTask<Map<String,String>> {
         }
 
         //查询子工作任务
-        List<ScheduleJobJob> scheduleJobJobList = scheduleJobJobService.lambdaQuery().eq(ScheduleJobJob::getParentJobKey, jobKey)
-                .eq(ScheduleJobJob::getIsDeleted, Deleted.NORMAL.getStatus())
-                .list();
+        List<ScheduleJobJob> scheduleJobJobList = scheduleJobJobService.listByParentJobKeys(Lists.newArrayList(jobKey));
         if (CollectionUtils.isEmpty(scheduleJobJobList)) {
             return null;
         }
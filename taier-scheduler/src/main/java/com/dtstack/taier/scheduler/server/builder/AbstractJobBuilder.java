@@ -19,7 +19,6 @@ import com.dtstack.taier.scheduler.server.builder.dependency.DependencyManager;
 import com.dtstack.taier.scheduler.service.ScheduleActionService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.service.ScheduleTaskShadeService;
-import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
 import com.dtstack.taier.scheduler.utils.JobKeyUtils;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
@@ -32,13 +31,17 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * @Auther: dazhi
@@ -80,6 +83,41 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
 
         // 解析周期信息
         ScheduleCorn corn = ScheduleConfManager.parseFromJson(scheduleTaskShade.getScheduleConf());
+        List<ScheduleTaskShade> subTasks = null;
+        if (EScheduleJobType.WORK_FLOW.getVal().equals(scheduleTaskShade.getTaskType())) {
+            subTasks = scheduleTaskService.lambdaQuery()
+                    .eq(ScheduleTaskShade::getFlowId, scheduleTaskShade.getTaskId())
+                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list();
+        }
+        return buildJob(scheduleTaskShade, corn, subTasks, dependencyManager::getParentTasks, name, triggerDay, beginTime, endTime, fillId, jobSortWorker);
+    }
+
+    /**
+     * 生成实例，任务的周期、工作流子任务和上游任务由调用方提供，多天生成时只需加载一次
+     *
+     * @param scheduleTaskShade 任务
+     * @param corn              任务周期
+     * @param subTasks          工作流子任务
+     * @param parentTaskLoader  根据任务id获得上游任务
+     * @param name              实例名称
+     * @param triggerDay        目标天
+     * @param beginTime         开始时间
+     * @param endTime           结束时间
+     * @param fillId            补数据id
+     * @param jobSortWorker     排序器
+     * @return 实例
+     */
+    protected List<ScheduleJobDetails> buildJob(ScheduleTaskShade scheduleTaskShade,
+                                                ScheduleCorn corn,
+                                                List<ScheduleTaskShade> subTasks,
+                                                Function<Long, List<ScheduleTaskShade>> parentTaskLoader,
+                                                String name,
+                                                String triggerDay,
+                                                String beginTime,
+                                                String endTime,
+                                                Long fillId,
+                                                JobSortWorker jobSortWorker) throws Exception {
         ScheduleConf scheduleConf = corn.getScheduleConf();
 
         // 校验时间是否符合规范，且获得时间范围
@@ -91,24 +129,33 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
 
         List<ScheduleJobDetails> jobBuilderBeanList = Lists.newArrayList();
 
+        // 上游任务在同一任务的各个周期间不变，只查询一次
+        List<ScheduleTaskShade> parentTasks = null;
+        Map<Long, List<ScheduleTaskShade>> subTaskParents = null;
         Date next = corn.isMatch(startDate) ? startDate : corn.next(startDate);
         while (next != null) {
             // 如下下一次执行时间已经在结束时间之后，停止生成实例
             if (next.after(endDate)) {
                 break;
             }
-            ScheduleJobDetails jobBuilderBean = buildJobBuilderBean(scheduleTaskShade, name, fillId, jobSortWorker, corn, scheduleConf, next, NORMAL_TASK_FLOW_ID);
+            if (parentTasks == null) {
+                parentTasks = getOrEmpty(parentTaskLoader.apply(scheduleTaskShade.getTaskId()));
+            }
+            ScheduleJobDetails jobBuilderBean = buildJobBuilderBean(scheduleTaskShade, name, fillId, jobSortWorker, corn, scheduleConf, next, NORMAL_TASK_FLOW_ID, parentTasks);
 
-            if (EScheduleJobType.WORK_FLOW.getVal().equals(scheduleTaskShade.getTaskType())) {
+            if (EScheduleJobType.WORK_FLOW.getVal().equals(scheduleTaskShade.getTaskType()) && subTasks != null) {
                 // 该任务是工作流任务 先生成子任务
-                List<ScheduleTaskShade> subTasks = scheduleTaskService.lambdaQuery()
-                        .eq(ScheduleTaskShade::getFlowId, scheduleTaskShade.getTaskId())
-                        .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                        .list();
+                if (subTaskParents == null) {
+                    subTaskParents = new HashMap<>(subTasks.size());
+                    for (ScheduleTaskShade subTask : subTasks) {
+                        subTaskParents.put(subTask.getTaskId(), getOrEmpty(parentTaskLoader.apply(subTask.getTaskId())));
+                    }
+                }
                 List<ScheduleJobDetails> flowBean = Lists.newArrayList();
                 ScheduleJob scheduleJob = jobBuilderBean.getScheduleJob();
                 for (ScheduleTaskShade subTask : subTasks) {
-                    flowBean.add(buildJobBuilderBean(subTask, name, fillId, jobSortWorker, corn, scheduleConf, next, scheduleJob.getJobId()));
+                    flowBean.add(buildJobBuilderBean(subTask, name, fillId, jobSortWorker, corn, scheduleConf, next, scheduleJob.getJobId(),
+                            subTaskParents.get(subTask.getTaskId())));
                 }
                 jobBuilderBean.setFlowBean(flowBean);
             }
@@ -120,6 +167,10 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
         return jobBuilderBeanList;
     }
 
+    private List<ScheduleTaskShade> getOrEmpty(List<ScheduleTaskShade> taskShadeList) {
+        return taskShadeList == null ? Collections.emptyList() : taskShadeList;
+    }
+
     /**
      * 周期实例生成bean方法
      *
@@ -127,7 +178,7 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
      * @param triggerDay     目标天
      * @param sortWorker     排序器
      */
-    public List<ScheduleJobDetails> buildJob(ScheduleTaskShade batchTaskShade, String triggerDay, AtomicJobSortWorker sortWorker) throws Exception {
+    public List<ScheduleJobDetails> buildJob(ScheduleTaskShade batchTaskShade, String triggerDay, JobSortWorker sortWorker) throws Exception {
         return buildJob(batchTaskShade, "", triggerDay, "00:00", "23:59", 0L, sortWorker);
     }
 
@@ -152,6 +203,8 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
      * @param corn              周期实例
      * @param scheduleConf      调度配置
      * @param currentData       当前时间
+     * @param flowJobId         工作流实例id
+     * @param parentTasks       上游任务
      * @return
      */
     private ScheduleJobDetails buildJobBuilderBean(ScheduleTaskShade scheduleTaskShade,
@@ -161,7 +214,8 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
                                                    ScheduleCorn corn,
                                                    ScheduleConf scheduleConf,
                                                    Date currentData,
-                                                   String flowJobId) {
+                                                   String flowJobId,
+                                                   List<ScheduleTaskShade> parentTasks) {
         String triggerTime = DateUtil.getDate(currentData, DateUtil.STANDARD_DATETIME_FORMAT);
         String cycTime = DateUtil.getTimeStrWithoutSymbol(triggerTime);
         String jobKey = JobKeyUtils.generateJobKey(getKeyPreStr(name), scheduleTaskShade.getTaskId(), cycTime);
@@ -189,11 +243,11 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
         scheduleJob.setVersionId(scheduleTaskShade.getVersionId());
         scheduleJob.setComputeType(scheduleTaskShade.getComputeType());
         scheduleJob.setNextCycTime(DateUtil.getDate(corn.next(currentData), DateUtil.STANDARD_DATETIME_FORMAT));
-        scheduleJob.setJobExecuteOrder(JobExecuteOrderUtil.buildJobExecuteOrder(cycTime, jobSortWorker.getSort()));
+        scheduleJob.setJobExecuteOrder(jobSortWorker.getExecuteOrder(scheduleTaskShade, cycTime));
 
         // 获得依赖
         List<ScheduleJobJob> jobJobList = Lists.newArrayList();
-        JobDependency dependencyHandler = dependencyManager.getDependencyHandler(getKeyPreStr(name), scheduleTaskShade, corn);
+        JobDependency dependencyHandler = dependencyManager.getDependencyHandler(getKeyPreStr(name), scheduleTaskShade, corn, parentTasks);
         jobJobList.addAll(dependencyHandler.generationJobJobForTask(corn, currentData, jobKey));
 
         ScheduleJobDetails jobBuilderBean = new ScheduleJobDetails();
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server.builder;
+
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按关键路径排序
+ * <p>
+ * 实例的剩余关键路径 = 实例自身在该小时的预估时长 + 任务下游最长路径的预估时长，
+ * 同一分钟内剩余关键路径越长的实例 job_execute_order 越小，扫描时越先提交
+ *
+ * @author jiangbo
+ */
+public class CriticalPathJobSortWorker implements JobSortWorker {
+
+    private final TaskRuntimeEstimator estimator;
+
+    /**
+     * key 任务id，value 下游最长路径的预估时长
+     */
+    private final Map<Long, Long> downstreamSeconds;
+
+    /**
+     * key 计划时间(分钟)+等级，同一分钟、同一等级内自增
+     */
+    private final Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+
+    private final AtomicInteger atomicInteger = new AtomicInteger();
+
+    public CriticalPathJobSortWorker(TaskRuntimeEstimator estimator, Map<Long, Long> downstreamSeconds) {
+        this.estimator = estimator;
+        this.downstreamSeconds = downstreamSeconds;
+    }
+
+    @Override
+    public Integer getSort() {
+        return atomicInteger.getAndIncrement();
+    }
+
+    @Override
+    public Long getExecuteOrder(ScheduleTaskShade scheduleTaskShade, String cycTime) {
+        Long taskId = scheduleTaskShade.getTaskId();
+        int hour = Integer.parseInt(cycTime.substring(8, 10));
+        long remainingSeconds = estimator.estimate(taskId, hour) + downstreamSeconds.getOrDefault(taskId, 0L);
+        int level = JobExecuteOrderUtil.getCriticalPathLevel(remainingSeconds);
+        int count = counters.computeIfAbsent(cycTime.substring(0, 12) + level, k -> new AtomicInteger()).getAndIncrement();
+        return JobExecuteOrderUtil.buildJobExecuteOrder(cycTime, level, count);
+    }
+}
@@ -4,16 +4,21 @@ import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EScheduleStatus;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.util.DagCriticalPath;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.dao.domain.ScheduleTaskTaskShade;
+import com.dtstack.taier.dao.domain.po.TaskExecTimePO;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.pluginapi.util.RetryUtil;
 import com.dtstack.taier.scheduler.druid.DtDruidRemoveAbandoned;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
 import com.dtstack.taier.scheduler.service.JobGraphTriggerService;
+import com.dtstack.taier.scheduler.service.ScheduleTaskTaskService;
 import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import org.apache.commons.collections.CollectionUtils;
+import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,7 +26,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.Lock;
@@ -40,9 +49,14 @@ public class CycleJobBuilder extends AbstractJobBuilder {
 
     private static final String CRON_JOB_NAME = "cronJob";
 
+    private static final String CYC_DAY_FORMAT = "yyyyMMdd";
+
     @Autowired
     protected JobGraphTriggerService jobGraphTriggerService;
 
+    @Autowired
+    private ScheduleTaskTaskService scheduleTaskTaskService;
+
     private final Lock lock = new ReentrantLock();
 
     public void buildTaskJobGraph(String triggerDay) {
@@ -79,7 +93,7 @@ public class CycleJobBuilder extends AbstractJobBuilder {
 
             Semaphore sph = new Semaphore(environmentContext.getMaxTaskBuildThread());
             CountDownLatch ctl = new CountDownLatch(totalBatch);
-            AtomicJobSortWorker sortWorker = new AtomicJobSortWorker();
+            JobSortWorker sortWorker = buildSortWorker(triggerDay);
 
             // 3. 查询db多线程生成周期实例
             Long startId = 0L;
@@ -135,6 +149,58 @@ public class CycleJobBuilder extends AbstractJobBuilder {
         }
     }
 
+    /**
+     * 构建排序器，开启关键路径排序时按任务历史运行时长和下游最长路径排序，否则按生成顺序排序
+     *
+     * @param triggerDay 目标天 yyyy-MM-dd
+     * @return 排序器
+     */
+    private JobSortWorker buildSortWorker(String triggerDay) {
+        if (!Boolean.TRUE.equals(environmentContext.getJobCriticalPathEnable())) {
+            return new AtomicJobSortWorker();
+        }
+        try {
+            DateTime endDay = new DateTime(DateUtil.parseDate(triggerDay, DateUtil.DATE_FORMAT, Locale.CHINA));
+            DateTime startDay = endDay.minusDays(environmentContext.getJobCriticalPathHistoryDays());
+            List<TaskExecTimePO> history = scheduleJobService.listTaskExecTime(startDay.toString(CYC_DAY_FORMAT) + "000000",
+                    endDay.toString(CYC_DAY_FORMAT) + "000000");
+            TaskRuntimeEstimator estimator = new TaskRuntimeEstimator(history, environmentContext.getJobCriticalPathEwmaAlpha(),
+                    environmentContext.getJobCriticalPathDefaultExecSeconds());
+
+            Map<Long, List<Long>> nodeSide = getNodeSide();
+            Map<Long, Long> downstreamSeconds = DagCriticalPath.downstreamLength(nodeSide, estimator::estimate);
+            LOGGER.info("trigger Day {} critical path sort worker, history size:{} side size:{}", triggerDay, history.size(), nodeSide.size());
+            return new CriticalPathJobSortWorker(estimator, downstreamSeconds);
+        } catch (Exception e) {
+            LOGGER.error("trigger Day {} build critical path sort worker error, use build order", triggerDay, e);
+            return new AtomicJobSortWorker();
+        }
+    }
+
+    /**
+     * 分批查询所有任务依赖，key 为上游任务，value 为下游任务
+     */
+    private Map<Long, List<Long>> getNodeSide() {
+        Map<Long, List<Long>> nodeSide = new HashMap<>();
+        Long startId = 0L;
+        while (true) {
+            List<ScheduleTaskTaskShade> taskTaskShades = scheduleTaskTaskService.lambdaQuery()
+                    .select(ScheduleTaskTaskShade::getId, ScheduleTaskTaskShade::getTaskId, ScheduleTaskTaskShade::getParentTaskId)
+                    .gt(ScheduleTaskTaskShade::getId, startId)
+                    .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .orderByAsc(ScheduleTaskTaskShade::getId)
+                    .last("limit " + environmentContext.getFillDataLimitSize())
+                    .list();
+            if (CollectionUtils.isEmpty(taskTaskShades)) {
+                return nodeSide;
+            }
+            for (ScheduleTaskTaskShade taskTaskShade : taskTaskShades) {
+                nodeSide.computeIfAbsent(taskTaskShade.getParentTaskId(), k -> new ArrayList<>()).add(taskTaskShade.getTaskId());
+            }
+            startId = taskTaskShades.get(taskTaskShades.size() - 1).getId();
+        }
+    }
+
     private void clearInterruptJob(Timestamp triggerDay) {
         String date = DateUtil.getUnStandardFormattedDate(triggerDay.getTime());
         Long startExecuteOrder = JobExecuteOrderUtil.buildJobExecuteOrder(date, 0);
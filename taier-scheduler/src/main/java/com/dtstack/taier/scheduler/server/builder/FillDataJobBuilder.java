@@ -1,30 +1,50 @@
 package com.dtstack.taier.scheduler.server.builder;
 
 import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.enums.EScheduleJobType;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.enums.ForceCancelFlag;
 import com.dtstack.taier.common.enums.OperatorType;
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.dao.domain.ScheduleFillDataJob;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleJobOperatorRecord;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.pluginapi.exception.ExceptionUtil;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.pluginapi.util.RetryUtil;
 import com.dtstack.taier.scheduler.enums.FillJobTypeEnum;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
+import com.dtstack.taier.scheduler.service.ScheduleFillDataJobService;
 import com.dtstack.taier.scheduler.service.ScheduleJobOperatorRecordService;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
+import org.joda.time.Days;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -40,12 +60,25 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
 
     private static final String FILL_DATA_TYPE = "fillData";
 
+    private static final int QUERY_PARTITION_SIZE = 500;
+
     @Autowired
     private ScheduleJobOperatorRecordService scheduleJobOperatorRecordService;
 
+    @Autowired
+    private ScheduleFillDataJobService scheduleFillDataJobService;
+
+    /**
+     * 当前节点正在生成的补数据
+     */
+    private final Set<Long> generatingFills = ConcurrentHashMap.newKeySet();
 
     /**
      * 创建补数据实例
+     * <p>
+     * 任务信息和依赖一次加载，按天顺序生成，每天的任务分批提交到线程池且同时执行的批次有上限，任一任务生成失败时整个补数据失败；
+     * 一天的实例和进度在同一个事务中保存，节点宕机后接管的节点从记录的进度继续生成；
+     * 每天生成前和记录进度时校验补数据仍归属当前节点，被接管后停止生成
      *
      * @param all       all list 所有节点
      * @param run       run list 可运行节点
@@ -55,26 +88,126 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
      * @param endTime   结束时间
      * @param startDay  每天时间范围 开始范围
      * @param endDay    每天时间范围 结束范围
+     * @return false 表示补数据已被其他节点接管，当前节点停止生成
      * @throws Exception
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void createFillJob(Set<Long> all, Set<Long> run, Long fillId, String fillName, String beginTime, String endTime,
+    public boolean createFillJob(Set<Long> all, Set<Long> run, Long fillId, String fillName, String beginTime, String endTime,
                               String startDay, String endDay) throws Exception {
-        Date startDate = DateUtil.parseDate(startDay, DateUtil.DATE_FORMAT, Locale.CHINA);
-        Date endDate = DateUtil.parseDate(endDay, DateUtil.DATE_FORMAT, Locale.CHINA);
-
-        DateTime startTime = new DateTime(startDate);
-        DateTime finishTime = new DateTime(endDate);
-        while (startTime.getMillis() <= finishTime.getMillis()) {
-            String triggerDay = startTime.toString(DateUtil.DATE_FORMAT);
-            buildFillDataJobGraph(fillName, fillId, all, run, triggerDay, beginTime, endTime);
-            startTime = startTime.plusDays(1);
+        if (!generatingFills.add(fillId)) {
+            throw new RdosDefineException("fillId:" + fillId + " is generating");
         }
+        try {
+            Date startDate = DateUtil.parseDate(startDay, DateUtil.DATE_FORMAT, Locale.CHINA);
+            Date endDate = DateUtil.parseDate(endDay, DateUtil.DATE_FORMAT, Locale.CHINA);
+
+            DateTime startTime = new DateTime(startDate);
+            DateTime finishTime = new DateTime(endDate);
+            int totalDays = Days.daysBetween(startTime, finishTime).getDays() + 1;
+
+            // 从上次记录的进度继续生成，接管时第一天可能已生成了部分实例，需要跳过
+            ScheduleFillDataJob fillDataJob = scheduleFillDataJobService.getById(fillId);
+            int generateJobNum = 0;
+            if (fillDataJob != null && StringUtils.isNotBlank(fillDataJob.getFinishDay())) {
+                startTime = new DateTime(DateUtil.parseDate(fillDataJob.getFinishDay(), DateUtil.DATE_FORMAT, Locale.CHINA)).plusDays(1);
+                generateJobNum = fillDataJob.getGenerateJobNum() == null ? 0 : fillDataJob.getGenerateJobNum();
+                LOGGER.info("fillId:{} resume from {} generateJobNum:{}", fillId, startTime.toString(DateUtil.DATE_FORMAT), generateJobNum);
+            }
+            boolean resume = true;
+
+            FillDataPlan plan = buildFillDataPlan(all);
+            LOGGER.info("fillId:{} plan loaded, task size:{} build task size:{}", fillId, all.size(), plan.getBuildTaskIds().size());
+
+            String localAddress = environmentContext.getLocalAddress();
+            while (startTime.getMillis() <= finishTime.getMillis()) {
+                String triggerDay = startTime.toString(DateUtil.DATE_FORMAT);
+                if (!scheduleFillDataJobService.isOwner(fillId, localAddress)) {
+                    LOGGER.warn("fillId:{} has been taken over by other node, stop generating before day:{}", fillId, triggerDay);
+                    return false;
+                }
+                List<ScheduleJobDetails> dayJobs = buildFillDataJobGraph(plan, fillName, fillId, all, run, triggerDay, beginTime, endTime, resume);
+                generateJobNum += dayJobs.size();
+                if (!scheduleFillDataJobService.saveDayWithProgress(fillId, triggerDay, generateJobNum, localAddress, () -> savaFillJob(dayJobs))) {
+                    LOGGER.warn("fillId:{} has been taken over by other node, stop generating after day:{}", fillId, triggerDay);
+                    return false;
+                }
+                int finishDays = Days.daysBetween(new DateTime(startDate), startTime).getDays() + 1;
+                LOGGER.info("fillId:{} day:{} finished, progress:{}/{} generateJobNum:{}", fillId, triggerDay, finishDays, totalDays, generateJobNum);
+                resume = false;
+                startTime = startTime.plusDays(1);
+            }
+            return true;
+        } finally {
+            generatingFills.remove(fillId);
+        }
+    }
+
+    /**
+     * 当前节点是否正在生成该补数据
+     */
+    public boolean isGenerating(Long fillId) {
+        return generatingFills.contains(fillId);
     }
 
     /**
-     * 创建一天的补数据实例
+     * 一次加载补数据涉及的任务、工作流子任务和上游任务
      *
+     * @param all all list 所有节点
+     * @return 生成计划
+     */
+    private FillDataPlan buildFillDataPlan(Set<Long> all) {
+        Map<Long, ScheduleTaskShade> tasks = new HashMap<>(all.size());
+        for (List<Long> partition : Lists.partition(new ArrayList<>(all), QUERY_PARTITION_SIZE)) {
+            scheduleTaskService.lambdaQuery()
+                    .in(ScheduleTaskShade::getTaskId, partition)
+                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list()
+                    .forEach(task -> tasks.put(task.getTaskId(), task));
+        }
+
+        Map<Long, ScheduleCorn> corns = new HashMap<>(tasks.size());
+        List<Long> buildTaskIds = new ArrayList<>(tasks.size());
+        List<Long> flowIds = new ArrayList<>();
+        for (ScheduleTaskShade task : tasks.values()) {
+            // 工作流子任务随工作流一起生成
+            if (task.getFlowId() != 0 && all.contains(task.getFlowId())) {
+                continue;
+            }
+            try {
+                corns.put(task.getTaskId(), ScheduleConfManager.parseFromJson(task.getScheduleConf()));
+            } catch (Exception e) {
+                LOGGER.error("taskKey : {} error:", task.getTaskId(), e);
+                continue;
+            }
+            buildTaskIds.add(task.getTaskId());
+            if (EScheduleJobType.WORK_FLOW.getVal().equals(task.getTaskType())) {
+                flowIds.add(task.getTaskId());
+            }
+        }
+
+        Map<Long, List<ScheduleTaskShade>> subTasks = new HashMap<>(flowIds.size());
+        for (Long flowId : flowIds) {
+            subTasks.put(flowId, new ArrayList<>());
+        }
+        Set<Long> dependencyTaskIds = new HashSet<>(buildTaskIds);
+        for (List<Long> partition : Lists.partition(flowIds, QUERY_PARTITION_SIZE)) {
+            scheduleTaskService.lambdaQuery()
+                    .in(ScheduleTaskShade::getFlowId, partition)
+                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list()
+                    .forEach(subTask -> {
+                        subTasks.get(subTask.getFlowId()).add(subTask);
+                        dependencyTaskIds.add(subTask.getTaskId());
+                    });
+        }
+
+        Map<Long, List<ScheduleTaskShade>> parentTasks = dependencyManager.getParentTasks(dependencyTaskIds);
+        return new FillDataPlan(tasks, corns, subTasks, parentTasks, buildTaskIds);
+    }
+
+    /**
+     * 生成一天的补数据实例，由调用方和进度一起保存
+     *
+     * @param plan       生成计划
      * @param fillName   补数据名称
      * @param fillId     补数据id
      * @param all        all list 所有节点
@@ -82,59 +215,112 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
      * @param triggerDay 具体目标天
      * @param beginTime  每天时间范围 开始范围
      * @param endTime    每天时间范围 结束范围
+     * @param resume     是否为续跑的第一天，需要跳过已生成的实例
      * @throws Exception
      */
-    @Transactional(rollbackFor = Exception.class)
-    public void buildFillDataJobGraph(String fillName, Long fillId, Set<Long> all, Set<Long> run, String triggerDay,
-                                       String beginTime, String endTime) throws Exception {
-        List<Long> allList = Lists.newArrayList(all);
-        List<List<Long>> partition = Lists.partition(allList, environmentContext.getJobGraphTaskLimitSize());
+    private List<ScheduleJobDetails> buildFillDataJobGraph(FillDataPlan plan, String fillName, Long fillId, Set<Long> all, Set<Long> run, String triggerDay,
+                                                           String beginTime, String endTime, boolean resume) throws Exception {
+        Set<String> existJobKeys = resume ? recoverExistJobs(fillId, triggerDay) : Collections.emptySet();
+        List<List<Long>> partition = Lists.partition(plan.getBuildTaskIds(), environmentContext.getJobGraphTaskLimitSize());
         AtomicJobSortWorker sortWorker = new AtomicJobSortWorker();
+        Semaphore inflightBatch = new Semaphore(Math.max(1, environmentContext.getFillDataMaxInflightBatch()));
+        List<Future<List<ScheduleJobDetails>>> futures = new ArrayList<>(partition.size());
 
-        for (List<Long> taskKey : partition) {
-            jobGraphBuildPool.submit(() -> {
-                try {
-                    List<ScheduleJobDetails> saveList = Lists.newArrayList();
-                    for (Long taskId : taskKey) {
-                        try {
-                            ScheduleTaskShade scheduleTaskShade = scheduleTaskService
-                                    .lambdaQuery()
-                                    .eq(ScheduleTaskShade::getTaskId, taskId)
-                                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                                    .one();
-
-                            if (scheduleTaskShade != null) {
-                                List<ScheduleJobDetails> jobBuilderBeanList = Lists.newArrayList();
-                                // 非工作流任务子任务
-                                if (scheduleTaskShade.getFlowId() == 0) {
-                                    // 生成补数据实例
-                                    jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, fillName, triggerDay, beginTime, endTime, fillId, sortWorker),
-                                            environmentContext.getBuildJobErrorRetry(), 200, false);
-                                } else {
-                                    Long flowId = scheduleTaskShade.getFlowId();
-                                    if (!allList.contains(flowId)) {
-                                        // 生成周期实例
-                                        jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, fillName, triggerDay, beginTime, beginTime, fillId, sortWorker),
-                                                environmentContext.getBuildJobErrorRetry(), 200, false);
-                                    }
-                                }
-
-                                for (ScheduleJobDetails jobBuilderBean : jobBuilderBeanList) {
-                                    addMap(run, saveList, taskId, jobBuilderBean);
-                                }
-                            }
-                        } catch (Exception e) {
-                            LOGGER.error("taskKey : {} error:", taskId, e);
-                        }
+        try {
+            for (List<Long> taskKey : partition) {
+                // 限制同时生成的批次，避免整天的实例堆积在内存和线程池队列中
+                inflightBatch.acquire();
+                Callable<List<ScheduleJobDetails>> batch = () -> {
+                    try {
+                        return buildFillDataJobBatch(plan, fillName, fillId, all, run, triggerDay, beginTime, endTime, sortWorker, taskKey, existJobKeys);
+                    } finally {
+                        inflightBatch.release();
                     }
-                    savaFillJob(saveList);
-                } catch (Exception e) {
-                    LOGGER.error("fill error:", e);
+                };
+                futures.add(submitBatch(batch));
+            }
+
+            List<ScheduleJobDetails> dayJobs = new ArrayList<>();
+            for (Future<List<ScheduleJobDetails>> future : futures) {
+                dayJobs.addAll(future.get());
+            }
+            return dayJobs;
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(false));
+            throw new RdosDefineException("fillId:" + fillId + " build day " + triggerDay + " error:" + ExceptionUtil.getErrorMessage(e.getCause()));
+        }
+    }
+
+    private List<ScheduleJobDetails> buildFillDataJobBatch(FillDataPlan plan, String fillName, Long fillId, Set<Long> all, Set<Long> run, String triggerDay,
+                                                           String beginTime, String endTime, AtomicJobSortWorker sortWorker, List<Long> taskKey,
+                                                           Set<String> existJobKeys) {
+        List<ScheduleJobDetails> saveList = Lists.newArrayList();
+        for (Long taskId : taskKey) {
+            try {
+                ScheduleTaskShade scheduleTaskShade = plan.getTask(taskId);
+                ScheduleCorn corn = plan.getCorn(taskId);
+                List<ScheduleTaskShade> subTasks = plan.getSubTasks(taskId);
+                // 非工作流任务子任务生成补数据实例，所在工作流不在补数据范围内的子任务生成周期实例
+                String taskEndTime = scheduleTaskShade.getFlowId() == 0 ? endTime : beginTime;
+                List<ScheduleJobDetails> jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, corn, subTasks,
+                                plan::getParentTasks, fillName, triggerDay, beginTime, taskEndTime, fillId, sortWorker),
+                        environmentContext.getBuildJobErrorRetry(), 200, false);
+
+                for (ScheduleJobDetails jobBuilderBean : jobBuilderBeanList) {
+                    addMap(run, saveList, taskId, jobBuilderBean);
                 }
-            });
+            } catch (Exception e) {
+                // 缺少的实例在续跑时无法补回，整天失败而不是跳过该任务
+                LOGGER.error("fillId:{} taskKey : {} error:", fillId, taskId, e);
+                throw new RdosDefineException("taskId:" + taskId + " build fill job error:" + ExceptionUtil.getErrorMessage(e), e);
+            }
+        }
+        if (!existJobKeys.isEmpty()) {
+            saveList.removeIf(jobBuilderBean -> existJobKeys.contains(jobBuilderBean.getScheduleJob().getJobKey()));
+        }
+        return saveList;
+    }
+
+    /**
+     * 线程池队列已满时由当前线程执行
+     */
+    private Future<List<ScheduleJobDetails>> submitBatch(Callable<List<ScheduleJobDetails>> batch) {
+        try {
+            return jobGraphBuildPool.submit(batch);
+        } catch (RejectedExecutionException e) {
+            FutureTask<List<ScheduleJobDetails>> task = new FutureTask<>(batch);
+            task.run();
+            return task;
         }
     }
 
+    /**
+     * 续跑时查询该天已生成的实例，补全操作记录并返回其 jobKey
+     *
+     * @param fillId     补数据id
+     * @param triggerDay 具体目标天
+     * @return 已生成实例的 jobKey
+     */
+    private Set<String> recoverExistJobs(Long fillId, String triggerDay) {
+        String cycDay = triggerDay.replace("-", "");
+        List<ScheduleJob> existJobs = scheduleJobService.lambdaQuery()
+                .select(ScheduleJob::getJobId, ScheduleJob::getJobKey, ScheduleJob::getNodeAddress)
+                .eq(ScheduleJob::getFillId, fillId)
+                .between(ScheduleJob::getCycTime, cycDay + "000000", cycDay + "235959")
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+        if (CollectionUtils.isEmpty(existJobs)) {
+            return Collections.emptySet();
+        }
+        Set<ScheduleJobOperatorRecord> operatorRecords = existJobs
+                .stream()
+                .map(scheduleJob -> buildOperatorRecord(scheduleJob.getJobId(), scheduleJob.getNodeAddress()))
+                .collect(Collectors.toSet());
+        scheduleJobOperatorRecordService.insertBatch(operatorRecords);
+        LOGGER.info("fillId:{} day:{} exist job size:{}", fillId, triggerDay, existJobs.size());
+        return existJobs.stream().map(ScheduleJob::getJobKey).collect(Collectors.toSet());
+    }
+
     /**
      * @param run            run list 可运行节点
      * @param saveList       生成实例集合
@@ -162,19 +348,21 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
         scheduleJobService.insertJobList(allJobList, EScheduleType.FILL_DATA.getType());
         Set<ScheduleJobOperatorRecord> operatorJobIds = allJobList
                 .stream()
-                .map(jobBuilderBean -> {
-                    ScheduleJobOperatorRecord record = new ScheduleJobOperatorRecord();
-                    record.setJobId(jobBuilderBean.getScheduleJob().getJobId());
-                    record.setForceCancelFlag(ForceCancelFlag.NO.getFlag());
-                    record.setOperatorType(OperatorType.FILL_DATA.getType());
-                    record.setNodeAddress(jobBuilderBean.getScheduleJob().getNodeAddress());
-                    return record;
-                })
+                .map(jobBuilderBean -> buildOperatorRecord(jobBuilderBean.getScheduleJob().getJobId(), jobBuilderBean.getScheduleJob().getNodeAddress()))
                 .collect(Collectors.toSet());
 
         scheduleJobOperatorRecordService.insertBatch(operatorJobIds);
     }
 
+    private ScheduleJobOperatorRecord buildOperatorRecord(String jobId, String nodeAddress) {
+        ScheduleJobOperatorRecord record = new ScheduleJobOperatorRecord();
+        record.setJobId(jobId);
+        record.setForceCancelFlag(ForceCancelFlag.NO.getFlag());
+        record.setOperatorType(OperatorType.FILL_DATA.getType());
+        record.setNodeAddress(nodeAddress);
+        return record;
+    }
+
     @Override
     protected String getPrefix() {
         return FILL_DATA_TYPE;
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server.builder;
+
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 补数据生成计划
+ * <p>
+ * 补数据涉及的任务、周期、工作流子任务和上游任务在生成前一次加载，整个日期范围内复用
+ *
+ * @author jiangbo
+ */
+public class FillDataPlan {
+
+    private final Map<Long, ScheduleTaskShade> tasks;
+
+    private final Map<Long, ScheduleCorn> corns;
+
+    private final Map<Long, List<ScheduleTaskShade>> subTasks;
+
+    private final Map<Long, List<ScheduleTaskShade>> parentTasks;
+
+    /**
+     * 需要生成实例的任务
+     */
+    private final List<Long> buildTaskIds;
+
+    public FillDataPlan(Map<Long, ScheduleTaskShade> tasks,
+                        Map<Long, ScheduleCorn> corns,
+                        Map<Long, List<ScheduleTaskShade>> subTasks,
+                        Map<Long, List<ScheduleTaskShade>> parentTasks,
+                        List<Long> buildTaskIds) {
+        this.tasks = tasks;
+        this.corns = corns;
+        this.subTasks = subTasks;
+        this.parentTasks = parentTasks;
+        this.buildTaskIds = buildTaskIds;
+    }
+
+    public ScheduleTaskShade getTask(Long taskId) {
+        return tasks.get(taskId);
+    }
+
+    public ScheduleCorn getCorn(Long taskId) {
+        return corns.get(taskId);
+    }
+
+    /**
+     * @return 工作流子任务，非工作流任务返回 null
+     */
+    public List<ScheduleTaskShade> getSubTasks(Long taskId) {
+        return subTasks.get(taskId);
+    }
+
+    /**
+     * @return 上游任务，没有上游时返回 null
+     */
+    public List<ScheduleTaskShade> getParentTasks(Long taskId) {
+        return parentTasks.get(taskId);
+    }
+
+    public List<Long> getBuildTaskIds() {
+        return buildTaskIds;
+    }
+}
@@ -1,5 +1,8 @@
 package com.dtstack.taier.scheduler.server.builder;
 
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
+
 /**
  * @Auther: dazhi
  * @Date: 2021/12/30 4:41 PM
@@ -13,4 +16,15 @@ public interface JobSortWorker {
      * @return 序号
      */
     Integer getSort();
+
+    /**
+     * 生成实例的排列序号 job_execute_order
+     *
+     * @param scheduleTaskShade 任务
+     * @param cycTime           计划时间 yyyyMMddHHmmss
+     * @return 排列序号
+     */
+    default Long getExecuteOrder(ScheduleTaskShade scheduleTaskShade, String cycTime) {
+        return JobExecuteOrderUtil.buildJobExecuteOrder(cycTime, getSort());
+    }
 }
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server.builder;
+
+import com.dtstack.taier.dao.domain.po.TaskExecTimePO;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 任务运行时长预估
+ * <p>
+ * 按计划日期从早到晚对每个任务、每个小时的平均运行时长做指数加权移动平均(EWMA)，越近的日期权重越大；
+ * 该小时没有历史时使用任务整体的 EWMA，都没有时使用默认值
+ *
+ * @author jiangbo
+ */
+public class TaskRuntimeEstimator {
+
+    private static final int HOURS = 24;
+
+    private final Map<Long, double[]> hourlyExecTimes = new HashMap<>();
+
+    private final Map<Long, Double> execTimes = new HashMap<>();
+
+    private final long defaultSeconds;
+
+    public TaskRuntimeEstimator(List<TaskExecTimePO> history, double alpha, long defaultSeconds) {
+        this.defaultSeconds = defaultSeconds;
+        history.sort(Comparator.comparing(TaskExecTimePO::getCycDay).thenComparing(TaskExecTimePO::getCycHour));
+        for (TaskExecTimePO execTime : history) {
+            if (execTime.getTaskId() == null || execTime.getExecTime() == null) {
+                continue;
+            }
+            double value = execTime.getExecTime();
+            int hour = parseHour(execTime.getCycHour());
+            if (hour >= 0) {
+                double[] hourly = hourlyExecTimes.computeIfAbsent(execTime.getTaskId(), k -> newHourly());
+                hourly[hour] = Double.isNaN(hourly[hour]) ? value : alpha * value + (1 - alpha) * hourly[hour];
+            }
+            execTimes.merge(execTime.getTaskId(), value, (old, current) -> alpha * current + (1 - alpha) * old);
+        }
+    }
+
+    /**
+     * 预估任务整体的运行时长
+     *
+     * @param taskId 任务id
+     * @return 运行时长，单位秒
+     */
+    public long estimate(Long taskId) {
+        Double execTime = execTimes.get(taskId);
+        return execTime == null ? defaultSeconds : Math.round(execTime);
+    }
+
+    /**
+     * 预估任务在某个小时的运行时长
+     *
+     * @param taskId 任务id
+     * @param hour   计划时间的小时
+     * @return 运行时长，单位秒
+     */
+    public long estimate(Long taskId, int hour) {
+        double[] hourly = hourlyExecTimes.get(taskId);
+        if (hourly != null && hour >= 0 && hour < HOURS && !Double.isNaN(hourly[hour])) {
+            return Math.round(hourly[hour]);
+        }
+        return estimate(taskId);
+    }
+
+    private static double[] newHourly() {
+        double[] hourly = new double[HOURS];
+        for (int i = 0; i < HOURS; i++) {
+            hourly[i] = Double.NaN;
+        }
+        return hourly;
+    }
+
+    private static int parseHour(String cycHour) {
+        try {
+            int hour = Integer.parseInt(cycHour);
+            return hour >= 0 && hour < HOURS ? hour : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
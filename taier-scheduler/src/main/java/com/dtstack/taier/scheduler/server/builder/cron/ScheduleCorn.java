@@ -33,6 +33,11 @@ public class ScheduleCorn {
      */
     private ScheduleConf scheduleConf;
 
+    /**
+     * cron解析结果，生成实例时同一任务会多次计算周期，只解析一次
+     */
+    private volatile ExecutionTime executionTime;
+
     /**
      * 获得距离date的上一次执行最近的时间
      * @param date 时间
@@ -43,11 +48,7 @@ public class ScheduleCorn {
             return null;
         }
 
-        CronParser parser = new CronParser(CRON_DEFINITION);
-        Cron quartzCron = parser.parse(cron);
-
-        ExecutionTime executionTime = ExecutionTime.forCron(quartzCron);
-        ZonedDateTime zonedDateTime = executionTime.lastExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
+        ZonedDateTime zonedDateTime = getExecutionTime().lastExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
 
         if (zonedDateTime == null) {
             return null;
@@ -66,11 +67,7 @@ public class ScheduleCorn {
             return null;
         }
 
-        CronParser parser = new CronParser(CRON_DEFINITION);
-        Cron quartzCron = parser.parse(cron);
-
-        ExecutionTime executionTime = ExecutionTime.forCron(quartzCron);
-        ZonedDateTime zonedDateTime = executionTime.nextExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
+        ZonedDateTime zonedDateTime = getExecutionTime().nextExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
 
         if (zonedDateTime == null) {
             return null;
@@ -87,11 +84,7 @@ public class ScheduleCorn {
             return null;
         }
 
-        CronParser parser = new CronParser(CRON_DEFINITION);
-        Cron quartzCron = parser.parse(cron);
-
-        ExecutionTime executionTime = ExecutionTime.forCron(quartzCron);
-        return executionTime.isMatch(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+        return getExecutionTime().isMatch(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
     }
 
     public String getCron() {
@@ -100,6 +93,18 @@ public class ScheduleCorn {
 
     public void setCron(String cron) {
         this.cron = cron;
+        this.executionTime = null;
+    }
+
+    private ExecutionTime getExecutionTime() {
+        ExecutionTime current = executionTime;
+        if (current == null) {
+            CronParser parser = new CronParser(CRON_DEFINITION);
+            Cron quartzCron = parser.parse(cron);
+            current = ExecutionTime.forCron(quartzCron);
+            executionTime = current;
+        }
+        return current;
     }
 
     public ScheduleConf getScheduleConf() {
@@ -9,11 +9,18 @@ import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.service.ScheduleTaskShadeService;
 import com.dtstack.taier.scheduler.service.ScheduleTaskTaskService;
+import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -25,6 +32,8 @@ import java.util.stream.Collectors;
 @Component
 public class DependencyManager {
 
+    private static final int QUERY_PARTITION_SIZE = 500;
+
     @Autowired
     private ScheduleJobService scheduleJobService;
 
@@ -43,24 +52,20 @@ public class DependencyManager {
      * @return 依赖处理器链
      */
     public JobDependency getDependencyHandler(String keyPreStr, ScheduleTaskShade currentTaskShade, ScheduleCorn corn) {
-        // 查询上游任务
-        List<ScheduleTaskTaskShade> scheduleTaskTaskShadeList = scheduleTaskTaskService.lambdaQuery()
-                .eq(ScheduleTaskTaskShade::getTaskId, currentTaskShade.getTaskId())
-                .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                .list();
-
-        List<Long> parentTaskIds = scheduleTaskTaskShadeList.stream().map(ScheduleTaskTaskShade::getParentTaskId).collect(Collectors.toList());
-
-        // 如果没有上游任务，就不需要UpstreamDependencyHandler
-        List<ScheduleTaskShade> taskShadeList = null;
-        if (CollectionUtils.isNotEmpty(parentTaskIds)) {
-            // 查询任务
-            taskShadeList = scheduleTaskService.lambdaQuery()
-                    .in(ScheduleTaskShade::getTaskId, parentTaskIds)
-                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                    .list();
-        }
+        return getDependencyHandler(keyPreStr, currentTaskShade, corn, getParentTasks(currentTaskShade.getTaskId()));
+    }
 
+    /**
+     * 获得依赖处理器链，上游任务已提前查询
+     *
+     * @param keyPreStr        前缀
+     * @param currentTaskShade 任务
+     * @param corn             执行周期
+     * @param taskShadeList    上游任务
+     * @return 依赖处理器链
+     */
+    public JobDependency getDependencyHandler(String keyPreStr, ScheduleTaskShade currentTaskShade, ScheduleCorn corn,
+                                              List<ScheduleTaskShade> taskShadeList) {
         // 上游任务的依赖处理器
         JobDependency jobDependency = new UpstreamDependencyHandler(keyPreStr, currentTaskShade,scheduleJobService,taskShadeList);
 
@@ -80,4 +85,67 @@ public class DependencyManager {
 
         return jobDependency;
     }
+
+    /**
+     * 查询上游任务
+     *
+     * @param taskId 任务id
+     * @return 上游任务，没有上游时返回null
+     */
+    public List<ScheduleTaskShade> getParentTasks(Long taskId) {
+        List<ScheduleTaskTaskShade> scheduleTaskTaskShadeList = scheduleTaskTaskService.lambdaQuery()
+                .eq(ScheduleTaskTaskShade::getTaskId, taskId)
+                .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+
+        List<Long> parentTaskIds = scheduleTaskTaskShadeList.stream().map(ScheduleTaskTaskShade::getParentTaskId).collect(Collectors.toList());
+
+        // 如果没有上游任务，就不需要UpstreamDependencyHandler
+        if (CollectionUtils.isEmpty(parentTaskIds)) {
+            return null;
+        }
+        return scheduleTaskService.lambdaQuery()
+                .in(ScheduleTaskShade::getTaskId, parentTaskIds)
+                .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+    }
+
+    /**
+     * 批量查询上游任务，按批次查询关系和任务，避免逐个任务查询
+     *
+     * @param taskIds 任务id
+     * @return key 任务id，value 上游任务，没有上游的任务不在结果中
+     */
+    public Map<Long, List<ScheduleTaskShade>> getParentTasks(Collection<Long> taskIds) {
+        Map<Long, List<Long>> parentTaskIdMap = new HashMap<>(taskIds.size());
+        for (List<Long> partition : Lists.partition(new ArrayList<>(taskIds), QUERY_PARTITION_SIZE)) {
+            List<ScheduleTaskTaskShade> scheduleTaskTaskShadeList = scheduleTaskTaskService.lambdaQuery()
+                    .in(ScheduleTaskTaskShade::getTaskId, partition)
+                    .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list();
+            for (ScheduleTaskTaskShade taskTaskShade : scheduleTaskTaskShadeList) {
+                parentTaskIdMap.computeIfAbsent(taskTaskShade.getTaskId(), k -> new ArrayList<>()).add(taskTaskShade.getParentTaskId());
+            }
+        }
+
+        Set<Long> parentTaskIds = parentTaskIdMap.values().stream().flatMap(List::stream).collect(Collectors.toSet());
+        Map<Long, ScheduleTaskShade> parentTaskMap = new HashMap<>(parentTaskIds.size());
+        for (List<Long> partition : Lists.partition(new ArrayList<>(parentTaskIds), QUERY_PARTITION_SIZE)) {
+            scheduleTaskService.lambdaQuery()
+                    .in(ScheduleTaskShade::getTaskId, partition)
+                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list()
+                    .forEach(taskShade -> parentTaskMap.put(taskShade.getTaskId(), taskShade));
+        }
+
+        Map<Long, List<ScheduleTaskShade>> parentTasks = new HashMap<>(parentTaskIdMap.size());
+        for (Map.Entry<Long, List<Long>> entry : parentTaskIdMap.entrySet()) {
+            List<ScheduleTaskShade> taskShadeList = entry.getValue().stream()
+                    .map(parentTaskMap::get)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toList());
+            parentTasks.put(entry.getKey(), taskShadeList);
+        }
+        return parentTasks;
+    }
 }
@@ -1,6 +1,7 @@
 package com.dtstack.taier.scheduler.server.builder.dependency;
 
 import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.util.JobKeyIdUtil;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.util.DateUtil;
@@ -53,6 +54,8 @@ public class SelfRelianceDependencyHandler extends DecoratorJobDependency {
         scheduleJobJob.setTenantId(currentTaskShade.getTenantId());
         scheduleJobJob.setJobKey(currentJobKey);
         scheduleJobJob.setParentJobKey(lastJobKey);
+        scheduleJobJob.setJobKeyId(JobKeyIdUtil.getJobKeyId(currentJobKey));
+        scheduleJobJob.setParentJobKeyId(JobKeyIdUtil.getJobKeyId(lastJobKey));
         scheduleJobJob.setJobKeyType(RelyType.SELF_RELIANCE.getType());
         scheduleJobJob.setRule(getRule(corn.getScheduleConf()));
         scheduleJobJob.setIsDeleted(Deleted.NORMAL.getStatus());
@@ -1,6 +1,7 @@
 package com.dtstack.taier.scheduler.server.builder.dependency;
 
 import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.util.JobKeyIdUtil;
 import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
@@ -56,6 +57,8 @@ public class UpstreamDependencyHandler extends AbstractJobDependency {
                 scheduleJobJob.setTenantId(currentTaskShade.getTenantId());
                 scheduleJobJob.setJobKey(currentJobKey);
                 scheduleJobJob.setParentJobKey(jobKey);
+                scheduleJobJob.setJobKeyId(JobKeyIdUtil.getJobKeyId(currentJobKey));
+                scheduleJobJob.setParentJobKeyId(JobKeyIdUtil.getJobKeyId(jobKey));
                 scheduleJobJob.setJobKeyType(RelyType.UPSTREAM.getType());
                 scheduleJobJob.setRule(RelyRule.RUN_SUCCESS.getType());
                 scheduleJobJob.setIsDeleted(Deleted.NORMAL.getStatus());
@@ -84,6 +84,8 @@ public class HeartBeatCheckListener implements Listener {
             if (this.masterListener.isMaster()) {
                 logOutput++;
                 healthCheck();
+                //存活节点变化时更新实例归属
+                failoverStrategy.checkOwnership();
                 if (LogCountUtil.count(logOutput, MULTIPLES)) {
                     LOGGER.info("HeartBeatCheckListener start check again...");
                 }
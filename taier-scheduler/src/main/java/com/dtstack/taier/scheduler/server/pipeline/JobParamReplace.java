@@ -19,15 +19,17 @@
 package com.dtstack.taier.scheduler.server.pipeline;
 
 import com.dtstack.taier.common.enums.EParamType;
+import com.dtstack.taier.common.util.ParamTemplate;
 import com.dtstack.taier.common.util.TimeParamOperator;
 import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * 变量替换
@@ -43,47 +45,37 @@ public class JobParamReplace {
     private static final Logger LOGGER = LoggerFactory.getLogger(JobParamReplace.class);
 
 
-    private static final Pattern PARAM_PATTERN = Pattern.compile("\\$\\{(.*?)\\}|\\@@\\{(.*?)\\}");
-
-    private final static String VAR_FORMAT = "${%s}";
-
-    private final static String VAR_COMPONENT = "@@{%s}";
-
-
     public static String paramReplace(String sql, List<ScheduleTaskParamShade> paramList, String cycTime) {
 
-        if (CollectionUtils.isEmpty(paramList)) {
+        if (CollectionUtils.isEmpty(paramList) || sql == null) {
             return sql;
         }
 
-        Matcher matcher = PARAM_PATTERN.matcher(sql);
-        if (!matcher.find()) {
+        // 任务内容只解析一次，占位符按位置一次替换
+        ParamTemplate template = ParamTemplate.of(sql);
+        if (!template.hasPlaceholder()) {
             return sql;
         }
 
-        for (Object param : paramList) {
-            Integer type;
-            String paramName;
-            String paramCommand;
-            type = ((ScheduleTaskParamShade) param).getType();
-            paramName = ((ScheduleTaskParamShade) param).getParamName();
-            paramCommand = ((ScheduleTaskParamShade) param).getParamCommand();
-
-            String targetVal = convertParam(type, paramName, paramCommand, cycTime, ((ScheduleTaskParamShade) param).getTaskId());
-            String parseSymbol = convertSymbol(type);
-            String replaceStr = String.format(parseSymbol, paramName);
-            sql = sql.replace(replaceStr, targetVal);
+        // 同名参数以第一个为准
+        Map<String, ScheduleTaskParamShade> variables = new HashMap<>(paramList.size() * 2);
+        Map<String, ScheduleTaskParamShade> components = new HashMap<>(4);
+        for (ScheduleTaskParamShade param : paramList) {
+            if (EParamType.COMPONENT.getType().equals(param.getType())) {
+                components.putIfAbsent(param.getParamName(), param);
+            } else {
+                variables.putIfAbsent(param.getParamName(), param);
+            }
         }
 
-        return sql;
-    }
-
-    private static String convertSymbol(Integer type) {
-        if (EParamType.COMPONENT.getType().equals(type)) {
-            return VAR_COMPONENT;
-        } else {
-            return VAR_FORMAT;
-        }
+        Map<ScheduleTaskParamShade, String> values = new IdentityHashMap<>();
+        return template.render((component, name) -> {
+            ScheduleTaskParamShade param = component ? components.get(name) : variables.get(name);
+            if (param == null) {
+                return null;
+            }
+            return values.computeIfAbsent(param, p -> convertParam(p.getType(), p.getParamName(), p.getParamCommand(), cycTime, p.getTaskId()));
+        });
     }
 
     public static String convertParam(Integer type, String paramName, String paramCommand, String cycTime, Long taskId) {
@@ -92,15 +84,15 @@ public class JobParamReplace {
         if (EParamType.SYS_TYPE.getType().equals(type)) {
             // 特殊处理 bdp.system.currenttime
             if ("bdp.system.runtime".equals(paramName)) {
-                return TimeParamOperator.dealCustomizeTimeOperator(command, cycTime);
+                return TimeParamOperator.compileCustomizeTimeOperator(command).evaluate(cycTime);
             }
 
-            command = TimeParamOperator.transform(command, cycTime);
+            command = TimeParamOperator.compileTransform(command).evaluate(cycTime);
             return command;
         } else if (EParamType.COMPONENT.getType().equals(type)) {
             return command;
         } else {
-            return TimeParamOperator.dealCustomizeTimeOperator(command, cycTime);
+            return TimeParamOperator.compileCustomizeTimeOperator(command).evaluate(cycTime);
         }
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server.pipeline;
+
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 任务版本对应的启动计划
+ * <p>
+ * 由任务的 extraInfo、scheduleConf 一次解析得到：基础提交参数、重试参数、已组装好的 pipeline 链、待替换的任务参数，
+ * 实例启动时只需复制基础参数并按计划时间执行 pipeline。计划本身不可变，pipeline 链只保存处理顺序，可在实例间共享
+ *
+ * @author jiangbo
+ */
+public class LaunchPlan {
+
+    private final Long taskId;
+
+    private final Integer versionId;
+
+    private final Integer taskType;
+
+    private final Long tenantId;
+
+    private final String componentVersion;
+
+    private final String info;
+
+    private final String scheduleConf;
+
+    /**
+     * extraInfo 解析后的参数，只读，实例间共享，使用时复制
+     */
+    private final Map<String, Object> baseParam;
+
+    private final Map<String, Object> retryParam;
+
+    private final IPipeline pipeline;
+
+    private final List<ScheduleTaskParamShade> taskParamsToReplace;
+
+    private final boolean needUpload;
+
+    public LaunchPlan(ScheduleTaskShade task, String info, Map<String, Object> baseParam, Map<String, Object> retryParam,
+                      IPipeline pipeline, List<ScheduleTaskParamShade> taskParamsToReplace, boolean needUpload) {
+        this.taskId = task.getTaskId();
+        this.versionId = task.getVersionId();
+        this.taskType = task.getTaskType();
+        this.tenantId = task.getTenantId();
+        this.componentVersion = task.getComponentVersion();
+        this.scheduleConf = task.getScheduleConf();
+        this.info = info;
+        this.baseParam = baseParam;
+        this.retryParam = retryParam;
+        this.pipeline = pipeline;
+        this.taskParamsToReplace = taskParamsToReplace;
+        this.needUpload = needUpload;
+    }
+
+    /**
+     * 任务内容或调度配置有变化时计划失效
+     */
+    public boolean matches(ScheduleTaskShade task, String info) {
+        return Objects.equals(taskId, task.getTaskId())
+                && Objects.equals(versionId, task.getVersionId())
+                && Objects.equals(taskType, task.getTaskType())
+                && Objects.equals(tenantId, task.getTenantId())
+                && Objects.equals(componentVersion, task.getComponentVersion())
+                && Objects.equals(scheduleConf, task.getScheduleConf())
+                && Objects.equals(this.info, info);
+    }
+
+    /**
+     * 复制一份基础参数供单个实例修改
+     */
+    public Map<String, Object> newActionParam() {
+        return new LinkedHashMap<>(baseParam);
+    }
+
+    public Map<String, Object> getRetryParam() {
+        return retryParam;
+    }
+
+    public IPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public List<ScheduleTaskParamShade> getTaskParamsToReplace() {
+        return taskParamsToReplace;
+    }
+
+    public boolean isNeedUpload() {
+        return needUpload;
+    }
+
+    public Long getTaskId() {
+        return taskId;
+    }
+}
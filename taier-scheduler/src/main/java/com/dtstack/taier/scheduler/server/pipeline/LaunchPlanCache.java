@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server.pipeline;
+
+import com.alibaba.fastjson.JSONObject;
+import com.dtstack.taier.common.enums.EScheduleJobType;
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+import com.dtstack.taier.pluginapi.constrant.ConfigConstant;
+import com.dtstack.taier.pluginapi.util.PublicUtil;
+import com.dtstack.taier.scheduler.server.pipeline.operator.SyncOperatorPipeline;
+import com.dtstack.taier.scheduler.server.pipeline.operator.UnnecessaryPreprocessJobPipeline;
+import com.dtstack.taier.scheduler.server.pipeline.params.UploadParamPipeline;
+import com.dtstack.taier.scheduler.service.ClusterService;
+import com.dtstack.taier.scheduler.service.ComponentService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按任务缓存启动计划
+ * <p>
+ * 计划以 taskId 为 key，命中时再比较版本号、extraInfo 和调度配置，任务更新后自动重建，多节点部署时不依赖广播失效；
+ * 上传文件所需的集群插件信息按租户和任务类型短时间缓存
+ *
+ * @author jiangbo
+ */
+@Component
+public class LaunchPlanCache {
+
+    private static final long MAX_PLAN_SIZE = 20000;
+
+    private static final long PLAN_EXPIRE_HOURS = 6;
+
+    private static final long PLUGIN_INFO_EXPIRE_SECONDS = 60;
+
+    @Autowired
+    private SyncOperatorPipeline syncOperatorPipeline;
+
+    @Autowired
+    private UnnecessaryPreprocessJobPipeline unnecessaryPreprocessJobPipeline;
+
+    @Autowired
+    private ClusterService clusterService;
+
+    @Autowired
+    private ComponentService componentService;
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    private final Cache<Long, LaunchPlan> plans = CacheBuilder.newBuilder()
+            .maximumSize(MAX_PLAN_SIZE)
+            .expireAfterAccess(PLAN_EXPIRE_HOURS, TimeUnit.HOURS)
+            .build();
+
+    private final Cache<String, JSONObject> pluginInfos = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(PLUGIN_INFO_EXPIRE_SECONDS, TimeUnit.SECONDS)
+            .build();
+
+    /**
+     * 获取任务的启动计划，任务内容变化时重新构建
+     *
+     * @param task 任务
+     * @param info 任务 extraInfo 原文
+     */
+    public LaunchPlan getPlan(ScheduleTaskShade task, String info) throws Exception {
+        if (null == task.getTaskId()) {
+            return buildPlan(task, info);
+        }
+        LaunchPlan plan = plans.getIfPresent(task.getTaskId());
+        if (null != plan && plan.matches(task, info)) {
+            return plan;
+        }
+        plan = buildPlan(task, info);
+        plans.put(task.getTaskId(), plan);
+        return plan;
+    }
+
+    public void invalidate(Long taskId) {
+        if (null != taskId) {
+            plans.invalidate(taskId);
+        }
+    }
+
+    /**
+     * 填充文件上传需要的参数
+     */
+    public void fillUploadParam(Map<String, Object> pipelineMap, ScheduleTaskShade task) {
+        String key = task.getTenantId() + "_" + task.getTaskType();
+        JSONObject pluginInfo = pluginInfos.getIfPresent(key);
+        if (null == pluginInfo) {
+            pluginInfo = clusterService.pluginInfoJSON(task.getTenantId(), task.getTaskType(), null, null);
+            if (null == pluginInfo) {
+                throw new RdosDefineException("upload param pipeline pluginInfo can not be null");
+            }
+            pluginInfo.put(ConfigConstant.TYPE_NAME_KEY, componentService.buildHdfsTypeName(task.getTenantId(), null));
+            pluginInfos.put(key, pluginInfo);
+        }
+        // 缓存的插件信息在实例间共享，复制一份再交给 pipeline
+        pipelineMap.put(UploadParamPipeline.pluginInfoKey, new JSONObject(new HashMap<>(pluginInfo)));
+        pipelineMap.put(UploadParamPipeline.fileUploadPathKey, environmentContext.getHdfsTaskPath());
+    }
+
+    private LaunchPlan buildPlan(ScheduleTaskShade task, String info) throws Exception {
+        Map<String, Object> baseParam = PublicUtil.strToMap(info);
+        if (null == baseParam) {
+            throw new RdosDefineException("extraInfo can't null or empty string");
+        }
+        String pipelineConfig = null;
+        IPipeline pipeline;
+        if (baseParam.containsKey(PipelineBuilder.pipelineKey)) {
+            pipelineConfig = (String) baseParam.get(PipelineBuilder.pipelineKey);
+            pipeline = PipelineBuilder.buildPipeline(pipelineConfig);
+        } else if (EScheduleJobType.SYNC.getType().equals(task.getTaskType())) {
+            pipeline = syncOperatorPipeline;
+        } else if (EScheduleJobType.WORK_FLOW.getType().equals(task.getTaskType())
+                || EScheduleJobType.VIRTUAL.getType().equals(task.getTaskType())) {
+            pipeline = unnecessaryPreprocessJobPipeline;
+        } else {
+            pipeline = PipelineBuilder.buildDefaultSqlPipeline();
+        }
+
+        List<ScheduleTaskParamShade> taskParamsToReplace = JSONObject.parseArray((String) baseParam.get("taskParamsToReplace"), ScheduleTaskParamShade.class);
+        return new LaunchPlan(task, info, Collections.unmodifiableMap(baseParam), parseRetryParam(task.getScheduleConf()), pipeline,
+                null == taskParamsToReplace ? null : Collections.unmodifiableList(taskParamsToReplace),
+                PipelineBuilder.needUpload(pipelineConfig));
+    }
+
+    private Map<String, Object> parseRetryParam(String scheduleConfStr) {
+        Map<String, Object> retryParam = new HashMap<>();
+        JSONObject scheduleConf = JSONObject.parseObject(scheduleConfStr);
+        if (scheduleConf != null && scheduleConf.containsKey("isFailRetry")) {
+            retryParam.put("isFailRetry", scheduleConf.getBooleanValue("isFailRetry"));
+            if (scheduleConf.getBooleanValue("isFailRetry")) {
+                int maxRetryNum = scheduleConf.getIntValue("maxRetryNum") == 0 ? 3 : scheduleConf.getIntValue("maxRetryNum");
+                retryParam.put("maxRetryNum", maxRetryNum);
+                //离线 单位 分钟
+                Integer retryIntervalTime = scheduleConf.getInteger("retryIntervalTime");
+                if (null != retryIntervalTime) {
+                    retryParam.put("retryIntervalTime", retryIntervalTime * 60 * 1000);
+                }
+            } else {
+                retryParam.put("maxRetryNum", 0);
+            }
+        }
+        return Collections.unmodifiableMap(retryParam);
+    }
+}
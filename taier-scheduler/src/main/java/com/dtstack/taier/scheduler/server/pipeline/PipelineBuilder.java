@@ -179,25 +179,48 @@ public class PipelineBuilder {
     public static Map<String, Object> getPipelineInitMap(String pipelineConfig, ScheduleJob scheduleJob, ScheduleTaskShade scheduleTaskShade,
                                                          List<ScheduleTaskParamShade> taskParamsToReplace,
                                                          Consumer<Map<String, Object>> uploadConsumer) {
+        return getPipelineInitMap(needUpload(pipelineConfig), scheduleJob, scheduleTaskShade, taskParamsToReplace, uploadConsumer);
+    }
+
+    /**
+     * 构建pipeline的基础map，是否需要上传文件已预先解析
+     *
+     * @param needUpload
+     * @param scheduleJob
+     * @param scheduleTaskShade
+     * @param taskParamsToReplace
+     * @param uploadConsumer
+     * @return
+     */
+    public static Map<String, Object> getPipelineInitMap(boolean needUpload, ScheduleJob scheduleJob, ScheduleTaskShade scheduleTaskShade,
+                                                         List<ScheduleTaskParamShade> taskParamsToReplace,
+                                                         Consumer<Map<String, Object>> uploadConsumer) {
         Map<String, Object> pipelineMap = new HashMap<>();
         pipelineMap.put(IPipeline.AbstractPipeline.scheduleJobKey, scheduleJob);
         pipelineMap.put(IPipeline.AbstractPipeline.taskShadeKey, scheduleTaskShade);
         pipelineMap.put(IPipeline.AbstractPipeline.taskParamsToReplaceKey, taskParamsToReplace);
-        JSONObject config = JSONObject.parseObject(pipelineConfig);
-        if (null == config || config.size() == 0 || !config.containsKey(paramKey)) {
-            return pipelineMap;
-        }
-        List<String> params = config.getJSONArray(paramKey).toJavaList(String.class);
-        if (CollectionUtils.isEmpty(params)) {
-            return pipelineMap;
-        }
-        if (params.contains(UploadParamPipeline.pipelineKey)) {
+        if (needUpload) {
             //填充upload必要的参数
             uploadConsumer.accept(pipelineMap);
         }
         return pipelineMap;
     }
 
+    /**
+     * pipeline 的params中是否包含文件上传
+     *
+     * @param pipelineConfig
+     * @return
+     */
+    public static boolean needUpload(String pipelineConfig) {
+        JSONObject config = JSONObject.parseObject(pipelineConfig);
+        if (null == config || config.size() == 0 || !config.containsKey(paramKey)) {
+            return false;
+        }
+        List<String> params = config.getJSONArray(paramKey).toJavaList(String.class);
+        return CollectionUtils.isNotEmpty(params) && params.contains(UploadParamPipeline.pipelineKey);
+    }
+
 
     /**
      * 默认sql 的组件只有
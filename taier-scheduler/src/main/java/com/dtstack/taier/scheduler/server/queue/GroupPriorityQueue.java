@@ -20,6 +20,8 @@ package com.dtstack.taier.scheduler.server.queue;
 
 import com.dtstack.taier.common.enums.EJobCacheStage;
 import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.queue.FairShareQueue;
+import com.dtstack.taier.common.queue.WaitTimeHistogram;
 import com.dtstack.taier.common.queue.comparator.JobClientComparator;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.pluginapi.CustomThreadFactory;
@@ -38,6 +40,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -52,6 +55,8 @@ public class GroupPriorityQueue {
 
     private static final int WAIT_INTERVAL = 5000;
 
+    private static final long WAIT_TIME_LOG_INTERVAL = 60000L;
+
     private AtomicBoolean blocked = new AtomicBoolean(false);
 
     private String jobResource;
@@ -64,7 +69,8 @@ public class GroupPriorityQueue {
     private JobPartitioner jobPartitioner;
     private WorkerOperator workerOperator;
 
-    private PriorityBlockingQueue<JobClient> queue = null;
+    private FairShareQueue<JobClient> queue = null;
+    private long lastWaitTimeLog = System.currentTimeMillis();
     private JobSubmitDealer jobSubmitDealer = null;
 
     private GroupPriorityQueue() {
@@ -108,7 +114,7 @@ public class GroupPriorityQueue {
         return jobSubmitDealer.tryPutRestartJob(jobClient);
     }
 
-    public PriorityBlockingQueue<JobClient> getQueue() {
+    public FairShareQueue<JobClient> getQueue() {
         return queue;
     }
 
@@ -199,6 +205,7 @@ public class GroupPriorityQueue {
         @Override
         public void run() {
             try {
+                logWaitTimes();
                 if (Boolean.FALSE == blocked.get()) {
                     int jobSize = ScheduleJobCacheService.countByStage(jobResource, EJobCacheStage.unSubmitted(), environmentContext.getLocalAddress());
                     if (jobSize == 0) {
@@ -213,6 +220,20 @@ public class GroupPriorityQueue {
         }
     }
 
+    /**
+     * 定时输出各分类的排队时长分布
+     */
+    private void logWaitTimes() {
+        long now = System.currentTimeMillis();
+        if (now - lastWaitTimeLog < WAIT_TIME_LOG_INTERVAL) {
+            return;
+        }
+        lastWaitTimeLog = now;
+        for (Map.Entry<String, WaitTimeHistogram> entry : queue.getWaitTimes().entrySet()) {
+            LOGGER.info("jobResource:{} class:{} queue wait time:{}", jobResource, entry.getKey(), entry.getValue());
+        }
+    }
+
     public GroupPriorityQueue setApplicationContext(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
         return this;
@@ -266,7 +287,7 @@ public class GroupPriorityQueue {
 
         checkParams();
 
-        this.queue = new PriorityBlockingQueue<>(queueSizeLimited * 2, new JobClientComparator());
+        this.queue = new FairShareQueue<>(new JobClientComparator(), new JobClientFairSharePolicy(environmentContext));
         this.jobSubmitDealer = new JobSubmitDealer(environmentContext.getLocalAddress(), this, applicationContext);
 
         ScheduledExecutorService scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory(this.getClass().getSimpleName() + "_" + jobResource + "_AcquireJob"));
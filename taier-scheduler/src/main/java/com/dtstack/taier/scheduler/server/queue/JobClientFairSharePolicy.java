@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.server.queue;
+
+import com.dtstack.taier.common.enums.EScheduleType;
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.queue.FairSharePolicy;
+import com.dtstack.taier.pluginapi.JobClient;
+import com.dtstack.taier.pluginapi.enums.EQueueSourceType;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 实例按 租户 -> 来源 分类的公平调度策略，来源分为周期调度、补数据、临时运行、重试
+ * <p>
+ * 权重配置格式 key:weight,key:weight，未配置的租户使用权重 1，关闭公平调度时所有实例归为同一分类，退化为按优先级出队
+ *
+ * @author jiangbo
+ */
+public class JobClientFairSharePolicy implements FairSharePolicy<JobClient> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobClientFairSharePolicy.class);
+
+    public static final String SOURCE_NORMAL = "NORMAL";
+
+    public static final String SOURCE_FILL_DATA = "FILL_DATA";
+
+    public static final String SOURCE_TEMP = "TEMP";
+
+    public static final String SOURCE_RESTART = "RESTART";
+
+    private static final String DEFAULT_CLASS = "";
+
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final boolean enable;
+
+    private final Map<String, Integer> tenantWeights;
+
+    private final Map<String, Integer> sourceWeights;
+
+    private final int tenantMaxConcurrent;
+
+    private final Map<String, Integer> sourceMaxConcurrent;
+
+    public JobClientFairSharePolicy(EnvironmentContext environmentContext) {
+        this.enable = Boolean.TRUE.equals(environmentContext.getJobFairShareEnable());
+        this.tenantWeights = parse(environmentContext.getJobFairShareTenantWeights());
+        this.sourceWeights = parse(environmentContext.getJobFairShareSourceWeights());
+        this.tenantMaxConcurrent = environmentContext.getJobFairShareTenantMaxConcurrent() == null ? 0 : environmentContext.getJobFairShareTenantMaxConcurrent();
+        this.sourceMaxConcurrent = parse(environmentContext.getJobFairShareSourceMaxConcurrent());
+    }
+
+    @Override
+    public String tenantOf(JobClient jobClient) {
+        return enable ? String.valueOf(jobClient.getTenantId()) : DEFAULT_CLASS;
+    }
+
+    @Override
+    public String sourceOf(JobClient jobClient) {
+        if (!enable) {
+            return DEFAULT_CLASS;
+        }
+        // 重试、资源不足延迟后重新入队的实例
+        if (jobClient.getQueueSourceType() != null && EQueueSourceType.DELAY.getCode() == jobClient.getQueueSourceType()) {
+            return SOURCE_RESTART;
+        }
+        if (EScheduleType.FILL_DATA.getType().equals(jobClient.getType())) {
+            return SOURCE_FILL_DATA;
+        }
+        if (EScheduleType.TEMP_JOB.getType().equals(jobClient.getType())) {
+            return SOURCE_TEMP;
+        }
+        return SOURCE_NORMAL;
+    }
+
+    @Override
+    public int tenantWeight(String tenant) {
+        return tenantWeights.getOrDefault(tenant, DEFAULT_WEIGHT);
+    }
+
+    @Override
+    public int sourceWeight(String source) {
+        return sourceWeights.getOrDefault(source, DEFAULT_WEIGHT);
+    }
+
+    @Override
+    public int tenantMaxConcurrent(String tenant) {
+        return enable ? tenantMaxConcurrent : 0;
+    }
+
+    @Override
+    public int sourceMaxConcurrent(String source) {
+        return sourceMaxConcurrent.getOrDefault(source, 0);
+    }
+
+    private static Map<String, Integer> parse(String config) {
+        if (StringUtils.isBlank(config)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> values = new HashMap<>();
+        for (String pair : config.split(",")) {
+            String[] keyValue = pair.split(":");
+            if (keyValue.length != 2 || StringUtils.isBlank(keyValue[0]) || !StringUtils.isNumeric(keyValue[1].trim())) {
+                LOGGER.warn("ignore illegal fair share config:{}", pair);
+                continue;
+            }
+            values.put(keyValue[0].trim(), Integer.parseInt(keyValue[1].trim()));
+        }
+        return values;
+    }
+}
@@ -9,6 +9,7 @@ import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.scheduler.enums.RelyRule;
 import com.dtstack.taier.scheduler.enums.RelyType;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.service.ScheduleJobArchiveService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -34,6 +35,9 @@ public class JobUpStreamSubmitInterceptor extends SubmitInterceptorAdapter {
     @Autowired
     private ScheduleJobService scheduleJobService;
 
+    @Autowired
+    private ScheduleJobArchiveService scheduleJobArchiveService;
+
     @Override
     public Integer getSort() {
         return 0;
@@ -56,6 +60,15 @@ public class JobUpStreamSubmitInterceptor extends SubmitInterceptorAdapter {
                     .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
                     .list().stream().collect(Collectors.toMap(ScheduleJob::getJobKey, g -> (g)));
 
+            // 工作集中没有的父实例(如月任务的上一周期)可能已经归档
+            if (scheduleJobMap.size() < parentJobKeys.size()) {
+                List<String> missingJobKeys = parentJobKeys.stream()
+                        .filter(jobKey -> !scheduleJobMap.containsKey(jobKey))
+                        .collect(Collectors.toList());
+                scheduleJobArchiveService.listByJobKeys(missingJobKeys)
+                        .forEach(archiveJob -> scheduleJobMap.putIfAbsent(archiveJob.getJobKey(), archiveJob));
+            }
+
 
             for (ScheduleJobJob scheduleJobJob : jobJobList) {
                 ScheduleJob parentScheduleJob = scheduleJobMap.get(scheduleJobJob.getParentJobKey());
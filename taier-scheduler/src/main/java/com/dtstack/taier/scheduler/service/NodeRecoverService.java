@@ -20,6 +20,7 @@ package com.dtstack.taier.scheduler.service;
 
 import com.dtstack.taier.common.enums.EJobCacheStage;
 import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.thread.BoundedBatchExecutor;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.pluginapi.JobClient;
 import com.dtstack.taier.pluginapi.exception.ExceptionUtil;
@@ -35,6 +36,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * company: www.dtstack.com
@@ -74,33 +76,49 @@ public class NodeRecoverService {
 
     public void recoverJobCaches() {
         String localAddress = environmentContext.getLocalAddress();
+        long startTime = System.currentTimeMillis();
+        AtomicInteger recovered = new AtomicInteger();
+        // 按批次顺序读取，解析和恢复并行执行
+        BoundedBatchExecutor batchExecutor = new BoundedBatchExecutor("recoverJobCaches", environmentContext.getJobFailoverParallelism());
         try {
             long startId = 0L;
             while (true) {
-                List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(startId, localAddress, EJobCacheStage.SUBMITTED.getStage(),null);
+                List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(startId, localAddress, EJobCacheStage.SUBMITTED.getStage(), null, Boolean.TRUE);
                 if (CollectionUtils.isEmpty(jobCaches)) {
                     break;
                 }
-                List<JobClient> afterJobClients = new ArrayList<>(jobCaches.size());
-                for (ScheduleEngineJobCache jobCache : jobCaches) {
-                    try {
-                        ParamAction paramAction = PublicUtil.jsonStrToObject(jobCache.getJobInfo(), ParamAction.class);
-                        JobClient jobClient = new JobClient(paramAction);
-                        afterJobClients.add(jobClient);
-                        startId = jobCache.getId();
-                    } catch (Exception e) {
-                        LOGGER.error("", e);
-                        //数据转换异常--打日志
-                        jobDealer.dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + ExceptionUtil.getErrorMessage(e));
-                    }
-                }
-                if (CollectionUtils.isNotEmpty(afterJobClients)) {
-                    jobDealer.afterSubmitJobVast(afterJobClients);
-                }
+                startId = jobCaches.get(jobCaches.size() - 1).getId();
+                batchExecutor.submit(() -> recovered.addAndGet(recoverJobCaches(jobCaches)));
             }
         } catch (Exception e) {
             LOGGER.error("----broker:{} RecoverDealer error:", localAddress, e);
+        } finally {
+            try {
+                batchExecutor.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        LOGGER.warn("----broker:{} recover {} job caches, cost {} ms", localAddress, recovered.get(), System.currentTimeMillis() - startTime);
+    }
+
+    private int recoverJobCaches(List<ScheduleEngineJobCache> jobCaches) {
+        List<JobClient> afterJobClients = new ArrayList<>(jobCaches.size());
+        for (ScheduleEngineJobCache jobCache : jobCaches) {
+            try {
+                ParamAction paramAction = PublicUtil.jsonStrToObject(jobCache.getJobInfo(), ParamAction.class);
+                JobClient jobClient = new JobClient(paramAction);
+                afterJobClients.add(jobClient);
+            } catch (Exception e) {
+                LOGGER.error("", e);
+                //数据转换异常--打日志
+                jobDealer.dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + ExceptionUtil.getErrorMessage(e));
+            }
+        }
+        if (CollectionUtils.isNotEmpty(afterJobClients)) {
+            jobDealer.afterSubmitJobVast(afterJobClients);
         }
+        return afterJobClients.size();
     }
 
 }
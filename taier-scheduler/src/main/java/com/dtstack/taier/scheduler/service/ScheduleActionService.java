@@ -23,7 +23,6 @@ import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.serializer.PropertyFilter;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.dtstack.taier.common.constant.CommonConstant;
-import com.dtstack.taier.common.enums.EScheduleJobType;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.enums.ForceCancelFlag;
 import com.dtstack.taier.common.env.EnvironmentContext;
@@ -36,10 +35,8 @@ import com.dtstack.taier.dao.domain.ScheduleEngineJobRetry;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleJobExpand;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
-import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
 import com.dtstack.taier.dao.mapper.ScheduleEngineJobRetryMapper;
 import com.dtstack.taier.pluginapi.JobClient;
-import com.dtstack.taier.pluginapi.constrant.ConfigConstant;
 import com.dtstack.taier.pluginapi.enums.ComputeType;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.util.PublicUtil;
@@ -49,11 +46,10 @@ import com.dtstack.taier.scheduler.jobdealer.JobStopDealer;
 import com.dtstack.taier.scheduler.server.builder.ScheduleConf;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
-import com.dtstack.taier.scheduler.server.pipeline.IPipeline;
+import com.dtstack.taier.scheduler.server.pipeline.LaunchPlan;
+import com.dtstack.taier.scheduler.server.pipeline.LaunchPlanCache;
 import com.dtstack.taier.scheduler.server.pipeline.PipelineBuilder;
-import com.dtstack.taier.scheduler.server.pipeline.operator.SyncOperatorPipeline;
-import com.dtstack.taier.scheduler.server.pipeline.operator.UnnecessaryPreprocessJobPipeline;
-import com.dtstack.taier.scheduler.server.pipeline.params.UploadParamPipeline;
+import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
 import com.dtstack.taier.scheduler.vo.action.ActionJobEntityVO;
 import com.dtstack.taier.scheduler.vo.action.ActionLogVO;
 import com.dtstack.taier.scheduler.vo.action.ActionRetryLogVO;
@@ -92,20 +88,11 @@ public class ScheduleActionService {
     @Autowired
     private JobStopDealer jobStopDealer;
 
-    @Autowired
-    private ClusterService clusterService;
-
     @Autowired
     private ScheduleJobService scheduleJobService;
 
     @Autowired
-    private UnnecessaryPreprocessJobPipeline unnecessaryPreprocessJobPipeline;
-
-    @Autowired
-    private SyncOperatorPipeline syncOperatorPipeline;
-
-    @Autowired
-    private ComponentService componentService;
+    private LaunchPlanCache launchPlanCache;
 
     @Autowired
     private ScheduleJobExpandService scheduleJobExpandService;
@@ -130,6 +117,12 @@ public class ScheduleActionService {
             //会对重复数据做校验
             if (canAccepted) {
                 JobClient jobClient = new JobClient(paramActionExt);
+                if (paramActionExt.getPriority() <= 0 && paramActionExt.getCriticalPathTime() != null) {
+                    // 关键路径越长越先提交，提前量小于一个优先级等级的权重，不会越过用户设置的优先级
+                    long maxAdvance = Math.min(environmentContext.getJobCriticalPathPriorityMaxMillis(), JobClient.PRIORITY_LEVEL_WEIGHT - 1);
+                    long advance = Math.min(paramActionExt.getCriticalPathTime(), maxAdvance);
+                    jobClient.setPriority(jobClient.getPriority() - advance);
+                }
                 jobClient.setType(getOrDefault(paramActionExt.getType(), EScheduleType.TEMP_JOB.getType()));
                 jobDealer.addSubmitJob(jobClient);
                 engineJobRetryMapper.delete(Wrappers.lambdaQuery(ScheduleEngineJobRetry.class)
@@ -172,7 +165,7 @@ public class ScheduleActionService {
         }
         LOGGER.info("startJob ScheduleTaskShade: {} jobId:{} flowJobId:{} ", JSONObject.toJSONString(task), jobId, flowJobId);
         ScheduleJob scheduleJob = buildScheduleJob(task, jobId, flowJobId);
-        ParamActionExt paramActionExt = paramActionExt(task, scheduleJob, JSONObject.parseObject(task.getExtraInfo()));
+        ParamActionExt paramActionExt = paramActionExt(task, scheduleJob, task.getExtraInfo());
         if (Objects.isNull(paramActionExt)) {
             throw new RdosDefineException("extraInfo can't null or empty string");
         }
@@ -188,6 +181,10 @@ public class ScheduleActionService {
         return this.parseParamActionExt(scheduleJob, task, extraInfo);
     }
 
+    public ParamActionExt paramActionExt(ScheduleTaskShade task, ScheduleJob scheduleJob, String extraInfo) throws Exception {
+        return this.parseParamActionExt(scheduleJob, task, extraInfo);
+    }
+
     private ScheduleJob buildScheduleJob(ScheduleTaskShade task, String jobId, String flowJobId) throws IOException, ParseException {
         String cycTime = getCycTime(0);
         String scheduleConf = task.getScheduleConf();
@@ -230,63 +227,41 @@ public class ScheduleActionService {
         if (info == null) {
             throw new RdosDefineException("extraInfo can't null or empty string");
         }
-        Map<String, Object> actionParam = PublicUtil.strToMap(info.toJSONString());
-        dealActionParam(actionParam, task, scheduleJob);
+        return parseParamActionExt(scheduleJob, task, info.toJSONString());
+    }
+
+    /**
+     * 根据任务的启动计划生成提交参数，extraInfo 的解析和 pipeline 的组装在任务未变更时只做一次
+     *
+     * @param scheduleJob 实例
+     * @param task        任务
+     * @param info        任务 extraInfo 原文
+     */
+    public ParamActionExt parseParamActionExt(ScheduleJob scheduleJob, ScheduleTaskShade task, String info) throws Exception {
+        if (StringUtils.isBlank(info)) {
+            throw new RdosDefineException("extraInfo can't null or empty string");
+        }
+        LaunchPlan launchPlan = launchPlanCache.getPlan(task, info);
+        Map<String, Object> actionParam = launchPlan.newActionParam();
+        dealActionParam(actionParam, launchPlan, task, scheduleJob);
         actionParam.put("name", scheduleJob.getJobName());
         actionParam.put("jobId", scheduleJob.getJobId());
         actionParam.put("taskType", task.getTaskType());
         actionParam.put("componentVersion", task.getComponentVersion());
         actionParam.put("type", scheduleJob.getType());
         actionParam.put("tenantId", task.getTenantId());
-        actionParam.putAll(parseRetryParam(task));
-        return PublicUtil.mapToObject(actionParam, ParamActionExt.class);
-    }
-
-    private Map<String, Object> parseRetryParam(ScheduleTaskShade task) {
-        Map<String, Object> retryParam = new HashMap<>();
-        JSONObject scheduleConf = JSONObject.parseObject(task.getScheduleConf());
-        if (scheduleConf != null && scheduleConf.containsKey("isFailRetry")) {
-            retryParam.put("isFailRetry", scheduleConf.getBooleanValue("isFailRetry"));
-            if (scheduleConf.getBooleanValue("isFailRetry")) {
-                int maxRetryNum = scheduleConf.getIntValue("maxRetryNum") == 0 ? 3 : scheduleConf.getIntValue("maxRetryNum");
-                retryParam.put("maxRetryNum", maxRetryNum);
-                //离线 单位 分钟
-                Integer retryIntervalTime = scheduleConf.getInteger("retryIntervalTime");
-                if (null != retryIntervalTime) {
-                    retryParam.put("retryIntervalTime", retryIntervalTime * 60 * 1000);
-                }
-            } else {
-                retryParam.put("maxRetryNum", 0);
-            }
+        long criticalPathSeconds = JobExecuteOrderUtil.getCriticalPathSeconds(scheduleJob.getJobExecuteOrder());
+        if (criticalPathSeconds > 0) {
+            actionParam.put("criticalPathTime", criticalPathSeconds * 1000);
         }
-        return retryParam;
+        actionParam.putAll(launchPlan.getRetryParam());
+        return PublicUtil.mapToObject(actionParam, ParamActionExt.class);
     }
 
-    private void dealActionParam(Map<String, Object> actionParam, ScheduleTaskShade task, ScheduleJob scheduleJob) throws Exception {
-        IPipeline pipeline = null;
-        String pipelineConfig = null;
-        if (actionParam.containsKey(PipelineBuilder.pipelineKey)) {
-            pipelineConfig = (String) actionParam.get(PipelineBuilder.pipelineKey);
-            pipeline = PipelineBuilder.buildPipeline(pipelineConfig);
-        } else if (EScheduleJobType.SYNC.getType().equals(task.getTaskType())) {
-            pipeline = syncOperatorPipeline;
-        } else if (EScheduleJobType.WORK_FLOW.getType().equals(task.getTaskType())
-                || EScheduleJobType.VIRTUAL.getType().equals(task.getTaskType())) {
-            pipeline = unnecessaryPreprocessJobPipeline;
-        } else {
-            pipeline = PipelineBuilder.buildDefaultSqlPipeline();
-        }
-
-        List<ScheduleTaskParamShade> taskParamsToReplace = JSONObject.parseArray((String) actionParam.get("taskParamsToReplace"), ScheduleTaskParamShade.class);
-        Map<String, Object> pipelineInitMap = PipelineBuilder.getPipelineInitMap(pipelineConfig, scheduleJob, task, taskParamsToReplace, (uploadPipelineMap) -> {
-            //fill 文件上传的信息
-            JSONObject pluginInfo = clusterService.pluginInfoJSON(task.getTenantId(), task.getTaskType(), null, null);
-            String hdfsTypeName = componentService.buildHdfsTypeName(task.getTenantId(), null);
-            pluginInfo.put(ConfigConstant.TYPE_NAME_KEY, hdfsTypeName);
-            uploadPipelineMap.put(UploadParamPipeline.pluginInfoKey, pluginInfo);
-            uploadPipelineMap.put(UploadParamPipeline.fileUploadPathKey, environmentContext.getHdfsTaskPath());
-        });
-        pipeline.execute(actionParam, pipelineInitMap);
+    private void dealActionParam(Map<String, Object> actionParam, LaunchPlan launchPlan, ScheduleTaskShade task, ScheduleJob scheduleJob) throws Exception {
+        Map<String, Object> pipelineInitMap = PipelineBuilder.getPipelineInitMap(launchPlan.isNeedUpload(), scheduleJob, task,
+                launchPlan.getTaskParamsToReplace(), (uploadPipelineMap) -> launchPlanCache.fillUploadParam(uploadPipelineMap, task));
+        launchPlan.getPipeline().execute(actionParam, pipelineInitMap);
     }
 
     /**
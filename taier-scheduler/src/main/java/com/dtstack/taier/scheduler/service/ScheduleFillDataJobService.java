@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.service;
+
+import com.alibaba.fastjson.JSON;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.dao.domain.ScheduleFillDataJob;
+import com.dtstack.taier.dao.mapper.ScheduleFillDataJobMapper;
+import com.dtstack.taier.scheduler.dto.fill.ScheduleFillDataInfoDTO;
+import com.dtstack.taier.scheduler.dto.fill.ScheduleFillJobParticipateDTO;
+import com.dtstack.taier.scheduler.enums.FillGeneratStatusEnum;
+import com.dtstack.taier.scheduler.server.action.fill.FillDataRunnable;
+import com.dtstack.taier.scheduler.server.action.fill.FillDataThreadPoolExecutor;
+import com.dtstack.taier.scheduler.server.builder.FillDataJobBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 补数据生成进度
+ * <p>
+ * 补数据实例按天生成，一天的实例和进度在同一个事务中保存；生成节点宕机后由 master 接管，从记录的进度继续生成
+ *
+ * @author jiangbo
+ */
+@Service
+public class ScheduleFillDataJobService extends ServiceImpl<ScheduleFillDataJobMapper, ScheduleFillDataJob> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleFillDataJobService.class);
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private FillDataThreadPoolExecutor fillDataThreadPoolExecutor;
+
+    @Autowired
+    private FillDataJobBuilder fillDataJobBuilder;
+
+    /**
+     * 记录已完成生成的业务日期和实例数，只有补数据仍归属当前节点时才更新
+     *
+     * @param fillId         补数据id
+     * @param finishDay      已完成的业务日期 yyyy-MM-dd
+     * @param generateJobNum 已生成的实例数
+     * @param nodeAddress    生成节点
+     * @return false 表示补数据已被其他节点接管
+     */
+    public boolean updateProgress(Long fillId, String finishDay, Integer generateJobNum, String nodeAddress) {
+        ScheduleFillDataJob updateFillDataJob = new ScheduleFillDataJob();
+        updateFillDataJob.setFinishDay(finishDay);
+        updateFillDataJob.setGenerateJobNum(generateJobNum);
+        return this.lambdaUpdate()
+                .eq(ScheduleFillDataJob::getId, fillId)
+                .eq(ScheduleFillDataJob::getNodeAddress, nodeAddress)
+                .update(updateFillDataJob);
+    }
+
+    /**
+     * 在同一个事务中保存一天的补数据实例并记录进度，补数据已被其他节点接管时回滚，由接管的节点重新生成该天
+     *
+     * @param fillId         补数据id
+     * @param finishDay      已完成的业务日期 yyyy-MM-dd
+     * @param generateJobNum 已生成的实例数
+     * @param nodeAddress    生成节点
+     * @param saveJobs       保存当天的实例
+     * @return false 表示补数据已被其他节点接管
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public boolean saveDayWithProgress(Long fillId, String finishDay, Integer generateJobNum, String nodeAddress, Runnable saveJobs) {
+        saveJobs.run();
+        if (updateProgress(fillId, finishDay, generateJobNum, nodeAddress)) {
+            return true;
+        }
+        TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+        return false;
+    }
+
+    /**
+     * 补数据是否仍归属该节点
+     *
+     * @param fillId      补数据id
+     * @param nodeAddress 生成节点
+     */
+    public boolean isOwner(Long fillId, String nodeAddress) {
+        return this.lambdaQuery()
+                .eq(ScheduleFillDataJob::getId, fillId)
+                .eq(ScheduleFillDataJob::getNodeAddress, nodeAddress)
+                .eq(ScheduleFillDataJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .count() > 0;
+    }
+
+    /**
+     * 更新补数据生成状态
+     *
+     * @param fillId         补数据id
+     * @param originalStatus 原状态
+     * @param currentStatus  目标状态
+     */
+    public void updateGenerateStatus(Long fillId, Integer originalStatus, Integer currentStatus) {
+        ScheduleFillDataJob updateFillDataJob = new ScheduleFillDataJob();
+        updateFillDataJob.setFillGenerateStatus(currentStatus);
+        this.lambdaUpdate()
+                .eq(ScheduleFillDataJob::getId, fillId)
+                .eq(ScheduleFillDataJob::getFillGenerateStatus, originalStatus)
+                .update(updateFillDataJob);
+    }
+
+    /**
+     * 接管宕机节点上未生成完成的补数据
+     *
+     * @param deadNodes   宕机节点
+     * @param nodeAddress 接管节点
+     */
+    public void recoverFillData(Collection<String> deadNodes, String nodeAddress) {
+        if (deadNodes.isEmpty()) {
+            return;
+        }
+        List<ScheduleFillDataJob> fillDataJobs = this.lambdaQuery()
+                .in(ScheduleFillDataJob::getNodeAddress, deadNodes)
+                .eq(ScheduleFillDataJob::getFillGenerateStatus, FillGeneratStatusEnum.REALLY_GENERATED.getType())
+                .eq(ScheduleFillDataJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+        for (ScheduleFillDataJob fillDataJob : fillDataJobs) {
+            // 已在当前节点排队或生成中的补数据不再重复提交
+            if (fillDataThreadPoolExecutor.isActive(fillDataJob.getId()) || fillDataJobBuilder.isGenerating(fillDataJob.getId())) {
+                continue;
+            }
+            try {
+                if (!takeOver(fillDataJob, nodeAddress)) {
+                    continue;
+                }
+                ScheduleFillJobParticipateDTO participateDTO = new ScheduleFillJobParticipateDTO();
+                participateDTO.setFillName(fillDataJob.getJobName());
+                participateDTO.setStartDay(fillDataJob.getFromDay());
+                participateDTO.setEndDay(fillDataJob.getToDay());
+                participateDTO.setBeginTime(fillDataJob.getBeginTime());
+                participateDTO.setEndTime(fillDataJob.getEndTime());
+                participateDTO.setTenantId(fillDataJob.getTenantId());
+                participateDTO.setUserId(fillDataJob.getCreateUserId());
+                ScheduleFillDataInfoDTO fillDataInfo = JSON.parseObject(fillDataJob.getFillDataInfo(), ScheduleFillDataInfoDTO.class);
+                participateDTO.setFillDataInfo(fillDataInfo);
+
+                LOGGER.warn("fillId:{} take over from node:{} finishDay:{}", fillDataJob.getId(), fillDataJob.getNodeAddress(), fillDataJob.getFinishDay());
+                fillDataThreadPoolExecutor.submit(new FillDataRunnable(fillDataJob.getId(), participateDTO, fillDataInfo,
+                        this::updateGenerateStatus, applicationContext));
+            } catch (Exception e) {
+                LOGGER.error("fillId:{} recover error", fillDataJob.getId(), e);
+            }
+        }
+    }
+
+    /**
+     * master 启动时接管生成节点已不存活的补数据，当前节点重启后未继续生成的补数据也一并接管，
+     * 当前节点线程池中排队或生成中的补数据不是孤儿，跳过
+     *
+     * @param aliveNodes  存活节点
+     * @param nodeAddress 接管节点
+     */
+    public void recoverOrphanFillData(Collection<String> aliveNodes, String nodeAddress) {
+        Set<String> orphanNodes = this.lambdaQuery()
+                .select(ScheduleFillDataJob::getNodeAddress)
+                .eq(ScheduleFillDataJob::getFillGenerateStatus, FillGeneratStatusEnum.REALLY_GENERATED.getType())
+                .eq(ScheduleFillDataJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .isNotNull(ScheduleFillDataJob::getNodeAddress)
+                .list()
+                .stream()
+                .map(ScheduleFillDataJob::getNodeAddress)
+                .filter(node -> node.equals(nodeAddress) || !aliveNodes.contains(node))
+                .collect(Collectors.toSet());
+        recoverFillData(orphanNodes, nodeAddress);
+    }
+
+    private boolean takeOver(ScheduleFillDataJob fillDataJob, String nodeAddress) {
+        if (StringUtils.isBlank(fillDataJob.getFillDataInfo())) {
+            return false;
+        }
+        ScheduleFillDataJob updateFillDataJob = new ScheduleFillDataJob();
+        updateFillDataJob.setNodeAddress(nodeAddress);
+        return this.lambdaUpdate()
+                .eq(ScheduleFillDataJob::getId, fillDataJob.getId())
+                .eq(ScheduleFillDataJob::getNodeAddress, fillDataJob.getNodeAddress())
+                .eq(ScheduleFillDataJob::getFillGenerateStatus, FillGeneratStatusEnum.REALLY_GENERATED.getType())
+                .update(updateFillDataJob);
+    }
+}
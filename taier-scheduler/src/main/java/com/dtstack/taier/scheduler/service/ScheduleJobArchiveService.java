@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.service;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.po.JobArchivePartitionPO;
+import com.dtstack.taier.dao.mapper.ScheduleJobArchiveMapper;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import org.apache.commons.collections.CollectionUtils;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 实例冷热分离
+ * <p>
+ * schedule_job 作为工作集，只保留未结束的实例和最近 hot.days 天的实例，调度扫描、状态查询都只读工作集；
+ * 更早的已结束实例按 id 分批复制到按调度日期分区的 schedule_job_archive 后从工作集删除，
+ * 超过 retain.days 天的历史直接删除整个分区，不做逐行删除。
+ * <p>
+ * 先复制再删除，中途失败时实例同时存在于两张表，读取时以工作集为准，下次归档覆盖归档表中的旧数据
+ *
+ * @author jiangbo
+ */
+@Service
+public class ScheduleJobArchiveService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleJobArchiveService.class);
+
+    private static final DateTimeFormatter CYC_DAY_FORMATTER = DateTimeFormat.forPattern("yyyyMMdd");
+
+    private static final String DAY_START = "000000";
+
+    private static final String PARTITION_PREFIX = "p";
+
+    /**
+     * 建表时的空分区，上界小于所有调度时间
+     */
+    private static final String INIT_PARTITION = "p_init";
+
+    private static final int MAX_PARTITIONS_PER_ALTER = 100;
+
+    @Autowired
+    private ScheduleJobArchiveMapper scheduleJobArchiveMapper;
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    public boolean isEnable() {
+        return Boolean.TRUE.equals(environmentContext.getJobArchiveEnable());
+    }
+
+    /**
+     * 归档已结束的历史实例并删除过期分区
+     */
+    public void archive() {
+        if (!isEnable()) {
+            return;
+        }
+        DateTime today = DateTime.now().withTimeAtStartOfDay();
+        String endCycTime = today.minusDays(environmentContext.getJobArchiveHotDays()).toString(CYC_DAY_FORMATTER) + DAY_START;
+        List<Integer> statuses = TaskStatus.getStoppedStatus();
+
+        String minCycTime = scheduleJobArchiveMapper.minArchiveCycTime(endCycTime, statuses);
+        if (minCycTime != null) {
+            addPartitions(minCycTime, endCycTime);
+            int archived = moveJobs(endCycTime, statuses);
+            LOGGER.info("archive jobs before cycTime:{} from:{}, archived:{}", endCycTime, minCycTime, archived);
+        }
+
+        String retainCycTime = today.minusDays(environmentContext.getJobArchiveRetainDays()).toString(CYC_DAY_FORMATTER) + DAY_START;
+        dropPartitions(retainCycTime);
+    }
+
+    /**
+     * 查询归档的实例，未开启归档时返回 null
+     */
+    public ScheduleJob getByJobId(String jobId) {
+        if (!isEnable()) {
+            return null;
+        }
+        return scheduleJobArchiveMapper.getByJobId(jobId);
+    }
+
+    /**
+     * 按实例 key 查询归档的实例，未开启归档时返回空
+     */
+    public List<ScheduleJob> listByJobKeys(Collection<String> jobKeys) {
+        if (!isEnable() || CollectionUtils.isEmpty(jobKeys)) {
+            return Collections.emptyList();
+        }
+        return scheduleJobArchiveMapper.listByJobKeys(jobKeys);
+    }
+
+    private int moveJobs(String endCycTime, List<Integer> statuses) {
+        int archived = 0;
+        Long startId = 0L;
+        while (true) {
+            List<Long> ids = scheduleJobArchiveMapper.listArchiveJobIds(startId, endCycTime, statuses, environmentContext.getJobArchiveBatchSize());
+            if (CollectionUtils.isEmpty(ids)) {
+                return archived;
+            }
+            scheduleJobArchiveMapper.archiveByIds(ids);
+            archived += scheduleJobArchiveMapper.deleteArchivedByIds(ids, statuses);
+            startId = ids.get(ids.size() - 1);
+        }
+    }
+
+    /**
+     * 保证 endCycTime 之前的每一天都有分区。分区连续增加，最早的分区同时容纳更早的数据，
+     * 因此已有分区之后只需从最后一个分区继续补齐
+     */
+    private void addPartitions(String minCycTime, String endCycTime) {
+        List<JobArchivePartitionPO> partitions = scheduleJobArchiveMapper.listPartitions();
+        if (CollectionUtils.isEmpty(partitions)) {
+            LOGGER.warn("schedule_job_archive is not partitioned, skip partition management");
+            return;
+        }
+        JobArchivePartitionPO last = partitions.get(partitions.size() - 1);
+        DateTime day = INIT_PARTITION.equals(last.getPartitionName())
+                ? CYC_DAY_FORMATTER.parseDateTime(minCycTime.substring(0, 8))
+                : CYC_DAY_FORMATTER.parseDateTime(last.getLessThan().substring(0, 8));
+        DateTime endDay = CYC_DAY_FORMATTER.parseDateTime(endCycTime.substring(0, 8));
+
+        List<JobArchivePartitionPO> newPartitions = new ArrayList<>();
+        for (; day.isBefore(endDay); day = day.plusDays(1)) {
+            newPartitions.add(new JobArchivePartitionPO(PARTITION_PREFIX + day.toString(CYC_DAY_FORMATTER),
+                    day.plusDays(1).toString(CYC_DAY_FORMATTER) + DAY_START));
+            if (newPartitions.size() >= MAX_PARTITIONS_PER_ALTER) {
+                scheduleJobArchiveMapper.addPartitions(newPartitions);
+                newPartitions = new ArrayList<>();
+            }
+        }
+        if (!newPartitions.isEmpty()) {
+            scheduleJobArchiveMapper.addPartitions(newPartitions);
+        }
+    }
+
+    /**
+     * 删除上界不超过 retainCycTime 的分区
+     */
+    private void dropPartitions(String retainCycTime) {
+        List<String> expired = scheduleJobArchiveMapper.listPartitions().stream()
+                .filter(partition -> !INIT_PARTITION.equals(partition.getPartitionName()))
+                .filter(partition -> partition.getLessThan().compareTo(retainCycTime) <= 0)
+                .map(JobArchivePartitionPO::getPartitionName)
+                .collect(Collectors.toList());
+        if (expired.isEmpty()) {
+            return;
+        }
+        scheduleJobArchiveMapper.dropPartitions(expired);
+        LOGGER.info("drop expired job archive partitions:{}", expired);
+    }
+}
@@ -2,6 +2,7 @@ package com.dtstack.taier.scheduler.service;
 
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.util.JobKeyIdUtil;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.mapper.ScheduleJobJobMapper;
 import com.google.common.collect.Lists;
@@ -9,6 +10,7 @@ import org.apache.commons.collections.CollectionUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * @Auther: dazhi
@@ -27,10 +29,32 @@ public class ScheduleJobJobService extends ServiceImpl<ScheduleJobJobMapper, Sch
      */
     public List<ScheduleJobJob> listByJobKeys(List<String> jobKeys) {
         if (CollectionUtils.isNotEmpty(jobKeys)) {
-            return this.lambdaQuery().in(ScheduleJobJob::getJobKey,jobKeys)
+            // 按数值标识走索引，jobKey 过滤标识相同的其他实例
+            return this.lambdaQuery().in(ScheduleJobJob::getJobKeyId, toJobKeyIds(jobKeys))
+                    .in(ScheduleJobJob::getJobKey, jobKeys)
                     .eq(ScheduleJobJob::getIsDeleted, Deleted.NORMAL.getStatus())
                     .list();
         }
         return Lists.newArrayList();
     }
+
+    /**
+     * 查询子实例信息
+     *
+     * @param parentJobKeys 父实例key
+     * @return 实例关系信息
+     */
+    public List<ScheduleJobJob> listByParentJobKeys(List<String> parentJobKeys) {
+        if (CollectionUtils.isNotEmpty(parentJobKeys)) {
+            return this.lambdaQuery().in(ScheduleJobJob::getParentJobKeyId, toJobKeyIds(parentJobKeys))
+                    .in(ScheduleJobJob::getParentJobKey, parentJobKeys)
+                    .eq(ScheduleJobJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list();
+        }
+        return Lists.newArrayList();
+    }
+
+    private List<Long> toJobKeyIds(List<String> jobKeys) {
+        return jobKeys.stream().map(JobKeyIdUtil::getJobKeyId).distinct().collect(Collectors.toList());
+    }
 }
@@ -1,6 +1,5 @@
 package com.dtstack.taier.scheduler.service;
 
-import com.alibaba.fastjson.JSONObject;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
@@ -13,6 +12,7 @@ import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.common.util.GenerateErrorMsgUtil;
 import com.dtstack.taier.dao.domain.*;
 import com.dtstack.taier.dao.domain.po.SimpleScheduleJobPO;
+import com.dtstack.taier.dao.domain.po.TaskExecTimePO;
 import com.dtstack.taier.dao.mapper.ScheduleJobMapper;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.util.RetryUtil;
@@ -67,6 +67,9 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
     @Autowired
     private ScheduleJobExpandService scheduleJobExpandService;
 
+    @Autowired
+    private ScheduleJobArchiveService scheduleJobArchiveService;
+
     @Autowired
     private ScheduleJobOperatorRecordService scheduleJobOperatorRecordService;
 
@@ -86,8 +89,8 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         ScheduleTaskShade scheduleTaskShade = scheduleJobDetails.getScheduleTaskShade();
 
         // 解析任务运行信息
-        JSONObject extraInfo = scheduleTaskShadeInfoService.getInfoJSON(scheduleJob.getTaskId());
-        if (null == extraInfo) {
+        String extraInfo = scheduleTaskShadeInfoService.getInfo(scheduleJob.getTaskId());
+        if (StringUtils.isBlank(extraInfo)) {
             //额外信息为空 标记任务为失败
             this.updateStatusAndLogInfoById(scheduleJob.getJobId(), TaskStatus.FAILED.getStatus(), "task run extra info is empty");
             LOGGER.error(" job  {} run fail with info is null", scheduleJob.getJobId());
@@ -164,8 +167,6 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
             return null;
         }
 
-        Iterator<ScheduleJobDetails> batchJobIterator = jobBuilderBeanCollection.iterator();
-
         //count%20 为一批
         //1: 批量插入BatchJob
         //2: 批量插入BatchJobJobList
@@ -176,17 +177,13 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         List<ScheduleJob> jobWaitForSave = Lists.newArrayList();
         List<ScheduleJobJob> jobJobWaitForSave = Lists.newArrayList();
 
-        Map<String, Integer> nodeJobSize = computeJobSizeForNode(jobBuilderBeanCollection.size(), scheduleType);
-        for (Map.Entry<String, Integer> nodeJobSizeEntry : nodeJobSize.entrySet()) {
-            String nodeAddress = nodeJobSizeEntry.getKey();
-            int nodeSize = nodeJobSizeEntry.getValue();
-            final int finalBatchNodeSize = nodeSize;
-            while (nodeSize > 0 && batchJobIterator.hasNext()) {
-                nodeSize--;
+        Map<String, List<ScheduleJobDetails>> nodeJobs = partitionJobForNode(jobBuilderBeanCollection, scheduleType);
+        for (Map.Entry<String, List<ScheduleJobDetails>> nodeJobsEntry : nodeJobs.entrySet()) {
+            String nodeAddress = nodeJobsEntry.getKey();
+            final int finalBatchNodeSize = nodeJobsEntry.getValue().size();
+            for (ScheduleJobDetails jobBuilderBean : nodeJobsEntry.getValue()) {
                 count++;
 
-                ScheduleJobDetails jobBuilderBean = batchJobIterator.next();
-
                 ScheduleJob scheduleJob = jobBuilderBean.getScheduleJob();
                 scheduleJob.setNodeAddress(nodeAddress);
 
@@ -207,6 +204,37 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         return minJobId;
     }
 
+    /**
+     * 为实例分配节点，开启一致性哈希时按 jobId 在哈希环上的归属节点分配，节点上下线时只有少量实例需要迁移；
+     * 否则按各节点队列负载切分数量
+     *
+     * @param jobBuilderBeanCollection 实例集合
+     * @param scheduleType             调度类型 正常调度 和 补数据
+     * @return 节点 -> 实例
+     */
+    private Map<String, List<ScheduleJobDetails>> partitionJobForNode(Collection<ScheduleJobDetails> jobBuilderBeanCollection, int scheduleType) {
+        if (jobPartitioner.isConsistentHash()) {
+            Map<String, List<ScheduleJobDetails>> nodeJobs = jobPartitioner.partitionByOwner(jobBuilderBeanCollection,
+                    jobBuilderBean -> jobBuilderBean.getScheduleJob().getJobId());
+            if (!nodeJobs.isEmpty()) {
+                return nodeJobs;
+            }
+        }
+        Iterator<ScheduleJobDetails> batchJobIterator = jobBuilderBeanCollection.iterator();
+        Map<String, Integer> nodeJobSize = computeJobSizeForNode(jobBuilderBeanCollection.size(), scheduleType);
+        Map<String, List<ScheduleJobDetails>> nodeJobs = new LinkedHashMap<>(nodeJobSize.size());
+        for (Map.Entry<String, Integer> nodeJobSizeEntry : nodeJobSize.entrySet()) {
+            List<ScheduleJobDetails> jobs = Lists.newArrayList();
+            int nodeSize = nodeJobSizeEntry.getValue();
+            while (nodeSize > 0 && batchJobIterator.hasNext()) {
+                nodeSize--;
+                jobs.add(batchJobIterator.next());
+            }
+            nodeJobs.put(nodeJobSizeEntry.getKey(), jobs);
+        }
+        return nodeJobs;
+    }
+
     /**
      * 获得调度各个节点的ip
      *
@@ -396,6 +424,17 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
                 .selectOne(Wrappers.lambdaQuery(ScheduleJob.class).eq(ScheduleJob::getJobId, jobId));
     }
 
+    /**
+     * 查询实例，工作集中不存在时查询归档的实例，只用于查看历史，不能用于修改实例
+     *
+     * @param jobId 实例id
+     * @return 实例
+     */
+    public ScheduleJob getByJobIdWithArchive(String jobId) {
+        ScheduleJob scheduleJob = getByJobId(jobId);
+        return scheduleJob != null ? scheduleJob : scheduleJobArchiveService.getByJobId(jobId);
+    }
+
     /**
      * 批量查询实例
      *
@@ -553,6 +592,17 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
                 .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()));
     }
 
+    /**
+     * 按任务、计划日期、小时汇总成功的周期实例的平均运行时长
+     *
+     * @param startCycTime 计划时间开始(包含) yyyyMMddHHmmss
+     * @param endCycTime   计划时间结束(不包含) yyyyMMddHHmmss
+     * @return 平均运行时长
+     */
+    public List<TaskExecTimePO> listTaskExecTime(String startCycTime, String endCycTime) {
+        return this.baseMapper.listTaskExecTime(startCycTime, endCycTime, EScheduleType.NORMAL_SCHEDULE.getType(), TaskStatus.FINISHED.getStatus());
+    }
+
     /**
      * 扫描实例，用于容灾
      *
@@ -569,6 +619,90 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         return ScheduleJobMapStruct.INSTANCE.scheduleJobTOSimpleScheduleJobDTO(simpleScheduleJobPOS);
     }
 
+    /**
+     * 按主键区间迁移节点上未完成的实例
+     *
+     * @param startId     起始id(包含)
+     * @param endId       结束id(包含)
+     * @param type        实例类型 EScheduleType
+     * @param statuses    实例状态
+     * @param fromAddress 原节点
+     * @param toAddress   迁移到的节点
+     * @return 更新的实例数
+     */
+    public int updateNodeAddressByIdRange(Long startId, Long endId, Integer type, List<Integer> statuses, String fromAddress, String toAddress) {
+        ScheduleJob scheduleJob = new ScheduleJob();
+        scheduleJob.setNodeAddress(toAddress);
+        return this.baseMapper.update(scheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
+                .between(ScheduleJob::getId, startId, endId)
+                .and(wrapper -> wrapper.eq(ScheduleJob::getNodeAddress, fromAddress).or().isNull(ScheduleJob::getNodeAddress))
+                .eq(ScheduleJob::getType, type)
+                .in(ScheduleJob::getStatus, statuses)
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()));
+    }
+
+    /**
+     * 按 jobId 迁移实例所在节点，只迁移仍属于原节点或未分配节点的实例
+     *
+     * @param jobIds      实例 jobId
+     * @param fromAddress 原节点
+     * @param toAddress   目标节点
+     * @return 更新条数
+     */
+    public int updateNodeAddressByJobIds(List<String> jobIds, String fromAddress, String toAddress) {
+        if (CollectionUtils.isEmpty(jobIds)) {
+            return 0;
+        }
+        ScheduleJob scheduleJob = new ScheduleJob();
+        scheduleJob.setNodeAddress(toAddress);
+        return this.baseMapper.update(scheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
+                .in(ScheduleJob::getJobId, jobIds)
+                .and(wrapper -> wrapper.eq(ScheduleJob::getNodeAddress, fromAddress).or().isNull(ScheduleJob::getNodeAddress))
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()));
+    }
+
+    /**
+     * 新节点加入后将尚未调度的实例迁移到新的归属节点，只迁移仍在原节点且未被扫描提交的实例
+     *
+     * @param jobIds      实例 jobId
+     * @param fromAddress 原节点
+     * @param toAddress   目标节点
+     * @return 更新条数
+     */
+    public int rebalanceNodeAddress(List<String> jobIds, String fromAddress, String toAddress) {
+        if (CollectionUtils.isEmpty(jobIds)) {
+            return 0;
+        }
+        ScheduleJob scheduleJob = new ScheduleJob();
+        scheduleJob.setNodeAddress(toAddress);
+        return this.baseMapper.update(scheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
+                .in(ScheduleJob::getJobId, jobIds)
+                .eq(ScheduleJob::getNodeAddress, fromAddress)
+                .eq(ScheduleJob::getPhaseStatus, JobPhaseStatus.CREATE.getCode())
+                .eq(ScheduleJob::getStatus, TaskStatus.UNSUBMIT.getStatus())
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()));
+    }
+
+    /**
+     * 分页查询尚未调度的实例，用于新节点加入后的归属迁移
+     *
+     * @param startId    起始 id
+     * @param minCycTime 最小计划时间
+     * @param limit      条数
+     * @return 实例
+     */
+    public List<ScheduleJob> listUnsubmitJobForRebalance(Long startId, String minCycTime, Integer limit) {
+        return this.baseMapper.selectList(Wrappers.lambdaQuery(ScheduleJob.class)
+                .select(ScheduleJob::getId, ScheduleJob::getJobId, ScheduleJob::getNodeAddress)
+                .gt(ScheduleJob::getId, startId)
+                .eq(ScheduleJob::getStatus, TaskStatus.UNSUBMIT.getStatus())
+                .eq(ScheduleJob::getPhaseStatus, JobPhaseStatus.CREATE.getCode())
+                .ge(ScheduleJob::getCycTime, minCycTime)
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .orderByAsc(ScheduleJob::getId)
+                .last("limit " + limit));
+    }
+
     public void updateStatusWithExecTime(ScheduleJob job) {
         ScheduleJob updateScheduleJob = new ScheduleJob();
         updateScheduleJob.setExecStartTime(job.getExecStartTime());
@@ -5,17 +5,22 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.dtstack.taier.dao.domain.ScheduleTaskShadeInfo;
 import com.dtstack.taier.dao.mapper.ScheduleTaskShadeInfoMapper;
+import com.dtstack.taier.scheduler.server.pipeline.LaunchPlanCache;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 
 @Service
 public class ScheduleTaskShadeInfoService extends ServiceImpl<ScheduleTaskShadeInfoMapper, ScheduleTaskShadeInfo> {
 
+    @Autowired
+    private LaunchPlanCache launchPlanCache;
 
     public void update(ScheduleTaskShadeInfo scheduleTaskShadeInfo,Long taskId){
         getBaseMapper().update(scheduleTaskShadeInfo,
                 Wrappers.lambdaQuery(ScheduleTaskShadeInfo.class)
                         .eq(ScheduleTaskShadeInfo::getTaskId,taskId));
+        launchPlanCache.invalidate(taskId);
     }
 
     public void insert(ScheduleTaskShadeInfo scheduleTaskShadeInfo){
@@ -23,11 +28,22 @@ public class ScheduleTaskShadeInfoService extends ServiceImpl<ScheduleTaskShadeI
     }
 
     public JSONObject getInfoJSON(Long taskId) {
+        String info = getInfo(taskId);
+        if(null == info){
+            return null;
+        }
+        return JSONObject.parseObject(info);
+    }
+
+    /**
+     * 获取任务运行信息原文，由启动计划缓存负责解析
+     */
+    public String getInfo(Long taskId) {
         ScheduleTaskShadeInfo scheduleTaskShadeInfo = getBaseMapper().selectOne(Wrappers.lambdaQuery(ScheduleTaskShadeInfo.class)
                 .eq(ScheduleTaskShadeInfo::getTaskId, taskId));
         if(null == scheduleTaskShadeInfo){
             return null;
         }
-        return JSONObject.parseObject(scheduleTaskShadeInfo.getInfo());
+        return scheduleTaskShadeInfo.getInfo();
     }
 }
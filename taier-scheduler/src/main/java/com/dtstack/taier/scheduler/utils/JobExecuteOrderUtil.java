@@ -10,6 +10,20 @@ import org.apache.commons.lang3.StringUtils;
  */
 public class JobExecuteOrderUtil {
 
+    /**
+     * 按关键路径排序的序号，9位自增部分以 1 开头，随后 2 位关键路径等级(越小越先执行)，最后 6 位自增
+     */
+    private static final long CRITICAL_PATH_FLAG = 100000000L;
+
+    private static final long INCREASING_RANGE = 1000000000L;
+
+    private static final int MAX_CRITICAL_PATH_LEVEL = 99;
+
+    /**
+     * 剩余时长每增加一倍，关键路径等级增加的级数
+     */
+    private static final double LEVEL_PER_DOUBLING = 6.0;
+
     /**
      * 按照计划时间生成具体排列序号
      *
@@ -27,4 +41,49 @@ public class JobExecuteOrderUtil {
         String increasing = String.format("%09d", count);
         return Long.parseLong(substring+increasing);
     }
+
+    /**
+     * 按照计划时间和关键路径等级生成具体排列序号，同一分钟内关键路径越长越先执行
+     *
+     * @param triggerTime 计划时间
+     * @param level       关键路径等级 {@link #getCriticalPathLevel(long)}
+     * @param count       同一分钟、同一等级内的自增序号
+     * @return 排列序号
+     */
+    public static Long buildJobExecuteOrder(String triggerTime, int level, int count) {
+        int priority = MAX_CRITICAL_PATH_LEVEL - Math.max(0, Math.min(MAX_CRITICAL_PATH_LEVEL, level));
+        return buildJobExecuteOrder(triggerTime, 0) + CRITICAL_PATH_FLAG + priority * 1000000L + count % 1000000;
+    }
+
+    /**
+     * 剩余关键路径时长转换为等级，按对数分级
+     *
+     * @param remainingSeconds 实例自身及其下游最长路径的预估时长，单位秒
+     * @return 关键路径等级 0~99
+     */
+    public static int getCriticalPathLevel(long remainingSeconds) {
+        if (remainingSeconds <= 0) {
+            return 0;
+        }
+        double level = Math.log1p(remainingSeconds) / Math.log(2) * LEVEL_PER_DOUBLING;
+        return (int) Math.min(MAX_CRITICAL_PATH_LEVEL, level);
+    }
+
+    /**
+     * 从排列序号中还原剩余关键路径的预估时长，非关键路径排序的序号返回 0
+     *
+     * @param jobExecuteOrder 排列序号
+     * @return 预估时长，单位秒
+     */
+    public static long getCriticalPathSeconds(Long jobExecuteOrder) {
+        if (jobExecuteOrder == null) {
+            return 0L;
+        }
+        long increasing = jobExecuteOrder % INCREASING_RANGE;
+        if (increasing < CRITICAL_PATH_FLAG || increasing >= 2 * CRITICAL_PATH_FLAG) {
+            return 0L;
+        }
+        int level = MAX_CRITICAL_PATH_LEVEL - (int) ((increasing - CRITICAL_PATH_FLAG) / 1000000L);
+        return (long) Math.expm1(level / LEVEL_PER_DOUBLING * Math.log(2));
+    }
 }
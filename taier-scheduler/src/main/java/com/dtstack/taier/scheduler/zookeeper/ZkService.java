@@ -32,6 +32,7 @@ import com.dtstack.taier.scheduler.server.listener.MasterListener;
 import com.dtstack.taier.scheduler.utils.PathUtil;
 import com.dtstack.taier.scheduler.zookeeper.data.BrokerHeartNode;
 import com.dtstack.taier.scheduler.zookeeper.data.BrokersNode;
+import com.dtstack.taier.scheduler.zookeeper.data.OwnershipEpoch;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.curator.framework.CuratorFramework;
@@ -39,6 +40,7 @@ import org.apache.curator.framework.CuratorFrameworkFactory;
 import org.apache.curator.framework.api.CuratorWatcher;
 import org.apache.curator.framework.recipes.locks.InterProcessMutex;
 import org.apache.curator.retry.ExponentialBackoffRetry;
+import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.data.Stat;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
@@ -65,6 +67,8 @@ public class ZkService implements InitializingBean, DisposableBean {
     private final static String HEART_NODE = "heart";
     private final static String WORKER_NODE = "workers";
     private final static String LOCK_NODE = "locks";
+    private final static String OWNERSHIP_NODE = "ownership";
+    private final static String NODE_TOKEN = "nodeToken";
 
     private ZkConfig zkConfig;
     private String zkAddress;
@@ -74,6 +78,9 @@ public class ZkService implements InitializingBean, DisposableBean {
     private String localNode;
     private String workersNode;
     private String lockNode;
+    private String ownershipNode;
+    private String nodeTokenNode;
+    private volatile String nodeToken;
 
     private CuratorFramework zkClient;
     private static ObjectMapper objectMapper = new ObjectMapper();
@@ -177,6 +184,8 @@ public class ZkService implements InitializingBean, DisposableBean {
         createNodeIfNotExists(this.workersNode, new HashSet<>());
         // 初始化分布式锁节点
         createNodeIfNotExists(this.lockNode, null);
+        createNodeIfNotExists(this.ownershipNode, OwnershipEpoch.initOwnershipEpoch());
+        createNodeTokenIfNotExists();
         createLocalBrokerHeartNode();
         initScheduledExecutorService();
         LOGGER.warn("init zk server success...");
@@ -240,6 +249,8 @@ public class ZkService implements InitializingBean, DisposableBean {
         this.workersNode = String.format("%s/%s", this.localNode, WORKER_NODE);
         // 初始化分布式锁节点名称
         this.lockNode = String.format("%s/%s", this.distributeRootNode, LOCK_NODE);
+        this.ownershipNode = String.format("%s/%s", this.distributeRootNode, OWNERSHIP_NODE);
+        this.nodeTokenNode = String.format("%s/%s", this.distributeRootNode, NODE_TOKEN);
     }
 
     public BrokerHeartNode getBrokerHeartNode(String node) {
@@ -281,6 +292,50 @@ public class ZkService implements InitializingBean, DisposableBean {
         return alives;
     }
 
+    /**
+     * 获取实例归属版本，读取失败时返回 null
+     */
+    public OwnershipEpoch getOwnershipEpoch() {
+        try {
+            return objectMapper.readValue(zkClient.getData().forPath(this.ownershipNode), OwnershipEpoch.class);
+        } catch (Exception e) {
+            LOGGER.error("{}:getOwnershipEpoch error:", this.ownershipNode, e);
+        }
+        return null;
+    }
+
+    public void setOwnershipEpoch(OwnershipEpoch ownershipEpoch) throws Exception {
+        zkClient.setData().forPath(this.ownershipNode, objectMapper.writeValueAsBytes(ownershipEpoch));
+    }
+
+    /**
+     * 节点间请求签名的密钥，未配置 node.auth.token 时由第一个启动的节点生成并保存在 zk 中
+     */
+    private void createNodeTokenIfNotExists() throws Exception {
+        if (StringUtils.isNotBlank(environmentContext.getNodeAuthToken())) {
+            return;
+        }
+        try {
+            createNodeIfNotExists(this.nodeTokenNode, UUID.randomUUID().toString());
+        } catch (KeeperException.NodeExistsException e) {
+            // 其他节点同时创建
+        }
+    }
+
+    public String getNodeToken() {
+        if (StringUtils.isNotBlank(environmentContext.getNodeAuthToken())) {
+            return environmentContext.getNodeAuthToken();
+        }
+        if (this.nodeToken == null) {
+            try {
+                this.nodeToken = objectMapper.readValue(zkClient.getData().forPath(this.nodeTokenNode), String.class);
+            } catch (Exception e) {
+                LOGGER.error("{}:getNodeToken error:", this.nodeTokenNode, e);
+            }
+        }
+        return this.nodeToken;
+    }
+
     public List<Map<String, Object>> getAllBrokerWorkersNode() {
         List<Map<String, Object>> allWorkers = new ArrayList<>();
         List<String> children = this.getBrokersChildren();
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.scheduler.zookeeper.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 实例归属的版本，记录一致性哈希环上的节点集合，节点加入或离开时 epoch 加一
+ *
+ * @author jiangbo
+ */
+public class OwnershipEpoch {
+
+    private Long epoch;
+
+    private List<String> nodes;
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(Long epoch) {
+        this.epoch = epoch;
+    }
+
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(List<String> nodes) {
+        this.nodes = nodes;
+    }
+
+    public static OwnershipEpoch initOwnershipEpoch() {
+        OwnershipEpoch ownershipEpoch = new OwnershipEpoch();
+        ownershipEpoch.setEpoch(0L);
+        ownershipEpoch.setNodes(new ArrayList<>());
+        return ownershipEpoch;
+    }
+}
@@ -18,6 +18,7 @@
 
 package com.dtstack.taier.pluginapi;
 
+import com.dtstack.taier.pluginapi.util.LocalArtifactCache;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
@@ -60,6 +61,15 @@ public interface IFileManage {
      */
     boolean downloadFile(String remotePath, String localPath);
 
+    /**
+     * 远程文件的长度和修改时间，用于校验本地缓存，不支持或文件不存在时返回 null
+     * @param remotePath
+     * @return
+     */
+    default LocalArtifactCache.RemoteFileInfo getFileInfo(String remotePath) {
+        return null;
+    }
+
     /**
      *  下载目录
      * @param remotePath
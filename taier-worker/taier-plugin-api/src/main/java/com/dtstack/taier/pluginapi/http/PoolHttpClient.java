@@ -114,10 +114,20 @@ public class PoolHttpClient {
 	}
 
 	public static String post(String url, Object bodyData) {
+		return postWithHeaders(url, bodyData, null);
+	}
+
+	/**
+	 * 非 200 响应和请求异常时返回 null
+	 */
+	public static String postWithHeaders(String url, Object bodyData, Map<String, String> headers) {
 		String responseBody = null;
 		CloseableHttpResponse response = null;
 		try {
 			HttpPost httpPost = new HttpPost(url);
+			if (headers != null) {
+				headers.forEach(httpPost::setHeader);
+			}
 
 			httpPost.setHeader("Content-type","application/json;charset=UTF-8");
 			if (bodyData != null) {
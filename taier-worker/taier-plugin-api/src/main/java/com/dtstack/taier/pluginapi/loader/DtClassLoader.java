@@ -18,20 +18,34 @@
 
 package com.dtstack.taier.pluginapi.loader;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import sun.misc.CompoundEnumeration;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.net.URLStreamHandlerFactory;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
 
 /**
  * 自定义类加载器--->优先从当前加载器获取class
+ * <p>
+ * 创建时建立 目录(包)->jar 的索引，不在索引中的类和资源直接交给父加载器，不再逐个扫描 jar；
+ * {@link #PARENT_FIRST_PACKAGES} 中的包优先从父加载器获取；当前加载器中找不到的类记录在有界的缓存中，
+ * 避免反复扫描 jar，父加载器仍每次委托。classpath 中存在无法建立索引的 url(非本地文件、manifest 中有 Class-Path)时退化为逐个扫描
  * Date: 2017/6/18
  * Company: www.dtstack.com
  * @author xuchao
@@ -43,6 +57,20 @@ public class DtClassLoader extends URLClassLoader {
 
     private static final String CLASS_FILE_SUFFIX = ".class";
 
+    /**
+     * 优先从父加载器获取的包，插件与框架必须共用这些类
+     */
+    private static final String[] PARENT_FIRST_PACKAGES = new String[]{
+            "java.",
+            "sun.",
+            "com.sun.",
+            "jdk.",
+            "org.slf4j.",
+            "com.dtstack.taier.pluginapi."
+    };
+
+    private static final int MISSING_CLASS_CACHE_SIZE = 10000;
+
     /**
      * The parent class loader.
      */
@@ -50,17 +78,147 @@ public class DtClassLoader extends URLClassLoader {
 
     private boolean hasExternalRepositories = false;
 
+    /**
+     * 目录(类所在包或资源所在目录及其所有上级目录，以 / 分隔)->第一个包含该目录的 url
+     */
+    private final Map<String, URL> packageIndex = new ConcurrentHashMap<>();
+
+    /**
+     * 所有 url 都已建立索引，为 false 时不使用索引
+     */
+    private volatile boolean indexComplete = true;
+
+    /**
+     * 当前加载器的 url 中找不到的类，addURL 时清空
+     */
+    private final Cache<String, Boolean> missingClasses = CacheBuilder.newBuilder()
+            .maximumSize(MISSING_CLASS_CACHE_SIZE)
+            .build();
+
     public DtClassLoader(URL[] urls, ClassLoader parent) {
         super(urls, parent);
         this.parent = parent;
+        buildIndex(urls);
     }
 
     public DtClassLoader(URL[] urls) {
         super(urls);
+        this.parent = getParent();
+        buildIndex(urls);
     }
 
     public DtClassLoader(URL[] urls, ClassLoader parent, URLStreamHandlerFactory factory) {
         super(urls, parent, factory);
+        this.parent = parent;
+        buildIndex(urls);
+    }
+
+    private void buildIndex(URL[] urls) {
+        long startTime = System.currentTimeMillis();
+        for (URL url : urls) {
+            indexUrl(url);
+        }
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("build class loader index, urls:{}, packages:{}, complete:{}, cost:{}ms",
+                    urls.length, packageIndex.size(), indexComplete, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    private void indexUrl(URL url) {
+        if (!indexComplete) {
+            return;
+        }
+        try {
+            if (!"file".equals(url.getProtocol())) {
+                indexComplete = false;
+                return;
+            }
+            File file = new File(url.toURI());
+            if (file.isDirectory()) {
+                indexDirectory(url, file, "");
+            } else if (file.isFile()) {
+                indexJar(url, file);
+            }
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            LOGGER.warn("index url {} error, fall back to scan all urls", url, e);
+            indexComplete = false;
+        }
+    }
+
+    private void indexJar(URL url, File file) throws IOException {
+        try (JarFile jarFile = new JarFile(file)) {
+            Manifest manifest = jarFile.getManifest();
+            if (manifest != null && manifest.getMainAttributes().getValue(Attributes.Name.CLASS_PATH) != null) {
+                // Class-Path 引用的 jar 也会被 URLClassLoader 加载，无法只靠当前 jar 建立索引
+                indexComplete = false;
+                return;
+            }
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                indexDirectoryName(entry.isDirectory() ? trimSlash(name) : getDirectory(name), url);
+            }
+        }
+    }
+
+    private void indexDirectory(URL url, File dir, String path) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                indexDirectory(url, file, path + file.getName() + "/");
+            } else {
+                indexDirectoryName(getDirectory(path + file.getName()), url);
+            }
+        }
+    }
+
+    /**
+     * 记录目录及其所有上级目录，按目录查找资源(如 getResources("com/dtstack/"))时也能命中
+     */
+    private void indexDirectoryName(String directory, URL url) {
+        String current = directory;
+        // 已存在的目录在写入时已记录了全部上级目录
+        while (packageIndex.putIfAbsent(current, url) == null && !current.isEmpty()) {
+            current = getDirectory(current);
+        }
+    }
+
+    private static String getDirectory(String resourceName) {
+        int index = resourceName.lastIndexOf('/');
+        return index < 0 ? "" : resourceName.substring(0, index);
+    }
+
+    private static String trimSlash(String name) {
+        return name.endsWith("/") ? name.substring(0, name.length() - 1) : name;
+    }
+
+    /**
+     * 当前加载器的 url 中是否可能存在该资源
+     */
+    private boolean mayContainResource(String resourceName) {
+        if (!indexComplete) {
+            return true;
+        }
+        String name = resourceName.startsWith("/") ? resourceName.substring(1) : resourceName;
+        // 目录名(以 / 结尾)按目录本身查找
+        return packageIndex.containsKey(name.endsWith("/") ? trimSlash(name) : getDirectory(name));
+    }
+
+    private boolean mayContainClass(String className) {
+        return mayContainResource(className.replace('.', '/') + CLASS_FILE_SUFFIX);
+    }
+
+    protected boolean isParentFirst(String className) {
+        for (String parentFirstPackage : PARENT_FIRST_PACKAGES) {
+            if (className.startsWith(parentFirstPackage)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Override
@@ -70,6 +228,19 @@ public class DtClassLoader extends URLClassLoader {
 
     @Override
     protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        // (0) 共用的包优先从父加载器获取，不需要持有当前加载器的锁
+        if (isParentFirst(name)) {
+            try {
+                Class<?> clazz = Class.forName(name, false, parent);
+                if (resolve){
+                    resolveClass(clazz);
+                }
+                return clazz;
+            } catch (ClassNotFoundException e) {
+                // Ignore
+            }
+        }
+
         synchronized (getClassLoadingLock(name)) {
             if (LOGGER.isDebugEnabled()){
                 LOGGER.debug("loadClass(" + name + ", " + resolve + ")");
@@ -93,7 +264,9 @@ public class DtClassLoader extends URLClassLoader {
                 LOGGER.debug("  Searching local repositories");
             }
             try {
-                clazz = findClass(name);
+                // 只跳过当前加载器中确定找不到的类，父加载器仍然委托
+                boolean searchLocal = mayContainClass(name) && missingClasses.getIfPresent(name) == null;
+                clazz = searchLocal ? findClass(name) : null;
                 if (clazz != null) {
                     if (LOGGER.isDebugEnabled()){
                         LOGGER.debug("  Loading class from local repository");
@@ -104,7 +277,7 @@ public class DtClassLoader extends URLClassLoader {
                     return (clazz);
                 }
             } catch (ClassNotFoundException e) {
-                // Ignore
+                missingClasses.put(name, Boolean.TRUE);
             }
 
             if (LOGGER.isDebugEnabled()){
@@ -141,7 +314,7 @@ public class DtClassLoader extends URLClassLoader {
         URL url = null;
 
         // (2) Search local repositories
-        url = findResource(name);
+        url = mayContainResource(name) ? findResource(name) : null;
         if (url != null) {
             if (LOGGER.isDebugEnabled()){
                 LOGGER.debug("  --> Returning '" + url.toString() + "'");
@@ -169,6 +342,8 @@ public class DtClassLoader extends URLClassLoader {
     public void addURL(URL url) {
         super.addURL(url);
         hasExternalRepositories = true;
+        indexUrl(url);
+        missingClasses.invalidateAll();
     }
 
     /**
@@ -198,6 +373,9 @@ public class DtClassLoader extends URLClassLoader {
         }
 
         LinkedHashSet<URL> result = new LinkedHashSet<>();
+        if (!mayContainResource(name)) {
+            return Collections.enumeration(result);
+        }
 
         Enumeration<URL> superResource = super.findResources(name);
 
@@ -20,6 +20,7 @@ package com.dtstack.taier.pluginapi.sftp;
 
 import com.dtstack.taier.pluginapi.IFileManage;
 import com.dtstack.taier.pluginapi.exception.PluginDefineException;
+import com.dtstack.taier.pluginapi.util.LocalArtifactCache;
 import com.google.common.collect.Maps;
 import com.jcraft.jsch.*;
 import org.apache.commons.lang3.StringUtils;
@@ -187,8 +188,22 @@ public class SftpFileManage implements IFileManage {
             }
         }
         try {
-            downloadFile(remoteFile, localFile);
-            fileLastModifyMap.put(localFile, new File(localFile).lastModified());
+            // keytab、krb5.conf 等文件在登录时直接按路径读取，不参与配额淘汰
+            File file = LocalArtifactCache.getInstance().get(remoteFile, new File(localFile), false, false, new LocalArtifactCache.RemoteFetcher() {
+                @Override
+                public LocalArtifactCache.RemoteFileInfo stat() {
+                    return getFileInfo(remoteFile);
+                }
+
+                @Override
+                public boolean fetch(File tmpFile) {
+                    return downloadFile(remoteFile, tmpFile.getAbsolutePath());
+                }
+            });
+            if (file == null) {
+                return null;
+            }
+            fileLastModifyMap.put(localFile, file.lastModified());
             return localFile;
         } catch (Exception e) {
             LOGGER.error("load file error: ", e);
@@ -206,6 +221,20 @@ public class SftpFileManage implements IFileManage {
         return remotePath.contains(PREFIX);
     }
 
+    @Override
+    public LocalArtifactCache.RemoteFileInfo getFileInfo(String remotePath) {
+        ChannelSftp channelSftp = getChannelSftp();
+        try {
+            SftpATTRS attrs = channelSftp.lstat(remotePath);
+            return new LocalArtifactCache.RemoteFileInfo(attrs.getSize(), attrs.getMTime() * 1000L);
+        } catch (SftpException e) {
+            LOGGER.debug("get sftp file {} info error: {}", remotePath, e.getMessage());
+            return null;
+        } finally {
+            close(channelSftp);
+        }
+    }
+
     public boolean downloadFile(String remotePath, String localPath) {
         ChannelSftp channelSftp = getChannelSftp();
         try {
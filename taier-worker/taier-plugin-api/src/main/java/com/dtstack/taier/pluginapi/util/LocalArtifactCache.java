@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.pluginapi.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地文件缓存(jar、资源文件、keytab 等从 hdfs/sftp 下载的文件)
+ * <p>
+ * 1. 先下载到同目录的临时文件，校验长度后原子 rename，进程异常退出不会留下被当作缓存的半个文件；
+ * 2. 记录下载时远程文件的长度、修改时间和本地文件的长度、修改时间，任一不一致时重新下载；
+ * 3. 进程重启后没有记录的本地文件，远程信息获取或下载失败时沿用本地文件；
+ * 4. 同一个本地路径的并发下载合并为一次；
+ * 5. 可淘汰的文件总大小超过配额时按最近使用时间淘汰，最近仍在使用的文件不淘汰
+ *
+ * @author jiangbo
+ */
+public class LocalArtifactCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalArtifactCache.class);
+
+    private static final long DEFAULT_QUOTA_BYTES = 10L * 1024 * 1024 * 1024;
+
+    /**
+     * 最近该时间内访问过的文件可能仍被任务使用，不淘汰
+     */
+    private static final long EVICT_PROTECT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final String TMP_SUFFIX = ".downloading.";
+
+    private static final LocalArtifactCache INSTANCE = new LocalArtifactCache(DEFAULT_QUOTA_BYTES);
+
+    private volatile long quotaBytes;
+
+    /**
+     * 本地路径 -> 缓存信息，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Artifact> artifacts = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long evictableBytes = 0L;
+
+    private final Map<String, CompletableFuture<File>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong downloadBytes = new AtomicLong();
+    private final AtomicLong evictBytes = new AtomicLong();
+
+    public LocalArtifactCache(long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
+
+    public static LocalArtifactCache getInstance() {
+        return INSTANCE;
+    }
+
+    public void setQuotaBytes(long quotaBytes) {
+        this.quotaBytes = quotaBytes;
+    }
+
+    /**
+     * 获取本地文件，本地缓存无效时下载
+     *
+     * @param remotePath    远程路径，用于日志
+     * @param localFile     本地文件
+     * @param alwaysPullNew 总是重新下载
+     * @param evictable     是否参与配额淘汰，keytab 等运行期间必须存在的文件传 false
+     * @param fetcher       获取远程文件信息和下载
+     * @return 本地文件，下载失败返回 null
+     */
+    public File get(String remotePath, File localFile, boolean alwaysPullNew, boolean evictable, RemoteFetcher fetcher) {
+        String key = localFile.getAbsolutePath();
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            // 其他线程正在下载同一个文件，等待其结果
+            try {
+                File file = running.get();
+                if (file != null) {
+                    hitCount.incrementAndGet();
+                    touch(key);
+                }
+                return file;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+
+        try {
+            File file = load(remotePath, localFile, alwaysPullNew, evictable, fetcher);
+            future.complete(file);
+            return file;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("hit", hitCount.get());
+        metrics.put("miss", missCount.get());
+        metrics.put("downloadBytes", downloadBytes.get());
+        metrics.put("evictBytes", evictBytes.get());
+        synchronized (artifacts) {
+            metrics.put("files", (long) artifacts.size());
+            metrics.put("evictableBytes", evictableBytes);
+        }
+        return metrics;
+    }
+
+    private File load(String remotePath, File localFile, boolean alwaysPullNew, boolean evictable, RemoteFetcher fetcher) {
+        String key = localFile.getAbsolutePath();
+        RemoteFileInfo remoteInfo = stat(remotePath, fetcher);
+        if (!alwaysPullNew && isValid(key, localFile, remoteInfo)) {
+            hitCount.incrementAndGet();
+            if (isRecorded(key)) {
+                touch(key);
+            } else {
+                // 进程重启前下载的有效文件，纳入配额管理
+                record(key, localFile, remoteInfo, evictable);
+            }
+            return localFile;
+        }
+
+        missCount.incrementAndGet();
+        File file = download(remotePath, localFile, remoteInfo, evictable, fetcher);
+        if (file == null && !alwaysPullNew && localFile.isFile() && !isRecorded(key)) {
+            // 进程重启后没有记录且远程不可用时，沿用已有的本地文件(下载先写临时文件，已有文件一定是完整的)
+            LOG.warn("download {} failed, use existing local file {}", remotePath, localFile);
+            return localFile;
+        }
+        return file;
+    }
+
+    private File download(String remotePath, File localFile, RemoteFileInfo remoteInfo, boolean evictable, RemoteFetcher fetcher) {
+        String key = localFile.getAbsolutePath();
+        File parent = localFile.getAbsoluteFile().getParentFile();
+        if (!parent.exists()) {
+            boolean mkdirs = parent.mkdirs();
+            LOG.info("local file localParentFile {}  mkdir {} :", parent, mkdirs);
+        }
+        File tmpFile = new File(parent, localFile.getName() + TMP_SUFFIX + UUID.randomUUID());
+        try {
+            if (!fetcher.fetch(tmpFile) || !tmpFile.isFile()) {
+                return null;
+            }
+            if (remoteInfo != null && remoteInfo.getLength() >= 0 && tmpFile.length() != remoteInfo.getLength()) {
+                LOG.warn("download {} incomplete, expect {} bytes but got {}", remotePath, remoteInfo.getLength(), tmpFile.length());
+                return null;
+            }
+            move(tmpFile, localFile);
+            downloadBytes.addAndGet(localFile.length());
+            record(key, localFile, remoteInfo, evictable);
+            LOG.info("download {} to {} success, {} bytes", remotePath, localFile, localFile.length());
+            return localFile;
+        } catch (Exception e) {
+            LOG.error("download {} to {} error", remotePath, localFile, e);
+            return null;
+        } finally {
+            if (tmpFile.exists() && !tmpFile.delete()) {
+                LOG.warn("delete tmp file {} failed", tmpFile);
+            }
+        }
+    }
+
+    private RemoteFileInfo stat(String remotePath, RemoteFetcher fetcher) {
+        try {
+            return fetcher.stat();
+        } catch (Exception e) {
+            LOG.warn("get remote file {} info error", remotePath, e);
+            return null;
+        }
+    }
+
+    private boolean isValid(String key, File localFile, RemoteFileInfo remoteInfo) {
+        if (!localFile.isFile()) {
+            return false;
+        }
+        Artifact artifact;
+        synchronized (artifacts) {
+            artifact = artifacts.get(key);
+        }
+        if (artifact == null) {
+            // 进程重启前下载的文件，没有记录时只能和远程文件比较
+            return remoteInfo != null
+                    && remoteInfo.getLength() == localFile.length()
+                    && remoteInfo.getModificationTime() <= localFile.lastModified();
+        }
+        if (artifact.localLength != localFile.length() || artifact.localModificationTime != localFile.lastModified()) {
+            LOG.info("local file {} changed after download, download again", localFile);
+            return false;
+        }
+        if (remoteInfo != null && (remoteInfo.getLength() != artifact.remoteLength
+                || remoteInfo.getModificationTime() != artifact.remoteModificationTime)) {
+            LOG.info("remote file of {} changed, download again", localFile);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isRecorded(String key) {
+        synchronized (artifacts) {
+            return artifacts.containsKey(key);
+        }
+    }
+
+    private void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void touch(String key) {
+        synchronized (artifacts) {
+            Artifact artifact = artifacts.get(key);
+            if (artifact != null) {
+                artifact.lastAccessTime = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private void record(String key, File localFile, RemoteFileInfo remoteInfo, boolean evictable) {
+        Artifact artifact = new Artifact(localFile.length(), localFile.lastModified(),
+                remoteInfo == null ? -1L : remoteInfo.getLength(),
+                remoteInfo == null ? -1L : remoteInfo.getModificationTime(),
+                evictable);
+        List<File> evictFiles = new ArrayList<>();
+        synchronized (artifacts) {
+            Artifact old = artifacts.put(key, artifact);
+            if (old != null && old.evictable) {
+                evictableBytes -= old.localLength;
+            }
+            if (evictable) {
+                evictableBytes += artifact.localLength;
+            }
+
+            long protectTime = System.currentTimeMillis() - EVICT_PROTECT_MILLIS;
+            Iterator<Map.Entry<String, Artifact>> iterator = artifacts.entrySet().iterator();
+            while (evictableBytes > quotaBytes && iterator.hasNext()) {
+                Map.Entry<String, Artifact> entry = iterator.next();
+                Artifact candidate = entry.getValue();
+                if (!candidate.evictable || candidate.lastAccessTime > protectTime) {
+                    continue;
+                }
+                iterator.remove();
+                evictableBytes -= candidate.localLength;
+                evictBytes.addAndGet(candidate.localLength);
+                evictFiles.add(new File(entry.getKey()));
+            }
+        }
+        for (File evictFile : evictFiles) {
+            LOG.info("evict local artifact {}", evictFile);
+            if (evictFile.exists() && !evictFile.delete()) {
+                LOG.warn("delete local artifact {} failed", evictFile);
+            }
+        }
+    }
+
+    /**
+     * 远程文件的读取方式
+     */
+    public interface RemoteFetcher {
+
+        /**
+         * 远程文件信息，不支持时返回 null
+         */
+        RemoteFileInfo stat() throws Exception;
+
+        /**
+         * 下载远程文件到指定的本地文件
+         */
+        boolean fetch(File localFile) throws Exception;
+    }
+
+    public static class RemoteFileInfo {
+
+        private final long length;
+
+        private final long modificationTime;
+
+        public RemoteFileInfo(long length, long modificationTime) {
+            this.length = length;
+            this.modificationTime = modificationTime;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getModificationTime() {
+            return modificationTime;
+        }
+    }
+
+    private static class Artifact {
+
+        private final long localLength;
+
+        private final long localModificationTime;
+
+        private final long remoteLength;
+
+        private final long remoteModificationTime;
+
+        private final boolean evictable;
+
+        private long lastAccessTime = System.currentTimeMillis();
+
+        Artifact(long localLength, long localModificationTime, long remoteLength, long remoteModificationTime, boolean evictable) {
+            this.localLength = localLength;
+            this.localModificationTime = localModificationTime;
+            this.remoteLength = remoteLength;
+            this.remoteModificationTime = remoteModificationTime;
+            this.evictable = evictable;
+        }
+    }
+}
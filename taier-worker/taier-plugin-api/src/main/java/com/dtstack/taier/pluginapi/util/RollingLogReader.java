@@ -0,0 +1,519 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.pluginapi.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 滚动日志分段读取
+ * <p>
+ * 按字节范围读取 NodeManager 容器日志页(/node/containerlogs/...，支持 start/end 参数，start 为负数时从末尾倒数)
+ * 或其他纯文本日志地址(优先使用 Range 请求头，服务端不支持时边读边跳过)；
+ * 响应按流处理，读到所需字节数后立即断开连接，单次请求占用的内存不超过一页；
+ * <p>
+ * 每个日志地址记录最近一次得到的文件总长度，调用方不知道长度时可以按该长度计算分页
+ *
+ * @author jiangbo
+ */
+public class RollingLogReader {
+
+    public static final int DEFAULT_MAX_PAGE_BYTES = 1024 * 1024;
+
+    private static final String CONTAINER_LOGS_PATH = "/containerlogs/";
+
+    private static final byte[] PRE_START = "<pre>".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] PRE_END = "</pre>".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * 容器日志页 &lt;pre&gt; 之前的页面头部最大长度
+     */
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    /**
+     * NodeManager 只展示部分日志时的提示：Showing 4096 bytes of 1048576 total.
+     */
+    private static final Pattern TOTAL_BYTES_PATTERN = Pattern.compile("Showing\\s+(\\d+)\\s+bytes\\s+of\\s+(\\d+)\\s+total");
+
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)");
+
+    private final int maxPageBytes;
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final Map<String, String> headers;
+
+    /**
+     * 日志地址 -> 文件总长度
+     */
+    private final Cache<String, Long> sizeIndex = CacheBuilder.newBuilder()
+            .maximumSize(4096)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong readBytes = new AtomicLong();
+
+    public RollingLogReader() {
+        this(DEFAULT_MAX_PAGE_BYTES, 5000, 30000, Collections.emptyMap());
+    }
+
+    public RollingLogReader(int maxPageBytes, int connectTimeout, int readTimeout, Map<String, String> headers) {
+        this.maxPageBytes = maxPageBytes;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.headers = headers == null ? Collections.emptyMap() : headers;
+    }
+
+    /**
+     * 从指定偏移量读取日志
+     *
+     * @param logUrl 日志地址，不带 start/end 参数
+     * @param offset 起始字节偏移量
+     * @param length 读取字节数，超过单页上限时按单页上限读取
+     */
+    public LogPage read(String logUrl, long offset, int length) throws IOException {
+        int size = Math.max(0, Math.min(length, maxPageBytes));
+        long start = Math.max(0L, offset);
+        if (isContainerLogPage(logUrl)) {
+            return readContainerLogPage(logUrl, start, size);
+        }
+        return readPlainText(logUrl, start, size);
+    }
+
+    /**
+     * 读取日志末尾
+     *
+     * @param logUrl 日志地址，不带 start/end 参数
+     * @param length 读取字节数，超过单页上限时按单页上限读取
+     */
+    public LogPage tail(String logUrl, int length) throws IOException {
+        int size = Math.max(0, Math.min(length, maxPageBytes));
+        if (isContainerLogPage(logUrl)) {
+            return readContainerLogPage(logUrl, -size, size);
+        }
+        Long totalBytes = sizeIndex.getIfPresent(logUrl);
+        if (totalBytes != null) {
+            LogPage page = readPlainText(logUrl, Math.max(0L, totalBytes - size), size);
+            // 文件已经增长，按新的长度再取一次末尾
+            if (page.getTotalBytes() <= totalBytes) {
+                return page;
+            }
+        }
+        return readPlainTextTail(logUrl, size);
+    }
+
+    /**
+     * 最近一次读取得到的日志总长度，未知时返回 -1
+     */
+    public long getTotalBytes(String logUrl) {
+        Long totalBytes = sizeIndex.getIfPresent(logUrl);
+        return totalBytes == null ? -1L : totalBytes;
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("indexed", sizeIndex.size());
+        metrics.put("request", requestCount.get());
+        metrics.put("readBytes", readBytes.get());
+        return metrics;
+    }
+
+    private boolean isContainerLogPage(String logUrl) {
+        return logUrl.contains(CONTAINER_LOGS_PATH);
+    }
+
+    /**
+     * NodeManager 容器日志页，start 为负数时从末尾倒数
+     */
+    private LogPage readContainerLogPage(String logUrl, long start, int size) throws IOException {
+        String url = logUrl + (logUrl.contains("?") ? "&" : "?") + "start=" + start
+                + (start < 0 ? "" : "&end=" + (start + size));
+        HttpURLConnection connection = open(url, null);
+        try (PushbackInputStream input = new PushbackInputStream(new BufferedInputStream(connection.getInputStream()), MAX_ENTITY_LENGTH + PRE_END.length)) {
+            ByteArrayOutputStream header = new ByteArrayOutputStream();
+            if (!skipTo(input, PRE_START, header)) {
+                // 日志不存在或容器已结束时页面中没有日志内容
+                return new LogPage("", Math.max(0L, start), Math.max(0L, start), getTotalBytes(logUrl), false);
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream(Math.min(size, 64 * 1024));
+            boolean truncated = copyHtmlText(input, content, size);
+            readBytes.addAndGet(content.size());
+
+            long totalBytes = -1L;
+            Matcher matcher = TOTAL_BYTES_PATTERN.matcher(new String(header.toByteArray(), StandardCharsets.UTF_8));
+            if (matcher.find()) {
+                totalBytes = Long.parseLong(matcher.group(2));
+            }
+            long pageStart;
+            if (start >= 0) {
+                pageStart = start;
+                if (totalBytes < 0 && !truncated) {
+                    // 页面展示了剩余的全部日志
+                    totalBytes = start + content.size();
+                }
+            } else {
+                if (totalBytes < 0) {
+                    // 日志比请求的长度短，页面展示了全部日志
+                    totalBytes = content.size();
+                }
+                pageStart = Math.max(0L, totalBytes - content.size());
+            }
+            if (totalBytes >= 0) {
+                sizeIndex.put(logUrl, totalBytes);
+            }
+            long pageEnd = pageStart + content.size();
+            return new LogPage(new String(content.toByteArray(), StandardCharsets.UTF_8), pageStart, pageEnd, totalBytes,
+                    truncated || pageEnd < totalBytes);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private LogPage readPlainText(String logUrl, long start, int size) throws IOException {
+        HttpURLConnection connection = open(logUrl, size > 0 ? "bytes=" + start + "-" + (start + size - 1) : null);
+        try (InputStream input = new BufferedInputStream(connection.getInputStream())) {
+            long totalBytes = -1L;
+            long pageStart = start;
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                Matcher matcher = CONTENT_RANGE_PATTERN.matcher(String.valueOf(connection.getHeaderField("Content-Range")));
+                if (matcher.find()) {
+                    pageStart = Long.parseLong(matcher.group(1));
+                    totalBytes = "*".equals(matcher.group(3)) ? -1L : Long.parseLong(matcher.group(3));
+                }
+            } else {
+                // 服务端不支持 Range，跳过前面的内容
+                totalBytes = connection.getContentLengthLong();
+                long skipped = skipFully(input, start);
+                pageStart = skipped;
+            }
+            byte[] content = readAtMost(input, size);
+            readBytes.addAndGet(content.length);
+            if (totalBytes < 0 && content.length < size) {
+                totalBytes = pageStart + content.length;
+            }
+            if (totalBytes >= 0) {
+                sizeIndex.put(logUrl, totalBytes);
+            }
+            return new LogPage(new String(content, StandardCharsets.UTF_8), pageStart, pageStart + content.length, totalBytes,
+                    totalBytes < 0 || pageStart + content.length < totalBytes);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * 不知道长度时请求末尾若干字节，服务端不支持 Range 时边读边保留最后 size 字节
+     */
+    private LogPage readPlainTextTail(String logUrl, int size) throws IOException {
+        HttpURLConnection connection = open(logUrl, size > 0 ? "bytes=-" + size : null);
+        try (InputStream input = new BufferedInputStream(connection.getInputStream())) {
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+                Matcher matcher = CONTENT_RANGE_PATTERN.matcher(String.valueOf(connection.getHeaderField("Content-Range")));
+                byte[] content = readAtMost(input, size);
+                readBytes.addAndGet(content.length);
+                long totalBytes = -1L;
+                long pageStart = 0L;
+                if (matcher.find()) {
+                    pageStart = Long.parseLong(matcher.group(1));
+                    totalBytes = "*".equals(matcher.group(3)) ? -1L : Long.parseLong(matcher.group(3));
+                }
+                if (totalBytes >= 0) {
+                    sizeIndex.put(logUrl, totalBytes);
+                }
+                return new LogPage(new String(content, StandardCharsets.UTF_8), pageStart, pageStart + content.length, totalBytes,
+                        pageStart + content.length < totalBytes);
+            }
+
+            long contentLength = connection.getContentLengthLong();
+            if (contentLength >= 0) {
+                long skipped = skipFully(input, Math.max(0L, contentLength - size));
+                byte[] content = readAtMost(input, size);
+                readBytes.addAndGet(content.length);
+                sizeIndex.put(logUrl, contentLength);
+                return new LogPage(new String(content, StandardCharsets.UTF_8), skipped, skipped + content.length, contentLength,
+                        skipped + content.length < contentLength);
+            }
+
+            // 分块传输，只保留最后 size 字节
+            byte[] ring = new byte[size];
+            long total = 0L;
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = input.read(buffer)) != -1) {
+                for (int i = 0; i < len && size > 0; i++) {
+                    ring[(int) ((total + i) % size)] = buffer[i];
+                }
+                total += len;
+            }
+            int tailLength = (int) Math.min(total, size);
+            byte[] content = new byte[tailLength];
+            long pageStart = total - tailLength;
+            for (int i = 0; i < tailLength; i++) {
+                content[i] = ring[(int) ((pageStart + i) % size)];
+            }
+            readBytes.addAndGet(tailLength);
+            sizeIndex.put(logUrl, total);
+            return new LogPage(new String(content, StandardCharsets.UTF_8), pageStart, total, total, false);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection open(String url, String range) throws IOException {
+        requestCount.incrementAndGet();
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setInstanceFollowRedirects(true);
+        headers.forEach(connection::setRequestProperty);
+        if (range != null) {
+            connection.setRequestProperty("Range", range);
+        }
+        int code = connection.getResponseCode();
+        if (code != HttpURLConnection.HTTP_OK && code != HttpURLConnection.HTTP_PARTIAL) {
+            connection.disconnect();
+            throw new IOException("request log " + url + " failed, response code " + code);
+        }
+        return connection;
+    }
+
+    /**
+     * 跳过 marker 之前的内容，跳过的内容写入 header，超过上限时停止
+     */
+    private boolean skipTo(InputStream input, byte[] marker, ByteArrayOutputStream header) throws IOException {
+        int matched = 0;
+        int b;
+        while ((b = input.read()) != -1 && header.size() < MAX_HEADER_BYTES) {
+            header.write(b);
+            if (Character.toLowerCase((char) b) == marker[matched]) {
+                matched++;
+                if (matched == marker.length) {
+                    return true;
+                }
+            } else {
+                matched = Character.toLowerCase((char) b) == marker[0] ? 1 : 0;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 复制 &lt;pre&gt; 中的文本并还原 html 转义，返回是否因达到上限而截断
+     */
+    private boolean copyHtmlText(PushbackInputStream input, ByteArrayOutputStream out, int limit) throws IOException {
+        int b;
+        while ((b = input.read()) != -1) {
+            if (out.size() >= limit) {
+                return !isAt(input, b, PRE_END);
+            }
+            if (b == '<') {
+                if (isAt(input, b, PRE_END)) {
+                    return false;
+                }
+                out.write(b);
+            } else if (b == '&') {
+                writeEntity(input, out);
+            } else {
+                out.write(b);
+            }
+        }
+        return false;
+    }
+
+    private boolean isAt(PushbackInputStream input, int first, byte[] marker) throws IOException {
+        if (first != marker[0]) {
+            return false;
+        }
+        byte[] rest = new byte[marker.length - 1];
+        int len = readUpTo(input, rest);
+        boolean matched = len == rest.length;
+        for (int i = 0; matched && i < rest.length; i++) {
+            matched = Character.toLowerCase((char) rest[i]) == marker[i + 1];
+        }
+        if (len > 0) {
+            input.unread(rest, 0, len);
+        }
+        return matched;
+    }
+
+    private void writeEntity(PushbackInputStream input, ByteArrayOutputStream out) throws IOException {
+        byte[] buffer = new byte[MAX_ENTITY_LENGTH];
+        int len = 0;
+        int b;
+        while (len < MAX_ENTITY_LENGTH && (b = input.read()) != -1) {
+            buffer[len++] = (byte) b;
+            if (b == ';') {
+                break;
+            }
+        }
+        String decoded = len > 0 && buffer[len - 1] == ';' ? decodeEntity(new String(buffer, 0, len - 1, StandardCharsets.US_ASCII)) : null;
+        if (decoded == null) {
+            out.write('&');
+            if (len > 0) {
+                input.unread(buffer, 0, len);
+            }
+            return;
+        }
+        byte[] bytes = decoded.getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private String decodeEntity(String entity) {
+        switch (entity) {
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "amp":
+                return "&";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            case "nbsp":
+                return " ";
+            default:
+                break;
+        }
+        try {
+            if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                return new String(Character.toChars(Integer.parseInt(entity.substring(2), 16)));
+            } else if (entity.startsWith("#")) {
+                return new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return null;
+    }
+
+    private long skipFully(InputStream input, long count) throws IOException {
+        long skipped = 0L;
+        byte[] buffer = new byte[8192];
+        while (skipped < count) {
+            int len = input.read(buffer, 0, (int) Math.min(buffer.length, count - skipped));
+            if (len == -1) {
+                break;
+            }
+            skipped += len;
+        }
+        return skipped;
+    }
+
+    private byte[] readAtMost(InputStream input, int size) throws IOException {
+        byte[] buffer = new byte[size];
+        int len = readUpTo(input, buffer);
+        if (len == size) {
+            return buffer;
+        }
+        byte[] content = new byte[len];
+        System.arraycopy(buffer, 0, content, 0, len);
+        return content;
+    }
+
+    private int readUpTo(InputStream input, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int len = input.read(buffer, offset, buffer.length - offset);
+            if (len == -1) {
+                break;
+            }
+            offset += len;
+        }
+        return offset;
+    }
+
+    /**
+     * 一段日志内容
+     */
+    public static class LogPage {
+
+        private final String content;
+
+        private final long startOffset;
+
+        private final long endOffset;
+
+        private final long totalBytes;
+
+        private final boolean hasMore;
+
+        public LogPage(String content, long startOffset, long endOffset, long totalBytes, boolean hasMore) {
+            this.content = content;
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.totalBytes = totalBytes;
+            this.hasMore = hasMore;
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        /**
+         * 内容在日志文件中的起始字节偏移量
+         */
+        public long getStartOffset() {
+            return startOffset;
+        }
+
+        /**
+         * 内容在日志文件中的结束字节偏移量(不包含)，继续读取时作为下一次的起始偏移量
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        /**
+         * 日志总长度，未知时为 -1
+         */
+        public long getTotalBytes() {
+            return totalBytes;
+        }
+
+        /**
+         * 本页之后是否还有内容
+         */
+        public boolean isHasMore() {
+            return hasMore;
+        }
+    }
+}
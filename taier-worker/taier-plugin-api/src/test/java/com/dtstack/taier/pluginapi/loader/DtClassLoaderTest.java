@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.pluginapi.loader;
+
+import com.dtstack.taier.plugin.fixture.PlainPlugin;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class DtClassLoaderTest {
+
+    private static final String PLAIN_CLASS = PlainPlugin.class.getName();
+
+    private static final String PLUGIN_RESOURCE = "plugin/dtclassloader-test.properties";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadClassFromPluginFirst() throws Exception {
+        File jar = createJar("plain.jar", true);
+        try (DtClassLoader classLoader = new DtClassLoader(new URL[]{jar.toURI().toURL()}, getClass().getClassLoader())) {
+            Class<?> clazz = classLoader.loadClass(PLAIN_CLASS);
+            Assert.assertSame(classLoader, clazz.getClassLoader());
+            Assert.assertNotSame(PlainPlugin.class, clazz);
+            Assert.assertNotNull(classLoader.getResource(PLUGIN_RESOURCE));
+        }
+    }
+
+    @Test
+    public void testParentFirstAndNotIndexedClass() throws Exception {
+        File jar = createJar("plain.jar", true);
+        try (DtClassLoader classLoader = new DtClassLoader(new URL[]{jar.toURI().toURL()}, getClass().getClassLoader())) {
+            Assert.assertSame(Logger.class, classLoader.loadClass(Logger.class.getName()));
+            Assert.assertSame(String.class, classLoader.loadClass(String.class.getName()));
+            // 不在插件 jar 中的包直接由父加载器加载
+            Assert.assertSame(Assert.class, classLoader.loadClass(Assert.class.getName()));
+            Assert.assertNotNull(classLoader.getResource("org/junit/Assert.class"));
+            Assert.assertTrue(classLoader.getResources("org/junit/Assert.class").hasMoreElements());
+        }
+    }
+
+    @Test
+    public void testMissingClassCacheResetOnAddUrl() throws Exception {
+        File emptyJar = createJar("empty.jar", false);
+        File jar = createJar("plain.jar", true);
+        try (DtClassLoader classLoader = new DtClassLoader(new URL[]{emptyJar.toURI().toURL()}, new URLClassLoader(new URL[0], null))) {
+            for (int i = 0; i < 2; i++) {
+                try {
+                    classLoader.loadClass(PLAIN_CLASS);
+                    Assert.fail("class should not be found");
+                } catch (ClassNotFoundException e) {
+                    // expected
+                }
+            }
+            Assert.assertNull(classLoader.getResource(PLUGIN_RESOURCE));
+
+            classLoader.addURL(jar.toURI().toURL());
+            Assert.assertSame(classLoader, classLoader.loadClass(PLAIN_CLASS).getClassLoader());
+            Assert.assertNotNull(classLoader.getResource(PLUGIN_RESOURCE));
+        }
+    }
+
+    @Test
+    public void testMissingClassStillDelegatesToParent() throws Exception {
+        // jar 中有同包的其他文件，类所在包在索引中但类不存在
+        File emptyJar = folder.newFile("samepackage.jar");
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(emptyJar))) {
+            out.putNextEntry(new JarEntry(PLAIN_CLASS.substring(0, PLAIN_CLASS.lastIndexOf('.')).replace('.', '/') + "/other.txt"));
+            out.write("other".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+        SwitchableClassLoader parent = new SwitchableClassLoader();
+        try (DtClassLoader classLoader = new DtClassLoader(new URL[]{emptyJar.toURI().toURL()}, parent)) {
+            try {
+                classLoader.loadClass(PLAIN_CLASS);
+                Assert.fail("class should not be found");
+            } catch (ClassNotFoundException e) {
+                // expected
+            }
+            // 当前加载器中找不到的类被缓存后，父加载器可加载时仍能获取到
+            parent.ready = true;
+            Assert.assertSame(PlainPlugin.class, classLoader.loadClass(PLAIN_CLASS));
+        }
+    }
+
+    @Test
+    public void testDirectoryResources() throws Exception {
+        File jar = createJar("plain.jar", true);
+        try (DtClassLoader classLoader = new DtClassLoader(new URL[]{jar.toURI().toURL()}, new URLClassLoader(new URL[0], null))) {
+            String packageDir = PLAIN_CLASS.substring(0, PLAIN_CLASS.indexOf('.', PLAIN_CLASS.indexOf('.') + 1) + 1).replace('.', '/');
+            Assert.assertTrue(packageDir, classLoader.getResources(packageDir).hasMoreElements());
+            Assert.assertTrue(classLoader.getResources("plugin/").hasMoreElements());
+            Assert.assertFalse(classLoader.getResources("notexist/").hasMoreElements());
+        }
+    }
+
+    private File createJar(String name, boolean withPlainClass) throws IOException {
+        File jar = folder.newFile(name);
+        try (JarOutputStream out = new JarOutputStream(new FileOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("other/placeholder.txt"));
+            out.write("placeholder".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            if (withPlainClass) {
+                String classFile = PLAIN_CLASS.replace('.', '/') + ".class";
+                // 与打包工具一致，写入各级目录条目
+                for (int index = classFile.indexOf('/'); index > 0; index = classFile.indexOf('/', index + 1)) {
+                    out.putNextEntry(new JarEntry(classFile.substring(0, index + 1)));
+                    out.closeEntry();
+                }
+                out.putNextEntry(new JarEntry("plugin/"));
+                out.closeEntry();
+                out.putNextEntry(new JarEntry(classFile));
+                try (InputStream in = getClass().getClassLoader().getResourceAsStream(classFile)) {
+                    byte[] buffer = new byte[4096];
+                    int length;
+                    while ((length = in.read(buffer)) > 0) {
+                        out.write(buffer, 0, length);
+                    }
+                }
+                out.closeEntry();
+                out.putNextEntry(new JarEntry(PLUGIN_RESOURCE));
+                out.write("key=value".getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static class SwitchableClassLoader extends ClassLoader {
+
+        private volatile boolean ready = false;
+
+        private SwitchableClassLoader() {
+            super(null);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (ready && PLAIN_CLASS.equals(name)) {
+                return PlainPlugin.class;
+            }
+            return Class.forName(name, false, DtClassLoaderTest.class.getClassLoader().getParent());
+        }
+    }
+}
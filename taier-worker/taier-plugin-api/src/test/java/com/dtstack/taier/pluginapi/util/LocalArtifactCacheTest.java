@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.pluginapi.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LocalArtifactCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testReuseUntilRemoteChanged() throws Exception {
+        LocalArtifactCache cache = new LocalArtifactCache(Long.MAX_VALUE);
+        File local = new File(folder.getRoot(), "job.jar");
+        FakeRemote remote = new FakeRemote("v1", 1000L);
+
+        Assert.assertEquals(local, cache.get("hdfs:///job.jar", local, false, true, remote));
+        Assert.assertEquals(local, cache.get("hdfs:///job.jar", local, false, true, remote));
+        Assert.assertEquals(1, remote.fetchCount.get());
+
+        remote.content = "v2-changed";
+        remote.modificationTime = 2000L;
+        cache.get("hdfs:///job.jar", local, false, true, remote);
+        Assert.assertEquals(2, remote.fetchCount.get());
+        Assert.assertEquals("v2-changed", new String(Files.readAllBytes(local.toPath()), StandardCharsets.UTF_8));
+        Assert.assertEquals(Long.valueOf(1L), cache.getMetrics().get("hit"));
+    }
+
+    @Test
+    public void testIncompleteDownloadNotCached() throws Exception {
+        LocalArtifactCache cache = new LocalArtifactCache(Long.MAX_VALUE);
+        File local = new File(folder.getRoot(), "job.jar");
+        FakeRemote remote = new FakeRemote("content", 1000L) {
+            @Override
+            public boolean fetch(File localFile) throws Exception {
+                fetchCount.incrementAndGet();
+                Files.write(localFile.toPath(), "cont".getBytes(StandardCharsets.UTF_8));
+                return true;
+            }
+        };
+
+        Assert.assertNull(cache.get("hdfs:///job.jar", local, false, true, remote));
+        Assert.assertFalse(local.exists());
+        // 临时文件已清理
+        Assert.assertEquals(0, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void testFallbackToLocalFileWhenRemoteUnavailable() throws Exception {
+        File local = new File(folder.getRoot(), "job.jar");
+        Files.write(local.toPath(), "content".getBytes(StandardCharsets.UTF_8));
+        FakeRemote remote = new FakeRemote("content", 1000L) {
+            @Override
+            public LocalArtifactCache.RemoteFileInfo stat() {
+                return null;
+            }
+
+            @Override
+            public boolean fetch(File localFile) throws Exception {
+                fetchCount.incrementAndGet();
+                throw new IllegalStateException("remote unavailable");
+            }
+        };
+
+        // 重启后没有记录，远程不可用时沿用已有文件
+        Assert.assertEquals(local, new LocalArtifactCache(Long.MAX_VALUE).get("hdfs:///job.jar", local, false, true, remote));
+        Assert.assertEquals("content", new String(Files.readAllBytes(local.toPath()), StandardCharsets.UTF_8));
+        // 要求总是拉取最新文件时不沿用
+        Assert.assertNull(new LocalArtifactCache(Long.MAX_VALUE).get("hdfs:///job.jar", local, true, true, remote));
+    }
+
+    @Test
+    public void testConcurrentFetchCoalesced() throws Exception {
+        LocalArtifactCache cache = new LocalArtifactCache(Long.MAX_VALUE);
+        File local = new File(folder.getRoot(), "job.jar");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FakeRemote remote = new FakeRemote("content", 1000L) {
+            @Override
+            public boolean fetch(File localFile) throws Exception {
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return super.fetch(localFile);
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<File>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.get("hdfs:///job.jar", local, true, true, remote)));
+            started.await(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(() -> cache.get("hdfs:///job.jar", local, true, true, remote)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<File> future : futures) {
+                Assert.assertEquals(local, future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(1, remote.fetchCount.get());
+    }
+
+    @Test
+    public void testEvictOnlyEvictableFiles() throws Exception {
+        LocalArtifactCache cache = new LocalArtifactCache(0L);
+        File keytab = new File(folder.getRoot(), "user.keytab");
+        cache.get("sftp:///user.keytab", keytab, false, false, new FakeRemote("keytab", 1000L));
+        Assert.assertTrue(keytab.exists());
+        Assert.assertEquals(Long.valueOf(0L), cache.getMetrics().get("evictableBytes"));
+    }
+
+    private static class FakeRemote implements LocalArtifactCache.RemoteFetcher {
+
+        volatile String content;
+
+        volatile long modificationTime;
+
+        final AtomicInteger fetchCount = new AtomicInteger();
+
+        FakeRemote(String content, long modificationTime) {
+            this.content = content;
+            this.modificationTime = modificationTime;
+        }
+
+        @Override
+        public LocalArtifactCache.RemoteFileInfo stat() {
+            return new LocalArtifactCache.RemoteFileInfo(content.getBytes(StandardCharsets.UTF_8).length, modificationTime);
+        }
+
+        @Override
+        public boolean fetch(File localFile) throws Exception {
+            fetchCount.incrementAndGet();
+            Files.write(localFile.toPath(), content.getBytes(StandardCharsets.UTF_8));
+            return true;
+        }
+    }
+}
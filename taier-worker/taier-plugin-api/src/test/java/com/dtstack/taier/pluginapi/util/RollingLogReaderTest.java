@@ -0,0 +1,203 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.pluginapi.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class RollingLogReaderTest {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
+
+    private HttpServer server;
+
+    private String baseUrl;
+
+    private String log;
+
+    private final AtomicLong servedBytes = new AtomicLong();
+
+    @Before
+    public void setUp() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; builder.length() < 200 * 1024; i++) {
+            builder.append("2022-01-01 00:00:00 INFO line ").append(i).append(" <tag> & value\n");
+        }
+        log = builder.toString();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/node/containerlogs/", this::containerLogPage);
+        server.createContext("/range/", exchange -> plainText(exchange, true));
+        server.createContext("/plain/", exchange -> plainText(exchange, false));
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testContainerLogPage() throws Exception {
+        RollingLogReader reader = new RollingLogReader(4096, 3000, 3000, Collections.emptyMap());
+        String url = baseUrl + "/node/containerlogs/container_01/admin/taskmanager.log";
+
+        RollingLogReader.LogPage page = reader.read(url, 1000, 2048);
+        Assert.assertEquals(log.substring(1000, 3048), page.getContent());
+        Assert.assertEquals(1000, page.getStartOffset());
+        Assert.assertEquals(3048, page.getEndOffset());
+        Assert.assertEquals(log.length(), page.getTotalBytes());
+        Assert.assertTrue(page.isHasMore());
+        Assert.assertEquals(log.length(), reader.getTotalBytes(url));
+
+        // 超过单页上限时按上限读取
+        page = reader.read(url, 0, 1024 * 1024);
+        Assert.assertEquals(log.substring(0, 4096), page.getContent());
+
+        page = reader.tail(url, 100);
+        Assert.assertEquals(log.substring(log.length() - 100), page.getContent());
+        Assert.assertEquals(log.length() - 100, page.getStartOffset());
+        Assert.assertFalse(page.isHasMore());
+    }
+
+    @Test
+    public void testContainerLogPageIgnoringRange() throws Exception {
+        RollingLogReader reader = new RollingLogReader(4096, 3000, 3000, Collections.emptyMap());
+        // 服务端忽略 start/end 返回全部日志时只读取一页
+        RollingLogReader.LogPage page = reader.read(baseUrl + "/node/containerlogs/container_01/admin/full.log", 0, 4096);
+        Assert.assertEquals(log.substring(0, 4096), page.getContent());
+        Assert.assertTrue(page.isHasMore());
+    }
+
+    @Test
+    public void testRangeRequest() throws Exception {
+        RollingLogReader reader = new RollingLogReader(4096, 3000, 3000, Collections.emptyMap());
+        String url = baseUrl + "/range/jobmanager.log";
+
+        servedBytes.set(0);
+        RollingLogReader.LogPage page = reader.read(url, 5000, 1000);
+        Assert.assertEquals(log.substring(5000, 6000), page.getContent());
+        Assert.assertEquals(log.length(), page.getTotalBytes());
+        Assert.assertEquals(1000, servedBytes.get());
+
+        page = reader.tail(url, 300);
+        Assert.assertEquals(log.substring(log.length() - 300), page.getContent());
+        Assert.assertEquals(log.length(), page.getEndOffset());
+    }
+
+    @Test
+    public void testPlainTextWithoutRange() throws Exception {
+        RollingLogReader reader = new RollingLogReader(4096, 3000, 3000, Collections.emptyMap());
+        String url = baseUrl + "/plain/jobmanager.log";
+
+        RollingLogReader.LogPage page = reader.read(url, 5000, 1000);
+        Assert.assertEquals(log.substring(5000, 6000), page.getContent());
+        Assert.assertEquals(log.length(), page.getTotalBytes());
+        Assert.assertTrue(page.isHasMore());
+
+        page = reader.tail(url, 300);
+        Assert.assertEquals(log.substring(log.length() - 300), page.getContent());
+        Assert.assertFalse(page.isHasMore());
+    }
+
+    private void containerLogPage(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseQuery(exchange.getRequestURI().getRawQuery());
+        boolean ignoreRange = exchange.getRequestURI().getPath().endsWith("full.log");
+        long length = log.length();
+        long start = ignoreRange ? 0 : Long.parseLong(params.getOrDefault("start", "0"));
+        long end = ignoreRange ? length : Long.parseLong(params.getOrDefault("end", String.valueOf(length)));
+        start = start < 0 ? Math.max(0, length + start) : Math.min(start, length);
+        end = end < 0 ? length + end : Math.min(end, length);
+
+        StringBuilder html = new StringBuilder("<html><head><title>logs</title></head><body><div class=\"content\">");
+        if (start > 0 || end < length) {
+            html.append("<p>Showing ").append(end - start).append(" bytes of ").append(length)
+                    .append(" total. Click <a href=\"?start=0\">here</a> for the full log.</p>");
+        }
+        html.append("<pre>")
+                .append(log.substring((int) start, (int) end).replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"))
+                .append("</pre></div></body></html>");
+        byte[] body = html.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+        send(exchange, 200, body, 0, body.length);
+    }
+
+    private void plainText(HttpExchange exchange, boolean supportRange) throws IOException {
+        byte[] body = log.getBytes(StandardCharsets.UTF_8);
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        Matcher matcher = range == null ? null : RANGE_PATTERN.matcher(range);
+        if (!supportRange || matcher == null || !matcher.matches()) {
+            send(exchange, 200, body, 0, body.length);
+            return;
+        }
+        int start;
+        int end;
+        if (matcher.group(1).isEmpty()) {
+            start = Math.max(0, body.length - Integer.parseInt(matcher.group(2)));
+            end = body.length - 1;
+        } else {
+            start = Integer.parseInt(matcher.group(1));
+            end = matcher.group(2).isEmpty() ? body.length - 1 : Math.min(Integer.parseInt(matcher.group(2)), body.length - 1);
+        }
+        exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + body.length);
+        send(exchange, 206, body, start, end - start + 1);
+    }
+
+    private void send(HttpExchange exchange, int code, byte[] body, int offset, int length) throws IOException {
+        exchange.sendResponseHeaders(code, length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body, offset, length);
+            servedBytes.addAndGet(length);
+        } catch (IOException e) {
+            // 客户端读取到所需内容后主动断开
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            if (index > 0) {
+                params.put(pair.substring(0, index), pair.substring(index + 1));
+            }
+        }
+        return params;
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.base.filesystem;
+
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * hdfs FileSystem 连接池
+ * <p>
+ * 按 (集群配置摘要, 当前 UGI) 复用 {@link FileSystem#newInstance(Configuration)} 创建的实例，
+ * 使用方通过 {@link Lease#close()} 归还而不是关闭 FileSystem，避免每次操作重新建立 NameNode 连接，
+ * 也避免关闭 hadoop 缓存的共享实例影响并发的使用方；
+ * 空闲一段时间后再次使用前做健康检查，长时间空闲或超出数量上限的实例由后台线程关闭
+ *
+ * @author jiangbo
+ */
+public class FileSystemPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileSystemPool.class);
+
+    private static final long HEALTH_CHECK_IDLE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    private static final long IDLE_CLOSE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final long EVICT_INTERVAL_SECONDS = 60L;
+
+    private static final int MAX_IDLE_ENTRIES = 32;
+
+    private static final Path HEALTH_CHECK_PATH = new Path("/");
+
+    /**
+     * 调用方拿到配置副本后可能修改的配置项(kerberos 登录时写入)，每次借用时按实际值参与摘要
+     */
+    private static final String[] MUTABLE_KEYS = new String[]{
+            "hadoop.security.authentication",
+            "hadoop.security.auth_to_local"
+    };
+
+    private static final FileSystemPool INSTANCE = new FileSystemPool();
+
+    private final Map<PoolKey, PooledFileSystem> pool = new ConcurrentHashMap<>();
+
+    /**
+     * Configuration 实例 -> 配置摘要；{@link #getConfiguration} 返回的副本直接使用集群配置的摘要，
+     * 其他 Configuration 在首次借用时计算一次，之后只有 {@link #MUTABLE_KEYS} 可以修改
+     */
+    private final Cache<Configuration, String> confDigests = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    /**
+     * 集群配置摘要 -> Configuration，同一份集群配置只构建一次
+     */
+    private final Cache<String, Configuration> configurations = CacheBuilder.newBuilder()
+            .maximumSize(64)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    private FileSystemPool() {
+        ScheduledThreadPoolExecutor evictExecutor = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("filesystem_pool_evict"));
+        evictExecutor.scheduleWithFixedDelay(this::evictIdle, EVICT_INTERVAL_SECONDS, EVICT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public static FileSystemPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 相同集群配置只构建一次，每次返回一份副本，
+     * 调用方(如 kerberos 登录时写入配置)修改副本不会影响缓存及其他线程；
+     * 副本沿用集群配置的摘要，借用时不重新计算，调用方只能修改 {@link #MUTABLE_KEYS} 中的配置项
+     *
+     * @param conf    集群配置
+     * @param builder 根据集群配置构建 Configuration
+     */
+    public Configuration getConfiguration(Map<String, Object> conf, Supplier<Configuration> builder) {
+        String digest = Hashing.md5().hashString(String.valueOf(new TreeMap<>(conf)), Charsets.UTF_8).toString();
+        try {
+            Configuration configuration = new Configuration(configurations.get(digest, builder::get));
+            confDigests.put(configuration, digest);
+            return configuration;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("build configuration error", e.getCause());
+        }
+    }
+
+    /**
+     * 以当前 UGI 借用 FileSystem，使用完后必须调用 {@link Lease#close()} 归还
+     */
+    public Lease borrow(Configuration configuration) throws IOException {
+        PoolKey key = new PoolKey(getDigest(configuration), UserGroupInformation.getCurrentUser());
+        while (true) {
+            PooledFileSystem pooled = pool.computeIfAbsent(key, k -> new PooledFileSystem(configuration));
+            synchronized (pooled) {
+                if (pooled.closed) {
+                    // 已被后台线程关闭，重新创建
+                    pool.remove(key, pooled);
+                    continue;
+                }
+                if (!pooled.isHealthy()) {
+                    pool.remove(key, pooled);
+                    pooled.retire();
+                    continue;
+                }
+                pooled.refCount++;
+                pooled.lastUsedTime = System.currentTimeMillis();
+                return new Lease(pooled);
+            }
+        }
+    }
+
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        pool.forEach((key, pooled) -> {
+            synchronized (pooled) {
+                if (pooled.refCount == 0 && now - pooled.lastUsedTime > IDLE_CLOSE_MILLIS) {
+                    pool.remove(key, pooled);
+                    pooled.retire();
+                }
+            }
+        });
+
+        // 每次都创建新 UGI 的调用方(如 spark 提交)会不断产生新的 key，超过上限时关闭最久未使用的空闲实例
+        int overflow = pool.size() - MAX_IDLE_ENTRIES;
+        if (overflow <= 0) {
+            return;
+        }
+        pool.entrySet().stream()
+                .filter(entry -> entry.getValue().refCount == 0)
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsedTime))
+                .limit(overflow)
+                .forEach(entry -> {
+                    PooledFileSystem pooled = entry.getValue();
+                    synchronized (pooled) {
+                        if (pooled.refCount == 0) {
+                            pool.remove(entry.getKey(), pooled);
+                            pooled.retire();
+                        }
+                    }
+                });
+    }
+
+    private String getDigest(Configuration configuration) {
+        String baseDigest;
+        try {
+            baseDigest = confDigests.get(configuration, () -> {
+                TreeMap<String, String> sorted = new TreeMap<>();
+                configuration.forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+                Hasher hasher = Hashing.md5().newHasher();
+                sorted.forEach((k, v) -> hasher.putString(k, Charsets.UTF_8).putByte((byte) 0).putString(v, Charsets.UTF_8).putByte((byte) 0));
+                return hasher.hash().toString();
+            });
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("digest configuration error", e.getCause());
+        }
+        Hasher hasher = Hashing.md5().newHasher().putString(baseDigest, Charsets.UTF_8);
+        for (String key : MUTABLE_KEYS) {
+            hasher.putByte((byte) 0).putString(String.valueOf(configuration.get(key)), Charsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * 借用的 FileSystem，close 只归还不关闭
+     */
+    public static class Lease implements Closeable {
+
+        private final PooledFileSystem pooled;
+
+        private boolean released = false;
+
+        private Lease(PooledFileSystem pooled) {
+            this.pooled = pooled;
+        }
+
+        public FileSystem getFileSystem() throws IOException {
+            return pooled.get();
+        }
+
+        @Override
+        public void close() {
+            if (released) {
+                return;
+            }
+            released = true;
+            pooled.release();
+        }
+    }
+
+    private static class PooledFileSystem {
+
+        private final Configuration configuration;
+
+        private FileSystem fileSystem;
+
+        private int refCount = 0;
+
+        private long lastUsedTime = System.currentTimeMillis();
+
+        /**
+         * 已从池中移除，最后一个使用方归还后关闭
+         */
+        private boolean retired = false;
+
+        private boolean closed = false;
+
+        PooledFileSystem(Configuration configuration) {
+            this.configuration = configuration;
+        }
+
+        synchronized FileSystem get() throws IOException {
+            if (fileSystem == null) {
+                // newInstance 不进入 hadoop 的 FileSystem 缓存，生命周期完全由连接池管理
+                fileSystem = FileSystem.newInstance(configuration);
+            }
+            return fileSystem;
+        }
+
+        synchronized boolean isHealthy() {
+            if (fileSystem == null || System.currentTimeMillis() - lastUsedTime < HEALTH_CHECK_IDLE_MILLIS) {
+                return true;
+            }
+            try {
+                fileSystem.getFileStatus(HEALTH_CHECK_PATH);
+                return true;
+            } catch (Exception e) {
+                LOG.warn("pooled filesystem {} is unhealthy, recreate it", fileSystem.getUri(), e);
+                return false;
+            }
+        }
+
+        synchronized void release() {
+            refCount--;
+            lastUsedTime = System.currentTimeMillis();
+            if (retired && refCount == 0) {
+                closeQuietly();
+            }
+        }
+
+        synchronized void retire() {
+            retired = true;
+            if (refCount == 0) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            closed = true;
+            if (fileSystem == null) {
+                return;
+            }
+            try {
+                fileSystem.close();
+            } catch (IOException e) {
+                LOG.warn("close pooled filesystem error", e);
+            }
+        }
+    }
+
+    private static class PoolKey {
+
+        private final String confDigest;
+
+        /**
+         * UserGroupInformation 按 subject 判断相等，凭证续期产生新的 UGI 后使用新的实例
+         */
+        private final UserGroupInformation ugi;
+
+        PoolKey(String confDigest, UserGroupInformation ugi) {
+            this.confDigest = confDigest;
+            this.ugi = ugi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey poolKey = (PoolKey) o;
+            return Objects.equals(confDigest, poolKey.confDigest) && Objects.equals(ugi, poolKey.ugi);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(confDigest, ugi);
+        }
+    }
+}
@@ -21,6 +21,7 @@ package com.dtstack.taier.base.filesystem;
 import com.dtstack.taier.base.filesystem.factory.IFileManageFactory;
 import com.dtstack.taier.pluginapi.IFileManage;
 import com.dtstack.taier.pluginapi.sftp.SftpConfig;
+import com.dtstack.taier.pluginapi.util.LocalArtifactCache;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
@@ -84,6 +85,8 @@ public class FilesystemManager {
 
     /**
      *  使用文件管理器下载文件，返回本地文件
+     *  本地文件由 {@link LocalArtifactCache} 管理：和远程文件长度、修改时间一致时直接使用，
+     *  否则下载到临时文件后原子替换，并发下载同一个文件时只下载一次
      * @param remoteJarPath  远程jar完整路径
      * @param localPath     本地临时文件夹/文件
      * @param alwaysPullNew   总是从远程下载最新文件
@@ -92,35 +95,42 @@ public class FilesystemManager {
     public File downloadFile(String remoteFilePath, String localFilePath, boolean alwaysPullNew) {
         LOG.info("download file remoteFilePath:{} localFilePath:{} alwaysPullNew:{}", remoteFilePath, localFilePath, alwaysPullNew);
 
-        File jarFile = new File(localFilePath);
-        if (!alwaysPullNew) {
-            if (jarFile.exists()) {
-                return jarFile;
-            }
-        }
-
-        //检查并创建本地文件目录
-        if (!jarFile.getParentFile().exists()) {
-            boolean mkdirs = jarFile.getParentFile().mkdirs();
-            LOG.info("local file localParentFile {}  mkdir {} :", jarFile.getParent(), mkdirs);
-        }
-
-        for (IFileManage fileManage : fileManages) {
-            if (fileManage.filterPrefix()) {
-                String prefix = fileManage.getPrefix();
-                remoteFilePath = remoteFilePath.startsWith(prefix) ? StringUtils.substringAfter(remoteFilePath, prefix) : remoteFilePath;
+        LocalArtifactCache.getInstance().get(remoteFilePath, new File(localFilePath), alwaysPullNew, true, new LocalArtifactCache.RemoteFetcher() {
+            @Override
+            public LocalArtifactCache.RemoteFileInfo stat() {
+                for (IFileManage fileManage : fileManages) {
+                    LocalArtifactCache.RemoteFileInfo fileInfo = fileManage.getFileInfo(getRemotePath(fileManage, remoteFilePath));
+                    if (fileInfo != null) {
+                        return fileInfo;
+                    }
+                }
+                return null;
             }
 
-            boolean downLoadSuccess = fileManage.downloadFile(remoteFilePath, localFilePath);
-            if (downLoadSuccess) {
-                LOG.info("download file success fileManage is :{}", fileManage.getClass().getSimpleName());
-                break;
+            @Override
+            public boolean fetch(File tmpFile) {
+                for (IFileManage fileManage : fileManages) {
+                    boolean downLoadSuccess = fileManage.downloadFile(getRemotePath(fileManage, remoteFilePath), tmpFile.getAbsolutePath());
+                    if (downLoadSuccess) {
+                        LOG.info("download file success fileManage is :{}", fileManage.getClass().getSimpleName());
+                        return true;
+                    }
+                }
+                return false;
             }
-        }
+        });
 
         return getLocalJarFile(localFilePath);
     }
 
+    private String getRemotePath(IFileManage fileManage, String remoteFilePath) {
+        if (fileManage.filterPrefix()) {
+            String prefix = fileManage.getPrefix();
+            return remoteFilePath.startsWith(prefix) ? StringUtils.substringAfter(remoteFilePath, prefix) : remoteFilePath;
+        }
+        return remoteFilePath;
+    }
+
     /**
      *  使用文件管理器下载文件夹内容
      * @return
@@ -18,7 +18,9 @@
 
 package com.dtstack.taier.base.filesystem.manager;
 
+import com.dtstack.taier.base.filesystem.FileSystemPool;
 import com.dtstack.taier.pluginapi.IFileManage;
+import com.dtstack.taier.pluginapi.util.LocalArtifactCache;
 import com.google.common.io.Files;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileStatus;
@@ -62,7 +64,8 @@ public class HdfsFileManage implements IFileManage {
     @Override
     public boolean downloadFile(String remotePath, String localPath) {
 
-        try (FileSystem fs = FileSystem.get(hadoopConf)) {
+        try (FileSystemPool.Lease lease = FileSystemPool.getInstance().borrow(hadoopConf)) {
+            FileSystem fs = lease.getFileSystem();
 
             //检查并创建本地文件目录
             File file = new File(localPath);
@@ -84,9 +87,21 @@ public class HdfsFileManage implements IFileManage {
         }
     }
 
+    @Override
+    public LocalArtifactCache.RemoteFileInfo getFileInfo(String remotePath) {
+        try (FileSystemPool.Lease lease = FileSystemPool.getInstance().borrow(hadoopConf)) {
+            FileStatus fileStatus = lease.getFileSystem().getFileStatus(new Path(remotePath));
+            return new LocalArtifactCache.RemoteFileInfo(fileStatus.getLen(), fileStatus.getModificationTime());
+        } catch (Exception e) {
+            LOG.debug("get hdfs file {} status error: {}", remotePath, e.getMessage());
+            return null;
+        }
+    }
+
     @Override
     public boolean downloadDir(String remotePath, String localDir) {
-        try (FileSystem fs = FileSystem.get(hadoopConf)) {
+        try (FileSystemPool.Lease lease = FileSystemPool.getInstance().borrow(hadoopConf)) {
+            FileSystem fs = lease.getFileSystem();
             //检查并创建本地文件目录
             File localDirPath = new File(localDir);
             if (!localDirPath.exists()) {
@@ -20,13 +20,11 @@ package com.dtstack.taier.base.monitor;
 
 
 import com.dtstack.taier.base.BaseConfig;
-import com.dtstack.taier.base.util.KerberosUtils;
+import com.dtstack.taier.base.yarn.SharedYarnClient;
 import com.dtstack.taier.pluginapi.CustomThreadFactory;
-import com.dtstack.taier.pluginapi.exception.PluginDefineException;
 import org.apache.hadoop.yarn.api.records.ApplicationId;
 import org.apache.hadoop.yarn.api.records.ApplicationReport;
 import org.apache.hadoop.yarn.api.records.YarnApplicationState;
-import org.apache.hadoop.yarn.client.api.YarnClient;
 import org.apache.hadoop.yarn.conf.YarnConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,7 +34,6 @@ import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * company: www.dtstack.com
@@ -75,20 +72,12 @@ public class AcceptedApplicationMonitor implements Runnable {
     @Override
     public void run() {
 
-        try (
-            YarnClient yarnClient = KerberosUtils.login(config, () -> {
-                YarnClient client = YarnClient.createYarnClient();
-                client.init(yarnConf);
-                client.start();
-                return client;}, yarnConf);
-        ) {
+        try {
+            // 使用集群共享的客户端，ACCEPTED 状态的 application 从后台刷新的缓存中读取
+            SharedYarnClient yarnClient = SharedYarnClient.getInstance(yarnConf, config);
             EnumSet<YarnApplicationState> enumSet = EnumSet.noneOf(YarnApplicationState.class);
             enumSet.add(YarnApplicationState.ACCEPTED);
-            if (yarnClient == null) {
-                throw new PluginDefineException("AcceptedApplicationMonitor init yarnClient fail");
-            }
-            List<ApplicationReport> acceptedApps = yarnClient.getApplications(enumSet).stream().
-                    filter(report -> report.getQueue().endsWith(queueName)).collect(Collectors.toList());
+            List<ApplicationReport> acceptedApps = yarnClient.getApplications(enumSet, queueName);
             for (ApplicationReport report : acceptedApps) {
                 long startTime = report.getStartTime();
                 long currentTime = System.currentTimeMillis();
@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.base.util;
+
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.pluginapi.exception.PluginDefineException;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.security.UserGroupInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * kerberos 凭证管理
+ * <p>
+ * 以 (principal, keytab 摘要, krb5.conf 摘要) 为 key，同一个 key 所有线程共用一个 UGI，
+ * 后台线程在 TGT 过期前重新登录并替换 UGI，业务线程不再因为 TGT 即将过期而同步重建；
+ * keytab 或 krb5.conf 内容变化后 key 随之变化，旧的凭证在空闲后清理
+ * <p>
+ * 后台续期使用 key 自身的 principal、keytab 和 krb5.conf，以及创建凭证时保存的集群配置副本登录
+ *
+ * @author jiangbo
+ */
+public class KerberosCredentialManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(KerberosCredentialManager.class);
+
+    private static final long RENEW_CHECK_INTERVAL_SECONDS = 60L;
+
+    /**
+     * 超过该时间未使用的凭证不再续期
+     */
+    private static final long IDLE_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    private static final KerberosCredentialManager INSTANCE = new KerberosCredentialManager();
+
+    private final Map<CredentialKey, Credential> credentials = new ConcurrentHashMap<>();
+
+    /**
+     * 文件路径 -> 摘要，文件大小和修改时间不变时不重新计算
+     */
+    private final Map<String, FileDigest> fileDigests = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong createCount = new AtomicLong();
+    private final AtomicLong renewCount = new AtomicLong();
+    private final AtomicLong renewFailCount = new AtomicLong();
+
+    private volatile ScheduledExecutorService renewExecutor;
+
+    public static KerberosCredentialManager getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取共享的 UGI
+     *
+     * @param principal    principal
+     * @param keytabPath   本地 keytab 路径
+     * @param krb5ConfPath 本地 krb5.conf 路径
+     * @param creator             使用调用方的配置创建 UGI，首次获取时调用
+     * @param renewCreatorFactory 创建 UGI 成功后调用，生成后台续期使用的 UgiCreator(保存当时的配置副本)
+     * @param needRenew           判断 UGI 是否需要重新登录
+     */
+    public UserGroupInformation getUGI(String principal, String keytabPath, String krb5ConfPath,
+                                       Supplier<UserGroupInformation> creator, Supplier<UgiCreator> renewCreatorFactory,
+                                       Predicate<UserGroupInformation> needRenew) {
+        Credential credential = getCredential(principal, keytabPath, krb5ConfPath, needRenew);
+
+        UserGroupInformation ugi = credential.ugi;
+        if (ugi != null && !needRenew.test(ugi)) {
+            hitCount.incrementAndGet();
+            return ugi;
+        }
+
+        // 只锁当前 key，其他 principal 的登录不受影响
+        synchronized (credential) {
+            ugi = credential.ugi;
+            if (ugi == null || needRenew.test(ugi)) {
+                ugi = creator.get();
+                credential.ugi = ugi;
+                credential.renewCreator = renewCreatorFactory.get();
+                createCount.incrementAndGet();
+                LOG.info("create shared ugi, principal:{}, keytab:{}", principal, keytabPath);
+            } else {
+                hitCount.incrementAndGet();
+            }
+        }
+        startRenewIfNeed();
+        return ugi;
+    }
+
+    /**
+     * 使用凭证出错(如 keytab 已在 kdc 侧更新)时重新登录，凭证已被清理时按调用方的参数重新创建
+     */
+    public UserGroupInformation refresh(String principal, String keytabPath, String krb5ConfPath,
+                                        Supplier<UserGroupInformation> creator, Supplier<UgiCreator> renewCreatorFactory,
+                                        Predicate<UserGroupInformation> needRenew) {
+        Credential credential = getCredential(principal, keytabPath, krb5ConfPath, needRenew);
+        synchronized (credential) {
+            credential.ugi = creator.get();
+            credential.renewCreator = renewCreatorFactory.get();
+            createCount.incrementAndGet();
+            LOG.info("refresh shared ugi, principal:{}, keytab:{}", principal, keytabPath);
+        }
+        startRenewIfNeed();
+        return credential.ugi;
+    }
+
+    private Credential getCredential(String principal, String keytabPath, String krb5ConfPath,
+                                     Predicate<UserGroupInformation> needRenew) {
+        CredentialKey key = new CredentialKey(principal, digest(keytabPath), digest(krb5ConfPath));
+        Credential credential = credentials.computeIfAbsent(key, k -> new Credential(principal, needRenew));
+        // 内容相同的文件可能在不同路径，续期时使用最近一次调用的路径
+        credential.keytabPath = keytabPath;
+        credential.krb5ConfPath = krb5ConfPath;
+        credential.lastAccessTime = System.currentTimeMillis();
+        return credential;
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("credentials", (long) credentials.size());
+        metrics.put("hit", hitCount.get());
+        metrics.put("create", createCount.get());
+        metrics.put("renew", renewCount.get());
+        metrics.put("renewFail", renewFailCount.get());
+        return metrics;
+    }
+
+    private void startRenewIfNeed() {
+        if (renewExecutor != null) {
+            return;
+        }
+        synchronized (this) {
+            if (renewExecutor == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("kerberos_renew"));
+                executor.scheduleWithFixedDelay(this::renewAll, RENEW_CHECK_INTERVAL_SECONDS, RENEW_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
+                renewExecutor = executor;
+            }
+        }
+    }
+
+    void renewAll() {
+        long expireTime = System.currentTimeMillis() - IDLE_EXPIRE_MILLIS;
+        credentials.entrySet().removeIf(entry -> {
+            if (entry.getValue().lastAccessTime < expireTime) {
+                LOG.info("remove idle kerberos credential, principal:{}", entry.getKey().principal);
+                return true;
+            }
+            return false;
+        });
+
+        for (Map.Entry<CredentialKey, Credential> entry : credentials.entrySet()) {
+            Credential credential = entry.getValue();
+            UserGroupInformation ugi = credential.ugi;
+            if (ugi == null || credential.renewCreator == null || !credential.needRenew.test(ugi)) {
+                continue;
+            }
+            synchronized (credential) {
+                if (credential.ugi != ugi) {
+                    continue;
+                }
+                try {
+                    // 替换而不是在原 UGI 上 relogin，正在 doAs 的线程继续使用旧的 UGI
+                    credential.ugi = credential.renewCreator.create(credential.principal, credential.keytabPath, credential.krb5ConfPath);
+                    renewCount.incrementAndGet();
+                    LOG.info("renew kerberos credential, principal:{}", entry.getKey().principal);
+                } catch (Exception e) {
+                    renewFailCount.incrementAndGet();
+                    LOG.error("renew kerberos credential error, principal:{}", entry.getKey().principal, e);
+                }
+            }
+        }
+        LOG.debug("kerberos credential metrics: {}", getMetrics());
+    }
+
+    private String digest(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return "";
+        }
+        File file = new File(path);
+        if (!file.exists()) {
+            return "";
+        }
+        long length = file.length();
+        long lastModified = file.lastModified();
+        FileDigest fileDigest = fileDigests.get(path);
+        if (fileDigest != null && fileDigest.length == length && fileDigest.lastModified == lastModified) {
+            return fileDigest.digest;
+        }
+        try {
+            String digest = Files.asByteSource(file).hash(Hashing.sha256()).toString();
+            fileDigests.put(path, new FileDigest(length, lastModified, digest));
+            return digest;
+        } catch (IOException e) {
+            throw new PluginDefineException("digest file " + path + " error", e);
+        }
+    }
+
+    /**
+     * 按 principal、keytab 和 krb5.conf 创建 UGI
+     */
+    @FunctionalInterface
+    public interface UgiCreator {
+
+        UserGroupInformation create(String principal, String keytabPath, String krb5ConfPath);
+    }
+
+    private static class Credential {
+
+        private final String principal;
+
+        private final Predicate<UserGroupInformation> needRenew;
+
+        private volatile String keytabPath;
+
+        private volatile String krb5ConfPath;
+
+        private volatile UserGroupInformation ugi;
+
+        private volatile UgiCreator renewCreator;
+
+        private volatile long lastAccessTime = System.currentTimeMillis();
+
+        Credential(String principal, Predicate<UserGroupInformation> needRenew) {
+            this.principal = principal;
+            this.needRenew = needRenew;
+        }
+    }
+
+    private static class FileDigest {
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final String digest;
+
+        FileDigest(long length, long lastModified, String digest) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+
+    private static class CredentialKey {
+
+        private final String principal;
+
+        private final String keytabDigest;
+
+        private final String krb5Digest;
+
+        CredentialKey(String principal, String keytabDigest, String krb5Digest) {
+            this.principal = principal;
+            this.keytabDigest = keytabDigest;
+            this.krb5Digest = krb5Digest;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CredentialKey that = (CredentialKey) o;
+            return Objects.equals(principal, that.principal)
+                    && Objects.equals(keytabDigest, that.keytabDigest)
+                    && Objects.equals(krb5Digest, that.krb5Digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(principal, keytabDigest, krb5Digest);
+        }
+    }
+}
@@ -59,8 +59,11 @@ public class KerberosUtils {
     private static final String KERBEROS_AUTH_TYPE = "kerberos";
     private static final String SECURITY_TO_LOCAL_DEFAULT = "RULE:[1:$1] RULE:[2:$1]";
 
-    private static Map<String, UserGroupInformation> ugiMap = Maps.newConcurrentMap();
     private static Map<String, String> segment = Maps.newConcurrentMap();
+    /**
+     * keytab 路径 -> principal
+     */
+    private static Map<String, String> keytabPrincipals = Maps.newConcurrentMap();
 
     private static final String TIME_FILE = ".lock";
     private static final String KEYTAB_FILE = ".keytab";
@@ -86,32 +89,19 @@ public class KerberosUtils {
      * @see HadoopKerberosName#setConfiguration(org.apache.hadoop.conf.Configuration)
      * @param ugi
      * @param supplier
-     * @param finalKrb5ConfPath
-     * @param configuration
-     * @param finalPrincipal
-     * @param finalKeytabPath
-     * @param threadName
-     * @param defaultKrb5Name
-     * @param isMergeKrb5
+     * @param retryUgiSupplier 凭证校验失败时重新登录
      * @param <T>
      * @return
      */
     private static <T> T retryLoginKerberosWithCallBack(UserGroupInformation ugi,
                                                         Supplier<T> supplier,
-                                                        String finalKrb5ConfPath,
-                                                        Configuration configuration,
-                                                        String finalPrincipal,
-                                                        String finalKeytabPath,
-                                                        String threadName,
-                                                        String defaultKrb5Name,
-                                                        Boolean isMergeKrb5) {
+                                                        Supplier<UserGroupInformation> retryUgiSupplier) {
         try {
             return loginKerberosWithCallBack(ugi, supplier);
         } catch (Exception e) {
             if (Arrays.stream(VALID_CREDENTIALS_MSG).anyMatch(e.toString()::contains)) {
-                UserGroupInformation retryUgi = retryCreateUGIIfMerge(finalKrb5ConfPath, configuration, finalPrincipal, finalKeytabPath, defaultKrb5Name, isMergeKrb5);
-                ugiMap.put(threadName, retryUgi);
-                return loginKerberosWithCallBack(ugi, supplier);
+                UserGroupInformation retryUgi = retryUgiSupplier.get();
+                return loginKerberosWithCallBack(retryUgi, supplier);
             }
             logger.error("retryLoginKerberosWithCallBack: ", e);
             throw new PluginDefineException("doAs error: " + e);
@@ -139,7 +129,6 @@ public class KerberosUtils {
         String finalKrb5ConfPath;
         String finalPrincipal;
         String finalKeytabPath;
-        String threadName;
         Boolean isMergeKrb5;
 
         File localDirPath = new File(localDir);
@@ -150,7 +139,6 @@ public class KerberosUtils {
         logger.info("fileName:{}, remoteDir:{}, localDir:{}, sftpConf:{}", fileName, remoteDir, localDir, config.getSftpConf());
 
         try {
-            UserGroupInformation ugi;
             String segmentName = segment.computeIfAbsent(remoteDir, key -> {return new String(remoteDir);});
             synchronized (segmentName) {
                 String keytabPath = "";
@@ -180,36 +168,45 @@ public class KerberosUtils {
 
                 finalKrb5ConfPath = krb5ConfPath;
                 finalKeytabPath = keytabPath;
-                threadName = Thread.currentThread().getName();
                 String principal = config.getPrincipal();
                 if (StringUtils.isEmpty(principal)) {
-                    principal = segment.computeIfAbsent(threadName, k -> {return KerberosUtils.getPrincipal(finalKeytabPath);});
+                    if (isOverrideDownLoad) {
+                        keytabPrincipals.remove(finalKeytabPath);
+                    }
+                    principal = keytabPrincipals.computeIfAbsent(finalKeytabPath, KerberosUtils::getPrincipal);
                 }
                 finalPrincipal = principal;
-                logger.info("kerberos login, principal:{}, keytabPath:{}, krb5ConfPath:{}", principal, keytabPath, krb5ConfPath);
-
-                /*
-                 * 如果用已经带有token的ugi进行认证时，在HDFS DELEGATION TOKEN那里会出现认证错误
-                 * 如果是SPARK 在这里先每次创建UGI进行避开
-                 */
-                if (isCreateNewUGI) {
-                    ugi = retryCreateUGIIfMerge(finalKrb5ConfPath, configuration, finalPrincipal, finalKeytabPath, config.getKrbName(), isMergeKrb5);
-                } else {
-                    ugi = ugiMap.computeIfAbsent(threadName, k -> retryCreateUGIIfMerge(finalKrb5ConfPath, configuration, finalPrincipal, finalKeytabPath, config.getKrbName(), isMergeKrb5));
-                }
+            }
+            logger.info("kerberos login, principal:{}, keytabPath:{}, krb5ConfPath:{}", finalPrincipal, finalKeytabPath, finalKrb5ConfPath);
 
-                KerberosTicket ticket = getTGT(ugi);
-                if (!checkTGT(ticket) || isOverrideDownLoad) {
-                    logger.info("Relogin after the ticket expired, principal: {}, current thread: {}", principal, Thread.currentThread().getName());
-                    ugi = retryCreateUGIIfMerge(finalKrb5ConfPath, configuration, finalPrincipal, finalKeytabPath, config.getKrbName(), isMergeKrb5);
-                    if (!isCreateNewUGI) {
-                        ugiMap.put(threadName, ugi);
-                    }
-                }
-                logger.info("userGroupInformation current user = {} ugi user  = {} ", UserGroupInformation.getCurrentUser(), ugi.getUserName());
+            Supplier<UserGroupInformation> ugiCreator = () -> retryCreateUGIIfMerge(finalKrb5ConfPath, configuration, finalPrincipal, finalKeytabPath, config.getKrbName(), isMergeKrb5);
+            UserGroupInformation ugi;
+            Supplier<UserGroupInformation> retryUgiSupplier;
+            /*
+             * 如果用已经带有token的ugi进行认证时，在HDFS DELEGATION TOKEN那里会出现认证错误
+             * 如果是SPARK 在这里先每次创建UGI进行避开
+             */
+            if (isCreateNewUGI) {
+                ugi = ugiCreator.get();
+                retryUgiSupplier = ugiCreator;
+            } else {
+                // 同一个 principal 和 keytab 所有线程共用 UGI，由 KerberosCredentialManager 在过期前续期
+                KerberosCredentialManager credentialManager = KerberosCredentialManager.getInstance();
+                // 登录成功后保存集群配置的副本，后台续期和首次登录走相同的配置和 krb5 合并重试逻辑
+                String krbName = config.getKrbName();
+                Supplier<KerberosCredentialManager.UgiCreator> renewCreatorFactory = () -> {
+                    Configuration renewConfiguration = new Configuration(configuration);
+                    return (principal, keytabPath, krb5ConfPath) ->
+                            retryCreateUGIIfMerge(krb5ConfPath, renewConfiguration, principal, keytabPath, krbName, isMergeKrb5);
+                };
+                ugi = credentialManager.getUGI(finalPrincipal, finalKeytabPath, finalKrb5ConfPath, ugiCreator,
+                        renewCreatorFactory, KerberosUtils::needRelogin);
+                retryUgiSupplier = () -> credentialManager.refresh(finalPrincipal, finalKeytabPath, finalKrb5ConfPath, ugiCreator,
+                        renewCreatorFactory, KerberosUtils::needRelogin);
             }
             Preconditions.checkNotNull(ugi, "UserGroupInformation is null");
-            return KerberosUtils.retryLoginKerberosWithCallBack(ugi, supplier, finalKrb5ConfPath, configuration, finalPrincipal, finalKeytabPath, threadName, config.getKrbName(), isMergeKrb5);
+            logger.info("userGroupInformation current user = {} ugi user  = {} ", UserGroupInformation.getCurrentUser(), ugi.getUserName());
+            return KerberosUtils.retryLoginKerberosWithCallBack(ugi, supplier, retryUgiSupplier);
         } catch (Exception e) {
             throw new PluginDefineException(e.getMessage());
         }
@@ -313,6 +310,18 @@ public class KerberosUtils {
         }
     }
 
+    /**
+     * TGT 不存在或者已经超过有效期的 80% 时需要重新登录
+     */
+    private static boolean needRelogin(UserGroupInformation ugi) {
+        try {
+            return !checkTGT(getTGT(ugi));
+        } catch (Exception e) {
+            logger.warn("get TGT error, user: {}", ugi.getUserName(), e);
+            return true;
+        }
+    }
+
     private static boolean checkTGT(KerberosTicket ticket) {
         if (ticket == null) {
             return false;
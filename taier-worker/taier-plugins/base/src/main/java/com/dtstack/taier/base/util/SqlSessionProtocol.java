@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.base.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 常驻 sql 会话服务与客户端之间的协议
+ * <p>
+ * 客户端每次请求建立一个 tcp 连接，发送一行 json 请求，服务端返回一行 json 响应后关闭连接
+ * <pre>
+ *   请求：{"token": "", "op": "submit|status|cancel|ping", "jobId": "", "sql": "压缩后的sql", "sessionConf": {}}
+ *   响应：{"code": 0, "status": "WAITING|RUNNING|FINISHED|FAILED|KILLED|NOTFOUND", "msg": "", "runningJobs": 0}
+ * </pre>
+ *
+ * @author jiangbo
+ */
+public class SqlSessionProtocol {
+
+    public static final String HOST = "host";
+    public static final String PORT = "port";
+    public static final String TOKEN = "token";
+
+    public static final String OP = "op";
+    public static final String OP_SUBMIT = "submit";
+    public static final String OP_STATUS = "status";
+    public static final String OP_CANCEL = "cancel";
+    public static final String OP_PING = "ping";
+
+    public static final String JOB_ID = "jobId";
+    public static final String SQL = "sql";
+    public static final String SESSION_CONF = "sessionConf";
+
+    public static final String CODE = "code";
+    public static final int CODE_SUCCESS = 0;
+    public static final int CODE_ERROR = 1;
+    public static final String STATUS = "status";
+    public static final String MSG = "msg";
+    public static final String RUNNING_JOBS = "runningJobs";
+
+    public static final String STATUS_WAITING = "WAITING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_FINISHED = "FINISHED";
+    public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_KILLED = "KILLED";
+    public static final String STATUS_NOT_FOUND = "NOTFOUND";
+
+    /**
+     * 会话服务启动参数
+     */
+    public static final String ARG_REGISTER_DIR = "registerDir";
+    public static final String ARG_MAX_JOBS = "maxJobs";
+    public static final String ARG_IDLE_TIMEOUT = "idleTimeout";
+    public static final String ARG_STATUS_RETAIN = "statusRetain";
+
+    private SqlSessionProtocol() {
+    }
+
+    public static Map<String, Object> error(String msg) {
+        Map<String, Object> response = new HashMap<>();
+        response.put(CODE, CODE_ERROR);
+        response.put(MSG, msg);
+        return response;
+    }
+}
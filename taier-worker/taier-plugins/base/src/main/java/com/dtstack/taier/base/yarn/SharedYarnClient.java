@@ -0,0 +1,369 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.base.yarn;
+
+import com.dtstack.taier.base.BaseConfig;
+import com.dtstack.taier.base.util.KerberosUtils;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.pluginapi.exception.PluginDefineException;
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.yarn.api.records.ApplicationId;
+import org.apache.hadoop.yarn.api.records.ApplicationReport;
+import org.apache.hadoop.yarn.api.records.YarnApplicationState;
+import org.apache.hadoop.yarn.client.api.YarnClient;
+import org.apache.hadoop.yarn.conf.YarnConfiguration;
+import org.apache.hadoop.yarn.exceptions.ApplicationNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 集群级别共享的 YarnClient 及 application report 缓存
+ * <p>
+ * 同一个集群(yarn 配置 + principal)只保持一个长连接的 YarnClient，后台定时以一次 getApplications
+ * 拉取关注队列中未结束的 application 刷新缓存，任务状态、ACCEPTED 超时监控、trackingUrl 都从缓存读取，
+ * ResourceManager 的请求数与集群数相关，与任务数无关；
+ * <p>
+ * 关注的队列来自单独请求过的 application 及 ACCEPTED 超时监控的队列，没有关注的队列时不发起请求，
+ * 避免每次刷新拉取整个集群的 application
+ * <p>
+ * 缓存中不存在或已离开未结束状态的 application 单独请求一次，结束状态的 report 不再变化，缓存一段时间
+ *
+ * @author jiangbo
+ */
+public class SharedYarnClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedYarnClient.class);
+
+    private static final long REFRESH_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 未结束 application 的缓存超过该时间未刷新时直接请求 ResourceManager
+     */
+    private static final long MAX_STALE_MILLIS = REFRESH_INTERVAL_MILLIS * 3;
+
+    /**
+     * 超过该时间没有访问时暂停后台刷新
+     */
+    private static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private static final EnumSet<YarnApplicationState> ACTIVE_STATES = EnumSet.of(
+            YarnApplicationState.NEW,
+            YarnApplicationState.NEW_SAVING,
+            YarnApplicationState.SUBMITTED,
+            YarnApplicationState.ACCEPTED,
+            YarnApplicationState.RUNNING);
+
+    private static final Map<String, SharedYarnClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /**
+     * Configuration 实例 -> 集群 key，同一个 Configuration 只计算一次
+     */
+    private static final Cache<Configuration, String> CLUSTER_KEYS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private static volatile ScheduledExecutorService refreshExecutor;
+
+    private final String clusterKey;
+
+    private final YarnConfiguration yarnConf;
+
+    private final BaseConfig config;
+
+    private volatile YarnClient yarnClient;
+
+    /**
+     * 未结束的 application，每次刷新整体替换
+     */
+    private volatile Map<ApplicationId, ApplicationReport> activeReports = new ConcurrentHashMap<>();
+
+    /**
+     * 后台刷新时拉取的队列，使用 application report 中的完整队列名
+     */
+    private final Set<String> watchedQueues = ConcurrentHashMap.newKeySet();
+
+    private volatile long refreshTime = 0L;
+
+    private volatile long lastAccessTime = System.currentTimeMillis();
+
+    /**
+     * 已结束的 application
+     */
+    private final Cache<ApplicationId, ApplicationReport> finishedReports = CacheBuilder.newBuilder()
+            .maximumSize(100000)
+            .expireAfterWrite(24, TimeUnit.HOURS)
+            .build();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong reportRpcCount = new AtomicLong();
+    private final AtomicLong listRpcCount = new AtomicLong();
+
+    private SharedYarnClient(String clusterKey, YarnConfiguration yarnConf, BaseConfig config) {
+        this.clusterKey = clusterKey;
+        this.yarnConf = yarnConf;
+        this.config = config;
+    }
+
+    /**
+     * 获取集群共享的客户端，相同 yarn 配置和 principal 返回同一个实例
+     */
+    public static SharedYarnClient getInstance(YarnConfiguration yarnConf, BaseConfig config) {
+        String clusterKey = getClusterKey(yarnConf, config);
+        SharedYarnClient client = CLIENTS.computeIfAbsent(clusterKey, k -> new SharedYarnClient(k, yarnConf, config));
+        startRefreshIfNeed();
+        return client;
+    }
+
+    /**
+     * 共享的 YarnClient，调用方不能关闭
+     */
+    public YarnClient getYarnClient() throws Exception {
+        YarnClient client = yarnClient;
+        if (client != null) {
+            return client;
+        }
+        synchronized (this) {
+            if (yarnClient == null) {
+                yarnClient = KerberosUtils.login(config, () -> {
+                    YarnClient newClient = YarnClient.createYarnClient();
+                    newClient.init(yarnConf);
+                    newClient.start();
+                    return newClient;
+                }, yarnConf);
+                LOG.info("create shared yarn client for cluster {}", clusterKey);
+            }
+            return yarnClient;
+        }
+    }
+
+    public ApplicationReport getApplicationReport(ApplicationId applicationId) throws Exception {
+        lastAccessTime = System.currentTimeMillis();
+        ApplicationReport report = finishedReports.getIfPresent(applicationId);
+        if (report != null) {
+            hitCount.incrementAndGet();
+            return report;
+        }
+        if (System.currentTimeMillis() - refreshTime <= MAX_STALE_MILLIS) {
+            report = activeReports.get(applicationId);
+            if (report != null) {
+                hitCount.incrementAndGet();
+                return report;
+            }
+        }
+
+        // 刷新后新提交的或已经结束的 application
+        reportRpcCount.incrementAndGet();
+        report = call(client -> client.getApplicationReport(applicationId));
+        watchQueue(report);
+        if (ACTIVE_STATES.contains(report.getYarnApplicationState())) {
+            activeReports.put(applicationId, report);
+        } else {
+            finishedReports.put(applicationId, report);
+        }
+        return report;
+    }
+
+    /**
+     * 获取队列名以 queueName 结尾的指定状态的 application，只包含未结束状态且队列已关注时从缓存读取；
+     * 否则单独请求一次，并关注返回结果中匹配的队列
+     */
+    public List<ApplicationReport> getApplications(EnumSet<YarnApplicationState> states, String queueName) throws Exception {
+        lastAccessTime = System.currentTimeMillis();
+        if (!ACTIVE_STATES.containsAll(states) || watchedQueues.stream().noneMatch(queue -> queue.endsWith(queueName))) {
+            listRpcCount.incrementAndGet();
+            List<ApplicationReport> reports = call(client -> client.getApplications(states)).stream()
+                    .filter(report -> report.getQueue().endsWith(queueName))
+                    .collect(Collectors.toList());
+            reports.forEach(this::watchQueue);
+            return reports;
+        }
+        if (System.currentTimeMillis() - refreshTime > MAX_STALE_MILLIS) {
+            refresh();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return activeReports.values().stream()
+                .filter(report -> states.contains(report.getYarnApplicationState()))
+                .filter(report -> report.getQueue().endsWith(queueName))
+                .collect(Collectors.toList());
+    }
+
+    public void killApplication(ApplicationId applicationId) throws Exception {
+        call(client -> {
+            client.killApplication(applicationId);
+            return null;
+        });
+        activeReports.remove(applicationId);
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("active", (long) activeReports.size());
+        metrics.put("finished", finishedReports.size());
+        metrics.put("queues", (long) watchedQueues.size());
+        metrics.put("hit", hitCount.get());
+        metrics.put("reportRpc", reportRpcCount.get());
+        metrics.put("listRpc", listRpcCount.get());
+        return metrics;
+    }
+
+    /**
+     * 一次请求拉取关注队列中未结束的 application；上次刷新时未结束、本次不在列表中的 application 已经结束，
+     * 从缓存中移除，下次访问时单独请求其最终状态
+     */
+    synchronized void refresh() throws Exception {
+        Set<String> queues = new HashSet<>(watchedQueues);
+        if (queues.isEmpty()) {
+            activeReports = new ConcurrentHashMap<>();
+            refreshTime = System.currentTimeMillis();
+            return;
+        }
+        listRpcCount.incrementAndGet();
+        List<ApplicationReport> reports = call(client -> client.getApplications(queues, null, null, ACTIVE_STATES));
+        Map<ApplicationId, ApplicationReport> refreshed = new ConcurrentHashMap<>(reports.size() * 2);
+        for (ApplicationReport report : reports) {
+            refreshed.put(report.getApplicationId(), report);
+        }
+        activeReports = refreshed;
+        refreshTime = System.currentTimeMillis();
+    }
+
+    private void watchQueue(ApplicationReport report) {
+        if (report.getQueue() != null) {
+            watchedQueues.add(report.getQueue());
+        }
+    }
+
+    private void refreshIfActive() {
+        if (System.currentTimeMillis() - lastAccessTime > IDLE_MILLIS) {
+            return;
+        }
+        try {
+            refresh();
+            LOG.debug("shared yarn client {} metrics: {}", clusterKey, getMetrics());
+        } catch (Exception e) {
+            LOG.warn("refresh application reports of cluster {} error", clusterKey, e);
+        }
+    }
+
+    private <T> T call(YarnCall<T> yarnCall) throws Exception {
+        YarnClient client = getYarnClient();
+        // 开启 kerberos 时 login 会丢弃异常类型，在回调中保留原始异常
+        Exception[] error = new Exception[1];
+        T result = KerberosUtils.login(config, () -> {
+            try {
+                return yarnCall.call(client);
+            } catch (Exception e) {
+                error[0] = e;
+                return null;
+            }
+        }, yarnConf);
+        if (error[0] != null) {
+            if (!isApplicationNotFound(error[0])) {
+                // 连接异常时重建，下次调用使用新的客户端
+                resetClient(client);
+            }
+            throw error[0];
+        }
+        return result;
+    }
+
+    private boolean isApplicationNotFound(Throwable e) {
+        while (e != null) {
+            if (e instanceof ApplicationNotFoundException) {
+                return true;
+            }
+            e = e.getCause();
+        }
+        return false;
+    }
+
+    private synchronized void resetClient(YarnClient client) {
+        if (yarnClient != client) {
+            return;
+        }
+        yarnClient = null;
+        try {
+            client.close();
+        } catch (Exception e) {
+            LOG.warn("close shared yarn client of cluster {} error", clusterKey, e);
+        }
+    }
+
+    private static void startRefreshIfNeed() {
+        if (refreshExecutor != null) {
+            return;
+        }
+        synchronized (SharedYarnClient.class) {
+            if (refreshExecutor == null) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("shared_yarn_client_refresh"));
+                executor.scheduleWithFixedDelay(() -> new ArrayList<>(CLIENTS.values()).forEach(SharedYarnClient::refreshIfActive),
+                        REFRESH_INTERVAL_MILLIS, REFRESH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                refreshExecutor = executor;
+            }
+        }
+    }
+
+    private static String getClusterKey(YarnConfiguration yarnConf, BaseConfig config) {
+        String principal = config != null && config.isOpenKerberos() ? config.getPrincipal() : "";
+        try {
+            String confDigest = CLUSTER_KEYS.get(yarnConf, () -> {
+                TreeMap<String, String> sorted = new TreeMap<>();
+                yarnConf.forEach(entry -> {
+                    if (entry.getKey().startsWith("yarn.") || entry.getKey().startsWith("hadoop.security")) {
+                        sorted.put(entry.getKey(), entry.getValue());
+                    }
+                });
+                Hasher hasher = Hashing.md5().newHasher();
+                sorted.forEach((k, v) -> hasher.putString(k, Charsets.UTF_8).putByte((byte) 0).putString(v, Charsets.UTF_8).putByte((byte) 0));
+                return hasher.hash().toString();
+            });
+            return confDigest + "|" + principal;
+        } catch (ExecutionException e) {
+            throw new PluginDefineException("digest yarn configuration error", e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface YarnCall<T> {
+
+        T call(YarnClient client) throws Exception;
+    }
+}
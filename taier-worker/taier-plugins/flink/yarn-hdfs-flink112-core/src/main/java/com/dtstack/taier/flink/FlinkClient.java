@@ -17,6 +17,7 @@ import com.dtstack.taier.flink.info.resource.FlinkPerJobResourceInfo;
 import com.dtstack.taier.flink.info.resource.FlinkSessionResourceInfo;
 import com.dtstack.taier.flink.info.resource.TaskManagerInfo;
 import com.dtstack.taier.flink.perjob.client.PerJobClientManager;
+import com.dtstack.taier.flink.perjob.pool.WarmCluster;
 import com.dtstack.taier.flink.util.*;
 import com.dtstack.taier.pluginapi.JarFileInfo;
 import com.dtstack.taier.pluginapi.JobClient;
@@ -106,6 +107,9 @@ public class FlinkClient extends AbstractClient {
 
     private final Map<String, List<String>> cacheFile = Maps.newConcurrentMap();
 
+    /** 未开启时为 null*/
+    private JobGraphCache jobGraphCache;
+
     private final static Predicate<TaskStatus> IS_END_STATUS =
             status -> TaskStatus.getStoppedStatus().contains(status.getStatus())
                     || TaskStatus.NOTFOUND.equals(status);
@@ -128,6 +132,9 @@ public class FlinkClient extends AbstractClient {
         filesystemManager = new FilesystemManager(
                 clientManager.getHadoopConfig().getCoreConfiguration(),
                 flinkConfig.getSftpConf());
+        if (flinkConfig.getJobGraphCacheEnable()) {
+            jobGraphCache = new JobGraphCache(flinkConfig.getJobGraphCacheSize(), flinkConfig.getJobGraphCacheExpireMinutes());
+        }
         LOG.info("<== init Flink client");
     }
 
@@ -349,21 +356,37 @@ public class FlinkClient extends AbstractClient {
                 clusterSpecification.setCreateProgramDelay(true);
                 clusterSpecification.setYarnConfiguration(clientManager.getHadoopConfig().getYarnConfiguration());
 
-                LOG.info("--------taskId: {} run by PerJob mode-----", jobClient.getJobId());
-                runResult = runJobByPerJob(clusterSpecification, jobClient);
-                jobGraph = clusterSpecification.getJobGraph();
-                packagedProgram = clusterSpecification.getProgram();
+                WarmCluster warmCluster = ((PerJobClientManager) clientManager).acquireWarmCluster(jobClient);
+                if (warmCluster != null) {
+                    packagedProgram = FlinkUtil.buildProgram(jarPath,
+                            classPaths,
+                            jobClient.getJobType(),
+                            entryPointClass,
+                            programArgs, savepointRestoreSettings, clientManager.getFlinkConfiguration(), filesystemManager);
+                    jobGraph = createJobGraph(
+                            packagedProgram,
+                            clientManager.getFlinkConfiguration(),
+                            FlinkUtil.getJobParallelism(jobClient.getConfProperties()));
+                    clearClassPathShipFileLoadMode(packagedProgram);
+
+                    LOG.info("--------taskId: {} run by PerJob mode on warm cluster {}-----", jobClient.getJobId(), warmCluster.getApplicationId());
+                    runResult = runJobOnWarmCluster(warmCluster, jobGraph);
+                } else {
+                    LOG.info("--------taskId: {} run by PerJob mode-----", jobClient.getJobId());
+                    runResult = runJobByPerJob(clusterSpecification, jobClient);
+                    jobGraph = clusterSpecification.getJobGraph();
+                    packagedProgram = clusterSpecification.getProgram();
+                }
             } else {
                 packagedProgram = FlinkUtil.buildProgram(jarPath,
                         classPaths,
                         jobClient.getJobType(),
                         entryPointClass,
                         programArgs, savepointRestoreSettings, clientManager.getFlinkConfiguration(), filesystemManager);
-                jobGraph = PackagedProgramUtils.createJobGraph(
+                jobGraph = createJobGraph(
                         packagedProgram,
                         clientManager.getFlinkConfiguration(),
-                        FlinkUtil.getJobParallelism(jobClient.getConfProperties()),
-                        false);
+                        FlinkUtil.getJobParallelism(jobClient.getConfProperties()));
                 //只有当程序本身没有指定并行度的时候该参数才生效
                 clearClassPathShipFileLoadMode(packagedProgram);
 
@@ -392,6 +415,15 @@ public class FlinkClient extends AbstractClient {
         }
     }
 
+    private JobGraph createJobGraph(PackagedProgram packagedProgram, Configuration configuration, int parallelism) throws Exception {
+        if (jobGraphCache == null) {
+            return PackagedProgramUtils.createJobGraph(packagedProgram, configuration, parallelism, false);
+        }
+        JobGraph jobGraph = jobGraphCache.getOrCreate(packagedProgram, configuration, parallelism);
+        LOG.debug("job graph cache metrics: {}", jobGraphCache.getMetrics());
+        return jobGraph;
+    }
+
     /**
      * judge whether the same engineJobId job in running status
      */
@@ -425,6 +457,28 @@ public class FlinkClient extends AbstractClient {
         }
     }
 
+    /**
+     * per-job 任务提交到预热集群，集群只运行这一个任务
+     */
+    private Pair<String, String> runJobOnWarmCluster(WarmCluster warmCluster, JobGraph jobGraph) throws Exception {
+        PerJobClientManager clientManager = (PerJobClientManager) this.clientManager;
+        long submitTime = System.currentTimeMillis();
+        try {
+            JobExecutionResult jobExecutionResult = ClientUtils.submitJob(
+                    warmCluster.getClusterClient(),
+                    jobGraph,
+                    flinkConfig.getSubmitTimeout(),
+                    TimeUnit.MINUTES);
+            String flinkJobId = jobExecutionResult.getJobID().toString();
+            clientManager.attachWarmCluster(warmCluster, flinkJobId, submitTime);
+            LOG.debug("warm cluster metrics: {}", clientManager.getWarmClusterMetrics());
+            return Pair.create(flinkJobId, warmCluster.getApplicationId());
+        } catch (Exception e) {
+            clientManager.discardWarmCluster(warmCluster);
+            throw new PluginDefineException(e);
+        }
+    }
+
     /**
      * Session模式运行任务
      */
@@ -574,6 +628,13 @@ public class FlinkClient extends AbstractClient {
         }
 
         if (StringUtils.isEmpty(response)) {
+            if (StringUtils.isNotEmpty(applicationId) && clientManager instanceof PerJobClientManager) {
+                // 预热集群在任务结束后关闭，yarn 上的状态不代表任务状态
+                TaskStatus finalStatus = ((PerJobClientManager) clientManager).getWarmClusterFinalStatus(applicationId);
+                if (finalStatus != null) {
+                    return finalStatus;
+                }
+            }
             if (StringUtils.isNotEmpty(applicationId)) {
                 TaskStatus TaskStatus = getPerJobStatus(applicationId);
                 LOG.info("taskId: {}, try getPerJobStatus with yarnClient, status: {}", taskId, TaskStatus.name());
@@ -607,7 +668,7 @@ public class FlinkClient extends AbstractClient {
             return KerberosUtils.login(flinkConfig, () -> {
                 ApplicationId appId = ConverterUtils.toApplicationId(applicationId);
                 try {
-                    ApplicationReport report = clientManager.getYarnClient().getApplicationReport(appId);
+                    ApplicationReport report = clientManager.getSharedYarnClient().getApplicationReport(appId);
                     YarnApplicationState applicationState = report.getYarnApplicationState();
                     switch (applicationState) {
                         case KILLED:
@@ -960,7 +1021,7 @@ public class FlinkClient extends AbstractClient {
 
                 String url = null;
                 try {
-                    url = clientManager.getYarnClient().getApplicationReport(applicationId).getTrackingUrl();
+                    url = clientManager.getSharedYarnClient().getApplicationReport(applicationId).getTrackingUrl();
                     url = StringUtils.substringBefore(url.split("//")[1], "/");
                 } catch (Exception e) {
                     LOG.error(jobIdentifier.getJobId() + " Getting URL failed" + e);
@@ -1051,6 +1112,7 @@ public class FlinkClient extends AbstractClient {
 
         CheckResult checkResult = CheckResult.success();
         String taskId = jobClient.getJobId();
+        PackagedProgram program = null;
         try {
             // 1. before download jar
             beforeSubmitFunc(jobClient);
@@ -1085,19 +1147,22 @@ public class FlinkClient extends AbstractClient {
             Configuration flinkConfig = clientManager.getFlinkConfiguration();
             String dtstackAppend = ConfigConstant.PARENT_FIRST_LOADER_PATTERNS_DEFAULT;
             flinkConfig.setString(CoreOptions.ALWAYS_PARENT_FIRST_LOADER_PATTERNS_ADDITIONAL, dtstackAppend);
-            PackagedProgram program = PackagedProgram.newBuilder()
+            program = PackagedProgram.newBuilder()
                     .setJarFile(new File(coreJarInfo.getJarPath()))
                     .setUserClassPaths(attachJarUrls)
                     .setConfiguration(flinkConfig)
                     .setArguments(programArgs)
                     .build();
-            PackagedProgramUtils.createJobGraph(program, flinkConfig, 1, false);
+            createJobGraph(program, flinkConfig, 1);
 
             LOG.info("TaskId: {}, GrammarCheck success!", taskId);
         } catch (Exception e) {
             LOG.error("TaskId: {}, GrammarCheck error: ", taskId, e);
             checkResult = CheckResult.exception(ExceptionUtil.getErrorMessage(e));
         } finally {
+            if (program != null) {
+                program.deleteExtractedLibraries();
+            }
             try {
                 afterSubmitFunc(jobClient);
             } catch (Exception e) {
@@ -2,6 +2,7 @@ package com.dtstack.taier.flink.client;
 
 
 import com.dtstack.taier.base.util.KerberosUtils;
+import com.dtstack.taier.base.yarn.SharedYarnClient;
 import com.dtstack.taier.flink.base.enums.ClusterMode;
 import com.dtstack.taier.flink.config.FlinkConfig;
 import com.dtstack.taier.flink.config.HadoopConfig;
@@ -81,6 +82,13 @@ public class AbstractClientManager implements IClientManager {
         throw new PluginDefineException("subClass must override getClusterClient method");
     }
 
+    /**
+     * 集群共享的 yarn 客户端，任务状态和 trackingUrl 从其 application report 缓存读取
+     */
+    public SharedYarnClient getSharedYarnClient() {
+        return SharedYarnClient.getInstance(hadoopConfig.getYarnConfiguration(), flinkConfig);
+    }
+
     /**
      * SecurityUtils.login 的地方才可以直接调用此方法，否则使用 buildYarnClient
      */
@@ -54,7 +54,7 @@ public class ClientManagerBuilder {
         switch (clusterMode) {
             case PER_JOB:
                 fillFlinkConfWithHadoopConf(flinkGlobalConfiguration, hadoopConfig);
-                clientManager = new PerJobClientManager(flinkConfig, hadoopConfig, flinkGlobalConfiguration);
+                clientManager = new PerJobClientManager(flinkConfig, hadoopConfig, flinkGlobalConfiguration, flinkExtProp);
                 break;
             case SESSION:
                 fillFlinkConfWithHadoopConf(flinkGlobalConfiguration, hadoopConfig);
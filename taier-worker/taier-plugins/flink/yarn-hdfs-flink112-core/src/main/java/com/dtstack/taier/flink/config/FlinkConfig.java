@@ -37,6 +37,31 @@ public class FlinkConfig extends BaseConfig {
     /** remote flink lib jar directory*/
     private String remoteFlinkLibDir;
 
+    /** per-job 模式共享依赖的 hdfs 目录，依赖按内容摘要存放，相同的 jar 整个集群只上传一次*/
+    private String sharedDependencyDir;
+
+    /** 共享依赖是否以 PUBLIC 注册，NodeManager 可以跨任务复用本地缓存*/
+    private boolean sharedDependencyPublic = true;
+
+    /** 没有任务引用的共享依赖保留时间*/
+    private int sharedDependencyRetainHours = 72;
+
+    /** session 模式下是否缓存参数相同的任务生成的 JobGraph*/
+    private boolean jobGraphCacheEnable = false;
+
+    private int jobGraphCacheSize = 100;
+
+    private int jobGraphCacheExpireMinutes = 60;
+
+    /** per-job 模式每种任务配置保持的预热集群数，为 0 时不预热*/
+    private int perJobWarmPoolSize = 0;
+
+    /** 超过该时间没有提交的任务配置不再预热，空闲集群超过该时间后销毁*/
+    private int perJobWarmPoolTtlMinutes = 30;
+
+    /** 任务结束后保留预热集群的时间，状态轮询可以从集群上取到最终状态*/
+    private int perJobWarmPoolTeardownDelaySeconds = 60;
+
     private String typeName;
 
     private String flinkJobMgrUrl;
@@ -314,6 +339,78 @@ public class FlinkConfig extends BaseConfig {
         this.remoteFlinkLibDir = remoteFlinkLibDir;
     }
 
+    public String getSharedDependencyDir() {
+        return sharedDependencyDir;
+    }
+
+    public void setSharedDependencyDir(String sharedDependencyDir) {
+        this.sharedDependencyDir = sharedDependencyDir;
+    }
+
+    public boolean getSharedDependencyPublic() {
+        return sharedDependencyPublic;
+    }
+
+    public void setSharedDependencyPublic(boolean sharedDependencyPublic) {
+        this.sharedDependencyPublic = sharedDependencyPublic;
+    }
+
+    public int getSharedDependencyRetainHours() {
+        return sharedDependencyRetainHours;
+    }
+
+    public void setSharedDependencyRetainHours(int sharedDependencyRetainHours) {
+        this.sharedDependencyRetainHours = sharedDependencyRetainHours;
+    }
+
+    public boolean getJobGraphCacheEnable() {
+        return jobGraphCacheEnable;
+    }
+
+    public void setJobGraphCacheEnable(boolean jobGraphCacheEnable) {
+        this.jobGraphCacheEnable = jobGraphCacheEnable;
+    }
+
+    public int getJobGraphCacheSize() {
+        return jobGraphCacheSize;
+    }
+
+    public void setJobGraphCacheSize(int jobGraphCacheSize) {
+        this.jobGraphCacheSize = jobGraphCacheSize;
+    }
+
+    public int getJobGraphCacheExpireMinutes() {
+        return jobGraphCacheExpireMinutes;
+    }
+
+    public void setJobGraphCacheExpireMinutes(int jobGraphCacheExpireMinutes) {
+        this.jobGraphCacheExpireMinutes = jobGraphCacheExpireMinutes;
+    }
+
+    public int getPerJobWarmPoolSize() {
+        return perJobWarmPoolSize;
+    }
+
+    public void setPerJobWarmPoolSize(int perJobWarmPoolSize) {
+        this.perJobWarmPoolSize = perJobWarmPoolSize;
+    }
+
+    public int getPerJobWarmPoolTtlMinutes() {
+        return perJobWarmPoolTtlMinutes;
+    }
+
+    public void setPerJobWarmPoolTtlMinutes(int perJobWarmPoolTtlMinutes) {
+        this.perJobWarmPoolTtlMinutes = perJobWarmPoolTtlMinutes;
+    }
+
+    public int getPerJobWarmPoolTeardownDelaySeconds() {
+        return perJobWarmPoolTeardownDelaySeconds;
+    }
+
+    public void setPerJobWarmPoolTeardownDelaySeconds(int perJobWarmPoolTeardownDelaySeconds) {
+        this.perJobWarmPoolTeardownDelaySeconds = perJobWarmPoolTeardownDelaySeconds;
+    }
+
     public String getChunjunDistDir() {
         return chunjunDistDir;
     }
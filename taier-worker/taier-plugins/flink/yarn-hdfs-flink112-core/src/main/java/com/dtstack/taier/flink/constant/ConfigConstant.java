@@ -152,4 +152,10 @@ public class ConfigConstant {
     public static final String REMOTE_CHUNJUN_DIST_DIR = "remoteChunjunDistDir";
     public static final String FLINK_LIB_DIR = "flinkLibDir";
     public static final String CHUNJUN_DIST_DIR = "chunjunDistDir";
+
+    /**
+     * per-job 模式下按内容摘要共享依赖的 hdfs 目录，为空时不共享
+     */
+    public static final String SHARED_DEPENDENCY_DIR = "sharedDependencyDir";
+    public static final String SHARED_DEPENDENCY_PUBLIC = "sharedDependencyPublic";
 }
@@ -6,45 +6,64 @@ import com.dtstack.taier.flink.client.AbstractClientManager;
 import com.dtstack.taier.flink.config.FlinkConfig;
 import com.dtstack.taier.flink.config.HadoopConfig;
 import com.dtstack.taier.flink.constant.ConfigConstant;
+import com.dtstack.taier.flink.perjob.pool.WarmCluster;
+import com.dtstack.taier.flink.perjob.pool.WarmClusterPool;
 import com.dtstack.taier.flink.util.FileUtil;
 import com.dtstack.taier.flink.util.FlinkUtil;
+import com.dtstack.taier.flink.util.SharedDependencyStore;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
 import com.dtstack.taier.pluginapi.JarFileInfo;
 import com.dtstack.taier.pluginapi.JobClient;
 import com.dtstack.taier.pluginapi.JobIdentifier;
 import com.dtstack.taier.pluginapi.enums.ComputeType;
 import com.dtstack.taier.pluginapi.enums.EJobType;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.exception.PluginDefineException;
 import com.dtstack.taier.pluginapi.pojo.ParamAction;
+import com.google.common.base.Charsets;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import com.google.common.hash.Hashing;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.api.common.JobStatus;
+import org.apache.flink.client.deployment.ClusterSpecification;
 import org.apache.flink.client.program.ClusterClient;
 import org.apache.flink.configuration.Configuration;
 import org.apache.flink.configuration.CoreOptions;
 import org.apache.flink.configuration.HighAvailabilityOptions;
 import org.apache.flink.configuration.SecurityOptions;
+import org.apache.flink.runtime.client.JobStatusMessage;
 import org.apache.flink.runtime.jobmanager.HighAvailabilityMode;
 import org.apache.flink.yarn.Utils;
 import org.apache.flink.yarn.YarnClusterDescriptor;
 import org.apache.flink.yarn.configuration.YarnConfigOptions;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.yarn.api.records.ApplicationId;
 import org.apache.hadoop.yarn.api.records.ApplicationReport;
 import org.apache.hadoop.yarn.api.records.YarnApplicationState;
 import org.apache.hadoop.yarn.client.api.YarnClient;
+import org.apache.hadoop.yarn.exceptions.ApplicationNotFoundException;
 import org.apache.hadoop.yarn.util.ConverterUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -67,9 +86,71 @@ public class PerJobClientManager extends AbstractClientManager {
             .expireAfterAccess(10, TimeUnit.MINUTES)
             .build();
 
-    public PerJobClientManager(FlinkConfig flinkConfig, HadoopConfig hadoopConf, Configuration flinkGlobalConfiguration) {
+    private static final long SHARED_DEPENDENCY_CLEAN_INTERVAL_MINUTES = 60;
+
+    private static final EnumSet<YarnApplicationState> FINISHED_STATES =
+            EnumSet.of(YarnApplicationState.FINISHED, YarnApplicationState.FAILED, YarnApplicationState.KILLED);
+
+    private static final String WARM_CLUSTER_JOB_PREFIX = "warm_";
+
+    private static final String WARM_CLUSTER_NAME = "flink_warm_cluster";
+
+    private static final long WARM_CLUSTER_REQUEST_TIMEOUT_SECONDS = 30;
+
+    /**
+     * 预热集群的 yarn tag 前缀，后接主机名，重启后按 tag 找到之前的进程遗留的预热集群
+     */
+    private static final String WARM_CLUSTER_TAG_PREFIX = "taier-warm-";
+
+    /**
+     * 定时清理已结束任务对共享依赖的引用及长时间未使用的共享依赖，所有 manager 共用一个线程
+     */
+    private static final ScheduledExecutorService SHARED_DEPENDENCY_CLEANER =
+            new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("flink_shared_dependency_cleaner"));
+
+    private ScheduledFuture<?> sharedDependencyCleanTask;
+
+    private final Properties flinkExtProp;
+
+    /**
+     * 预热集群池，未开启时为 null
+     */
+    private WarmClusterPool<WarmCluster> warmClusterPool;
+
+    private String warmClusterTag;
+
+    public PerJobClientManager(FlinkConfig flinkConfig, HadoopConfig hadoopConf, Configuration flinkGlobalConfiguration, Properties flinkExtProp) {
         super(flinkConfig, hadoopConf);
+        this.flinkExtProp = flinkExtProp;
         addFlinkConfiguration(flinkGlobalConfiguration);
+        if (flinkConfig.getPerJobWarmPoolSize() > 0) {
+            warmClusterTag = buildWarmClusterTag();
+            warmClusterPool = new WarmClusterPool<>(new YarnWarmClusterOperator(),
+                    flinkConfig.getPerJobWarmPoolSize(),
+                    TimeUnit.MINUTES.toMillis(flinkConfig.getPerJobWarmPoolTtlMinutes()),
+                    TimeUnit.SECONDS.toMillis(flinkConfig.getPerJobWarmPoolTeardownDelaySeconds()),
+                    Math.min(flinkConfig.getPerJobWarmPoolSize(), 4));
+        }
+        if (StringUtils.isNotBlank(flinkConfig.getSharedDependencyDir())) {
+            sharedDependencyCleanTask = SHARED_DEPENDENCY_CLEANER.scheduleWithFixedDelay(this::cleanSharedDependencies,
+                    SHARED_DEPENDENCY_CLEAN_INTERVAL_MINUTES, SHARED_DEPENDENCY_CLEAN_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        }
+        if (warmClusterPool != null) {
+            // 插件没有关闭回调，进程退出时销毁空闲的预热集群
+            Runtime.getRuntime().addShutdownHook(new Thread(this::close, "flink_per_job_client_manager_close"));
+        }
+    }
+
+    /**
+     * 停止共享依赖清理，销毁空闲的预热集群，挂载了任务的集群由下次启动时接管
+     */
+    public void close() {
+        if (sharedDependencyCleanTask != null) {
+            sharedDependencyCleanTask.cancel(false);
+        }
+        if (warmClusterPool != null) {
+            warmClusterPool.shutdown();
+        }
     }
 
     @Override
@@ -120,6 +201,11 @@ public class PerJobClientManager extends AbstractClientManager {
 
         newConf = setHdfsFlinkJarPath(flinkConfig, newConf);
 
+        if (StringUtils.isNotBlank(flinkConfig.getSharedDependencyDir())) {
+            newConf.setString(ConfigConstant.SHARED_DEPENDENCY_DIR, flinkConfig.getSharedDependencyDir());
+            newConf.setBoolean(ConfigConstant.SHARED_DEPENDENCY_PUBLIC, flinkConfig.getSharedDependencyPublic());
+        }
+
         List<File> resourceFiles = getResourceFilesAndSetSecurityConfig(jobClient, newConf);
 
         YarnClusterDescriptor clusterDescriptor = getClusterDescriptor(newConf, hadoopConfig.getYarnConfiguration());
@@ -273,6 +359,279 @@ public class PerJobClientManager extends AbstractClientManager {
         }
     }
 
+    private void cleanSharedDependencies() {
+        try {
+            KerberosUtils.login(flinkConfig, () -> {
+                try {
+                    FileSystem fs = FileSystem.get(hadoopConfig.getYarnConfiguration());
+                    Path root = new Path(flinkConfig.getSharedDependencyDir());
+                    SharedDependencyStore store = new SharedDependencyStore(fs, root, fs.getDefaultReplication(root),
+                            flinkConfig.getSharedDependencyPublic());
+                    return store.clean(this::isApplicationFinished,
+                            TimeUnit.HOURS.toMillis(flinkConfig.getSharedDependencyRetainHours()));
+                } catch (IOException e) {
+                    throw new PluginDefineException(e);
+                }
+            }, hadoopConfig.getYarnConfiguration());
+        } catch (Exception e) {
+            LOG.warn("clean shared dependencies under {} error", flinkConfig.getSharedDependencyDir(), e);
+        }
+    }
+
+    private boolean isApplicationFinished(String applicationId) {
+        try {
+            ApplicationReport report = getSharedYarnClient().getApplicationReport(ConverterUtils.toApplicationId(applicationId));
+            return FINISHED_STATES.contains(report.getYarnApplicationState());
+        } catch (ApplicationNotFoundException | IllegalArgumentException e) {
+            return true;
+        } catch (Exception e) {
+            // 无法确认状态时保留引用
+            LOG.warn("get application {} report error", applicationId, e);
+            return false;
+        }
+    }
+
+    /**
+     * 取一个与任务配置相同的预热集群，没有可用集群或任务不适合在预热集群上运行时返回 null
+     */
+    public WarmCluster acquireWarmCluster(JobClient jobClient) {
+        if (warmClusterPool == null || !isWarmClusterEligible(jobClient)) {
+            return null;
+        }
+        return warmClusterPool.acquire(buildWarmClusterKey(jobClient), jobClient);
+    }
+
+    /**
+     * 任务已提交到预热集群，任务结束后销毁集群
+     */
+    public void attachWarmCluster(WarmCluster warmCluster, String flinkJobId, long submitTime) {
+        warmClusterPool.attach(warmCluster, flinkJobId, submitTime);
+        dealWithDeployCluster(warmCluster.getApplicationId(), warmCluster.getClusterClient());
+    }
+
+    public void discardWarmCluster(WarmCluster warmCluster) {
+        warmClusterPool.discard(warmCluster);
+    }
+
+    /**
+     * 预热集群销毁后任务的最终状态，不是预热集群上的任务或未记录时返回 null
+     */
+    public TaskStatus getWarmClusterFinalStatus(String applicationId) {
+        return warmClusterPool == null ? null : warmClusterPool.getFinalStatus(applicationId);
+    }
+
+    public Map<String, Long> getWarmClusterMetrics() {
+        return warmClusterPool == null ? Collections.emptyMap() : warmClusterPool.getMetrics();
+    }
+
+    /**
+     * 预热集群启动时不知道具体任务，只有不需要额外上传文件的批处理 sql、同步任务可以使用
+     */
+    private boolean isWarmClusterEligible(JobClient jobClient) {
+        if (!ComputeType.BATCH.equals(jobClient.getComputeType())) {
+            return false;
+        }
+        if (jobClient.getJobType() != EJobType.SYNC && jobClient.getJobType() != EJobType.SQL) {
+            return false;
+        }
+        if (CollectionUtils.isNotEmpty(jobClient.getAttachJarInfos())) {
+            return false;
+        }
+        File[] resourceFiles = new File(FlinkUtil.getTaskWorkspace(jobClient.getJobId()) + ConfigConstant.SP + "resource").listFiles();
+        return resourceFiles == null || resourceFiles.length == 0;
+    }
+
+    private String buildWarmClusterKey(JobClient jobClient) {
+        Map<String, String> conf = new TreeMap<>();
+        Properties properties = jobClient.getConfProperties();
+        if (properties != null) {
+            properties.stringPropertyNames().forEach(key -> conf.put(key, properties.getProperty(key)));
+        }
+        String digest = Hashing.md5().hashString(jobClient.getJobType() + String.valueOf(conf), Charsets.UTF_8).toString();
+        return flinkConfig.getQueue() + "|" + digest;
+    }
+
+    /**
+     * 以任务为模板构造启动预热集群用的 JobClient，每个集群使用不同的 jobId 作为工作目录和 HA cluster id
+     */
+    private JobClient buildWarmClusterJobClient(JobClient template) throws Exception {
+        ParamAction action = new ParamAction();
+        action.setJobId(WARM_CLUSTER_JOB_PREFIX + RandomStringUtils.randomAlphanumeric(12).toLowerCase());
+        action.setName(WARM_CLUSTER_NAME);
+        action.setTaskType(template.getJobType().getType());
+        action.setComputeType(ComputeType.BATCH.getType());
+        action.setTenantId(template.getTenantId());
+        action.setTaskParams(template.getTaskParams());
+        JobClient jobClient = new JobClient(action);
+        Properties properties = jobClient.getConfProperties() == null ? new Properties() : jobClient.getConfProperties();
+        properties.setProperty(YarnConfigOptions.APPLICATION_TAGS.key(), warmClusterTag);
+        jobClient.setConfProperties(properties);
+        return jobClient;
+    }
+
+    private String buildWarmClusterTag() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            LOG.warn("get local host name error", e);
+            host = "unknown";
+        }
+        // yarn 会把 tag 转为小写
+        return (WARM_CLUSTER_TAG_PREFIX + host).toLowerCase();
+    }
+
+    /**
+     * 在 yarn 上以 session 方式启动只运行一个任务的集群
+     */
+    private class YarnWarmClusterOperator implements WarmClusterPool.ClusterOperator<WarmCluster> {
+
+        @Override
+        public WarmCluster launch(JobClient template) throws Exception {
+            JobClient warmJobClient = buildWarmClusterJobClient(template);
+            try {
+                return KerberosUtils.login(flinkConfig, () -> {
+                    try (YarnClusterDescriptor descriptor = createPerJobClusterDescriptor(warmJobClient)) {
+                        if (ConfigConstant.FLINK_PLUGIN_SHIPFILE_LOAD.equalsIgnoreCase(flinkConfig.getPluginLoadMode())) {
+                            // 与 session 一样提前上传全部插件，提交时清空任务的 classpath
+                            descriptor.addShipFiles(getSyncPluginFiles());
+                        }
+                        ClusterSpecification clusterSpecification = FlinkUtil.createClusterSpecification(
+                                new Configuration(flinkConfiguration),
+                                warmJobClient.getApplicationPriority(),
+                                warmJobClient.getConfProperties(),
+                                flinkExtProp);
+                        return new WarmCluster(descriptor.deploySessionCluster(clusterSpecification).getClusterClient());
+                    } catch (Exception e) {
+                        throw new PluginDefineException(e);
+                    }
+                }, hadoopConfig.getYarnConfiguration());
+            } finally {
+                FileUtils.deleteQuietly(new File(FlinkUtil.getTaskWorkspace(warmJobClient.getJobId())));
+            }
+        }
+
+        @Override
+        public String getApplicationId(WarmCluster cluster) {
+            return cluster.getApplicationId();
+        }
+
+        @Override
+        public boolean isAlive(WarmCluster cluster) {
+            try {
+                return KerberosUtils.login(flinkConfig, () -> {
+                    try {
+                        ApplicationReport report = getSharedYarnClient().getApplicationReport(ConverterUtils.toApplicationId(cluster.getApplicationId()));
+                        return report.getYarnApplicationState() == YarnApplicationState.RUNNING;
+                    } catch (Exception e) {
+                        throw new PluginDefineException(e);
+                    }
+                }, hadoopConfig.getYarnConfiguration());
+            } catch (Exception e) {
+                LOG.warn("get warm cluster {} report error", cluster.getApplicationId(), e);
+                return false;
+            }
+        }
+
+        @Override
+        public TaskStatus getJobStatus(WarmCluster cluster, String jobId) throws Exception {
+            JobStatus jobStatus = cluster.getClusterClient()
+                    .getJobStatus(JobID.fromHexString(jobId))
+                    .get(WARM_CLUSTER_REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            return TaskStatus.getTaskStatus(jobStatus.name());
+        }
+
+        @Override
+        public void shutdown(WarmCluster cluster) throws Exception {
+            try {
+                cluster.getClusterClient().shutDownCluster();
+            } catch (Exception e) {
+                LOG.warn("shutdown warm cluster {} error, kill it", cluster.getApplicationId(), e);
+                KerberosUtils.login(flinkConfig, () -> {
+                    try {
+                        getYarnClient().killApplication(ConverterUtils.toApplicationId(cluster.getApplicationId()));
+                        return null;
+                    } catch (Exception ex) {
+                        throw new PluginDefineException(ex);
+                    }
+                }, hadoopConfig.getYarnConfiguration());
+            } finally {
+                perJobClientCache.invalidate(cluster.getApplicationId());
+                cluster.getClusterClient().close();
+            }
+        }
+
+        /**
+         * 本机之前的进程启动的预热集群，当前进程启动后提交的集群不算
+         */
+        @Override
+        public List<WarmCluster> listOrphans() throws Exception {
+            long processStartTime = ManagementFactory.getRuntimeMXBean().getStartTime();
+            return KerberosUtils.login(flinkConfig, () -> {
+                try {
+                    List<ApplicationReport> reports = getYarnClient().getApplications(
+                            Collections.singleton(flinkConfiguration.getString(YarnConfigOptions.APPLICATION_TYPE)),
+                            EnumSet.of(YarnApplicationState.ACCEPTED, YarnApplicationState.RUNNING));
+                    List<WarmCluster> orphans = new ArrayList<>();
+                    for (ApplicationReport report : reports) {
+                        if (report.getApplicationTags() == null
+                                || !report.getApplicationTags().contains(warmClusterTag)
+                                || report.getStartTime() >= processStartTime) {
+                            continue;
+                        }
+                        orphans.add(new WarmCluster(retrieveWarmClusterClient(report.getApplicationId())));
+                    }
+                    return orphans;
+                } catch (Exception e) {
+                    throw new PluginDefineException(e);
+                }
+            }, hadoopConfig.getYarnConfiguration());
+        }
+
+        @Override
+        public String getRunningJobId(WarmCluster cluster) throws Exception {
+            Collection<JobStatusMessage> jobs = cluster.getClusterClient()
+                    .listJobs()
+                    .get(WARM_CLUSTER_REQUEST_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            for (JobStatusMessage job : jobs) {
+                if (!job.getJobState().isGloballyTerminalState()) {
+                    return job.getJobId().toHexString();
+                }
+            }
+            return null;
+        }
+
+        private ClusterClient<ApplicationId> retrieveWarmClusterClient(ApplicationId applicationId) throws Exception {
+            ParamAction action = new ParamAction();
+            action.setJobId(WARM_CLUSTER_JOB_PREFIX + RandomStringUtils.randomAlphanumeric(12).toLowerCase());
+            action.setName(WARM_CLUSTER_NAME);
+            action.setTaskType(EJobType.SQL.getType());
+            action.setComputeType(ComputeType.BATCH.getType());
+            action.setTenantId(-1L);
+            action.setTaskParams("high-availability.cluster-id=" + applicationId);
+            JobClient jobClient = new JobClient(action);
+            try (YarnClusterDescriptor descriptor = createPerJobClusterDescriptor(jobClient)) {
+                return descriptor.retrieve(applicationId).getClusterClient();
+            } finally {
+                FileUtils.deleteQuietly(new File(FlinkUtil.getTaskWorkspace(jobClient.getJobId())));
+            }
+        }
+    }
+
+    private List<File> getSyncPluginFiles() {
+        String pluginRoot = flinkConfig.getChunjunDistDir();
+        if (StringUtils.isBlank(pluginRoot)) {
+            return Collections.emptyList();
+        }
+        File[] files = new File(pluginRoot).listFiles();
+        if (files == null) {
+            throw new PluginDefineException("syncPlugin path is null");
+        }
+        return Arrays.stream(files)
+                .filter(file -> !file.getName().endsWith("zip"))
+                .collect(Collectors.toList());
+    }
+
     /**
      * 在任务执行成功后放入缓存
      */
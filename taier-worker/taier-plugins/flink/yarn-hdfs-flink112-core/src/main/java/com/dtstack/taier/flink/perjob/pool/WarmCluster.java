@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.flink.perjob.pool;
+
+import org.apache.flink.client.program.ClusterClient;
+import org.apache.hadoop.yarn.api.records.ApplicationId;
+
+/**
+ * 预热的 yarn 集群
+ *
+ * @author jiangbo
+ */
+public class WarmCluster {
+
+    private final String applicationId;
+
+    private final ClusterClient<ApplicationId> clusterClient;
+
+    public WarmCluster(ClusterClient<ApplicationId> clusterClient) {
+        this.applicationId = clusterClient.getClusterId().toString();
+        this.clusterClient = clusterClient;
+    }
+
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public ClusterClient<ApplicationId> getClusterClient() {
+        return clusterClient;
+    }
+}
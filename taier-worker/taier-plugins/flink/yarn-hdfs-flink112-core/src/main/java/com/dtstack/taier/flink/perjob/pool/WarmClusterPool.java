@@ -0,0 +1,456 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.flink.perjob.pool;
+
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.pluginapi.JobClient;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * per-job 预热集群池
+ * <p>
+ * 按 (队列, 任务 flink 配置摘要) 预先启动空闲的集群，per-job 任务提交时直接挂到一个空闲集群上运行，
+ * 省去 AM 申请和 JobManager 启动的时间；每个集群只运行一个任务，任务结束后集群随之销毁，保持 per-job 的隔离性。
+ * <p>
+ * 只为最近一段时间(ttl)内有提交的 key 保持 targetSize 个空闲集群，第一次提交未命中时按原方式提交并登记该 key；
+ * 空闲超过 ttl 或不再存活的集群会被销毁。集群的启动、状态查询和销毁由 {@link ClusterOperator} 实现，
+ * 可以替换为不依赖 yarn 的实现。
+ * <p>
+ * 启动时接管之前的进程遗留的集群：没有运行中任务的直接销毁，有运行中任务的在任务结束后销毁
+ *
+ * @param <C> 集群句柄
+ * @author jiangbo
+ */
+public class WarmClusterPool<C> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WarmClusterPool.class);
+
+    private static final long MAINTAIN_INTERVAL_SECONDS = 5L;
+
+    /**
+     * 启动失败后该 key 暂停预热的时间，避免队列资源不足时反复申请
+     */
+    private static final long LAUNCH_RETRY_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final ClusterOperator<C> operator;
+
+    private final int targetSize;
+
+    private final long ttlMillis;
+
+    /**
+     * 任务结束后保留集群的时间，让状态轮询能从集群上取到最终状态
+     */
+    private final long teardownDelayMillis;
+
+    private final Map<String, KeyState<C>> keys = new HashMap<>();
+
+    /**
+     * applicationId -> 挂载了任务的集群
+     */
+    private final Map<String, Attached<C>> attached = new HashMap<>();
+
+    /**
+     * applicationId -> 任务最终状态，集群销毁后状态查询使用
+     */
+    private final Cache<String, TaskStatus> finalStatus = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .expireAfterWrite(24, TimeUnit.HOURS)
+            .build();
+
+    private final ExecutorService launchExecutor;
+
+    private final ScheduledExecutorService maintainExecutor;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong launchCount = new AtomicLong();
+    private final AtomicLong launchFailCount = new AtomicLong();
+    private final AtomicLong teardownCount = new AtomicLong();
+    private final AtomicLong runningCount = new AtomicLong();
+    private final AtomicLong timeToRunningMillis = new AtomicLong();
+
+    public WarmClusterPool(ClusterOperator<C> operator, int targetSize, long ttlMillis, long teardownDelayMillis, int launchThreads) {
+        this.operator = operator;
+        this.targetSize = targetSize;
+        this.ttlMillis = ttlMillis;
+        this.teardownDelayMillis = teardownDelayMillis;
+        this.launchExecutor = new ThreadPoolExecutor(launchThreads, launchThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomThreadFactory("flink_warm_cluster_launch"));
+        this.maintainExecutor = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory("flink_warm_cluster_maintain"));
+        this.maintainExecutor.execute(this::reapOrphans);
+        this.maintainExecutor.scheduleWithFixedDelay(this::maintain, MAINTAIN_INTERVAL_SECONDS, MAINTAIN_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 取一个空闲集群，没有时返回 null 并登记该 key，后台按 targetSize 预热
+     *
+     * @param key      (队列, flink 配置摘要)
+     * @param template 启动集群使用的任务模板
+     */
+    public synchronized C acquire(String key, JobClient template) {
+        KeyState<C> state = keys.computeIfAbsent(key, k -> new KeyState<>());
+        state.template = template;
+        state.lastDemandTime = System.currentTimeMillis();
+        Idle<C> idle = state.idle.pollFirst();
+        if (idle == null) {
+            missCount.incrementAndGet();
+            refill(key, state);
+            return null;
+        }
+        hitCount.incrementAndGet();
+        refill(key, state);
+        return idle.cluster;
+    }
+
+    /**
+     * 任务已提交到集群，任务结束后销毁集群
+     */
+    public synchronized void attach(C cluster, String jobId, long submitTime) {
+        attached.put(operator.getApplicationId(cluster), new Attached<>(cluster, jobId, submitTime));
+    }
+
+    /**
+     * 任务提交失败，集群状态不确定，直接销毁
+     */
+    public void discard(C cluster) {
+        teardown(cluster);
+    }
+
+    /**
+     * 集群销毁后任务的最终状态，未记录时返回 null
+     */
+    public TaskStatus getFinalStatus(String applicationId) {
+        return finalStatus.getIfPresent(applicationId);
+    }
+
+    public synchronized Map<String, Long> getMetrics() {
+        long idle = 0;
+        long launching = 0;
+        for (KeyState<C> state : keys.values()) {
+            idle += state.idle.size();
+            launching += state.launching;
+        }
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("keys", (long) keys.size());
+        metrics.put("idle", idle);
+        metrics.put("launching", launching);
+        metrics.put("attached", (long) attached.size());
+        metrics.put("hit", hitCount.get());
+        metrics.put("miss", missCount.get());
+        metrics.put("launch", launchCount.get());
+        metrics.put("launchFail", launchFailCount.get());
+        metrics.put("teardown", teardownCount.get());
+        long running = runningCount.get();
+        metrics.put("avgTimeToRunningMillis", running == 0 ? 0L : timeToRunningMillis.get() / running);
+        return metrics;
+    }
+
+    public void shutdown() {
+        maintainExecutor.shutdownNow();
+        launchExecutor.shutdownNow();
+        List<C> clusters = new ArrayList<>();
+        synchronized (this) {
+            for (KeyState<C> state : keys.values()) {
+                state.idle.forEach(idle -> clusters.add(idle.cluster));
+            }
+            keys.clear();
+        }
+        clusters.forEach(this::teardown);
+    }
+
+    private void refill(String key, KeyState<C> state) {
+        if (System.currentTimeMillis() - state.lastLaunchFailTime < LAUNCH_RETRY_INTERVAL_MILLIS) {
+            return;
+        }
+        int missing = targetSize - state.idle.size() - state.launching;
+        for (int i = 0; i < missing; i++) {
+            state.launching++;
+            JobClient template = state.template;
+            launchExecutor.submit(() -> launch(key, template));
+        }
+    }
+
+    private void launch(String key, JobClient template) {
+        C cluster = null;
+        try {
+            cluster = operator.launch(template);
+            launchCount.incrementAndGet();
+            LOG.info("launch warm cluster {} for key {}", operator.getApplicationId(cluster), key);
+        } catch (Throwable e) {
+            launchFailCount.incrementAndGet();
+            LOG.error("launch warm cluster for key {} error", key, e);
+        }
+
+        boolean pooled = false;
+        synchronized (this) {
+            KeyState<C> state = keys.get(key);
+            if (state != null) {
+                state.launching--;
+                if (cluster != null) {
+                    state.idle.addLast(new Idle<>(cluster));
+                    pooled = true;
+                } else {
+                    state.lastLaunchFailTime = System.currentTimeMillis();
+                }
+            }
+        }
+        if (cluster != null && !pooled) {
+            teardown(cluster);
+        }
+    }
+
+    void reapOrphans() {
+        try {
+            for (C cluster : operator.listOrphans()) {
+                String applicationId = operator.getApplicationId(cluster);
+                String jobId;
+                try {
+                    jobId = operator.getRunningJobId(cluster);
+                } catch (Exception e) {
+                    LOG.warn("get running job of orphan warm cluster {} error", applicationId, e);
+                    jobId = null;
+                }
+                if (jobId == null) {
+                    LOG.info("teardown orphan warm cluster {}", applicationId);
+                    teardown(cluster);
+                } else {
+                    LOG.info("adopt orphan warm cluster {} running job {}", applicationId, jobId);
+                    attach(cluster, jobId, System.currentTimeMillis());
+                }
+            }
+        } catch (Throwable e) {
+            LOG.error("reap orphan warm clusters error", e);
+        }
+    }
+
+    void maintain() {
+        try {
+            List<C> toTeardown = new ArrayList<>();
+            long now = System.currentTimeMillis();
+            List<Idle<C>> idleSnapshot = new ArrayList<>();
+            synchronized (this) {
+                Iterator<Map.Entry<String, KeyState<C>>> iterator = keys.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    KeyState<C> state = iterator.next().getValue();
+                    if (now - state.lastDemandTime > ttlMillis) {
+                        // 长时间没有提交，不再保持预热
+                        state.idle.forEach(idle -> toTeardown.add(idle.cluster));
+                        state.idle.clear();
+                        if (state.launching == 0) {
+                            iterator.remove();
+                        }
+                        continue;
+                    }
+                    state.idle.removeIf(idle -> {
+                        if (now - idle.createTime > ttlMillis) {
+                            toTeardown.add(idle.cluster);
+                            return true;
+                        }
+                        return false;
+                    });
+                    idleSnapshot.addAll(state.idle);
+                }
+            }
+
+            // 存活检查和任务状态查询可能较慢，不持有锁
+            List<Idle<C>> dead = new ArrayList<>();
+            for (Idle<C> idle : idleSnapshot) {
+                if (!operator.isAlive(idle.cluster)) {
+                    dead.add(idle);
+                }
+            }
+
+            List<Map.Entry<String, Attached<C>>> attachedEntries;
+            synchronized (this) {
+                for (Map.Entry<String, KeyState<C>> entry : keys.entrySet()) {
+                    KeyState<C> state = entry.getValue();
+                    state.idle.removeIf(idle -> {
+                        if (dead.contains(idle)) {
+                            toTeardown.add(idle.cluster);
+                            return true;
+                        }
+                        return false;
+                    });
+                    if (now - state.lastDemandTime <= ttlMillis) {
+                        refill(entry.getKey(), state);
+                    }
+                }
+                attachedEntries = new ArrayList<>(attached.entrySet());
+            }
+
+            for (Map.Entry<String, Attached<C>> entry : attachedEntries) {
+                checkAttached(entry.getKey(), entry.getValue(), now, toTeardown);
+            }
+            toTeardown.forEach(this::teardown);
+            LOG.debug("warm cluster pool metrics: {}", getMetrics());
+        } catch (Throwable e) {
+            LOG.error("maintain warm cluster pool error", e);
+        }
+    }
+
+    private void checkAttached(String applicationId, Attached<C> job, long now, List<C> toTeardown) {
+        if (job.terminalTime > 0) {
+            if (now - job.terminalTime >= teardownDelayMillis) {
+                remove(applicationId, job, toTeardown);
+            }
+            return;
+        }
+
+        TaskStatus status;
+        try {
+            status = operator.getJobStatus(job.cluster, job.jobId);
+        } catch (Exception e) {
+            if (!operator.isAlive(job.cluster)) {
+                LOG.warn("warm cluster {} of job {} is not alive", applicationId, job.jobId);
+                remove(applicationId, job, toTeardown);
+            } else {
+                LOG.warn("get status of job {} on warm cluster {} error", job.jobId, applicationId, e);
+            }
+            return;
+        }
+        if (status == null) {
+            return;
+        }
+        if (!job.running && !TaskStatus.getWaitStatus().contains(status.getStatus())) {
+            job.running = true;
+            runningCount.incrementAndGet();
+            timeToRunningMillis.addAndGet(now - job.submitTime);
+        }
+        if (TaskStatus.getStoppedStatus().contains(status.getStatus())) {
+            finalStatus.put(applicationId, status);
+            job.terminalTime = now;
+            if (teardownDelayMillis <= 0) {
+                remove(applicationId, job, toTeardown);
+            }
+        }
+    }
+
+    private void remove(String applicationId, Attached<C> job, List<C> toTeardown) {
+        synchronized (this) {
+            attached.remove(applicationId, job);
+        }
+        toTeardown.add(job.cluster);
+    }
+
+    private void teardown(C cluster) {
+        try {
+            operator.shutdown(cluster);
+            teardownCount.incrementAndGet();
+            LOG.info("teardown warm cluster {}", operator.getApplicationId(cluster));
+        } catch (Throwable e) {
+            LOG.error("teardown warm cluster {} error", operator.getApplicationId(cluster), e);
+        }
+    }
+
+    /**
+     * 集群操作
+     */
+    public interface ClusterOperator<C> {
+
+        /**
+         * 按任务模板启动一个空闲集群，集群启动完成后返回
+         */
+        C launch(JobClient template) throws Exception;
+
+        String getApplicationId(C cluster);
+
+        boolean isAlive(C cluster);
+
+        /**
+         * 集群上任务的状态，任务尚未出现时返回 null
+         */
+        TaskStatus getJobStatus(C cluster, String jobId) throws Exception;
+
+        void shutdown(C cluster) throws Exception;
+
+        /**
+         * 之前的进程启动、当前进程没有管理的集群
+         */
+        List<C> listOrphans() throws Exception;
+
+        /**
+         * 集群上未结束的任务，没有时返回 null
+         */
+        String getRunningJobId(C cluster) throws Exception;
+    }
+
+    private static class KeyState<C> {
+
+        private final Deque<Idle<C>> idle = new ArrayDeque<>();
+
+        private int launching = 0;
+
+        private JobClient template;
+
+        private long lastDemandTime;
+
+        private long lastLaunchFailTime;
+    }
+
+    private static class Idle<C> {
+
+        private final C cluster;
+
+        private final long createTime = System.currentTimeMillis();
+
+        Idle(C cluster) {
+            this.cluster = cluster;
+        }
+    }
+
+    private static class Attached<C> {
+
+        private final C cluster;
+
+        private final String jobId;
+
+        private final long submitTime;
+
+        private boolean running = false;
+
+        private long terminalTime = 0L;
+
+        Attached(C cluster, String jobId, long submitTime) {
+            this.cluster = cluster;
+            this.jobId = jobId;
+            this.submitTime = submitTime;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.flink.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * 用户 jar 中 lib/*.jar 的解压缓存
+ * <p>
+ * 按 jar 内容摘要解压到固定目录 {tmpdir}/flink-extracted-libs/{sha256}/，内容相同的 jar 只解压一次，
+ * 解压出的文件路径稳定，缓存的用户 ClassLoader 引用的文件不会随某次提交结束而被删除；
+ * jar 内容变化后摘要随之变化，自然使用新的目录
+ * <p>
+ * 每次使用时刷新目录的修改时间，解压新的 jar 后清理超过 {@link #MAX_IDLE_MILLIS} 未使用的目录，
+ * 目录数超过 {@link #MAX_DIRS} 时再清理超过 {@link #MIN_IDLE_MILLIS} 未使用的最旧目录；
+ * 最近使用的目录可能仍被缓存的 ClassLoader 引用，不清理，所以目录数上限不是严格的
+ *
+ * @author jiangbo
+ */
+public class ExtractedLibraryCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExtractedLibraryCache.class);
+
+    private static final String ROOT_DIR = "flink-extracted-libs";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final String LIB_PREFIX = "lib/";
+
+    private static final String JAR_SUFFIX = ".jar";
+
+    private static final long MAX_IDLE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final long MIN_IDLE_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private static final int MAX_DIRS = 64;
+
+    /**
+     * 刷新目录修改时间的最小间隔
+     */
+    private static final long TOUCH_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    /**
+     * jar 内容摘要 -> 解压出的文件
+     */
+    private static final Map<String, List<File>> EXTRACTED = new ConcurrentHashMap<>();
+
+    private ExtractedLibraryCache() {
+    }
+
+    /**
+     * 获取 jar 中包含的依赖，未解压或解压的文件已被删除时重新解压
+     *
+     * @param jarFile 用户 jar
+     * @return 解压出的文件，调用方不能删除
+     */
+    public static List<File> getOrExtract(URL jarFile) throws IOException {
+        File file;
+        try {
+            file = new File(jarFile.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("invalid jar file url " + jarFile, e);
+        }
+        String digest = SharedDependencyStore.digest(file);
+        File rootDir = new File(System.getProperty("java.io.tmpdir"), ROOT_DIR);
+        File targetDir = new File(rootDir, digest);
+        List<File> libraries = EXTRACTED.get(digest);
+        if (libraries != null && isComplete(libraries)) {
+            touch(targetDir);
+            return libraries;
+        }
+
+        synchronized (EXTRACTED) {
+            libraries = EXTRACTED.get(digest);
+            if (libraries == null || !isComplete(libraries)) {
+                libraries = extract(file, targetDir);
+                EXTRACTED.put(digest, libraries);
+                touch(targetDir);
+                evict(rootDir, digest);
+            }
+            return libraries;
+        }
+    }
+
+    private static void touch(File dir) {
+        long now = System.currentTimeMillis();
+        if (dir.isDirectory() && now - dir.lastModified() > TOUCH_INTERVAL_MILLIS && !dir.setLastModified(now)) {
+            LOG.warn("update last modified time of {} failed", dir);
+        }
+    }
+
+    /**
+     * 清理长时间未使用的解压目录，调用方持有 EXTRACTED 锁
+     */
+    private static void evict(File rootDir, String currentDigest) {
+        File[] dirs = rootDir.listFiles(dir -> dir.isDirectory() && !dir.getName().equals(currentDigest));
+        if (dirs == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<File> candidates = new ArrayList<>(Arrays.asList(dirs));
+        candidates.sort(Comparator.comparingLong(File::lastModified));
+        int remaining = candidates.size() + 1;
+        for (File dir : candidates) {
+            long idle = now - dir.lastModified();
+            if (idle > MAX_IDLE_MILLIS || (remaining > MAX_DIRS && idle > MIN_IDLE_MILLIS)) {
+                EXTRACTED.remove(dir.getName());
+                if (deleteDirectory(dir)) {
+                    remaining--;
+                    LOG.info("evict extracted libraries {}, idle {} ms", dir, idle);
+                }
+            }
+        }
+    }
+
+    private static boolean deleteDirectory(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    LOG.warn("delete extracted library {} failed", file);
+                }
+            }
+        }
+        return dir.delete();
+    }
+
+    private static boolean isComplete(List<File> libraries) {
+        for (File library : libraries) {
+            if (!library.isFile()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<File> extract(File file, File targetDir) throws IOException {
+        try (JarFile jar = new JarFile(file)) {
+            List<JarEntry> entries = jar.stream()
+                    .filter(entry -> entry.getName().length() > 8
+                            && entry.getName().startsWith(LIB_PREFIX)
+                            && entry.getName().endsWith(JAR_SUFFIX))
+                    .collect(Collectors.toList());
+            if (entries.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (!targetDir.isDirectory() && !targetDir.mkdirs() && !targetDir.isDirectory()) {
+                throw new IOException("create directory " + targetDir + " failed");
+            }
+
+            List<File> libraries = new ArrayList<>(entries.size());
+            for (JarEntry entry : entries) {
+                File target = new File(targetDir, entry.getName().replace('/', '_'));
+                // 进程重启前已解压的文件，长度一致时直接使用
+                if (!target.isFile() || entry.getSize() < 0 || target.length() != entry.getSize()) {
+                    File tmp = new File(targetDir, target.getName() + "." + UUID.randomUUID() + TMP_SUFFIX);
+                    try (InputStream input = jar.getInputStream(entry)) {
+                        Files.copy(input, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        move(tmp, target);
+                    } finally {
+                        Files.deleteIfExists(tmp.toPath());
+                    }
+                }
+                libraries.add(target);
+            }
+            LOG.info("extract {} libraries of {} to {}", libraries.size(), file, targetDir);
+            return Collections.unmodifiableList(libraries);
+        }
+    }
+
+    private static void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.flink.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.flink.api.common.JobID;
+import org.apache.flink.client.program.PackagedProgram;
+import org.apache.flink.client.program.PackagedProgramUtils;
+import org.apache.flink.configuration.Configuration;
+import org.apache.flink.runtime.jobgraph.JobGraph;
+import org.apache.flink.util.InstantiationUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 序列化后的 JobGraph 缓存
+ * <p>
+ * 以 (用户 jar 及 classpath 的内容摘要, 入口类, 程序参数, 并行度, savepoint 配置, flink 配置) 为 key，
+ * 命中时反序列化出新的 JobGraph 并分配新的 JobID，不再执行用户 main 方法生成执行计划；
+ * jar 内容变化后 key 随之变化，旧的缓存在过期后淘汰
+ * <p>
+ * 时间参数在提交前已经替换进任务内容，JobGraph 中的算子配置也来自任务内容，所以 key 使用完整的参数，
+ * 只对参数完全相同的重复提交(重试、重跑、不含时间参数的周期任务、语法检查)生效
+ *
+ * @author jiangbo
+ */
+public class JobGraphCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JobGraphCache.class);
+
+    private final Cache<String, byte[]> graphs;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public JobGraphCache(int maximumSize, long expireMinutes) {
+        this.graphs = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireMinutes, TimeUnit.MINUTES)
+                .build();
+    }
+
+    /**
+     * 获取 JobGraph，缓存中不存在时执行用户程序生成并放入缓存
+     *
+     * @param program       用户程序，缓存的 JobGraph 使用其 ClassLoader 反序列化
+     * @param configuration flink 配置
+     * @param parallelism   默认并行度
+     */
+    public JobGraph getOrCreate(PackagedProgram program, Configuration configuration, int parallelism) throws Exception {
+        String key = buildKey(program, configuration, parallelism);
+        byte[] serialized = graphs.getIfPresent(key);
+        if (serialized != null) {
+            try {
+                JobGraph jobGraph = InstantiationUtil.deserializeObject(serialized, program.getUserCodeClassLoader());
+                jobGraph.setJobID(new JobID());
+                // 与 PackagedProgramUtils.createJobGraph 一致，classpath 与 program 共用同一个列表
+                jobGraph.setClasspaths(program.getClasspaths());
+                // 生成缓存的程序解压出的临时依赖可能已被删除，换成当前程序的依赖
+                jobGraph.getUserJars().removeIf(jar -> isMissingLocalFile(jar.toUri()));
+                jobGraph.addJars(program.getJobJarAndDependencies());
+                hitCount.incrementAndGet();
+                return jobGraph;
+            } catch (Exception e) {
+                LOG.warn("deserialize cached job graph error, create it again", e);
+                graphs.invalidate(key);
+            }
+        }
+
+        missCount.incrementAndGet();
+        JobGraph jobGraph = PackagedProgramUtils.createJobGraph(program, configuration, parallelism, false);
+        // 提交过程会修改 JobGraph(上传 jar 后写入 blob key 等)，在提交前序列化
+        graphs.put(key, InstantiationUtil.serializeObject(jobGraph));
+        return jobGraph;
+    }
+
+    public Map<String, Long> getMetrics() {
+        Map<String, Long> metrics = new LinkedHashMap<>();
+        metrics.put("size", graphs.size());
+        metrics.put("hit", hitCount.get());
+        metrics.put("miss", missCount.get());
+        return metrics;
+    }
+
+    private String buildKey(PackagedProgram program, Configuration configuration, int parallelism) throws Exception {
+        Hasher hasher = Hashing.sha256().newHasher();
+        for (URL url : program.getJobJarAndDependencies()) {
+            putString(hasher, digest(url));
+        }
+        for (URL url : program.getClasspaths()) {
+            putString(hasher, digest(url));
+        }
+        putString(hasher, program.getMainClassName());
+        // 参数按位置原样参与计算，空白和空参数也会区分
+        String[] arguments = program.getArguments();
+        hasher.putInt(arguments.length);
+        for (int i = 0; i < arguments.length; i++) {
+            hasher.putInt(i).putBoolean(arguments[i] == null).putInt(arguments[i] == null ? 0 : arguments[i].length());
+            putString(hasher, arguments[i]);
+        }
+        hasher.putInt(parallelism);
+        putString(hasher, String.valueOf(program.getSavepointSettings()));
+        new TreeMap<>(configuration.toMap()).forEach((k, v) -> {
+            putString(hasher, k);
+            putString(hasher, v);
+        });
+        return hasher.hash().toString();
+    }
+
+    private String digest(URL url) throws Exception {
+        if (!"file".equalsIgnoreCase(url.getProtocol())) {
+            return url.toString();
+        }
+        File file = new File(url.toURI());
+        return file.isFile() ? SharedDependencyStore.digest(file) : url.toString();
+    }
+
+    private boolean isMissingLocalFile(URI uri) {
+        return (uri.getScheme() == null || "file".equalsIgnoreCase(uri.getScheme()))
+                && !new File(uri.getPath()).exists();
+    }
+
+    private void putString(Hasher hasher, String value) {
+        hasher.putString(StringUtils.defaultString(value), StandardCharsets.UTF_8).putByte((byte) 0);
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.flink.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.yarn.api.records.LocalResourceVisibility;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * per-job 模式下 jar 包等依赖的 hdfs 共享存储，按文件内容摘要寻址
+ * <p>
+ * 目录结构：
+ * <pre>
+ *   {root}/{sha256}/{fileName}     依赖文件，内容相同的文件整个集群只上传一次
+ *   {root}/.refs/{applicationId}   application 引用的摘要列表，每行一个
+ * </pre>
+ * 1. 文件先写到临时文件再 rename，多个提交并发上传同一个文件时只有一个生效；
+ * 2. root 及其上级目录对其他用户可执行时以 PUBLIC 注册，NodeManager 跨 application 复用本地缓存，否则以 APPLICATION 注册；
+ * 3. 清理时删除已结束 application 的引用，没有任何引用且超过保留时间未被使用的文件才会删除
+ * <p>
+ * keytab、集群配置等敏感或每次都不同的文件不放入共享存储，见 {@link #isShareable(String)}
+ *
+ * @author jiangbo
+ */
+public class SharedDependencyStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedDependencyStore.class);
+
+    public static final String REFS_DIR = ".refs";
+
+    private static final String TMP_SUFFIX = ".tmp";
+
+    private static final FsPermission DIR_PERMISSION = new FsPermission((short) 0755);
+
+    private static final FsPermission FILE_PERMISSION = new FsPermission((short) 0644);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 本地文件摘要缓存，key 为文件绝对路径，文件大小和修改时间变化后重新计算
+     */
+    private static final Cache<String, LocalDigest> LOCAL_DIGEST_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(10000)
+            .build();
+
+    private final FileSystem fileSystem;
+
+    private final Path root;
+
+    private final short replication;
+
+    private final LocalResourceVisibility visibility;
+
+    public SharedDependencyStore(FileSystem fileSystem, Path root, int replication, boolean preferPublic) throws IOException {
+        this.fileSystem = fileSystem;
+        this.root = fileSystem.makeQualified(root);
+        this.replication = (short) replication;
+        if (!fileSystem.exists(this.root)) {
+            fileSystem.mkdirs(this.root, DIR_PERMISSION);
+            fileSystem.setPermission(this.root, DIR_PERMISSION);
+        }
+        if (preferPublic && isAncestorsExecutable(this.root)) {
+            this.visibility = LocalResourceVisibility.PUBLIC;
+        } else {
+            if (preferPublic) {
+                LOG.warn("shared dependency dir {} or its ancestors is not executable by others, register dependencies with APPLICATION visibility", this.root);
+            }
+            this.visibility = LocalResourceVisibility.APPLICATION;
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public LocalResourceVisibility getVisibility() {
+        return visibility;
+    }
+
+    /**
+     * 只共享 jar 包和日志配置，其余文件仍然上传到 application 目录
+     */
+    public static boolean isShareable(String fileName) {
+        if (StringUtils.isBlank(fileName)) {
+            return false;
+        }
+        String lowerName = fileName.toLowerCase();
+        return lowerName.endsWith(".jar")
+                || lowerName.startsWith("log4j") && (lowerName.endsWith(".properties") || lowerName.endsWith(".xml"))
+                || lowerName.startsWith("logback") && lowerName.endsWith(".xml");
+    }
+
+    /**
+     * 获取本地文件在共享存储中的副本，不存在时上传
+     *
+     * @param localFile 本地文件
+     * @return 共享文件信息，共享存储中已有同名但内容不同的文件时返回 null，由调用方回退到 application 目录上传
+     */
+    public SharedArtifact acquire(File localFile) throws IOException {
+        String digest = digest(localFile);
+        Path entryDir = new Path(root, digest);
+        Path target = new Path(entryDir, localFile.getName());
+
+        FileStatus status = getFileStatus(target);
+        if (status != null) {
+            if (status.getLen() != localFile.length()) {
+                LOG.warn("shared dependency {} length {} not match local file {} length {}", target, status.getLen(), localFile, localFile.length());
+                return null;
+            }
+            // 更新目录修改时间作为最近使用时间，文件本身的修改时间需要与注册的 LocalResource 一致，不能改动
+            fileSystem.setTimes(entryDir, System.currentTimeMillis(), -1);
+            return new SharedArtifact(digest, status, 0L);
+        }
+
+        if (!fileSystem.exists(entryDir)) {
+            fileSystem.mkdirs(entryDir, DIR_PERMISSION);
+            fileSystem.setPermission(entryDir, DIR_PERMISSION);
+        }
+        Path tmp = new Path(entryDir, localFile.getName() + "." + UUID.randomUUID() + TMP_SUFFIX);
+        long uploadedBytes = 0L;
+        try {
+            fileSystem.copyFromLocalFile(false, true, new Path(localFile.toURI()), tmp);
+            fileSystem.setReplication(tmp, replication);
+            fileSystem.setPermission(tmp, FILE_PERMISSION);
+            if (fileSystem.rename(tmp, target)) {
+                uploadedBytes = localFile.length();
+                LOG.info("upload shared dependency {} to {}", localFile, target);
+            }
+        } finally {
+            if (fileSystem.exists(tmp)) {
+                fileSystem.delete(tmp, false);
+            }
+        }
+
+        // rename 失败说明其他提交已经上传了同一个文件
+        status = getFileStatus(target);
+        if (status == null || status.getLen() != localFile.length()) {
+            return null;
+        }
+        return new SharedArtifact(digest, status, uploadedBytes);
+    }
+
+    /**
+     * 记录 application 引用的依赖，清理时这些依赖不会被删除
+     */
+    public void addReferences(String applicationId, Collection<String> digests) throws IOException {
+        if (digests == null || digests.isEmpty()) {
+            return;
+        }
+        Path refFile = new Path(new Path(root, REFS_DIR), applicationId);
+        try (FSDataOutputStream output = fileSystem.create(refFile, true)) {
+            output.write(StringUtils.join(digests, "\n").getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * 清理共享存储
+     *
+     * @param isApplicationFinished application 是否已经结束
+     * @param retainMillis          没有引用的依赖最近一次使用后保留的时间
+     * @return 删除的依赖个数
+     */
+    public int clean(Predicate<String> isApplicationFinished, long retainMillis) throws IOException {
+        Set<String> referenced = new HashSet<>();
+        Path refsDir = new Path(root, REFS_DIR);
+        if (fileSystem.exists(refsDir)) {
+            for (FileStatus refFile : fileSystem.listStatus(refsDir)) {
+                String applicationId = refFile.getPath().getName();
+                if (isApplicationFinished.test(applicationId)) {
+                    fileSystem.delete(refFile.getPath(), false);
+                    continue;
+                }
+                referenced.addAll(readReferences(refFile.getPath()));
+            }
+        }
+
+        long expireTime = System.currentTimeMillis() - retainMillis;
+        int deleted = 0;
+        for (FileStatus entry : fileSystem.listStatus(root)) {
+            String name = entry.getPath().getName();
+            if (!entry.isDirectory() || REFS_DIR.equals(name) || referenced.contains(name)) {
+                continue;
+            }
+            if (entry.getModificationTime() < expireTime && fileSystem.delete(entry.getPath(), true)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            LOG.info("clean {} shared dependencies under {}", deleted, root);
+        }
+        return deleted;
+    }
+
+    private Set<String> readReferences(Path refFile) throws IOException {
+        Set<String> digests = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileSystem.open(refFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isNotBlank(line)) {
+                    digests.add(line.trim());
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // 并发清理时引用文件可能已被删除
+        }
+        return digests;
+    }
+
+    private FileStatus getFileStatus(Path path) throws IOException {
+        try {
+            return fileSystem.getFileStatus(path);
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * PUBLIC 资源要求 NodeManager 能以其他用户身份访问，root 及所有上级目录都需要对其他用户可执行
+     */
+    private boolean isAncestorsExecutable(Path path) throws IOException {
+        Path current = path;
+        while (current != null) {
+            FsPermission permission = fileSystem.getFileStatus(current).getPermission();
+            if (!permission.getOtherAction().implies(FsAction.EXECUTE)) {
+                return false;
+            }
+            current = current.getParent();
+        }
+        return true;
+    }
+
+    /**
+     * 计算本地文件的 sha256，文件未变化时使用缓存的结果
+     */
+    public static String digest(File localFile) throws IOException {
+        String cacheKey = localFile.getAbsolutePath();
+        LocalDigest cached = LOCAL_DIGEST_CACHE.getIfPresent(cacheKey);
+        if (cached != null && cached.length == localFile.length() && cached.lastModified == localFile.lastModified()) {
+            return cached.digest;
+        }
+        long length = localFile.length();
+        long lastModified = localFile.lastModified();
+        MessageDigest messageDigest;
+        try {
+            messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream input = new FileInputStream(localFile)) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                messageDigest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : messageDigest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        String digest = hex.toString();
+        LOCAL_DIGEST_CACHE.put(cacheKey, new LocalDigest(length, lastModified, digest));
+        return digest;
+    }
+
+    /**
+     * 共享存储中的依赖文件
+     */
+    public static class SharedArtifact {
+
+        private final String digest;
+
+        private final FileStatus fileStatus;
+
+        /**
+         * 本次实际上传的字节数，复用已有文件时为 0
+         */
+        private final long uploadedBytes;
+
+        SharedArtifact(String digest, FileStatus fileStatus, long uploadedBytes) {
+            this.digest = digest;
+            this.fileStatus = fileStatus;
+            this.uploadedBytes = uploadedBytes;
+        }
+
+        public String getDigest() {
+            return digest;
+        }
+
+        public FileStatus getFileStatus() {
+            return fileStatus;
+        }
+
+        public long getUploadedBytes() {
+            return uploadedBytes;
+        }
+    }
+
+    private static class LocalDigest {
+
+        private final long length;
+
+        private final long lastModified;
+
+        private final String digest;
+
+        LocalDigest(long length, long lastModified, String digest) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+    }
+}
@@ -20,7 +20,7 @@ package org.apache.flink.client;
 
 import com.dtstack.taier.pluginapi.exception.PluginDefineException;
 import com.dtstack.taier.flink.constant.ConfigConstant;
-import org.apache.commons.codec.digest.DigestUtils;
+import com.dtstack.taier.flink.util.SharedDependencyStore;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.flink.api.common.JobExecutionResult;
 import org.apache.flink.api.common.JobStatus;
@@ -48,7 +48,7 @@ import org.apache.flink.util.function.SupplierWithException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileInputStream;
+import java.io.File;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.Arrays;
@@ -229,22 +229,24 @@ public enum ClientUtils {
                 configuration.getString(CoreOptions.CLASSLOADER_RESOLVE_ORDER);
         FlinkUserCodeClassLoaders.ResolveOrder resolveOrder =
                 FlinkUserCodeClassLoaders.ResolveOrder.fromString(classLoaderResolveOrder);
-        final URLClassLoader classLoader = FlinkUserCodeClassLoaders.create(
-                resolveOrder, urls, parent, alwaysParentFirstLoaderPatterns, childFirstLoaderPatterns);
         if (cache) {
-            Arrays.sort(urls, Comparator.comparing(URL::toString));
-            String[] jarMd5s = new String[urls.length];
-            for (int i = 0; i < urls.length; ++i) {
-                try (FileInputStream inputStream = new FileInputStream(urls[i].getPath())){
-                    jarMd5s[i] = DigestUtils.md5Hex(inputStream);
+            URL[] sortedUrls = urls.clone();
+            Arrays.sort(sortedUrls, Comparator.comparing(URL::toString));
+            String[] jarDigests = new String[sortedUrls.length];
+            for (int i = 0; i < sortedUrls.length; ++i) {
+                try {
+                    // 文件未变化时使用缓存的摘要，不再每次提交都读取全部 jar
+                    jarDigests[i] = SharedDependencyStore.digest(new File(sortedUrls[i].getPath()));
                 } catch (Exception e) {
                     throw new PluginDefineException("Exceptions appears when read file:" + e);
                 }
             }
-            String keyCache = classLoaderResolveOrder + StringUtils.join(jarMd5s, "_");
-            return cacheClassLoader.computeIfAbsent(keyCache, k -> classLoader);
+            String keyCache = classLoaderResolveOrder + StringUtils.join(jarDigests, "_");
+            return cacheClassLoader.computeIfAbsent(keyCache, k -> FlinkUserCodeClassLoaders.create(
+                    resolveOrder, urls, parent, alwaysParentFirstLoaderPatterns, childFirstLoaderPatterns));
         } else {
-            return classLoader;
+            return FlinkUserCodeClassLoaders.create(
+                    resolveOrder, urls, parent, alwaysParentFirstLoaderPatterns, childFirstLoaderPatterns);
         }
     }
 
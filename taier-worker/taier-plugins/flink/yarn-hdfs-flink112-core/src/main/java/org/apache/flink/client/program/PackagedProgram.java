@@ -19,6 +19,7 @@
 package org.apache.flink.client.program;
 
 import com.dtstack.taier.base.enums.ClassLoaderType;
+import com.dtstack.taier.flink.util.ExtractedLibraryCache;
 import org.apache.flink.api.common.ProgramDescription;
 import org.apache.flink.client.ClientUtils;
 import org.apache.flink.configuration.Configuration;
@@ -86,6 +87,9 @@ public class PackagedProgram implements AutoCloseable {
 
     private final List<File> extractedTempLibraries;
 
+    /** 依赖解压在共享目录中，由 {@link ExtractedLibraryCache} 管理，不随程序删除 */
+    private final boolean sharedLibraries;
+
     private final List<URL> classpaths;
 
     private final URLClassLoader userCodeClassLoader;
@@ -134,18 +138,22 @@ public class PackagedProgram implements AutoCloseable {
 
         assert this.jarFile != null || entryPointClassName != null;
 
-        // now that we have an entry point, we can extract the nested jar files (if any)
-        this.extractedTempLibraries =
-                this.jarFile == null
-                        ? Collections.emptyList()
-                        : extractContainedLibraries(this.jarFile);
-
         boolean cache = true;
         String dtstackCache = configuration.getString(ClassLoaderType.CLASSLOADER_DTSTACK_CACHE, ClassLoaderType.CLASSLOADER_DTSTACK_CACHE_TRUE);
         if (dtstackCache.equalsIgnoreCase(ClassLoaderType.CLASSLOADER_DTSTACK_CACHE_FALSE)){
             cache = false;
         }
 
+        // now that we have an entry point, we can extract the nested jar files (if any)
+        // ClassLoader 会被缓存时依赖也解压到共享目录，避免每次提交重复解压，也避免缓存的 ClassLoader 引用已删除的文件
+        this.sharedLibraries = cache && this.jarFile != null;
+        this.extractedTempLibraries =
+                this.jarFile == null
+                        ? Collections.emptyList()
+                        : sharedLibraries
+                        ? extractSharedLibraries(this.jarFile)
+                        : extractContainedLibraries(this.jarFile);
+
         this.userCodeClassLoader = ClientUtils.buildUserCodeClassLoader(
                 getJobJarAndDependencies(),
                 classpaths,
@@ -296,7 +304,9 @@ public class PackagedProgram implements AutoCloseable {
 
     /** Deletes all temporary files created for contained packaged libraries. */
     public void deleteExtractedLibraries() {
-        deleteExtractedLibraries(this.extractedTempLibraries);
+        if (!sharedLibraries) {
+            deleteExtractedLibraries(this.extractedTempLibraries);
+        }
         this.extractedTempLibraries.clear();
     }
 
@@ -555,6 +565,15 @@ public class PackagedProgram implements AutoCloseable {
         }
     }
 
+    private static List<File> extractSharedLibraries(URL jarFile) throws ProgramInvocationException {
+        try {
+            return new ArrayList<>(ExtractedLibraryCache.getOrExtract(jarFile));
+        } catch (Throwable t) {
+            throw new ProgramInvocationException(
+                    "Unknown I/O error while extracting contained jar files.", t);
+        }
+    }
+
     private static File copyLibToTempFile(
             String name, Random rnd, JarFile jar, JarEntry input, byte[] buffer)
             throws ProgramInvocationException {
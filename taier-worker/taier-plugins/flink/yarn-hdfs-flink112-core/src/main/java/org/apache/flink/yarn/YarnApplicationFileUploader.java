@@ -19,6 +19,7 @@
 package org.apache.flink.yarn;
 
 import com.dtstack.taier.flink.constant.ConfigConstant;
+import com.dtstack.taier.flink.util.SharedDependencyStore;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.flink.api.java.tuple.Tuple2;
 import org.apache.flink.client.deployment.ClusterDeploymentException;
@@ -55,6 +56,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -95,6 +97,22 @@ class YarnApplicationFileUploader implements AutoCloseable {
 
     private Configuration flinkConfiguration;
 
+    /** content-addressed store shared by all applications, null if not configured */
+    private SharedDependencyStore sharedDependencyStore;
+
+    /** digests of the shared dependencies referenced by this application */
+    private final Set<String> sharedDigests = new LinkedHashSet<>();
+
+    /**
+     * keys of the resources registered from the shared dependency dir, they may be PUBLIC but
+     * still have to be added to the classpath
+     */
+    private final Set<String> sharedResourceKeys = new HashSet<>();
+
+    private long uploadedBytes;
+
+    private long sharedBytes;
+
     private YarnApplicationFileUploader(
             final FileSystem fileSystem,
             final Path homeDir,
@@ -140,6 +158,8 @@ class YarnApplicationFileUploader implements AutoCloseable {
         checkArgument(fileReplication >= 1);
         this.fileReplication = fileReplication;
         this.flinkConfiguration = flinkConfiguration;
+        this.sharedDependencyStore =
+                createSharedDependencyStore(fileSystem, flinkConfiguration, fileReplication);
     }
 
     Map<String, LocalResource> getRegisteredLocalResources() {
@@ -162,8 +182,31 @@ class YarnApplicationFileUploader implements AutoCloseable {
         return applicationDir;
     }
 
+    /** bytes actually uploaded for this application, including new shared dependencies */
+    long getUploadedBytes() {
+        return uploadedBytes;
+    }
+
+    /** bytes of the dependencies reused from the shared dependency dir */
+    long getSharedBytes() {
+        return sharedBytes;
+    }
+
     @Override
     public void close() {
+        if (sharedDependencyStore != null) {
+            try {
+                sharedDependencyStore.addReferences(applicationId.toString(), sharedDigests);
+            } catch (IOException e) {
+                LOG.warn("Failed to record shared dependency references of {}", applicationId, e);
+            }
+        }
+        LOG.info(
+                "Application {} uploaded {} bytes, reused {} bytes of {} shared dependencies",
+                applicationId,
+                uploadedBytes,
+                sharedBytes,
+                sharedDigests.size());
         IOUtils.closeQuietly(fileSystem);
     }
 
@@ -189,6 +232,41 @@ class YarnApplicationFileUploader implements AutoCloseable {
             final boolean whetherToAddToRemotePaths,
             final boolean whetherToAddToEnvShipResourceList)
             throws IOException {
+        return registerSingleLocalResource(
+                key,
+                resourcePath,
+                relativeDstPath,
+                resourceType,
+                whetherToAddToRemotePaths,
+                whetherToAddToEnvShipResourceList,
+                false);
+    }
+
+    /**
+     * Same as {@link #registerSingleLocalResource(String, Path, String, LocalResourceType,
+     * boolean, boolean)}, local dependencies are registered from the shared dependency dir when
+     * <tt>shareable</tt> is true and the dir is configured.
+     */
+    private YarnLocalResourceDescriptor registerSingleLocalResource(
+            final String key,
+            final Path resourcePath,
+            final String relativeDstPath,
+            final LocalResourceType resourceType,
+            final boolean whetherToAddToRemotePaths,
+            final boolean whetherToAddToEnvShipResourceList,
+            final boolean shareable)
+            throws IOException {
+
+        if (shareable && !Utils.isRemotePath(resourcePath.toString())) {
+            final YarnLocalResourceDescriptor sharedDescriptor =
+                    registerSharedLocalResource(key, resourcePath, resourceType);
+            if (sharedDescriptor != null) {
+                addToRemotePaths(whetherToAddToRemotePaths, sharedDescriptor.getPath());
+                addToEnvShipResourceList(whetherToAddToEnvShipResourceList, sharedDescriptor);
+                localResources.put(key, sharedDescriptor.toLocalResource());
+                return sharedDescriptor;
+            }
+        }
 
         addToRemotePaths(whetherToAddToRemotePaths, resourcePath);
 
@@ -322,9 +400,11 @@ class YarnApplicationFileUploader implements AutoCloseable {
                                 relativePath.getParent().toString(),
                                 resourceType,
                                 true,
+                                true,
                                 true);
 
-                if (!resourceDescriptor.alreadyRegisteredAsLocalResource()) {
+                if (!resourceDescriptor.alreadyRegisteredAsLocalResource()
+                        || sharedResourceKeys.contains(key)) {
                     if (key.endsWith("jar")) {
                         archives.add(relativePath.toString());
                     } else {
@@ -362,7 +442,8 @@ class YarnApplicationFileUploader implements AutoCloseable {
                         "",
                         LocalResourceType.FILE,
                         true,
-                        false);
+                        false,
+                        true);
         return flinkDist;
     }
 
@@ -427,11 +508,72 @@ class YarnApplicationFileUploader implements AutoCloseable {
                 fileSystem, homeDirectory, providedLibDirs, applicationId, fileReplication, flinkConfiguration);
     }
 
-    private Path copyToRemoteApplicationDir(
-            final Path localSrcPath, final String relativeDstPath, final int replicationFactor)
+    /**
+     * Registers a local dependency from the content-addressed shared dependency dir, uploading it
+     * only when no file with the same digest exists yet.
+     *
+     * @return the descriptor, or null if the file should be uploaded to the application dir
+     */
+    private YarnLocalResourceDescriptor registerSharedLocalResource(
+            final String key, final Path localPath, final LocalResourceType resourceType)
             throws IOException {
+        if (sharedDependencyStore == null
+                || !SharedDependencyStore.isShareable(localPath.getName())
+                || getRemoteLibPath(localPath) != null) {
+            return null;
+        }
+        final File localFile = new File(localPath.toUri().getPath());
+        final SharedDependencyStore.SharedArtifact artifact =
+                sharedDependencyStore.acquire(localFile);
+        if (artifact == null) {
+            return null;
+        }
+        sharedDigests.add(artifact.getDigest());
+        sharedResourceKeys.add(key);
+        uploadedBytes += artifact.getUploadedBytes();
+        if (artifact.getUploadedBytes() == 0) {
+            sharedBytes += artifact.getFileStatus().getLen();
+        }
+        LOG.debug(
+                "Using shared dependency {} to register local resource {}",
+                artifact.getFileStatus().getPath(),
+                key);
+        return YarnLocalResourceDescriptor.fromFileStatus(
+                key,
+                artifact.getFileStatus(),
+                sharedDependencyStore.getVisibility(),
+                resourceType);
+    }
 
-        // replace with remote directory
+    private static SharedDependencyStore createSharedDependencyStore(
+            final FileSystem fileSystem, final Configuration flinkConfiguration, final int fileReplication) {
+        String sharedDir =
+                flinkConfiguration == null
+                        ? null
+                        : flinkConfiguration.getString(ConfigConstant.SHARED_DEPENDENCY_DIR, null);
+        if (StringUtils.isBlank(sharedDir)) {
+            return null;
+        }
+        try {
+            return new SharedDependencyStore(
+                    fileSystem,
+                    new Path(sharedDir),
+                    fileReplication,
+                    flinkConfiguration.getBoolean(ConfigConstant.SHARED_DEPENDENCY_PUBLIC, true));
+        } catch (Exception e) {
+            LOG.warn(
+                    "Shared dependency dir {} is unavailable, upload dependencies to the application dir",
+                    sharedDir,
+                    e);
+            return null;
+        }
+    }
+
+    /** the pre-uploaded remote path of a file under the flink lib or chunjun dist dir */
+    private Path getRemoteLibPath(final Path localSrcPath) {
+        if (flinkConfiguration == null) {
+            return null;
+        }
         String remoteFlinkJarPath = flinkConfiguration.getString(ConfigConstant.REMOTE_FLINK_LIB_DIR, null);
         if(remoteFlinkJarPath != null && remoteFlinkJarPath.startsWith(ConfigConstant.PREFIX_HDFS)) {
             String remotePluginRootDir = flinkConfiguration.getString(ConfigConstant.REMOTE_CHUNJUN_DIST_DIR, null);
@@ -447,6 +589,18 @@ class YarnApplicationFileUploader implements AutoCloseable {
                 return new Path(path);
             }
         }
+        return null;
+    }
+
+    private Path copyToRemoteApplicationDir(
+            final Path localSrcPath, final String relativeDstPath, final int replicationFactor)
+            throws IOException {
+
+        // replace with remote directory
+        final Path remoteLibPath = getRemoteLibPath(localSrcPath);
+        if (remoteLibPath != null) {
+            return remoteLibPath;
+        }
 
         final Path applicationDir = getApplicationDirPath(homeDir, applicationId);
         final String suffix =
@@ -461,6 +615,7 @@ class YarnApplicationFileUploader implements AutoCloseable {
 
         fileSystem.copyFromLocalFile(false, true, localSrcPath, dst);
         fileSystem.setReplication(dst, (short) replicationFactor);
+        uploadedBytes += new File(localSrcPath.toUri().getPath()).length();
         return dst;
     }
 
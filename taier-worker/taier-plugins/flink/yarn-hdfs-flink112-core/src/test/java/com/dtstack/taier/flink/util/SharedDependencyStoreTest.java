@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.flink.util;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+public class SharedDependencyStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileSystem fileSystem;
+
+    private SharedDependencyStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        fileSystem = FileSystem.getLocal(new Configuration());
+        store = new SharedDependencyStore(fileSystem, new Path(folder.newFolder("shared").toURI()), 1, false);
+    }
+
+    @Test
+    public void testReuseByDigest() throws IOException {
+        File first = createLocalFile("first", "udf.jar", "udf-content");
+        File second = createLocalFile("second", "udf.jar", "udf-content");
+
+        SharedDependencyStore.SharedArtifact uploaded = store.acquire(first);
+        Assert.assertNotNull(uploaded);
+        Assert.assertEquals(first.length(), uploaded.getUploadedBytes());
+
+        // 内容相同的文件复用已上传的副本
+        SharedDependencyStore.SharedArtifact reused = store.acquire(second);
+        Assert.assertNotNull(reused);
+        Assert.assertEquals(0L, reused.getUploadedBytes());
+        Assert.assertEquals(uploaded.getDigest(), reused.getDigest());
+        Assert.assertEquals(uploaded.getFileStatus().getPath(), reused.getFileStatus().getPath());
+
+        File changed = createLocalFile("third", "udf.jar", "udf-content-v2");
+        SharedDependencyStore.SharedArtifact another = store.acquire(changed);
+        Assert.assertNotNull(another);
+        Assert.assertNotEquals(uploaded.getDigest(), another.getDigest());
+    }
+
+    @Test
+    public void testCleanStaleEntries() throws IOException {
+        SharedDependencyStore.SharedArtifact running = store.acquire(createLocalFile("a", "a.jar", "a"));
+        SharedDependencyStore.SharedArtifact finished = store.acquire(createLocalFile("b", "b.jar", "b"));
+        SharedDependencyStore.SharedArtifact recent = store.acquire(createLocalFile("c", "c.jar", "c"));
+        store.addReferences("application_1_0001", Collections.singletonList(running.getDigest()));
+        store.addReferences("application_1_0002", Collections.singletonList(finished.getDigest()));
+
+        long staleTime = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2);
+        fileSystem.setTimes(new Path(store.getRoot(), running.getDigest()), staleTime, -1);
+        fileSystem.setTimes(new Path(store.getRoot(), finished.getDigest()), staleTime, -1);
+
+        int deleted = store.clean("application_1_0002"::equals, TimeUnit.HOURS.toMillis(1));
+
+        Assert.assertEquals(1, deleted);
+        // 运行中 application 引用的依赖即使长时间未使用也保留
+        Assert.assertTrue(fileSystem.exists(new Path(store.getRoot(), running.getDigest())));
+        // 引用已结束且超过保留时间的依赖被删除
+        Assert.assertFalse(fileSystem.exists(new Path(store.getRoot(), finished.getDigest())));
+        Assert.assertFalse(fileSystem.exists(new Path(new Path(store.getRoot(), SharedDependencyStore.REFS_DIR), "application_1_0002")));
+        // 最近使用过的依赖在保留时间内不删除
+        Assert.assertTrue(fileSystem.exists(new Path(store.getRoot(), recent.getDigest())));
+    }
+
+    private File createLocalFile(String dir, String name, String content) throws IOException {
+        File parent = new File(folder.getRoot(), dir);
+        Assert.assertTrue(parent.isDirectory() || parent.mkdirs());
+        File file = new File(parent, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
@@ -24,6 +24,7 @@ import com.alibaba.fastjson.JSONObject;
 import com.dtstack.taier.base.resource.EngineResourceInfo;
 import com.dtstack.taier.base.util.HadoopConfTool;
 import com.dtstack.taier.base.util.KerberosUtils;
+import com.dtstack.taier.base.yarn.SharedYarnClient;
 import com.dtstack.taier.hadoop.parser.AddJarOperator;
 import com.dtstack.taier.hadoop.util.HadoopConf;
 import com.dtstack.taier.pluginapi.JarFileInfo;
@@ -94,6 +95,10 @@ public class HadoopClient extends AbstractClient {
     private EngineResourceInfo resourceInfo = new HadoopResourceInfo();
     private Configuration conf = new Configuration();
     private volatile YarnClient yarnClient;
+    /**
+     * 集群共享的 yarn 客户端，任务状态和诊断信息从其 application report 缓存读取
+     */
+    private SharedYarnClient sharedYarnClient;
     private Config config;
     private Map<String, List<String>> cacheFile = Maps.newConcurrentMap();
     private static final String YARN_RM_WEB_KEY_PREFIX = "yarn.resourcemanager.webapp.address.";
@@ -120,6 +125,7 @@ public class HadoopClient extends AbstractClient {
         setHadoopUserName(config);
 
         yarnClient = buildYarnClient();
+        sharedYarnClient = SharedYarnClient.getInstance(new YarnConfiguration(conf), config);
 
         LOG.info("UGI info: " + UserGroupInformation.getCurrentUser());
 
@@ -176,7 +182,7 @@ public class HadoopClient extends AbstractClient {
                 ApplicationId appId = generateApplicationId(jobId);
 
                 try {
-                    ApplicationReport report = getYarnClient().getApplicationReport(appId);
+                    ApplicationReport report = sharedYarnClient.getApplicationReport(appId);
                     YarnApplicationState applicationState = report.getYarnApplicationState();
                     switch (applicationState) {
                         case KILLED:
@@ -302,7 +308,7 @@ public class HadoopClient extends AbstractClient {
                 String jobId = jobIdentifier.getEngineJobId();
 
                 try {
-                    ApplicationReport applicationReport = getYarnClient().getApplicationReport(generateApplicationId(jobId));
+                    ApplicationReport applicationReport = sharedYarnClient.getApplicationReport(generateApplicationId(jobId));
                     return applicationReport.getDiagnostics();
                 } catch (Exception e) {
                     LOG.error("", e);
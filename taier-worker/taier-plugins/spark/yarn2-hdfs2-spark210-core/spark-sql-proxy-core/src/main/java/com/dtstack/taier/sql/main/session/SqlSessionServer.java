@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.sql.main.session;
+
+import com.dtstack.taier.base.util.Splitter;
+import com.dtstack.taier.base.util.SqlSessionProtocol;
+import com.dtstack.taier.sql.main.util.ZipUtil;
+import com.google.common.base.Charsets;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.spark.SparkConf;
+import org.apache.spark.SparkContext;
+import org.apache.spark.sql.SparkSession;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻的 spark sql 执行服务，一个 yarn application 内顺序复用同一个 driver 和 executor 执行多个 sql 任务
+ * <p>
+ * 1. 启动后监听随机端口，把 host、port、token 写到 {registerDir}/{applicationId}，客户端据此连接；
+ * 2. 每个任务使用独立的 SparkSession(newSession)，以任务 id 作为 job group，取消时 cancelJobGroup；
+ * 3. 协议为一行一个 json 的请求/响应，见 {@link SqlSessionProtocol}；
+ * 4. 没有运行中的任务超过 idleTimeout 秒后自行退出，释放 yarn 资源
+ * <p>
+ * master 为 local[*] 时同样可以运行，便于本地验证
+ *
+ * @author jiangbo
+ */
+public class SqlSessionServer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SqlSessionServer.class);
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final int ACCEPT_TIMEOUT_MILLIS = 1000;
+
+    private static final int READ_TIMEOUT_MILLIS = 30000;
+
+    private static final FsPermission REGISTER_FILE_PERMISSION = new FsPermission((short) 0600);
+
+    private final SparkSession spark;
+
+    private final String token = UUID.randomUUID().toString();
+
+    private final long idleTimeoutMillis;
+
+    private final long statusRetainMillis;
+
+    private final ExecutorService jobExecutor;
+
+    private final ExecutorService requestExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "sql-session-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, SqlSessionJob> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicInteger runningJobs = new AtomicInteger();
+
+    private volatile long lastActiveTime = System.currentTimeMillis();
+
+    private volatile boolean running = true;
+
+    public SqlSessionServer(SparkSession spark, int maxConcurrentJobs, long idleTimeoutSeconds, long statusRetainSeconds) {
+        this.spark = spark;
+        this.idleTimeoutMillis = TimeUnit.SECONDS.toMillis(idleTimeoutSeconds);
+        this.statusRetainMillis = TimeUnit.SECONDS.toMillis(statusRetainSeconds);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "sql-session-job-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public int getRunningJobs() {
+        return runningJobs.get();
+    }
+
+    /**
+     * 监听端口直到空闲超时或被停止
+     *
+     * @param registerDir 注册目录，为空时不注册(本地调试)
+     */
+    public void serve(String registerDir) throws IOException {
+        Path registerPath = null;
+        try (ServerSocket serverSocket = new ServerSocket(0)) {
+            serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLIS);
+            if (registerDir != null && registerDir.trim().length() > 0) {
+                registerPath = register(registerDir, serverSocket.getLocalPort());
+            }
+            LOG.info("sql session server listen on port {}", serverSocket.getLocalPort());
+            while (running) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    requestExecutor.execute(() -> handle(socket));
+                } catch (SocketTimeoutException e) {
+                    // 定期检查空闲时间
+                }
+                purgeFinishedJobs();
+                if (runningJobs.get() == 0 && System.currentTimeMillis() - lastActiveTime > idleTimeoutMillis) {
+                    LOG.info("sql session server is idle for {} ms, shutdown", idleTimeoutMillis);
+                    running = false;
+                }
+            }
+        } finally {
+            if (registerPath != null) {
+                try {
+                    FileSystem.get(spark.sparkContext().hadoopConfiguration()).delete(registerPath, false);
+                } catch (IOException e) {
+                    LOG.warn("delete register file {} error", registerPath, e);
+                }
+            }
+            jobExecutor.shutdownNow();
+            requestExecutor.shutdownNow();
+        }
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    private Path register(String registerDir, int port) throws IOException {
+        SparkContext sparkContext = spark.sparkContext();
+        FileSystem fs = FileSystem.get(sparkContext.hadoopConfiguration());
+        Path registerPath = new Path(registerDir, sparkContext.applicationId());
+        Map<String, Object> address = new HashMap<>();
+        address.put(SqlSessionProtocol.HOST, InetAddress.getLocalHost().getHostAddress());
+        address.put(SqlSessionProtocol.PORT, port);
+        address.put(SqlSessionProtocol.TOKEN, token);
+        Path tmpPath = new Path(registerDir, sparkContext.applicationId() + ".tmp");
+        try (FSDataOutputStream output = fs.create(tmpPath, true)) {
+            output.write(OBJECT_MAPPER.writeValueAsBytes(address));
+        }
+        fs.setPermission(tmpPath, REGISTER_FILE_PERMISSION);
+        // 写完后再 rename，客户端不会读到不完整的内容
+        fs.rename(tmpPath, registerPath);
+        LOG.info("register sql session server to {}", registerPath);
+        return registerPath;
+    }
+
+    private void handle(Socket socket) {
+        try (Socket client = socket;
+             BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), Charsets.UTF_8));
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), Charsets.UTF_8))) {
+            client.setSoTimeout(READ_TIMEOUT_MILLIS);
+            String line = reader.readLine();
+            Map<String, Object> response;
+            try {
+                response = process(line == null ? null : OBJECT_MAPPER.readValue(line, Map.class));
+            } catch (Exception e) {
+                LOG.warn("process request error", e);
+                response = SqlSessionProtocol.error(e.getMessage());
+            }
+            writer.write(OBJECT_MAPPER.writeValueAsString(response));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            LOG.warn("handle request error", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    Map<String, Object> process(Map<String, Object> request) {
+        if (request == null || !token.equals(request.get(SqlSessionProtocol.TOKEN))) {
+            return SqlSessionProtocol.error("invalid token");
+        }
+        String op = (String) request.get(SqlSessionProtocol.OP);
+        String jobId = (String) request.get(SqlSessionProtocol.JOB_ID);
+        if (SqlSessionProtocol.OP_PING.equals(op)) {
+            return response(null);
+        }
+        if (jobId == null) {
+            return SqlSessionProtocol.error("jobId can not be null");
+        }
+        if (SqlSessionProtocol.OP_SUBMIT.equals(op)) {
+            if (!running) {
+                return SqlSessionProtocol.error("sql session server is shutting down");
+            }
+            String sql = ZipUtil.unzip((String) request.get(SqlSessionProtocol.SQL));
+            Map<String, String> sessionConf = (Map<String, String>) request.get(SqlSessionProtocol.SESSION_CONF);
+            submit(jobId, sql, sessionConf);
+            return response(jobs.get(jobId));
+        } else if (SqlSessionProtocol.OP_STATUS.equals(op)) {
+            return response(jobs.get(jobId));
+        } else if (SqlSessionProtocol.OP_CANCEL.equals(op)) {
+            SqlSessionJob job = jobs.get(jobId);
+            if (job != null) {
+                job.cancel();
+            }
+            return response(job);
+        }
+        return SqlSessionProtocol.error("unsupported op " + op);
+    }
+
+    /**
+     * 提交任务，同一个 jobId 重复提交时(客户端超时重试)直接返回已有任务
+     */
+    public synchronized SqlSessionJob submit(String jobId, String sql, Map<String, String> sessionConf) {
+        SqlSessionJob existJob = jobs.get(jobId);
+        if (existJob != null) {
+            return existJob;
+        }
+        lastActiveTime = System.currentTimeMillis();
+        SqlSessionJob job = new SqlSessionJob(jobId, sql, sessionConf);
+        jobs.put(jobId, job);
+        runningJobs.incrementAndGet();
+        job.future = jobExecutor.submit(() -> {
+            // 排队期间已被取消的任务不再执行
+            if (!job.started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                job.run();
+            } finally {
+                runningJobs.decrementAndGet();
+                lastActiveTime = System.currentTimeMillis();
+            }
+        });
+        return job;
+    }
+
+    public SqlSessionJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    private Map<String, Object> response(SqlSessionJob job) {
+        Map<String, Object> response = new HashMap<>();
+        response.put(SqlSessionProtocol.CODE, SqlSessionProtocol.CODE_SUCCESS);
+        response.put(SqlSessionProtocol.RUNNING_JOBS, runningJobs.get());
+        if (job == null) {
+            response.put(SqlSessionProtocol.STATUS, SqlSessionProtocol.STATUS_NOT_FOUND);
+        } else {
+            response.put(SqlSessionProtocol.STATUS, job.status);
+            response.put(SqlSessionProtocol.MSG, job.errorMsg);
+        }
+        return response;
+    }
+
+    private void purgeFinishedJobs() {
+        long expireTime = System.currentTimeMillis() - statusRetainMillis;
+        jobs.values().removeIf(job -> job.endTime > 0 && job.endTime < expireTime);
+    }
+
+    /**
+     * 会话中执行的单个 sql 任务
+     */
+    public class SqlSessionJob {
+
+        private final String jobId;
+
+        private final String sql;
+
+        private final Map<String, String> sessionConf;
+
+        private volatile String status = SqlSessionProtocol.STATUS_WAITING;
+
+        private volatile String errorMsg;
+
+        private volatile boolean cancelled;
+
+        private volatile long endTime;
+
+        private volatile Future<?> future;
+
+        private final AtomicBoolean started = new AtomicBoolean(false);
+
+        SqlSessionJob(String jobId, String sql, Map<String, String> sessionConf) {
+            this.jobId = jobId;
+            this.sql = sql;
+            this.sessionConf = sessionConf;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getErrorMsg() {
+            return errorMsg;
+        }
+
+        void run() {
+            status = SqlSessionProtocol.STATUS_RUNNING;
+            SparkContext sparkContext = spark.sparkContext();
+            // job group 是线程级别的，同一线程内提交的 spark job 都归属该任务
+            sparkContext.setJobGroup(jobId, jobId, true);
+            try {
+                SparkSession session = spark.newSession();
+                applySessionConf(session);
+                Splitter splitter = new Splitter(';');
+                List<String> sqlArray = splitter.splitEscaped(sql);
+                for (String statement : sqlArray) {
+                    if (cancelled) {
+                        break;
+                    }
+                    if (statement == null || statement.trim().length() == 0) {
+                        continue;
+                    }
+                    LOG.info("job {} processed sql statement {}", jobId, statement);
+                    session.sql(statement);
+                }
+                finish(cancelled ? SqlSessionProtocol.STATUS_KILLED : SqlSessionProtocol.STATUS_FINISHED, null);
+            } catch (Throwable e) {
+                if (cancelled) {
+                    finish(SqlSessionProtocol.STATUS_KILLED, null);
+                } else {
+                    LOG.error("job {} run sql error", jobId, e);
+                    finish(SqlSessionProtocol.STATUS_FAILED, e.toString());
+                }
+            } finally {
+                sparkContext.clearJobGroup();
+            }
+        }
+
+        void cancel() {
+            if (endTime > 0) {
+                return;
+            }
+            cancelled = true;
+            if (started.compareAndSet(false, true)) {
+                // 还在排队的任务直接结束
+                runningJobs.decrementAndGet();
+                lastActiveTime = System.currentTimeMillis();
+                finish(SqlSessionProtocol.STATUS_KILLED, null);
+                return;
+            }
+            spark.sparkContext().cancelJobGroup(jobId);
+            Future<?> jobFuture = future;
+            if (jobFuture != null) {
+                jobFuture.cancel(true);
+            }
+        }
+
+        private void applySessionConf(SparkSession session) {
+            if (sessionConf == null) {
+                return;
+            }
+            for (Map.Entry<String, String> entry : sessionConf.entrySet()) {
+                try {
+                    session.conf().set(entry.getKey(), entry.getValue());
+                } catch (Exception e) {
+                    // spark.executor.memory 等静态配置不能在会话中修改
+                    LOG.warn("job {} ignore session conf {}={}: {}", jobId, entry.getKey(), entry.getValue(), e.getMessage());
+                }
+            }
+        }
+
+        private void finish(String finalStatus, String msg) {
+            errorMsg = msg;
+            status = finalStatus;
+            endTime = System.currentTimeMillis();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            throw new RuntimeException("must set args for sql session server!!!");
+        }
+        String argInfo = URLDecoder.decode(args[0], Charsets.UTF_8.name());
+        Map<String, Object> argsMap = OBJECT_MAPPER.readValue(argInfo, Map.class);
+
+        SparkSession spark = SparkSession
+                .builder()
+                .config(new SparkConf())
+                .enableHiveSupport()
+                .getOrCreate();
+        SqlSessionServer server = new SqlSessionServer(spark,
+                getInt(argsMap, SqlSessionProtocol.ARG_MAX_JOBS, 4),
+                getInt(argsMap, SqlSessionProtocol.ARG_IDLE_TIMEOUT, 600),
+                getInt(argsMap, SqlSessionProtocol.ARG_STATUS_RETAIN, 3600));
+        try {
+            server.serve((String) argsMap.get(SqlSessionProtocol.ARG_REGISTER_DIR));
+        } finally {
+            spark.close();
+        }
+    }
+
+    private static int getInt(Map<String, Object> argsMap, String key, int defaultValue) {
+        Object value = argsMap.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value.toString());
+    }
+}
@@ -23,7 +23,9 @@ import com.dtstack.taier.base.filesystem.FilesystemManager;
 import com.dtstack.taier.base.monitor.AcceptedApplicationMonitor;
 import com.dtstack.taier.base.util.HadoopConfTool;
 import com.dtstack.taier.base.util.KerberosUtils;
+import com.dtstack.taier.base.util.SqlSessionProtocol;
 import com.dtstack.taier.base.util.Splitter;
+import com.dtstack.taier.base.yarn.SharedYarnClient;
 import com.dtstack.taier.pluginapi.*;
 import com.dtstack.taier.pluginapi.client.AbstractClient;
 import com.dtstack.taier.pluginapi.enums.ComputeType;
@@ -42,11 +44,13 @@ import com.dtstack.taier.sparkyarn.sparkext.ClientExt;
 import com.dtstack.taier.sparkyarn.sparkext.ClientExtFactory;
 import com.dtstack.taier.sparkyarn.sparkyarn.constant.AppEnvConstant;
 import com.dtstack.taier.sparkyarn.sparkyarn.parser.AddJarOperator;
+import com.dtstack.taier.sparkyarn.sparkyarn.session.SparkSqlSessionPool;
 import com.dtstack.taier.sparkyarn.sparkyarn.util.HadoopConf;
 import com.google.common.base.Charsets;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -120,12 +124,19 @@ public class SparkYarnClient extends AbstractClient {
 
     private volatile YarnClient yarnClient;
 
+    /**
+     * 集群共享的 yarn 客户端，任务状态和诊断信息从其 application report 缓存读取
+     */
+    private SharedYarnClient sharedYarnClient;
+
     private Properties sparkExtProp;
 
     private FilesystemManager filesystemManager;
 
     private ThreadPoolExecutor threadPoolExecutor;
 
+    private volatile SparkSqlSessionPool sqlSessionPool;
+
     private static String userDir = System.getProperty("user.dir");
 
     private static final String SPARK_CONF_DIR = "sparkconf";
@@ -146,6 +157,7 @@ public class SparkYarnClient extends AbstractClient {
         parseWebAppAddr();
         logger.info("UGI info: " + UserGroupInformation.getCurrentUser());
         yarnClient = this.buildYarnClient();
+        sharedYarnClient = SharedYarnClient.getInstance(yarnConf, sparkYarnConfig);
 
         this.filesystemManager = new FilesystemManager(yarnConf, sparkYarnConfig.getSftpConf());
 
@@ -157,6 +169,9 @@ public class SparkYarnClient extends AbstractClient {
                 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory("spark_yarnclient"));
 
+        if (sparkYarnConfig.getSparkSqlSessionEnable()) {
+            this.sqlSessionPool = new SparkSqlSessionPool(sparkYarnConfig, yarnConf, this::getYarnClient);
+        }
     }
 
     private void initYarnConf(SparkYarnConfig sparkConfig){
@@ -407,6 +422,9 @@ public class SparkYarnClient extends AbstractClient {
         Map<String, Object> paramsMap = new HashMap<>();
 
         String zipSql = DtStringUtil.zip(jobClient.getSql());
+        if (sparkYarnConfig.getSparkSqlSessionEnable()) {
+            return submitSparkSqlJobToSession(jobClient, zipSql);
+        }
         paramsMap.put("sql", zipSql);
         paramsMap.put("appName", jobClient.getJobName());
         paramsMap.put("sparkSessionConf", getSparkSessionConf(confProp));
@@ -436,30 +454,76 @@ public class SparkYarnClient extends AbstractClient {
         argList.add("--arg");
         argList.add(sqlExeJson);
 
+        try {
+            ApplicationId appId = submitSqlApplication(jobClient, argList, jobClient.getJobName());
+            return JobResult.createSuccessResult(appId.toString());
+        } catch(Exception ex) {
+            return JobResult.createErrorResult("submit job get unknown error\n" + ExceptionUtil.getErrorMessage(ex));
+        }
+
+    }
+
+    /**
+     * 提交到常驻 sql 会话，相同队列、用户、资源配置的任务共享会话，避免每个任务启动一个 yarn application
+     */
+    private JobResult submitSparkSqlJobToSession(JobClient jobClient, String zipSql) {
+        Properties confProp = jobClient.getConfProperties();
+        String queue = sparkYarnConfig.getQueue();
+        String user = StringUtils.defaultString(sparkYarnConfig.getDtProxyUserName(), sparkYarnConfig.getHadoopUserName());
+        String sessionKey = queue + "|" + user + "|" + getResourceConfDigest(confProp);
+
+        return getSqlSessionPool().submit(sessionKey, () -> {
+            Map<String, Object> argsMap = new HashMap<>();
+            argsMap.put(SqlSessionProtocol.ARG_REGISTER_DIR, sparkYarnConfig.getSparkSqlSessionRegisterDir());
+            argsMap.put(SqlSessionProtocol.ARG_MAX_JOBS, sparkYarnConfig.getSparkSqlSessionMaxJobs());
+            argsMap.put(SqlSessionProtocol.ARG_IDLE_TIMEOUT, sparkYarnConfig.getSparkSqlSessionIdleSeconds());
+            String sessionArgs = URLEncoder.encode(PublicUtil.objToString(argsMap), Charsets.UTF_8.name());
+
+            List<String> argList = new ArrayList<>();
+            argList.add("--jar");
+            argList.add(sparkYarnConfig.getSparkSqlProxyPath());
+            argList.add("--class");
+            argList.add(sparkYarnConfig.getSparkSqlSessionMainClass());
+            argList.add("--arg");
+            argList.add(sessionArgs);
+            return submitSqlApplication(jobClient, argList, "taier_sql_session_" + queue);
+        }, jobClient.getJobId(), zipSql, getSparkSessionConf(confProp));
+    }
+
+    /**
+     * 资源相关配置(排除 session 级别参数和日志级别)的摘要，相同摘要的任务才能共享会话
+     */
+    private String getResourceConfDigest(Properties confProp) {
+        TreeMap<String, String> resourceConf = new TreeMap<>();
+        if (confProp != null) {
+            for (Map.Entry<Object, Object> param : confProp.entrySet()) {
+                String key = (String) param.getKey();
+                if (key.startsWith(SESSION_CONF_KEY_PREFIX) || LOG_LEVEL_KEY.equals(key)) {
+                    continue;
+                }
+                resourceConf.put(key, String.valueOf(param.getValue()));
+            }
+        }
+        return Hashing.md5().hashString(resourceConf.toString(), Charsets.UTF_8).toString();
+    }
+
+    private ApplicationId submitSqlApplication(JobClient jobClient, List<String> argList, String appName) throws Exception {
+        Properties confProp = jobClient.getConfProperties();
         ClientArguments clientArguments = new ClientArguments(argList.toArray(new String[argList.size()]));
         SparkConf sparkConf = buildBasicSparkConf(jobClient);
-        sparkConf.setAppName(jobClient.getJobName());
+        sparkConf.setAppName(appName);
         setSparkLog4jLocalFilePath(sparkConf, jobClient);
         fillExtSparkConf(sparkConf, confProp);
         setSparkLog4jConfiguration(sparkConf);
 
-        ApplicationId appId = null;
-
-        try {
-            ClientExt clientExt = ClientExtFactory.getClientExt(filesystemManager, clientArguments, yarnConf, sparkConf);
-            clientExt.setSparkYarnConfig(sparkYarnConfig);
-            String proxyUserName = sparkYarnConfig.getDtProxyUserName();
-            if (StringUtils.isNotBlank(proxyUserName)) {
-                logger.info("ugi proxyUser is {}", proxyUserName);
-                appId = UserGroupInformation.createProxyUser(proxyUserName, UserGroupInformation.getLoginUser()).doAs((PrivilegedExceptionAction<ApplicationId>) () -> clientExt.submitApplication(jobClient.getApplicationPriority()));
-            } else {
-                appId = clientExt.submitApplication(jobClient.getApplicationPriority());
-            }
-            return JobResult.createSuccessResult(appId.toString());
-        } catch(Exception ex) {
-            return JobResult.createErrorResult("submit job get unknown error\n" + ExceptionUtil.getErrorMessage(ex));
+        ClientExt clientExt = ClientExtFactory.getClientExt(filesystemManager, clientArguments, yarnConf, sparkConf);
+        clientExt.setSparkYarnConfig(sparkYarnConfig);
+        String proxyUserName = sparkYarnConfig.getDtProxyUserName();
+        if (StringUtils.isNotBlank(proxyUserName)) {
+            logger.info("ugi proxyUser is {}", proxyUserName);
+            return UserGroupInformation.createProxyUser(proxyUserName, UserGroupInformation.getLoginUser()).doAs((PrivilegedExceptionAction<ApplicationId>) () -> clientExt.submitApplication(jobClient.getApplicationPriority()));
         }
-
+        return clientExt.submitApplication(jobClient.getApplicationPriority());
     }
 
     private Map<String, String> getSparkSessionConf(Properties confProp){
@@ -592,6 +656,10 @@ public class SparkYarnClient extends AbstractClient {
         try {
             return KerberosUtils.login(sparkYarnConfig, ()->{
                 String jobId = jobIdentifier.getApplicationId();
+                if (SparkSqlSessionPool.isSessionJob(jobIdentifier.getEngineJobId())) {
+                    // 会话中的任务只取消对应的 job group，会话继续服务其他任务
+                    return getSqlSessionPool().cancel(jobId, jobIdentifier.getEngineJobId());
+                }
                 try {
                     ApplicationId appId = ConverterUtils.toApplicationId(jobId);
                     getYarnClient().killApplication(appId);
@@ -619,7 +687,10 @@ public class SparkYarnClient extends AbstractClient {
 
                 ApplicationId appId = ConverterUtils.toApplicationId(jobId);
                 try {
-                    ApplicationReport report = getYarnClient().getApplicationReport(appId);
+                    if (SparkSqlSessionPool.isSessionJob(jobIdentifier.getEngineJobId())) {
+                        return getSessionJobStatus(appId, jobIdentifier.getEngineJobId());
+                    }
+                    ApplicationReport report = sharedYarnClient.getApplicationReport(appId);
                     YarnApplicationState applicationState = report.getYarnApplicationState();
                     switch(applicationState) {
                         case KILLED:
@@ -663,6 +734,41 @@ public class SparkYarnClient extends AbstractClient {
         }
     }
 
+    /**
+     * 会话不可达时按会话 application 的状态判断：仍未结束说明只是网络抖动；
+     * 会话只有在没有运行中的任务并空闲超时后才会正常退出(FINISHED + SUCCEEDED)，此时任务已经结束，不视为失败；
+     * 会话被 kill 或异常退出时任务随会话一起结束
+     */
+    private TaskStatus getSessionJobStatus(ApplicationId appId, String engineJobId) throws Exception {
+        TaskStatus status = getSqlSessionPool().getJobStatus(appId.toString(), engineJobId);
+        if (status != null) {
+            return status;
+        }
+        ApplicationReport report = sharedYarnClient.getApplicationReport(appId);
+        switch (report.getYarnApplicationState()) {
+            case FINISHED:
+                return FinalApplicationStatus.SUCCEEDED == report.getFinalApplicationStatus() ? TaskStatus.FINISHED : TaskStatus.FAILED;
+            case KILLED:
+                return TaskStatus.KILLED;
+            case FAILED:
+                return TaskStatus.FAILED;
+            default:
+                return TaskStatus.RUNNING;
+        }
+    }
+
+    private SparkSqlSessionPool getSqlSessionPool() {
+        if (sqlSessionPool == null) {
+            // 关闭会话模式后仍需要查询之前提交到会话的任务
+            synchronized (this) {
+                if (sqlSessionPool == null) {
+                    sqlSessionPool = new SparkSqlSessionPool(sparkYarnConfig, yarnConf, this::getYarnClient);
+                }
+            }
+        }
+        return sqlSessionPool;
+    }
+
     @Override
     public String getJobMaster(JobIdentifier jobIdentifier) {
         //解析config,获取web-address
@@ -743,7 +849,11 @@ public class SparkYarnClient extends AbstractClient {
                 ApplicationId applicationId = ConverterUtils.toApplicationId(jobId);
 
                 try {
-                    ApplicationReport applicationReport = getYarnClient().getApplicationReport(applicationId);
+                    if (SparkSqlSessionPool.isSessionJob(jobIdentifier.getEngineJobId())) {
+                        sparkJobLog.addAppLog(jobId, getSqlSessionPool().getJobMessage(jobId, jobIdentifier.getEngineJobId()));
+                        return sparkJobLog.toString();
+                    }
+                    ApplicationReport applicationReport = sharedYarnClient.getApplicationReport(applicationId);
                     String msgInfo = applicationReport.getDiagnostics();
                     sparkJobLog.addAppLog(jobId, msgInfo);
                 } catch (Exception e) {
@@ -39,6 +39,10 @@ public class SparkYarnConfig extends BaseConfig {
 
     private static final String DEFAULT_SPARK_SQL_PROXY_MAINCLASS = "com.dtstack.taier.sql.main.SqlProxy";
 
+    private static final String DEFAULT_SPARK_SQL_SESSION_MAINCLASS = "com.dtstack.taier.sql.main.session.SqlSessionServer";
+
+    private static final String DEFAULT_SPARK_SQL_SESSION_REGISTER_DIR = "%s/user/spark/sql-session";
+
     public static final String DEFAULT_CARBON_SQL_PROXY_MAINCLASS = "com.dtstack.sql.main.CarbondataSqlProxy";
 
     private static final String HDFS_FLAG = "hdfs";
@@ -85,6 +89,38 @@ public class SparkYarnConfig extends BaseConfig {
     private int asyncCheckYarnClientThreadNum = 3;
     private String dtProxyUserName;
 
+    /**
+     * 是否使用常驻 sql 会话执行批处理 spark sql，默认每个任务启动一个 yarn application
+     */
+    private boolean sparkSqlSessionEnable = false;
+
+    private String sparkSqlSessionMainClass;
+
+    /**
+     * 会话服务注册地址的 hdfs 目录
+     */
+    private String sparkSqlSessionRegisterDir;
+
+    /**
+     * 每个队列、用户、资源配置下最多的会话数
+     */
+    private int sparkSqlSessionMaxSessions = 2;
+
+    /**
+     * 每个会话同时执行的任务数
+     */
+    private int sparkSqlSessionMaxJobs = 4;
+
+    /**
+     * 会话空闲多久后退出(秒)
+     */
+    private int sparkSqlSessionIdleSeconds = 600;
+
+    /**
+     * 等待会话启动的超时时间(秒)
+     */
+    private int sparkSqlSessionStartTimeoutSeconds = 300;
+
     public String getDtProxyUserName() {
         return dtProxyUserName;
     }
@@ -94,6 +130,73 @@ public class SparkYarnConfig extends BaseConfig {
     }
 
 
+    public boolean getSparkSqlSessionEnable() {
+        return sparkSqlSessionEnable;
+    }
+
+    public void setSparkSqlSessionEnable(boolean sparkSqlSessionEnable) {
+        this.sparkSqlSessionEnable = sparkSqlSessionEnable;
+    }
+
+    public String getSparkSqlSessionMainClass() {
+        if (Strings.isNullOrEmpty(sparkSqlSessionMainClass)) {
+            return DEFAULT_SPARK_SQL_SESSION_MAINCLASS;
+        }
+        return sparkSqlSessionMainClass;
+    }
+
+    public void setSparkSqlSessionMainClass(String sparkSqlSessionMainClass) {
+        this.sparkSqlSessionMainClass = sparkSqlSessionMainClass;
+    }
+
+    public String getSparkSqlSessionRegisterDir() {
+        if (Strings.isNullOrEmpty(sparkSqlSessionRegisterDir)) {
+            return String.format(DEFAULT_SPARK_SQL_SESSION_REGISTER_DIR, defaultFs);
+        }
+
+        if (!sparkSqlSessionRegisterDir.trim().startsWith(HDFS_FLAG)) {
+            sparkSqlSessionRegisterDir = defaultFs + sparkSqlSessionRegisterDir.trim();
+        }
+
+        return sparkSqlSessionRegisterDir;
+    }
+
+    public void setSparkSqlSessionRegisterDir(String sparkSqlSessionRegisterDir) {
+        this.sparkSqlSessionRegisterDir = sparkSqlSessionRegisterDir;
+    }
+
+    public int getSparkSqlSessionMaxSessions() {
+        return sparkSqlSessionMaxSessions;
+    }
+
+    public void setSparkSqlSessionMaxSessions(int sparkSqlSessionMaxSessions) {
+        this.sparkSqlSessionMaxSessions = sparkSqlSessionMaxSessions;
+    }
+
+    public int getSparkSqlSessionMaxJobs() {
+        return sparkSqlSessionMaxJobs;
+    }
+
+    public void setSparkSqlSessionMaxJobs(int sparkSqlSessionMaxJobs) {
+        this.sparkSqlSessionMaxJobs = sparkSqlSessionMaxJobs;
+    }
+
+    public int getSparkSqlSessionIdleSeconds() {
+        return sparkSqlSessionIdleSeconds;
+    }
+
+    public void setSparkSqlSessionIdleSeconds(int sparkSqlSessionIdleSeconds) {
+        this.sparkSqlSessionIdleSeconds = sparkSqlSessionIdleSeconds;
+    }
+
+    public int getSparkSqlSessionStartTimeoutSeconds() {
+        return sparkSqlSessionStartTimeoutSeconds;
+    }
+
+    public void setSparkSqlSessionStartTimeoutSeconds(int sparkSqlSessionStartTimeoutSeconds) {
+        this.sparkSqlSessionStartTimeoutSeconds = sparkSqlSessionStartTimeoutSeconds;
+    }
+
     public String getTypeName() {
         return typeName;
     }
@@ -0,0 +1,405 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.dtstack.taier.sparkyarn.sparkyarn.session;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.dtstack.taier.base.util.SqlSessionProtocol;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.dtstack.taier.pluginapi.exception.ExceptionUtil;
+import com.dtstack.taier.pluginapi.pojo.JobResult;
+import com.dtstack.taier.sparkyarn.sparkyarn.SparkYarnConfig;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.yarn.api.records.ApplicationId;
+import org.apache.hadoop.yarn.api.records.ApplicationReport;
+import org.apache.hadoop.yarn.api.records.YarnApplicationState;
+import org.apache.hadoop.yarn.client.api.YarnClient;
+import org.apache.hadoop.yarn.conf.YarnConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 常驻 spark sql 会话池
+ * <p>
+ * 相同队列、用户、资源配置的批处理 sql 共享会话(yarn application)，会话不足时启动新的会话，
+ * 达到上限后排队到负载最小的会话；会话空闲后由服务端自行退出，这里只在请求失败时移除
+ * <p>
+ * 提交到会话的任务 engineJobId 以 {@link #SESSION_JOB_PREFIX} 开头，applicationId 为会话的 applicationId，
+ * 取消任务只取消会话中的 job group，不会 kill 会话
+ *
+ * @author jiangbo
+ */
+public class SparkSqlSessionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SparkSqlSessionPool.class);
+
+    public static final String SESSION_JOB_PREFIX = "sqlsession_";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+
+    private static final int READ_TIMEOUT_MILLIS = 60 * 1000;
+
+    private static final long REGISTER_CHECK_INTERVAL_MILLIS = 2000L;
+
+    /**
+     * 探活间隔，间隔内的提交直接使用上次探活的结果
+     */
+    private static final long PING_INTERVAL_MILLIS = 10 * 1000L;
+
+    private static final EnumSet<YarnApplicationState> ENDED_STATES = EnumSet.of(
+            YarnApplicationState.FINISHED, YarnApplicationState.FAILED, YarnApplicationState.KILLED);
+
+    private final SparkYarnConfig sparkYarnConfig;
+
+    private final YarnConfiguration yarnConf;
+
+    private final Supplier<YarnClient> yarnClientSupplier;
+
+    /**
+     * key: 队列|用户|资源配置摘要
+     */
+    private final Map<String, List<SessionHandle>> sessions = new HashMap<>();
+
+    /**
+     * 正在启动的会话数，和 sessions 一起受 sessions 锁保护，启动前占用名额
+     */
+    private final Map<String, Integer> launching = new HashMap<>();
+
+    /**
+     * 会话 applicationId -> 会话地址，查询状态、取消时使用
+     */
+    private final Map<String, SessionHandle> addressCache = new ConcurrentHashMap<>();
+
+    public SparkSqlSessionPool(SparkYarnConfig sparkYarnConfig, YarnConfiguration yarnConf, Supplier<YarnClient> yarnClientSupplier) {
+        this.sparkYarnConfig = sparkYarnConfig;
+        this.yarnConf = yarnConf;
+        this.yarnClientSupplier = yarnClientSupplier;
+    }
+
+    public static boolean isSessionJob(String engineJobId) {
+        return engineJobId != null && engineJobId.startsWith(SESSION_JOB_PREFIX);
+    }
+
+    /**
+     * 提交 sql 到会话
+     *
+     * @param key         会话分组
+     * @param launcher    启动新会话，返回会话的 applicationId
+     * @param jobId       任务 id
+     * @param zipSql      压缩后的 sql
+     * @param sessionConf 任务级别的 session 参数
+     */
+    public JobResult submit(String key, Callable<ApplicationId> launcher, String jobId, String zipSql, Map<String, String> sessionConf) {
+        Map<String, Object> request = new HashMap<>();
+        request.put(SqlSessionProtocol.OP, SqlSessionProtocol.OP_SUBMIT);
+        request.put(SqlSessionProtocol.JOB_ID, jobId);
+        request.put(SqlSessionProtocol.SQL, zipSql);
+        request.put(SqlSessionProtocol.SESSION_CONF, sessionConf);
+
+        // 会话可能在选中后刚好空闲退出，失败后移除该会话重试一次
+        for (int i = 0; i < 2; i++) {
+            SessionHandle handle;
+            try {
+                handle = acquire(key, launcher);
+            } catch (Exception e) {
+                LOG.error("jobId:{} acquire sql session error", jobId, e);
+                return JobResult.createErrorResult("acquire spark sql session error\n" + ExceptionUtil.getErrorMessage(e));
+            }
+
+            try {
+                JSONObject response = send(handle, request);
+                if (response.getIntValue(SqlSessionProtocol.CODE) != SqlSessionProtocol.CODE_SUCCESS) {
+                    remove(key, handle);
+                    LOG.warn("jobId:{} submit to sql session {} rejected: {}", jobId, handle.appId, response.getString(SqlSessionProtocol.MSG));
+                    continue;
+                }
+                handle.runningJobs = response.getIntValue(SqlSessionProtocol.RUNNING_JOBS);
+                LOG.info("jobId:{} submitted to sql session {}, running jobs:{}", jobId, handle.appId, handle.runningJobs);
+                return JobResult.createSuccessResult(handle.appId, SESSION_JOB_PREFIX + jobId);
+            } catch (IOException e) {
+                LOG.warn("jobId:{} submit to sql session {} error, remove it", jobId, handle.appId, e);
+                remove(key, handle);
+            }
+        }
+        return JobResult.createErrorResult("submit job to spark sql session failed, jobId:" + jobId);
+    }
+
+    /**
+     * 会话不可达时返回 null，由调用方根据会话 application 状态判断
+     */
+    public TaskStatus getJobStatus(String appId, String engineJobId) {
+        JSONObject response = request(appId, engineJobId, SqlSessionProtocol.OP_STATUS);
+        if (response == null || response.getIntValue(SqlSessionProtocol.CODE) != SqlSessionProtocol.CODE_SUCCESS) {
+            return null;
+        }
+        String status = response.getString(SqlSessionProtocol.STATUS);
+        switch (status) {
+            case SqlSessionProtocol.STATUS_WAITING:
+                return TaskStatus.WAITCOMPUTE;
+            case SqlSessionProtocol.STATUS_RUNNING:
+                return TaskStatus.RUNNING;
+            case SqlSessionProtocol.STATUS_FINISHED:
+                return TaskStatus.FINISHED;
+            case SqlSessionProtocol.STATUS_FAILED:
+                return TaskStatus.FAILED;
+            case SqlSessionProtocol.STATUS_KILLED:
+                return TaskStatus.KILLED;
+            default:
+                return TaskStatus.NOTFOUND;
+        }
+    }
+
+    public JobResult cancel(String appId, String engineJobId) {
+        JSONObject response = request(appId, engineJobId, SqlSessionProtocol.OP_CANCEL);
+        if (response == null) {
+            // 会话已经退出，任务也随之结束
+            return JobResult.createSuccessResult(appId, engineJobId);
+        }
+        if (response.getIntValue(SqlSessionProtocol.CODE) != SqlSessionProtocol.CODE_SUCCESS) {
+            return JobResult.createErrorResult(response.getString(SqlSessionProtocol.MSG));
+        }
+        return JobResult.createSuccessResult(appId, engineJobId);
+    }
+
+    public String getJobMessage(String appId, String engineJobId) {
+        JSONObject response = request(appId, engineJobId, SqlSessionProtocol.OP_STATUS);
+        if (response == null) {
+            return "spark sql session " + appId + " is unreachable";
+        }
+        return response.getString(SqlSessionProtocol.MSG);
+    }
+
+    private JSONObject request(String appId, String engineJobId, String op) {
+        Map<String, Object> request = new HashMap<>();
+        request.put(SqlSessionProtocol.OP, op);
+        request.put(SqlSessionProtocol.JOB_ID, engineJobId.substring(SESSION_JOB_PREFIX.length()));
+        try {
+            SessionHandle handle = addressCache.get(appId);
+            if (handle == null) {
+                handle = readRegister(appId);
+                if (handle == null) {
+                    return null;
+                }
+                addressCache.put(appId, handle);
+            }
+            return send(handle, request);
+        } catch (IOException e) {
+            LOG.warn("request sql session {} op:{} error", appId, op, e);
+            addressCache.remove(appId);
+            return null;
+        }
+    }
+
+    private SessionHandle acquire(String key, Callable<ApplicationId> launcher) throws Exception {
+        // 探活有网络请求，不在锁内执行
+        List<SessionHandle> snapshot;
+        synchronized (sessions) {
+            snapshot = new ArrayList<>(sessions.getOrDefault(key, Collections.emptyList()));
+        }
+        List<SessionHandle> deadHandles = new ArrayList<>();
+        for (SessionHandle handle : snapshot) {
+            if (!isAlive(handle)) {
+                deadHandles.add(handle);
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(sparkYarnConfig.getSparkSqlSessionStartTimeoutSeconds());
+        synchronized (sessions) {
+            List<SessionHandle> handles = sessions.computeIfAbsent(key, k -> new ArrayList<>());
+            handles.removeAll(deadHandles);
+            while (true) {
+                SessionHandle leastLoaded = handles.stream()
+                        .min(Comparator.comparingInt(handle -> handle.runningJobs))
+                        .orElse(null);
+                boolean canLaunch = handles.size() + launching.getOrDefault(key, 0) < sparkYarnConfig.getSparkSqlSessionMaxSessions();
+                if (leastLoaded != null && (leastLoaded.runningJobs < sparkYarnConfig.getSparkSqlSessionMaxJobs() || !canLaunch)) {
+                    // 预先计数，避免同一批提交全部落到同一个会话
+                    leastLoaded.runningJobs++;
+                    return leastLoaded;
+                }
+                if (canLaunch) {
+                    // 在锁内占用名额，并发提交不会超过会话上限
+                    launching.merge(key, 1, Integer::sum);
+                    break;
+                }
+                // 名额都被正在启动的会话占用，等待启动完成
+                long waitMillis = deadline - System.currentTimeMillis();
+                if (waitMillis <= 0) {
+                    throw new IOException("wait spark sql session of " + key + " launch timeout");
+                }
+                sessions.wait(Math.min(waitMillis, REGISTER_CHECK_INTERVAL_MILLIS));
+            }
+        }
+
+        // 启动会话耗时较长，不在锁内等待
+        SessionHandle handle = null;
+        try {
+            handle = launch(launcher);
+            return handle;
+        } finally {
+            synchronized (sessions) {
+                launching.merge(key, -1, Integer::sum);
+                if (handle != null) {
+                    handle.runningJobs++;
+                    sessions.computeIfAbsent(key, k -> new ArrayList<>()).add(handle);
+                }
+                sessions.notifyAll();
+            }
+        }
+    }
+
+    private boolean isAlive(SessionHandle handle) {
+        if (System.currentTimeMillis() - handle.lastPingTime < PING_INTERVAL_MILLIS) {
+            return true;
+        }
+        try {
+            JSONObject response = send(handle, new HashMap<>(Collections.singletonMap(SqlSessionProtocol.OP, SqlSessionProtocol.OP_PING)));
+            handle.runningJobs = response.getIntValue(SqlSessionProtocol.RUNNING_JOBS);
+            handle.lastPingTime = System.currentTimeMillis();
+            return true;
+        } catch (IOException e) {
+            LOG.info("sql session {} is unreachable, remove it", handle.appId);
+            addressCache.remove(handle.appId);
+            return false;
+        }
+    }
+
+    private SessionHandle launch(Callable<ApplicationId> launcher) throws Exception {
+        ApplicationId applicationId = launcher.call();
+        String appId = applicationId.toString();
+        LOG.info("launch spark sql session {}", appId);
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(sparkYarnConfig.getSparkSqlSessionStartTimeoutSeconds());
+        try {
+            while (System.currentTimeMillis() < deadline) {
+                SessionHandle handle = readRegister(appId);
+                if (handle != null) {
+                    addressCache.put(appId, handle);
+                    return handle;
+                }
+                ApplicationReport report = yarnClientSupplier.get().getApplicationReport(applicationId);
+                if (ENDED_STATES.contains(report.getYarnApplicationState())) {
+                    throw new IOException("spark sql session " + appId + " exited before register, diagnostics:" + report.getDiagnostics());
+                }
+                Thread.sleep(REGISTER_CHECK_INTERVAL_MILLIS);
+            }
+        } catch (Exception e) {
+            killQuietly(applicationId);
+            throw e;
+        }
+        killQuietly(applicationId);
+        throw new IOException("wait spark sql session " + appId + " register timeout");
+    }
+
+    private void killQuietly(ApplicationId applicationId) {
+        try {
+            yarnClientSupplier.get().killApplication(applicationId);
+        } catch (Exception e) {
+            LOG.warn("kill spark sql session {} error", applicationId, e);
+        }
+    }
+
+    private void remove(String key, SessionHandle handle) {
+        synchronized (sessions) {
+            List<SessionHandle> handles = sessions.get(key);
+            if (handles != null) {
+                handles.remove(handle);
+            }
+        }
+        addressCache.remove(handle.appId);
+    }
+
+    private SessionHandle readRegister(String appId) throws IOException {
+        Path registerPath = new Path(sparkYarnConfig.getSparkSqlSessionRegisterDir(), appId);
+        FileSystem fs = registerPath.getFileSystem(yarnConf);
+        if (!fs.exists(registerPath)) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(fs.open(registerPath), StandardCharsets.UTF_8))) {
+            JSONObject register = JSON.parseObject(reader.readLine());
+            return new SessionHandle(appId,
+                    register.getString(SqlSessionProtocol.HOST),
+                    register.getIntValue(SqlSessionProtocol.PORT),
+                    register.getString(SqlSessionProtocol.TOKEN));
+        }
+    }
+
+    private JSONObject send(SessionHandle handle, Map<String, Object> request) throws IOException {
+        request.put(SqlSessionProtocol.TOKEN, handle.token);
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(handle.host, handle.port), CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(READ_TIMEOUT_MILLIS);
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            writer.write(JSON.toJSONString(request));
+            writer.newLine();
+            writer.flush();
+
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line = reader.readLine();
+            if (line == null) {
+                throw new IOException("sql session " + handle.appId + " closed connection without response");
+            }
+            return JSON.parseObject(line);
+        }
+    }
+
+    private static class SessionHandle {
+
+        private final String appId;
+
+        private final String host;
+
+        private final int port;
+
+        private final String token;
+
+        private volatile int runningJobs;
+
+        private volatile long lastPingTime;
+
+        SessionHandle(String appId, String host, int port, String token) {
+            this.appId = appId;
+            this.host = host;
+            this.port = port;
+            this.token = token;
+            this.lastPingTime = System.currentTimeMillis();
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package com.dtstack.taier.hdfs;
 
 
+import com.dtstack.taier.base.filesystem.FileSystemPool;
 import com.dtstack.taier.base.util.HadoopConfTool;
 import com.dtstack.taier.base.util.KerberosUtils;
 import com.dtstack.taier.pluginapi.JobClient;
@@ -60,11 +61,17 @@ public class DtHdfsClient extends AbstractClient {
         configuration =  this.initYarnConf(config.getYarnConf());
     }
 
+    /**
+     * 相同的集群配置复用同一个 Configuration，FileSystemPool 按配置复用连接
+     */
     private Configuration initYarnConf(Map<String, Object> conf){
         if(null == conf){
             return null;
         }
+        return FileSystemPool.getInstance().getConfiguration(conf, () -> buildConfiguration(conf));
+    }
 
+    private Configuration buildConfiguration(Map<String, Object> conf){
         Configuration  configuration = new Configuration();
 
         conf.keySet().forEach(key ->{
@@ -131,23 +138,14 @@ public class DtHdfsClient extends AbstractClient {
         try {
             configuration =  this.initYarnConf(config.getYarnConf());
             return KerberosUtils.login(config, () -> {
-                FileSystem fs = null;
-                try {
+                try (FileSystemPool.Lease lease = FileSystemPool.getInstance().borrow(configuration)) {
                     ByteArrayInputStream is = new ByteArrayInputStream(bytes.getBytes());
-                    fs = FileSystem.get(configuration);
                     Path destP = new Path(hdfsPath);
-                    FSDataOutputStream os = fs.create(destP);
+                    FSDataOutputStream os = lease.getFileSystem().create(destP);
                     IOUtils.copyBytes(is, os, 4096, true);
                 } catch (IOException e) {
                     LOG.error("submit file {} to hdfs error", hdfsPath,e);
                     throw new PluginDefineException("上传文件失败", e);
-                } finally {
-                    if (Objects.nonNull(fs)) {
-                        try {
-                            fs.close();
-                        } catch (IOException e) {
-                        }
-                    }
                 }
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("submit file {} to hdfs success.", hdfsPath);
@@ -175,24 +173,14 @@ public class DtHdfsClient extends AbstractClient {
                 return componentTestResult;
             }
             KerberosUtils.login(testConnectConf, () -> {
-                FileSystem fs = null;
-                try {
-                    Configuration configuration = this.initYarnConf(testConnectConf.getHadoopConf());
-                    fs = FileSystem.get(configuration);
-                    Path path = new Path(configuration.get("yarn.nodemanager.remote-app-log-dir"));
+                // 测试连通性使用独立的连接，不复用连接池中可能已建立的连接
+                try (FileSystem fs = FileSystem.newInstance(buildConfiguration(testConnectConf.getHadoopConf()))) {
+                    Path path = new Path(fs.getConf().get("yarn.nodemanager.remote-app-log-dir"));
                     fs.exists(path);
                 } catch (Exception e) {
                     componentTestResult.setResult(false);
                     componentTestResult.setErrorMsg(ExceptionUtil.getErrorMessage(e));
                     return componentTestResult;
-                } finally {
-                    if (null != fs) {
-                        try {
-                            fs.close();
-                        } catch (IOException e) {
-                            LOG.error("close file system error ", e);
-                        }
-                    }
                 }
 
                 componentTestResult.setResult(true);
@@ -212,11 +200,10 @@ public class DtHdfsClient extends AbstractClient {
         try {
             configuration = this.initYarnConf(config.getYarnConf());
             return KerberosUtils.login(config, () -> {
-                FileSystem fs = null;
-                try {
-                    Configuration configuration = this.initYarnConf(config.getHadoopConf());
+                Configuration hadoopConfiguration = this.initYarnConf(config.getHadoopConf());
+                try (FileSystemPool.Lease lease = FileSystemPool.getInstance().borrow(hadoopConfiguration)) {
+                    FileSystem fs = lease.getFileSystem();
                     List<FileResult> fileResults = new ArrayList<>();
-                    fs = FileSystem.get(configuration);
                     Path path = new Path(hdfsPath);
                     FileStatus[] fileStatuses;
                     if (isPathPattern) {
@@ -237,13 +224,6 @@ public class DtHdfsClient extends AbstractClient {
                 } catch (Exception e) {
                     LOG.error("list hdfs file {} error", hdfsPath, e);
                     throw new PluginDefineException("list file error", e);
-                } finally {
-                    if (Objects.nonNull(fs)) {
-                        try {
-                            fs.close();
-                        } catch (IOException e) {
-                        }
-                    }
                 }
             }, configuration);
         } catch (Exception e) {